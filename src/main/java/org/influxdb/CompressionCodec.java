@@ -0,0 +1,52 @@
+package org.influxdb;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses request bodies sent while compression is enabled with {@link InfluxDB#enableGzip()}. InfluxDB only
+ * decodes {@link #gzip(int)} bodies, other codecs are meant for proxies or relays in front of InfluxDB that
+ * decode their {@link #getContentEncoding()}. See {@link InfluxDB#setCompressionCodec(CompressionCodec)}
+ */
+public interface CompressionCodec {
+
+  /**
+   * @return the value of the {@code Content-Encoding} header of the compressed bodies
+   */
+  String getContentEncoding();
+
+  /**
+   * Returns a stream that compresses the bytes written to it into the given stream. Closing the returned stream
+   * completes the compressed bytes and closes the given stream.
+   *
+   * @param out the stream to write the compressed bytes to
+   * @return the stream to write the uncompressed bytes to
+   * @throws IOException if the compressed bytes cannot be written
+   */
+  OutputStream compress(OutputStream out) throws IOException;
+
+  /**
+   * The gzip codec, {@code gzip(Deflater.DEFAULT_COMPRESSION)} is used by default. A {@link Deflater} is reused
+   * per thread, so a thread must close a stream before it compresses with another one.
+   *
+   * @param level the compression level, {@link Deflater#DEFAULT_COMPRESSION} or from {@link Deflater#BEST_SPEED}
+   *              to {@link Deflater#BEST_COMPRESSION}
+   * @return a codec of the {@code gzip} content encoding
+   */
+  static CompressionCodec gzip(final int level) {
+    return new DeflateCompressionCodec(true, level);
+  }
+
+  /**
+   * The zlib wrapped deflate codec, which saves the header and the CRC-32 of gzip. A {@link Deflater} is reused
+   * per thread, so a thread must close a stream before it compresses with another one.
+   *
+   * @param level the compression level, {@link Deflater#DEFAULT_COMPRESSION} or from {@link Deflater#BEST_SPEED}
+   *              to {@link Deflater#BEST_COMPRESSION}
+   * @return a codec of the {@code deflate} content encoding
+   */
+  static CompressionCodec deflate(final int level) {
+    return new DeflateCompressionCodec(false, level);
+  }
+}
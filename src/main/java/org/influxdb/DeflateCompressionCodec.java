@@ -0,0 +1,89 @@
+package org.influxdb;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * The gzip and deflate codecs, which write the header and the trailer of their format around the raw deflate
+ * stream of a {@link Deflater} reused per thread.
+ */
+final class DeflateCompressionCodec implements CompressionCodec {
+
+  private static final ByteString GZIP_HEADER = ByteString.decodeHex("1f8b0800000000000000");
+  private static final ByteString ZLIB_HEADER = ByteString.decodeHex("789c");
+  private static final int BUFFER_SIZE = 8192;
+  private static final ThreadLocal<Deflater> DEFLATERS =
+      ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+  private final boolean gzip;
+  private final int level;
+
+  DeflateCompressionCodec(final boolean gzip, final int level) {
+    if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION)) {
+      throw new IllegalArgumentException("Expecting a compression level from 1 to 9 or -1 but was " + level);
+    }
+    this.gzip = gzip;
+    this.level = level;
+  }
+
+  @Override
+  public String getContentEncoding() {
+    if (gzip) {
+      return "gzip";
+    }
+    return "deflate";
+  }
+
+  @Override
+  public OutputStream compress(final OutputStream sink) throws IOException {
+    Buffer header = new Buffer();
+    Checksum checksum;
+    if (gzip) {
+      header.write(GZIP_HEADER);
+      checksum = new CRC32();
+    } else {
+      header.write(ZLIB_HEADER);
+      checksum = new Adler32();
+    }
+    header.writeTo(sink);
+    Deflater deflater = DEFLATERS.get();
+    deflater.reset();
+    deflater.setLevel(level);
+    DeflaterOutputStream deflating = new DeflaterOutputStream(sink, deflater, BUFFER_SIZE);
+
+    return new CheckedOutputStream(deflating, checksum) {
+      private boolean closed;
+
+      @Override
+      public void close() throws IOException {
+        if (closed) {
+          return;
+        }
+        closed = true;
+        deflating.finish();
+        Buffer trailer = new Buffer();
+        if (gzip) {
+          trailer.writeIntLe((int) checksum.getValue()).writeIntLe((int) deflater.getBytesRead());
+        } else {
+          trailer.writeInt((int) checksum.getValue());
+        }
+        trailer.writeTo(sink);
+        sink.close();
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return getContentEncoding() + "(" + level + ")";
+  }
+}
@@ -4,10 +4,16 @@ import org.influxdb.dto.BatchPoints;
 import org.influxdb.dto.Point;
 import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryCacheStats;
 import org.influxdb.dto.QueryResult;
+import org.influxdb.querybuilder.TimeRangeSplit;
 import retrofit2.Call;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
@@ -33,6 +39,19 @@ public interface InfluxDB extends AutoCloseable {
    */
   public static final String LOG_LEVEL_PROPERTY = "org.influxdb.InfluxDB.logLevel";
 
+  /**
+   * The default length in bytes of the url encoded command and parameters of a query above which they are sent
+   * in a POST request body instead of the URL.
+   * @see #setQueryFormBodyThreshold(int)
+   */
+  public static final int DEFAULT_QUERY_FORM_BODY_THRESHOLD = 4096;
+
+  /**
+   * The default length in bytes of a request body below which it is sent uncompressed although gzip is enabled.
+   * @see #setGzipThreshold(int)
+   */
+  public static final int DEFAULT_GZIP_THRESHOLD = 1024;
+
   /** Controls the level of logging of the REST layer. */
   public enum LogLevel {
     /** No logging. */
@@ -136,7 +155,9 @@ public interface InfluxDB extends AutoCloseable {
   public InfluxDB setLogLevel(final LogLevel logLevel);
 
   /**
-   * Enable Gzip compress for http request body.
+   * Enable Gzip compress for http request body. Bodies up to 4 MiB, batches included, are compressed before they
+   * are sent and a retry sends the compressed bytes again, larger bodies and streamed {@code InputStream} bodies
+   * are compressed while they are sent.
    * @return the InfluxDB instance to be able to use it in a fluent manner.
    */
   public InfluxDB enableGzip();
@@ -153,6 +174,131 @@ public interface InfluxDB extends AutoCloseable {
    */
   public boolean isGzipEnabled();
 
+  /**
+   * Set the compression level of gzip compressed request bodies, from {@link java.util.zip.Deflater#BEST_SPEED}
+   * to {@link java.util.zip.Deflater#BEST_COMPRESSION}. Defaults to
+   * {@link java.util.zip.Deflater#DEFAULT_COMPRESSION}. Same as
+   * {@code setCompressionCodec(CompressionCodec.gzip(level))}.
+   *
+   * @param level
+   *            the compression level from 1 to 9, or -1 for the default level.
+   * @return the InfluxDB instance to be able to use it in a fluent manner.
+   */
+  public InfluxDB setGzipLevel(final int level);
+
+  /**
+   * Set the length in bytes of a request body below which it is sent uncompressed although gzip is enabled, as
+   * compressing small bodies costs more time than it saves. Bodies of unknown length, such as batches, are
+   * measured while they are compressed, only streamed {@code InputStream} bodies are always compressed.
+   * Defaults to {@value #DEFAULT_GZIP_THRESHOLD}.
+   *
+   * @param threshold
+   *            the threshold in bytes, 0 to compress every body.
+   * @return the InfluxDB instance to be able to use it in a fluent manner.
+   */
+  public InfluxDB setGzipThreshold(final int threshold);
+
+  /**
+   * Set the codec that compresses request bodies while {@link #enableGzip()} is enabled. Defaults to
+   * {@code CompressionCodec.gzip(Deflater.DEFAULT_COMPRESSION)}, InfluxDB itself only decodes gzip.
+   *
+   * @param codec
+   *            the codec of the compressed request bodies.
+   * @return the InfluxDB instance to be able to use it in a fluent manner.
+   */
+  public InfluxDB setCompressionCodec(final CompressionCodec codec);
+
+  /**
+   * Enable gzip compressed responses, which is the default. Responses are requested with
+   * {@code Accept-Encoding: gzip} and decompressed while they are read, so chunked and MessagePack query results
+   * are still processed one chunk at a time.
+   * @return the InfluxDB instance to be able to use it in a fluent manner.
+   */
+  public InfluxDB enableResponseCompression();
+
+  /**
+   * Disable gzip compressed responses, e.g. if the server is on the same host and decompressing costs more time
+   * than the smaller transfer saves.
+   * @return the InfluxDB instance to be able to use it in a fluent manner.
+   */
+  public InfluxDB disableResponseCompression();
+
+  /**
+   * Returns whether gzip compressed responses are enabled.
+   * @return true if gzip compressed responses are enabled.
+   */
+  public boolean isResponseCompressionEnabled();
+
+  /**
+   * Enable the client-side cache of query results for {@link #query(Query)} and {@link #query(Query, TimeUnit)}.
+   * Cached results are shared by all callers and must not be modified.
+   *
+   * @param queryCacheOptions
+   *            the configuration of the cache.
+   * @return the InfluxDB instance to be able to use it in a fluent manner.
+   * @throws IllegalStateException if the query cache is already enabled.
+   */
+  public InfluxDB enableQueryCache(final QueryCacheOptions queryCacheOptions);
+
+  /**
+   * Disable the client-side cache of query results and drop all cached results.
+   *
+   * @return the InfluxDB instance to be able to use it in a fluent manner.
+   */
+  public InfluxDB disableQueryCache();
+
+  /**
+   * Returns whether the client-side cache of query results is enabled.
+   * @return true if the query cache is enabled.
+   */
+  public boolean isQueryCacheEnabled();
+
+  /**
+   * Returns the hit ratio and memory statistics of the client-side cache of query results.
+   * @return the statistics, or null if the query cache is disabled.
+   */
+  public QueryCacheStats getQueryCacheStats();
+
+  /**
+   * Enable coalescing of concurrent queries: callers of an equal read query (by {@link Query#equals(Object)} and
+   * precision) that is already in flight wait for it instead of sending their own call, and receive the same
+   * {@link QueryResult} instance. Results must therefore not be modified.
+   *
+   * @return the InfluxDB instance to be able to use it in a fluent manner.
+   */
+  public InfluxDB enableQueryCoalescing();
+
+  /**
+   * Disable coalescing of concurrent queries.
+   *
+   * @return the InfluxDB instance to be able to use it in a fluent manner.
+   */
+  public InfluxDB disableQueryCoalescing();
+
+  /**
+   * Returns whether coalescing of concurrent queries is enabled.
+   * @return true if query coalescing is enabled.
+   */
+  public boolean isQueryCoalescingEnabled();
+
+  /**
+   * Returns the number of queries that shared the call of an equal query in flight instead of sending their own.
+   * @return the number of coalesced queries.
+   */
+  public long getCoalescedQueryCount();
+
+  /**
+   * Set the length in bytes of the url encoded command and bound parameters of a query above which they are
+   * sent as an {@code application/x-www-form-urlencoded} POST request body instead of in the URL, to stay within
+   * the URL length limits of servers and proxies. Shorter read queries are still sent with GET. Defaults to
+   * {@value #DEFAULT_QUERY_FORM_BODY_THRESHOLD}.
+   *
+   * @param threshold
+   *            the threshold in bytes, {@link Integer#MAX_VALUE} to always send queries in the URL.
+   * @return the InfluxDB instance to be able to use it in a fluent manner.
+   */
+  public InfluxDB setQueryFormBodyThreshold(final int threshold);
+
   /**
    * Enable batching of single Point writes to speed up writes significantly. This is the same as calling
    * InfluxDB.enableBatch(BatchingOptions.DEFAULTS)
@@ -424,6 +570,79 @@ public interface InfluxDB extends AutoCloseable {
   public void write(final String database, final String retentionPolicy,
           final ConsistencyLevel consistency, final TimeUnit precision, final List<String> records);
 
+  /**
+   * Write a set of Points to the influxdb database with line protocol from a buffer, without decoding it into
+   * a String.
+   *
+   * @param database
+   *          the name of the database to write
+   * @param retentionPolicy
+   *          the retentionPolicy to use
+   * @param consistency
+   *          the ConsistencyLevel to use
+   * @param precision
+   *          the time precision to use
+   * @param records
+   *          the UTF-8 encoded points in the correct lineprotocol between the position and the limit of the
+   *          buffer, the position is not changed.
+   */
+  public void write(final String database, final String retentionPolicy,
+          final ConsistencyLevel consistency, final TimeUnit precision, final ByteBuffer records);
+
+  /**
+   * Write a set of Points to the influxdb database with line protocol from a byte array, without decoding it
+   * into a String.
+   *
+   * @param database
+   *          the name of the database to write
+   * @param retentionPolicy
+   *          the retentionPolicy to use
+   * @param consistency
+   *          the ConsistencyLevel to use
+   * @param precision
+   *          the time precision to use
+   * @param records
+   *          the UTF-8 encoded points in the correct lineprotocol.
+   */
+  public void write(final String database, final String retentionPolicy,
+          final ConsistencyLevel consistency, final TimeUnit precision, final byte[] records);
+
+  /**
+   * Write a set of Points to the influxdb database with line protocol streamed from an InputStream. The stream
+   * is read until its end while the request is sent, it is not closed. As it can only be read once, the request
+   * is not retried by the HTTP client.
+   *
+   * @param database
+   *          the name of the database to write
+   * @param retentionPolicy
+   *          the retentionPolicy to use
+   * @param consistency
+   *          the ConsistencyLevel to use
+   * @param precision
+   *          the time precision to use
+   * @param records
+   *          the UTF-8 encoded points in the correct lineprotocol.
+   */
+  public void write(final String database, final String retentionPolicy,
+          final ConsistencyLevel consistency, final TimeUnit precision, final InputStream records);
+
+  /**
+   * Write a set of Points to the influxdb database with line protocol streamed from a file.
+   *
+   * @param database
+   *          the name of the database to write
+   * @param retentionPolicy
+   *          the retentionPolicy to use
+   * @param consistency
+   *          the ConsistencyLevel to use
+   * @param precision
+   *          the time precision to use
+   * @param records
+   *          the file of UTF-8 encoded points in the correct lineprotocol.
+   */
+  public void write(final String database, final String retentionPolicy,
+          final ConsistencyLevel consistency, final TimeUnit precision, final Path records);
+
   /**
    * Write a set of Points to the influxdb database with the string records through UDP.
    *
@@ -467,6 +686,49 @@ public interface InfluxDB extends AutoCloseable {
    */
   public void query(final Query query, final Consumer<QueryResult> onSuccess, final Consumer<Throwable> onFailure);
 
+  /**
+   * Execute a query against a database asynchronously.
+   *
+   * Cancelling the returned future cancels the HTTP call. An unsuccessful response completes the future
+   * exceptionally with an {@link InfluxDBException}, an I/O error with the {@link java.io.IOException}.
+   *
+   * @param query
+   *            the query to execute.
+   * @return the future of the result.
+   */
+  public CompletableFuture<QueryResult> queryAsync(final Query query);
+
+  /**
+   * Execute a query against a database asynchronously with a deadline, see {@link #queryAsync(Query)}.
+   *
+   * @param query
+   *            the query to execute.
+   * @param timeout
+   *            the time after which the call is cancelled and the future completed exceptionally with an
+   *            {@link java.io.InterruptedIOException}, no deadline if not positive.
+   * @param timeoutUnit
+   *            the unit of the timeout.
+   * @return the future of the result.
+   */
+  public CompletableFuture<QueryResult> queryAsync(final Query query, long timeout, TimeUnit timeoutUnit);
+
+  /**
+   * Execute a query against a database asynchronously with a deadline, see {@link #queryAsync(Query)}.
+   *
+   * @param query
+   *            the query to execute.
+   * @param timeUnit
+   *            the time unit of the results, {@code null} for RFC3339 times.
+   * @param timeout
+   *            the time after which the call is cancelled and the future completed exceptionally with an
+   *            {@link java.io.InterruptedIOException}, no deadline if not positive.
+   * @param timeoutUnit
+   *            the unit of the timeout.
+   * @return the future of the result.
+   */
+  public CompletableFuture<QueryResult> queryAsync(final Query query, TimeUnit timeUnit, long timeout,
+                                                   TimeUnit timeoutUnit);
+
   /**
    * Execute a streaming query against a database.
    *
@@ -546,6 +808,80 @@ public interface InfluxDB extends AutoCloseable {
    */
   public QueryResult query(final Query query, TimeUnit timeUnit);
 
+  /**
+   * Execute several queries with as few requests as possible. Queries for the same database are sent as one
+   * multi-statement request, queries that cannot be combined (e.g. with bound parameters or for other databases)
+   * are sent in parallel requests. The queries must therefore not depend on each other's effects.
+   *
+   * @param queries
+   *            the queries to execute.
+   * @return one result per query, in the order of the queries.
+   */
+  public List<QueryResult> query(final List<Query> queries);
+
+  /**
+   * Execute the statements of a time range split with at most {@code maxConcurrency} requests in parallel and
+   * merge their results in time order into one result, as if the statement had been executed over the whole
+   * time range. The rows of a series are concatenated in time order (descending for {@code ORDER BY time DESC}),
+   * and the {@code OFFSET} and {@code LIMIT} of the statement are applied per series.
+   *
+   * @param split
+   *            the statements of the sub-ranges, see {@link TimeRangeSplit#of}.
+   * @param timeUnit the time unit of the results, {@code null} for RFC3339 times.
+   * @param maxConcurrency
+   *            the maximum number of statements executed at the same time.
+   * @return the merged result.
+   * @throws InfluxDBException if a statement fails or returns an error.
+   */
+  public QueryResult query(final TimeRangeSplit split, TimeUnit timeUnit, int maxConcurrency);
+
+  /**
+   * Execute the statements of a time range split with at most {@code maxConcurrency} requests in parallel and
+   * stream their results in time order, see {@link #query(TimeRangeSplit, TimeUnit, int)}. Like the chunks of a
+   * chunked query, consecutive results may contain rows of the same series. At most {@code maxConcurrency}
+   * results are held back while waiting for the result of an earlier sub-range.
+   *
+   * @param split
+   *            the statements of the sub-ranges, see {@link TimeRangeSplit#of}.
+   * @param timeUnit the time unit of the results, {@code null} for RFC3339 times.
+   * @param maxConcurrency
+   *            the maximum number of statements executed at the same time.
+   * @param onNext
+   *            the consumer to invoke with the rows of each sub-range, in time order.
+   * @param onComplete
+   *            the action to invoke after the last sub-range.
+   * @param onFailure
+   *            the consumer to invoke once if a statement fails or returns an error, the statements in flight are
+   *            then cancelled.
+   */
+  public void query(final TimeRangeSplit split, TimeUnit timeUnit, int maxConcurrency,
+                    Consumer<QueryResult> onNext, Runnable onComplete, Consumer<Throwable> onFailure);
+
+  /**
+   * Execute several queries with as few requests as possible, see {@link #query(List)}.
+   *
+   * @param queries
+   *            the queries to execute.
+   * @param timeUnit the time unit of the results, {@code null} for RFC3339 times.
+   * @return one result per query, in the order of the queries.
+   */
+  public List<QueryResult> query(final List<Query> queries, TimeUnit timeUnit);
+
+  /**
+   * Execute several queries asynchronously with as few requests as possible, see {@link #query(List)}.
+   *
+   * @param queries
+   *            the queries to execute.
+   * @param timeUnit the time unit of the results, {@code null} for RFC3339 times.
+   * @param onSuccess
+   *            the consumer to invoke with one result per query, in the order of the queries, once all requests
+   *            succeeded
+   * @param onFailure
+   *            the consumer to invoke once when a request failed
+   */
+  public void query(final List<Query> queries, TimeUnit timeUnit, final Consumer<List<QueryResult>> onSuccess,
+                    final Consumer<Throwable> onFailure);
+
   /**
    * Create a new Database.
    *
@@ -0,0 +1,136 @@
+package org.influxdb;
+
+/**
+ * QueryCacheOptions are used to configure the client-side cache of query results.
+ * See {@link InfluxDB#enableQueryCache(QueryCacheOptions)}
+ * <p>
+ * How long a result is cached depends on the time range of the query: a query that uses {@code now()} gets the
+ * {@link #nowRelativeTtl(int)}, a query whose {@code time} upper bounds are all absolute and in the past gets the
+ * {@link #historicalTtl(int)}, any other query gets the {@link #ttl(int)}.
+ * <p>
+ * With {@link #slidingWindows(boolean)} an expired result of a query built by
+ * {@link org.influxdb.querybuilder.BuiltQuery.QueryBuilder} over a time range relative to {@code now()} and grouped
+ * by {@code time(...)} is refreshed by querying only the oldest and the newest intervals, see
+ * {@link org.influxdb.querybuilder.SlidingWindow}.
+ */
+public final class QueryCacheOptions implements Cloneable {
+
+  /**
+   * Default query cache options. This class is immutable, each configuration
+   * is built by taking the DEFAULTS and setting specific configuration
+   * properties.
+   */
+  public static final QueryCacheOptions DEFAULTS = new QueryCacheOptions();
+
+  public static final long DEFAULT_MAX_BYTES = 32 * 1024 * 1024;
+  public static final int DEFAULT_TTL = 5000;
+  public static final int DEFAULT_NOW_RELATIVE_TTL = 1000;
+  public static final int DEFAULT_HISTORICAL_TTL = 3600000;
+
+  private long maxBytes = DEFAULT_MAX_BYTES;
+  private int ttl = DEFAULT_TTL;
+  private int nowRelativeTtl = DEFAULT_NOW_RELATIVE_TTL;
+  private int historicalTtl = DEFAULT_HISTORICAL_TTL;
+  private boolean slidingWindows;
+
+  private QueryCacheOptions() {
+  }
+
+  /**
+   * @param maxBytes the estimated size of all cached results at most, least recently used results are evicted
+   * @return the QueryCacheOptions instance to be able to use it in a fluent manner.
+   */
+  public QueryCacheOptions maxBytes(final long maxBytes) {
+    QueryCacheOptions clone = getClone();
+    clone.maxBytes = maxBytes;
+    return clone;
+  }
+
+  /**
+   * @param ttl the time to cache results of queries without an absolute time range (milliseconds).
+   * @return the QueryCacheOptions instance to be able to use it in a fluent manner.
+   */
+  public QueryCacheOptions ttl(final int ttl) {
+    QueryCacheOptions clone = getClone();
+    clone.ttl = ttl;
+    return clone;
+  }
+
+  /**
+   * @param nowRelativeTtl the time to cache results of queries using {@code now()} (milliseconds).
+   * @return the QueryCacheOptions instance to be able to use it in a fluent manner.
+   */
+  public QueryCacheOptions nowRelativeTtl(final int nowRelativeTtl) {
+    QueryCacheOptions clone = getClone();
+    clone.nowRelativeTtl = nowRelativeTtl;
+    return clone;
+  }
+
+  /**
+   * @param historicalTtl the time to cache results of queries with absolute {@code time} upper bounds in the
+   *                      past (milliseconds).
+   * @return the QueryCacheOptions instance to be able to use it in a fluent manner.
+   */
+  public QueryCacheOptions historicalTtl(final int historicalTtl) {
+    QueryCacheOptions clone = getClone();
+    clone.historicalTtl = historicalTtl;
+    return clone;
+  }
+
+  /**
+   * @param slidingWindows true to refresh sliding window queries incrementally. Points written late into
+   *                       intervals that are not queried again are only seen after the historical TTL, when the
+   *                       complete window is queried again.
+   * @return the QueryCacheOptions instance to be able to use it in a fluent manner.
+   */
+  public QueryCacheOptions slidingWindows(final boolean slidingWindows) {
+    QueryCacheOptions clone = getClone();
+    clone.slidingWindows = slidingWindows;
+    return clone;
+  }
+
+  /**
+   * @return the estimated size of all cached results at most
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * @return the time to cache results of queries without an absolute time range (milliseconds).
+   */
+  public int getTtl() {
+    return ttl;
+  }
+
+  /**
+   * @return the time to cache results of queries using {@code now()} (milliseconds).
+   */
+  public int getNowRelativeTtl() {
+    return nowRelativeTtl;
+  }
+
+  /**
+   * @return the time to cache results of queries with absolute {@code time} upper bounds in the past
+   * (milliseconds).
+   */
+  public int getHistoricalTtl() {
+    return historicalTtl;
+  }
+
+  /**
+   * @return true if sliding window queries are refreshed incrementally
+   */
+  public boolean isSlidingWindows() {
+    return slidingWindows;
+  }
+
+  private QueryCacheOptions getClone() {
+    try {
+      return (QueryCacheOptions) this.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+}
@@ -0,0 +1,297 @@
+package org.influxdb.annotation.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Measurement;
+import org.influxdb.impl.MeasurementCodec;
+
+/**
+ * Generates a {@link MeasurementCodec} for every class annotated with {@link Measurement}.
+ * <p>
+ * The generated codec encodes an object to a {@link org.influxdb.dto.Point} and decodes query result values by
+ * column index with plain field access, so {@link org.influxdb.impl.InfluxDBMapper} and
+ * {@link org.influxdb.impl.InfluxDBResultMapper} need neither reflection nor a reflection configuration for
+ * native images. The processor is not registered as a service; enable it explicitly, e.g. with
+ * {@code javac -processor org.influxdb.annotation.processor.MeasurementCodecProcessor} or in the
+ * {@code annotationProcessors} of the maven-compiler-plugin.
+ * <p>
+ * A codec is only generated when the class can be written without reflection: a static class with a non-private
+ * no-arg constructor whose {@link Column} fields are neither private, final nor static and of a type supported by
+ * the mappers. Other classes are reported with a note and keep being mapped by reflection.
+ */
+public class MeasurementCodecProcessor extends AbstractProcessor {
+
+  private static final String TIME_COLUMN = "time";
+
+  private final Set<String> generated = new HashSet<>();
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton(Measurement.class.getName());
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getElementsAnnotatedWith(Measurement.class)) {
+      if (element.getKind() != ElementKind.CLASS) {
+        continue;
+      }
+      TypeElement type = (TypeElement) element;
+      if (!generated.add(type.getQualifiedName().toString())) {
+        continue;
+      }
+      List<ColumnField> columns = new ArrayList<>();
+      String reason = checkType(type, columns);
+      if (reason != null) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+            "No " + MeasurementCodec.class.getSimpleName() + " generated, " + reason, type);
+        continue;
+      }
+      try {
+        writeCodec(type, columns);
+      } catch (IOException e) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+            "Failed to write the " + MeasurementCodec.class.getSimpleName() + ": " + e, type);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the reason why no codec can be generated, or {@code null}
+   */
+  private String checkType(final TypeElement type, final List<ColumnField> columns) {
+    if (type.getModifiers().contains(Modifier.ABSTRACT) || !type.getTypeParameters().isEmpty()) {
+      return "the class is abstract or generic";
+    }
+    for (Element enclosing = type; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+      TypeElement enclosingType = (TypeElement) enclosing;
+      if (enclosingType.getModifiers().contains(Modifier.PRIVATE)
+          || enclosingType.getNestingKind() == NestingKind.LOCAL
+          || enclosingType.getNestingKind() == NestingKind.ANONYMOUS
+          || (enclosingType.getNestingKind() == NestingKind.MEMBER
+              && !enclosingType.getModifiers().contains(Modifier.STATIC))) {
+        return "the class is not accessible from its package";
+      }
+    }
+    boolean constructor = false;
+    for (Element member : type.getEnclosedElements()) {
+      if (member.getKind() == ElementKind.CONSTRUCTOR && ((ExecutableElement) member).getParameters().isEmpty()
+          && !member.getModifiers().contains(Modifier.PRIVATE)) {
+        constructor = true;
+      }
+      if (member.getKind() != ElementKind.FIELD || member.getAnnotation(Column.class) == null) {
+        continue;
+      }
+      Set<Modifier> modifiers = member.getModifiers();
+      if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)
+          || modifiers.contains(Modifier.STATIC)) {
+        return "field '" + member.getSimpleName() + "' is private, final or static";
+      }
+      Column column = member.getAnnotation(Column.class);
+      ColumnField columnField = new ColumnField((VariableElement) member, column.name(), column.tag());
+      if (columnField.kind == null) {
+        return "field '" + member.getSimpleName() + "' is of the unsupported type " + member.asType();
+      }
+      if (!column.tag() && TIME_COLUMN.equals(column.name()) != (columnField.kind == Kind.INSTANT)) {
+        return "field '" + member.getSimpleName() + "' must be the Instant time column";
+      }
+      columns.add(columnField);
+    }
+    if (!constructor) {
+      return "the class has no accessible no-arg constructor";
+    }
+    return null;
+  }
+
+  private void writeCodec(final TypeElement type, final List<ColumnField> columns) throws IOException {
+    Elements elements = processingEnv.getElementUtils();
+    PackageElement packageElement = elements.getPackageOf(type);
+    String packageName = packageElement.getQualifiedName().toString();
+    String binaryName = elements.getBinaryName(type).toString();
+    String flatName = binaryName;
+    if (!packageElement.isUnnamed()) {
+      flatName = binaryName.substring(packageName.length() + 1);
+    }
+    // nested classes keep the '$' of their binary name, so Outer.Cpu and a top-level Outer_Cpu get distinct codecs
+    String codecName = flatName + MeasurementCodec.CLASS_NAME_SUFFIX;
+    String modelType = type.getQualifiedName().toString();
+    Measurement measurement = type.getAnnotation(Measurement.class);
+    String timeUnit = TimeUnit.class.getName() + "." + measurement.timeUnit().name();
+
+    StringBuilder code = new StringBuilder();
+    if (!packageElement.isUnnamed()) {
+      code.append("package ").append(packageName).append(";\n\n");
+    }
+    code.append("/**\n * Generated by ").append(getClass().getName()).append(", do not edit.\n */\n")
+        .append("public final class ").append(codecName).append(" implements ")
+        .append(MeasurementCodec.class.getName()).append('<').append(modelType).append("> {\n\n");
+
+    code.append("  @Override\n  public org.influxdb.dto.Point toPoint(final ").append(modelType).append(" model) {\n")
+        .append("    org.influxdb.dto.Point.Builder builder = org.influxdb.dto.Point.measurement(")
+        .append(literal(measurement.name())).append(")\n")
+        .append("        .time(").append(timeUnit).append(".convert(System.currentTimeMillis(), ")
+        .append("java.util.concurrent.TimeUnit.MILLISECONDS), ").append(timeUnit).append(");\n");
+    for (ColumnField column : columns) {
+      code.append(column.encoder(timeUnit));
+    }
+    code.append("    return builder.build();\n  }\n\n");
+
+    code.append("  @Override\n  public ").append(modelType).append(" newInstance() {\n")
+        .append("    return new ").append(modelType).append("();\n  }\n\n");
+
+    code.append("  @Override\n  public int columnIndex(final String columnName) {\n")
+        .append("    switch (columnName) {\n");
+    for (int i = 0; i < columns.size(); i++) {
+      code.append("    case ").append(literal(columns.get(i).columnName)).append(":\n")
+          .append("      return ").append(i).append(";\n");
+    }
+    code.append("    default:\n      return -1;\n    }\n  }\n\n");
+
+    code.append("  @Override\n  public void setValue(final ").append(modelType)
+        .append(" model, final int columnIndex, final Object value,\n")
+        .append("                       final java.util.concurrent.TimeUnit precision) {\n")
+        .append("    switch (columnIndex) {\n");
+    for (int i = 0; i < columns.size(); i++) {
+      code.append("    case ").append(i).append(":\n")
+          .append("      model.").append(columns.get(i).fieldName).append(" = ")
+          .append(columns.get(i).decoder()).append(";\n")
+          .append("      break;\n");
+    }
+    code.append("    default:\n      break;\n    }\n  }\n}\n");
+
+    String codecClassName = codecName;
+    if (!packageElement.isUnnamed()) {
+      codecClassName = packageName + "." + codecName;
+    }
+    try (Writer writer = processingEnv.getFiler().createSourceFile(codecClassName, type).openWriter()) {
+      writer.write(code.toString());
+    }
+  }
+
+  private String literal(final String value) {
+    return processingEnv.getElementUtils().getConstantExpression(value);
+  }
+
+  private enum Kind {
+    STRING("java.lang.String"),
+    INSTANT("java.time.Instant"),
+    DOUBLE_PRIMITIVE("double"),
+    LONG_PRIMITIVE("long"),
+    INT_PRIMITIVE("int"),
+    BOOLEAN_PRIMITIVE("boolean"),
+    DOUBLE_WRAPPER("java.lang.Double"),
+    LONG_WRAPPER("java.lang.Long"),
+    INT_WRAPPER("java.lang.Integer"),
+    BOOLEAN_WRAPPER("java.lang.Boolean");
+
+    private final String typeName;
+
+    Kind(final String typeName) {
+      this.typeName = typeName;
+    }
+
+    static Kind of(final String typeName) {
+      for (Kind kind : values()) {
+        if (kind.typeName.equals(typeName)) {
+          return kind;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * An annotated field with the conversions the reflective mappers apply to its type.
+   */
+  private final class ColumnField {
+
+    private final String fieldName;
+    private final String columnName;
+    private final boolean tag;
+    private final Kind kind;
+
+    ColumnField(final VariableElement field, final String columnName, final boolean tag) {
+      this.fieldName = field.getSimpleName().toString();
+      this.columnName = columnName;
+      this.tag = tag;
+      this.kind = Kind.of(processingEnv.getTypeUtils().erasure(field.asType()).toString());
+    }
+
+    String encoder(final String timeUnit) {
+      String value = "model." + fieldName;
+      String name = literal(columnName);
+      if (tag) {
+        if (kind.typeName.indexOf('.') < 0) {
+          return "    builder.tag(" + name + ", String.valueOf(" + value + "));\n";
+        }
+        return "    builder.tag(" + name + ", " + value + ".toString());\n";
+      }
+      switch (kind) {
+      case INSTANT:
+        return "    if (" + value + " != null) {\n"
+            + "      builder.time(" + timeUnit + ".convert(" + value + ".toEpochMilli(), "
+            + "java.util.concurrent.TimeUnit.MILLISECONDS), " + timeUnit + ");\n"
+            + "    }\n";
+      case DOUBLE_WRAPPER:
+        return "    builder.addField(" + name + ", (double) " + value + ");\n";
+      case LONG_WRAPPER:
+        return "    builder.addField(" + name + ", (long) " + value + ");\n";
+      case INT_WRAPPER:
+        return "    builder.addField(" + name + ", (int) " + value + ");\n";
+      case BOOLEAN_WRAPPER:
+        return "    builder.addField(" + name + ", (boolean) " + value + ");\n";
+      default:
+        return "    builder.addField(" + name + ", " + value + ");\n";
+      }
+    }
+
+    String decoder() {
+      String codec = MeasurementCodec.class.getName();
+      switch (kind) {
+      case STRING:
+        return "String.valueOf(value)";
+      case INSTANT:
+        return codec + ".toInstant(value, precision, " + literal(columnName) + ")";
+      case DOUBLE_PRIMITIVE:
+      case DOUBLE_WRAPPER:
+        return codec + ".toDouble(value)";
+      case LONG_PRIMITIVE:
+      case LONG_WRAPPER:
+        return codec + ".toLong(value)";
+      case INT_PRIMITIVE:
+      case INT_WRAPPER:
+        return codec + ".toInt(value)";
+      default:
+        return codec + ".toBoolean(value)";
+      }
+    }
+  }
+}
@@ -14,12 +14,31 @@ import okio.Buffer;
 public final class BoundParameterQuery extends Query {
 
   private final Map<String, Object> params = new HashMap<>();
+  private final String parameterJsonWithUrlEncoded;
 
   private BoundParameterQuery(final String command, final String database) {
     super(command, database, true);
+    this.parameterJsonWithUrlEncoded = null;
+  }
+
+  private BoundParameterQuery(final Query template, final String database) {
+    super(template.getCommand(), database, true, template.getCommandWithUrlEncoded());
+    this.parameterJsonWithUrlEncoded = null;
+  }
+
+  BoundParameterQuery(final Query template, final String database, final String[] placeholders,
+                      final Object[] values, final String parameterJsonWithUrlEncoded) {
+    super(template.getCommand(), database, true, template.getCommandWithUrlEncoded());
+    for (int i = 0; i < placeholders.length; i++) {
+      this.params.put(placeholders[i], values[i]);
+    }
+    this.parameterJsonWithUrlEncoded = parameterJsonWithUrlEncoded;
   }
 
   public String getParameterJsonWithUrlEncoded() {
+    if (parameterJsonWithUrlEncoded != null) {
+      return parameterJsonWithUrlEncoded;
+    }
     try {
       String jsonParameterObject = createJsonObject(params);
       String urlEncodedJsonParameterObject = encode(jsonParameterObject);
@@ -77,6 +96,7 @@ public final class BoundParameterQuery extends Query {
   public static class QueryBuilder {
     private BoundParameterQuery query;
     private String influxQL;
+    private Query template;
 
     public static QueryBuilder newQuery(final String influxQL) {
       QueryBuilder instance = new QueryBuilder();
@@ -84,8 +104,28 @@ public final class BoundParameterQuery extends Query {
       return instance;
     }
 
+    /**
+     * Starts a query that executes the command of a prepared template, for example a frozen
+     * {@link org.influxdb.querybuilder.BuiltQuery}, on the template's database. The command and its url encoded
+     * form are taken from the template instead of being built and encoded again, only the bound parameters
+     * differ between the queries created from one template.
+     *
+     * @param template the query providing the command and the database
+     * @return the builder
+     */
+    public static QueryBuilder newQuery(final Query template) {
+      QueryBuilder instance = new QueryBuilder();
+      instance.template = template;
+      instance.query = new BoundParameterQuery(template, template.getDatabase());
+      return instance;
+    }
+
     public QueryBuilder forDatabase(final String database) {
-      query = new BoundParameterQuery(influxQL, database);
+      if (template != null) {
+        query = new BoundParameterQuery(template, database);
+      } else {
+        query = new BoundParameterQuery(influxQL, database);
+      }
       return this;
     }
 
@@ -0,0 +1,314 @@
+package org.influxdb.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An InfluxQL statement with {@code $placeholder} parameters that is parsed and url encoded once and then
+ * executed with different parameter values.
+ * <p>
+ * A prepared query is immutable and can be shared between threads. The values of one execution are bound to a
+ * {@link Parameters} object, which creates the {@link BoundParameterQuery} to execute. The parameters are
+ * serialized directly into url encoded JSON, without a {@code JsonWriter}, with a fast path for numbers,
+ * strings and booleans:
+ *
+ * <pre>
+ * PreparedQuery prepared = PreparedQuery.prepare("SELECT * FROM cpu WHERE host = $host", "telegraf");
+ * QueryResult result = influxDB.query(prepared.bind().bind("host", "server01").create());
+ * </pre>
+ */
+public final class PreparedQuery {
+
+  private static final int DEFAULT_STRING_BUILDER_SIZE = 256;
+  private static final ThreadLocal<StringBuilder> CACHED_STRINGBUILDERS =
+      ThreadLocal.withInitial(() -> new StringBuilder(DEFAULT_STRING_BUILDER_SIZE));
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  private final Query template;
+  private final String[] placeholders;
+  private final String[] encodedNames;
+  private final Map<String, Integer> indexes;
+
+  private PreparedQuery(final Query template) {
+    this.template = template;
+    List<String> names = parsePlaceholders(template.getCommand());
+    this.placeholders = names.toArray(new String[0]);
+    this.encodedNames = new String[placeholders.length];
+    this.indexes = new HashMap<>();
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < placeholders.length; i++) {
+      sb.setLength(0);
+      appendJsonString(sb, placeholders[i]);
+      appendUrlEncoded(sb, ':');
+      encodedNames[i] = sb.toString();
+      indexes.put(placeholders[i], i);
+    }
+  }
+
+  /**
+   * @param influxQL the statement with {@code $placeholder} parameters
+   * @param database the database to query
+   * @return the prepared query
+   */
+  public static PreparedQuery prepare(final String influxQL, final String database) {
+    return new PreparedQuery(new Query(influxQL, database));
+  }
+
+  /**
+   * Prepares the command of a query, for example a frozen {@link org.influxdb.querybuilder.BuiltQuery}. The url
+   * encoded command of the template is reused.
+   *
+   * @param template the query providing the statement and the database
+   * @return the prepared query
+   */
+  public static PreparedQuery prepare(final Query template) {
+    return new PreparedQuery(template);
+  }
+
+  /**
+   * @return the statement
+   */
+  public String getCommand() {
+    return template.getCommand();
+  }
+
+  /**
+   * @return the database
+   */
+  public String getDatabase() {
+    return template.getDatabase();
+  }
+
+  /**
+   * @return the names of the placeholders of the statement in order of their first occurrence
+   */
+  public List<String> getPlaceholders() {
+    return Collections.unmodifiableList(Arrays.asList(placeholders));
+  }
+
+  /**
+   * @return new parameters for one execution of this query
+   */
+  public Parameters bind() {
+    return new Parameters(this);
+  }
+
+  /**
+   * The parameter values of one execution of a {@link PreparedQuery}. Not thread-safe, use one per execution.
+   */
+  public static final class Parameters {
+
+    private final PreparedQuery prepared;
+    private final Object[] values;
+    private final boolean[] bound;
+    private String database;
+
+    private Parameters(final PreparedQuery prepared) {
+      this.prepared = prepared;
+      this.values = new Object[prepared.placeholders.length];
+      this.bound = new boolean[prepared.placeholders.length];
+      this.database = prepared.getDatabase();
+    }
+
+    /**
+     * @param placeholder the name of the placeholder without {@code $}
+     * @param value the value, a {@link Number}, {@link String}, {@link Boolean} or an object written as its
+     *        string representation
+     * @return these parameters
+     * @throws IllegalArgumentException if the statement has no such placeholder
+     */
+    public Parameters bind(final String placeholder, final Object value) {
+      Integer index = prepared.indexes.get(placeholder);
+      if (index == null) {
+        throw new IllegalArgumentException("The statement has no placeholder $" + placeholder);
+      }
+      values[index] = value;
+      bound[index] = true;
+      return this;
+    }
+
+    /**
+     * @param database the database to query instead of the database of the prepared query
+     * @return these parameters
+     */
+    public Parameters forDatabase(final String database) {
+      this.database = database;
+      return this;
+    }
+
+    /**
+     * @return the query to execute
+     * @throws IllegalStateException if a placeholder is not bound
+     */
+    public BoundParameterQuery create() {
+      StringBuilder sb = CACHED_STRINGBUILDERS.get();
+      sb.setLength(0);
+      appendUrlEncoded(sb, '{');
+      for (int i = 0; i < values.length; i++) {
+        if (!bound[i]) {
+          throw new IllegalStateException("The placeholder $" + prepared.placeholders[i] + " is not bound");
+        }
+        if (i > 0) {
+          appendUrlEncoded(sb, ',');
+        }
+        sb.append(prepared.encodedNames[i]);
+        appendJsonValue(sb, values[i]);
+      }
+      appendUrlEncoded(sb, '}');
+      return new BoundParameterQuery(prepared.template, database, prepared.placeholders, values, sb.toString());
+    }
+  }
+
+  /**
+   * Finds the {@code $name} and {@code $"name"} placeholders outside of strings, quoted identifiers and regular
+   * expressions.
+   */
+  static List<String> parsePlaceholders(final String command) {
+    Set<String> names = new LinkedHashSet<>();
+    int length = command.length();
+    for (int i = 0; i < length; i++) {
+      char c = command.charAt(i);
+      if (c == '\'' || c == '"') {
+        i = skipQuoted(command, i, c);
+      } else if ((c == '=' || c == '!') && i + 1 < length && command.charAt(i + 1) == '~') {
+        int next = i + 2;
+        while (next < length && Character.isWhitespace(command.charAt(next))) {
+          next++;
+        }
+        if (next < length && command.charAt(next) == '/') {
+          i = skipQuoted(command, next, '/');
+        }
+      } else if (c == '$' && i + 1 < length) {
+        int start = i + 1;
+        if (command.charAt(start) == '"') {
+          int end = skipQuoted(command, start, '"');
+          if (end > start) {
+            names.add(command.substring(start + 1, end).replace("\\\"", "\""));
+          }
+          i = end;
+        } else {
+          int end = start;
+          while (end < length && isIdentifierPart(command.charAt(end))) {
+            end++;
+          }
+          if (end > start) {
+            names.add(command.substring(start, end));
+          }
+          i = end - 1;
+        }
+      }
+    }
+    return new ArrayList<>(names);
+  }
+
+  private static boolean isIdentifierPart(final char c) {
+    return Character.isLetterOrDigit(c) || c == '_';
+  }
+
+  private static int skipQuoted(final String command, final int start, final char quote) {
+    for (int i = start + 1; i < command.length(); i++) {
+      char c = command.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == quote) {
+        return i;
+      }
+    }
+    return command.length() - 1;
+  }
+
+  private static void appendJsonValue(final StringBuilder sb, final Object value) {
+    if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      // digits and '-' need no url encoding
+      sb.append(((Number) value).longValue());
+    } else if (value instanceof Number) {
+      String number = value.toString();
+      if ((value instanceof Double && !Double.isFinite((Double) value))
+          || (value instanceof Float && !Float.isFinite((Float) value))) {
+        throw new IllegalArgumentException("Numeric values must be finite, but was " + number);
+      }
+      appendUrlEncoded(sb, number);
+    } else if (value instanceof Boolean) {
+      sb.append(((Boolean) value).booleanValue());
+    } else {
+      appendJsonString(sb, String.valueOf(value));
+    }
+  }
+
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static void appendJsonString(final StringBuilder sb, final String value) {
+    appendUrlEncoded(sb, '"');
+    int length = value.length();
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      switch (c) {
+      case '"':
+      case '\\':
+        appendUrlEncoded(sb, '\\');
+        appendUrlEncoded(sb, c);
+        break;
+      case '\t':
+        appendUrlEncoded(sb, "\\t");
+        break;
+      case '\b':
+        appendUrlEncoded(sb, "\\b");
+        break;
+      case '\n':
+        appendUrlEncoded(sb, "\\n");
+        break;
+      case '\r':
+        appendUrlEncoded(sb, "\\r");
+        break;
+      case '\f':
+        appendUrlEncoded(sb, "\\f");
+        break;
+      default:
+        if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+          appendUrlEncoded(sb, String.format("\\u%04x", (int) c));
+        } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+          appendUrlEncoded(sb, Character.toCodePoint(c, value.charAt(i + 1)));
+          i++;
+        } else {
+          appendUrlEncoded(sb, c);
+        }
+      }
+    }
+    appendUrlEncoded(sb, '"');
+  }
+
+  private static void appendUrlEncoded(final StringBuilder sb, final String value) {
+    for (int i = 0; i < value.length(); i++) {
+      appendUrlEncoded(sb, value.charAt(i));
+    }
+  }
+
+  /**
+   * Appends a code point in {@code x-www-form-urlencoded} format, like {@link Query#encode(String)}.
+   */
+  private static void appendUrlEncoded(final StringBuilder sb, final int codePoint) {
+    if ((codePoint >= 'a' && codePoint <= 'z') || (codePoint >= 'A' && codePoint <= 'Z')
+        || (codePoint >= '0' && codePoint <= '9')
+        || codePoint == '.' || codePoint == '-' || codePoint == '*' || codePoint == '_') {
+      sb.append((char) codePoint);
+    } else if (codePoint == ' ') {
+      sb.append('+');
+    } else {
+      byte[] bytes = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8);
+      for (byte b : bytes) {
+        appendPercentEncoded(sb, b);
+      }
+    }
+  }
+
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static void appendPercentEncoded(final StringBuilder sb, final byte b) {
+    sb.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+  }
+}
@@ -15,6 +15,7 @@ public class Query {
   private final String command;
   private final String database;
   private final boolean requiresPost;
+  private volatile String commandWithUrlEncoded;
 
   /**
    * @param command the query command
@@ -36,6 +37,18 @@ public class Query {
     this.requiresPost = requiresPost;
   }
 
+  /**
+   * @param command the query command
+   * @param database the database to query
+   * @param requiresPost true if the command requires a POST instead of GET to influxdb
+   * @param commandWithUrlEncoded the url encoded command, if already known
+   */
+  Query(final String command, final String database, final boolean requiresPost,
+        final String commandWithUrlEncoded) {
+    this(command, database, requiresPost);
+    this.commandWithUrlEncoded = commandWithUrlEncoded;
+  }
+
   /**
    * @return the command
    */
@@ -44,10 +57,15 @@ public class Query {
   }
 
   /**
-   * @return url encoded command
+   * @return url encoded command, encoded once and then reused
    */
   public String getCommandWithUrlEncoded() {
-    return encode(this.command);
+    String encoded = this.commandWithUrlEncoded;
+    if (encoded == null) {
+      encoded = encode(this.command);
+      this.commandWithUrlEncoded = encoded;
+    }
+    return encoded;
   }
 
   /**
@@ -66,6 +84,8 @@ public class Query {
   public int hashCode() {
     final int prime = 31;
     int result = 1;
+    String command = getCommand();
+    String database = getDatabase();
     result = prime * result + ((command == null) ? 0 : command.hashCode());
     result = prime * result
         + ((database == null) ? 0 : database.hashCode());
@@ -82,15 +102,17 @@ public class Query {
     if (getClass() != obj.getClass())
       return false;
     Query other = (Query) obj;
+    String command = getCommand();
+    String database = getDatabase();
     if (command == null) {
-      if (other.command != null)
+      if (other.getCommand() != null)
         return false;
-    } else if (!command.equals(other.command))
+    } else if (!command.equals(other.getCommand()))
       return false;
     if (database == null) {
-      if (other.database != null)
+      if (other.getDatabase() != null)
         return false;
-    } else if (!database.equals(other.database))
+    } else if (!database.equals(other.getDatabase()))
       return false;
     return true;
   }
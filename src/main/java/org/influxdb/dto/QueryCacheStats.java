@@ -0,0 +1,94 @@
+package org.influxdb.dto;
+
+/**
+ * Snapshot of the statistics of the client-side query result cache.
+ */
+public final class QueryCacheStats {
+
+  private final long hitCount;
+  private final long missCount;
+  private final long incrementalCount;
+  private final long evictionCount;
+  private final int entryCount;
+  private final long estimatedBytes;
+  private final long maxBytes;
+
+  public QueryCacheStats(final long hitCount, final long missCount, final long incrementalCount,
+                         final long evictionCount, final int entryCount, final long estimatedBytes,
+                         final long maxBytes) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.incrementalCount = incrementalCount;
+    this.evictionCount = evictionCount;
+    this.entryCount = entryCount;
+    this.estimatedBytes = estimatedBytes;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * @return the number of queries answered from the cache
+   */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return the number of cacheable queries sent to the server
+   */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return the number of misses answered by an incremental query of a sliding window
+   */
+  public long getIncrementalCount() {
+    return incrementalCount;
+  }
+
+  /**
+   * @return the ratio of hits to all cacheable queries, 0 if there was no query
+   */
+  public double getHitRatio() {
+    long requests = hitCount + missCount;
+    if (requests == 0) {
+      return 0;
+    }
+    return (double) hitCount / requests;
+  }
+
+  /**
+   * @return the number of results evicted to stay within the maximum size
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * @return the number of cached results
+   */
+  public int getEntryCount() {
+    return entryCount;
+  }
+
+  /**
+   * @return the estimated memory used by the cached results in bytes
+   */
+  public long getEstimatedBytes() {
+    return estimatedBytes;
+  }
+
+  /**
+   * @return the maximum estimated memory of the cached results in bytes
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "QueryCacheStats [hitCount=" + hitCount + ", missCount=" + missCount
+        + ", incrementalCount=" + incrementalCount + ", evictionCount=" + evictionCount
+        + ", entryCount=" + entryCount + ", estimatedBytes=" + estimatedBytes + ", maxBytes=" + maxBytes + "]";
+  }
+}
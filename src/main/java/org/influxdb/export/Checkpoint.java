@@ -0,0 +1,53 @@
+package org.influxdb.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The names of the completed partitions of an export, one per line of an append-only file. A line is only
+ * taken into account when it is terminated, so a line cut short by a crash never marks a partition as completed.
+ */
+final class Checkpoint implements Closeable {
+
+  private final Set<String> completed = new HashSet<>();
+  private final FileChannel channel;
+
+  Checkpoint(final Path file) throws IOException {
+    if (Files.exists(file)) {
+      String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+      int start = 0;
+      for (int end = content.indexOf('\n'); end >= 0; end = content.indexOf('\n', start)) {
+        completed.add(content.substring(start, end));
+        start = end + 1;
+      }
+    }
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+  }
+
+  synchronized boolean isCompleted(final String partition) {
+    return completed.contains(partition);
+  }
+
+  synchronized void complete(final String partition) throws IOException {
+    ByteBuffer line = ByteBuffer.wrap((partition + "\n").getBytes(StandardCharsets.UTF_8));
+    while (line.hasRemaining()) {
+      channel.write(line);
+    }
+    channel.force(false);
+    completed.add(partition);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+  }
+}
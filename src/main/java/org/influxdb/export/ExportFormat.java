@@ -0,0 +1,29 @@
+package org.influxdb.export;
+
+/**
+ * The file format of an export, see {@link ExportOptions#format(ExportFormat)}.
+ */
+public enum ExportFormat {
+  /**
+   * One line of line protocol per point with the time in nanoseconds, ready to be written back.
+   */
+  LINE_PROTOCOL(".lp"),
+  /**
+   * Comma separated values with the columns {@code name,tags,time} followed by the fields of the measurement,
+   * like the CSV format of the influx CLI. The time is in nanoseconds.
+   */
+  CSV(".csv");
+
+  private final String extension;
+
+  ExportFormat(final String extension) {
+    this.extension = extension;
+  }
+
+  /**
+   * @return the file name extension, without the {@code .gz} of compressed files
+   */
+  public String getExtension() {
+    return extension;
+  }
+}
@@ -0,0 +1,191 @@
+package org.influxdb.export;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * ExportOptions are used to configure an {@link Exporter}.
+ * <p>
+ * An export is split into partitions of {@link #partitionDuration(Duration)} per measurement, and further per
+ * value of the {@link #partitionTag(String)} if set. Each partition is exported with its own chunked query into
+ * its own file, up to {@link #parallelism(int)} partitions at a time.
+ */
+public final class ExportOptions implements Cloneable {
+
+  /**
+   * Default export options. This class is immutable, each configuration
+   * is built by taking the DEFAULTS and setting specific configuration
+   * properties.
+   */
+  public static final ExportOptions DEFAULTS = new ExportOptions();
+
+  public static final Duration DEFAULT_PARTITION_DURATION = Duration.ofDays(1);
+  public static final int DEFAULT_PARALLELISM = 4;
+  public static final int DEFAULT_CHUNK_SIZE = 10000;
+  public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+  private ExportFormat format = ExportFormat.LINE_PROTOCOL;
+  private boolean gzip = true;
+  private Duration partitionDuration = DEFAULT_PARTITION_DURATION;
+  private String partitionTag;
+  private int parallelism = DEFAULT_PARALLELISM;
+  private int chunkSize = DEFAULT_CHUNK_SIZE;
+  private int bufferSize = DEFAULT_BUFFER_SIZE;
+  private Consumer<ExportStats> progressListener = stats -> {
+  };
+
+  private ExportOptions() {
+  }
+
+  /**
+   * @param format the file format
+   * @return the ExportOptions instance to be able to use it in a fluent manner.
+   */
+  public ExportOptions format(final ExportFormat format) {
+    ExportOptions clone = getClone();
+    clone.format = format;
+    return clone;
+  }
+
+  /**
+   * @param gzip true to write gzip compressed files with the extension {@code .gz}
+   * @return the ExportOptions instance to be able to use it in a fluent manner.
+   */
+  public ExportOptions gzip(final boolean gzip) {
+    ExportOptions clone = getClone();
+    clone.gzip = gzip;
+    return clone;
+  }
+
+  /**
+   * @param partitionDuration the time range of a partition
+   * @return the ExportOptions instance to be able to use it in a fluent manner.
+   */
+  public ExportOptions partitionDuration(final Duration partitionDuration) {
+    ExportOptions clone = getClone();
+    clone.partitionDuration = partitionDuration;
+    return clone;
+  }
+
+  /**
+   * Partitions every time range further by the values of a tag, as listed by {@code SHOW TAG VALUES}. Series
+   * without the tag are exported into a partition of their own.
+   *
+   * @param partitionTag the tag key, null to partition by time only
+   * @return the ExportOptions instance to be able to use it in a fluent manner.
+   */
+  public ExportOptions partitionTag(final String partitionTag) {
+    ExportOptions clone = getClone();
+    clone.partitionTag = partitionTag;
+    return clone;
+  }
+
+  /**
+   * The number of partitions queried at a time. Note that the dispatcher of the OkHttp client allows 5 requests
+   * per host at a time unless configured otherwise.
+   *
+   * @param parallelism the number of partitions exported at a time
+   * @return the ExportOptions instance to be able to use it in a fluent manner.
+   */
+  public ExportOptions parallelism(final int parallelism) {
+    ExportOptions clone = getClone();
+    clone.parallelism = parallelism;
+    return clone;
+  }
+
+  /**
+   * @param chunkSize the number of rows per chunk of the partition queries
+   * @return the ExportOptions instance to be able to use it in a fluent manner.
+   */
+  public ExportOptions chunkSize(final int chunkSize) {
+    ExportOptions clone = getClone();
+    clone.chunkSize = chunkSize;
+    return clone;
+  }
+
+  /**
+   * @param bufferSize the size of the write buffer of every partition file (bytes)
+   * @return the ExportOptions instance to be able to use it in a fluent manner.
+   */
+  public ExportOptions bufferSize(final int bufferSize) {
+    ExportOptions clone = getClone();
+    clone.bufferSize = bufferSize;
+    return clone;
+  }
+
+  /**
+   * @param progressListener receives the statistics of the export whenever a partition is completed, on the
+   *                         thread that completed it
+   * @return the ExportOptions instance to be able to use it in a fluent manner.
+   */
+  public ExportOptions progressListener(final Consumer<ExportStats> progressListener) {
+    ExportOptions clone = getClone();
+    clone.progressListener = progressListener;
+    return clone;
+  }
+
+  /**
+   * @return the file format
+   */
+  public ExportFormat getFormat() {
+    return format;
+  }
+
+  /**
+   * @return true if files are gzip compressed
+   */
+  public boolean isGzip() {
+    return gzip;
+  }
+
+  /**
+   * @return the time range of a partition
+   */
+  public Duration getPartitionDuration() {
+    return partitionDuration;
+  }
+
+  /**
+   * @return the tag key to partition by, or null
+   */
+  public String getPartitionTag() {
+    return partitionTag;
+  }
+
+  /**
+   * @return the number of partitions exported at a time
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * @return the number of rows per chunk of the partition queries
+   */
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * @return the size of the write buffer of every partition file (bytes)
+   */
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * @return the listener for the progress of an export
+   */
+  public Consumer<ExportStats> getProgressListener() {
+    return progressListener;
+  }
+
+  private ExportOptions getClone() {
+    try {
+      return (ExportOptions) this.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+}
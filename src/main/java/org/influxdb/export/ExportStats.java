@@ -0,0 +1,97 @@
+package org.influxdb.export;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of the progress and throughput of an export, see {@link Exporter#export}.
+ */
+public final class ExportStats {
+
+  private final int partitions;
+  private final int completedPartitions;
+  private final int skippedPartitions;
+  private final long points;
+  private final long bytes;
+  private final long elapsedNanos;
+
+  ExportStats(final int partitions, final int completedPartitions, final int skippedPartitions,
+              final long points, final long bytes, final long elapsedNanos) {
+    this.partitions = partitions;
+    this.completedPartitions = completedPartitions;
+    this.skippedPartitions = skippedPartitions;
+    this.points = points;
+    this.bytes = bytes;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * @return the number of partitions of the export
+   */
+  public int getPartitions() {
+    return partitions;
+  }
+
+  /**
+   * @return the number of partitions exported so far
+   */
+  public int getCompletedPartitions() {
+    return completedPartitions;
+  }
+
+  /**
+   * @return the number of partitions skipped because a previous export completed them
+   */
+  public int getSkippedPartitions() {
+    return skippedPartitions;
+  }
+
+  /**
+   * @return the number of points in the exported partitions
+   */
+  public long getPoints() {
+    return points;
+  }
+
+  /**
+   * @return the size of the files of the exported partitions (bytes)
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * @return the time since the start of the export
+   */
+  public Duration getElapsed() {
+    return Duration.ofNanos(elapsedNanos);
+  }
+
+  /**
+   * @return the number of exported points per second
+   */
+  public double getPointsPerSecond() {
+    return perSecond(points);
+  }
+
+  /**
+   * @return the number of written bytes per second
+   */
+  public double getBytesPerSecond() {
+    return perSecond(bytes);
+  }
+
+  private double perSecond(final long count) {
+    if (elapsedNanos <= 0) {
+      return 0;
+    }
+    return count * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "ExportStats [partitions=" + partitions + ", completedPartitions=" + completedPartitions
+        + ", skippedPartitions=" + skippedPartitions + ", points=" + points + ", bytes=" + bytes
+        + ", elapsed=" + getElapsed() + "]";
+  }
+}
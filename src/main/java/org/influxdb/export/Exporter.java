@@ -0,0 +1,543 @@
+package org.influxdb.export;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDB.Cancellable;
+import org.influxdb.InfluxDBException;
+import org.influxdb.dto.Point;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.influxdb.impl.Preconditions;
+import org.influxdb.impl.TimeUtil;
+
+/**
+ * Exports measurements into files, one file per partition of time range and tag value, see
+ * {@link ExportOptions}. Up to {@link ExportOptions#getParallelism()} partitions are exported at a time, each
+ * with a chunked {@code SELECT * ... GROUP BY *} query whose rows are written as they arrive.
+ * <p>
+ * A partition is written into a {@code .part} file that is renamed when the partition is complete, the name of
+ * the file is then appended to the checkpoint file {@value #CHECKPOINT_FILE} of the directory. Exporting into
+ * the same directory again skips the partitions completed before, so a failed or interrupted export can be
+ * resumed by repeating it. Files are named {@code <measurement>[.<tag>=<value>].<start>-<end><extension>} with
+ * the bounds of the partition in epoch nanoseconds, so a partition is only skipped if exactly its time range was
+ * exported before, e.g. not the shorter last partition of an earlier export with an earlier end.
+ * <p>
+ * Values of integer fields are written as integers, the field types are taken from {@code SHOW FIELD KEYS}.
+ * JSON responses return numbers as double, integers beyond 2<sup>53</sup> are only exported exactly with
+ * {@link InfluxDB.ResponseFormat#MSGPACK}.
+ */
+public final class Exporter {
+
+  /**
+   * The name of the checkpoint file in the export directory.
+   */
+  public static final String CHECKPOINT_FILE = "export.checkpoint";
+
+  private static final String PART_EXTENSION = ".part";
+  private static final String GZIP_EXTENSION = ".gz";
+  private static final String TIME = "time";
+  private static final String END_OF_STREAM = "DONE";
+  private static final Set<String> INTEGER_TYPES = new HashSet<>(Arrays.asList("integer", "unsigned"));
+
+  private final InfluxDB influxDB;
+  private final ExportOptions options;
+
+  /**
+   * @param influxDB the connection to export from
+   * @param options the options of the export
+   */
+  public Exporter(final InfluxDB influxDB, final ExportOptions options) {
+    Objects.requireNonNull(influxDB, "influxDB");
+    Objects.requireNonNull(options.getFormat(), "format");
+    Preconditions.checkPositiveNumber(options.getParallelism(), "parallelism");
+    Preconditions.checkPositiveNumber(options.getChunkSize(), "chunkSize");
+    Preconditions.checkPositiveNumber(options.getBufferSize(), "bufferSize");
+    if (options.getPartitionDuration().isNegative() || options.getPartitionDuration().isZero()) {
+      throw new IllegalArgumentException("Expecting a positive partition duration");
+    }
+    this.influxDB = influxDB;
+    this.options = options;
+  }
+
+  /**
+   * Export measurements into a directory and wait for the export to end. If a partition fails, no further
+   * partitions are started and the partitions in flight are completed before the failure is thrown.
+   *
+   * @param database the database
+   * @param measurements the measurements to export
+   * @param from the inclusive start of the time range
+   * @param to the exclusive end of the time range
+   * @param directory the directory of the files and the checkpoint, created if missing
+   * @return the statistics of the export
+   * @throws IOException if a file cannot be written or a query fails with an I/O error
+   * @throws InterruptedException if interrupted while waiting for a partition
+   * @throws InfluxDBException if a query fails
+   */
+  public ExportStats export(final String database, final Collection<String> measurements, final Instant from,
+                            final Instant to, final Path directory) throws IOException, InterruptedException {
+    long fromNanos = toNanos(from);
+    long toNanos = toNanos(to);
+    if (fromNanos >= toNanos) {
+      throw new IllegalArgumentException("from must be before to");
+    }
+    long duration = options.getPartitionDuration().toNanos();
+    List<Partition> partitions = new ArrayList<>();
+    for (String measurement : measurements) {
+      Set<String> integerFields = integerFields(database, measurement);
+      List<String> tagValues = tagValues(database, measurement);
+      for (long start = fromNanos; start < toNanos;) {
+        long end = toNanos;
+        if (duration < toNanos - start) {
+          end = start + duration;
+        }
+        for (String tagValue : tagValues) {
+          partitions.add(new Partition(measurement, tagValue, start, end, integerFields));
+        }
+        start = end;
+      }
+    }
+
+    Files.createDirectories(directory);
+    Run run;
+    try (Checkpoint checkpoint = new Checkpoint(directory.resolve(CHECKPOINT_FILE))) {
+      run = new Run(database, directory, checkpoint, partitions.size());
+      Semaphore permits = new Semaphore(options.getParallelism());
+      for (Partition partition : partitions) {
+        if (checkpoint.isCompleted(partition.fileName) && Files.exists(directory.resolve(partition.fileName))) {
+          run.skippedPartitions.incrementAndGet();
+          continue;
+        }
+        permits.acquire();
+        if (run.failure.get() != null) {
+          permits.release();
+          break;
+        }
+        start(run, partition, permits);
+      }
+      permits.acquire(options.getParallelism());
+    }
+
+    Throwable failure = run.failure.get();
+    if (failure instanceof IOException) {
+      throw (IOException) failure;
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure != null) {
+      throw new InfluxDBException(failure);
+    }
+    return run.stats();
+  }
+
+  private void start(final Run run, final Partition partition, final Semaphore permits) {
+    Path file = run.directory.resolve(partition.fileName + PART_EXTENSION);
+    PartitionWriter writer;
+    try {
+      writer = new PartitionWriter(file, options.getBufferSize(), options.isGzip());
+    } catch (IOException e) {
+      run.failure.compareAndSet(null, e);
+      permits.release();
+      return;
+    }
+    PartitionExport export = new PartitionExport(run, partition, file, writer, permits);
+    try {
+      influxDB.query(new Query(partition.command(options.getPartitionTag()), run.database),
+          options.getChunkSize(), export::onNext, export::onComplete, export::onFailure);
+    } catch (RuntimeException e) {
+      export.onFailure(e);
+    }
+  }
+
+  /**
+   * @return the fields of the measurement that only have integer types
+   */
+  private Set<String> integerFields(final String database, final String measurement) {
+    Map<String, Boolean> integers = new HashMap<>();
+    for (List<Object> row : rows(new Query("SHOW FIELD KEYS FROM " + identifier(measurement), database))) {
+      integers.merge(String.valueOf(row.get(0)), INTEGER_TYPES.contains(String.valueOf(row.get(1))),
+          Boolean::logicalAnd);
+    }
+    Set<String> integerFields = new HashSet<>();
+    integers.forEach((field, integer) -> {
+      if (integer) {
+        integerFields.add(field);
+      }
+    });
+    return integerFields;
+  }
+
+  /**
+   * @return the values of the partition tag and the empty value of series without the tag, a null value if not
+   *         partitioned by a tag
+   */
+  private List<String> tagValues(final String database, final String measurement) {
+    String tag = options.getPartitionTag();
+    if (tag == null) {
+      return Collections.singletonList(null);
+    }
+    List<String> values = new ArrayList<>();
+    for (List<Object> row : rows(new Query("SHOW TAG VALUES FROM " + identifier(measurement) + " WITH KEY = "
+        + identifier(tag), database))) {
+      values.add(String.valueOf(row.get(1)));
+    }
+    values.add("");
+    return values;
+  }
+
+  private List<List<Object>> rows(final Query query) {
+    QueryResult result = influxDB.query(query);
+    String error = errorOf(result);
+    if (error != null) {
+      throw new InfluxDBException(error);
+    }
+    List<List<Object>> rows = new ArrayList<>();
+    for (QueryResult.Result statementResult : nonNull(result.getResults())) {
+      for (QueryResult.Series series : nonNull(statementResult.getSeries())) {
+        rows.addAll(nonNull(series.getValues()));
+      }
+    }
+    return rows;
+  }
+
+  private static String errorOf(final QueryResult result) {
+    if (result.getError() != null) {
+      return result.getError();
+    }
+    for (QueryResult.Result statementResult : nonNull(result.getResults())) {
+      if (statementResult.getError() != null) {
+        return statementResult.getError();
+      }
+    }
+    return null;
+  }
+
+  private static <T> List<T> nonNull(final List<T> list) {
+    if (list == null) {
+      return Collections.emptyList();
+    }
+    return list;
+  }
+
+  private static String identifier(final String name) {
+    return "\"" + name.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+
+  private static String literal(final String value) {
+    return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+  }
+
+  private static String fileNamePart(final String name) {
+    return Query.encode(name);
+  }
+
+  private static long toNanos(final Instant instant) {
+    return Math.addExact(TimeUnit.SECONDS.toNanos(instant.getEpochSecond()), instant.getNano());
+  }
+
+  private final class Partition {
+    private final String measurement;
+    private final String tagValue;
+    private final long start;
+    private final long end;
+    private final Set<String> integerFields;
+    private final String fileName;
+
+    private Partition(final String measurement, final String tagValue, final long start, final long end,
+                      final Set<String> integerFields) {
+      this.measurement = measurement;
+      this.tagValue = tagValue;
+      this.start = start;
+      this.end = end;
+      this.integerFields = integerFields;
+      StringBuilder name = new StringBuilder(fileNamePart(measurement));
+      if (tagValue != null) {
+        name.append('.').append(fileNamePart(options.getPartitionTag())).append('=').append(fileNamePart(tagValue));
+      }
+      name.append('.').append(start).append('-').append(end).append(options.getFormat().getExtension());
+      if (options.isGzip()) {
+        name.append(GZIP_EXTENSION);
+      }
+      this.fileName = name.toString();
+    }
+
+    private String command(final String tag) {
+      StringBuilder command = new StringBuilder("SELECT * FROM ").append(identifier(measurement))
+          .append(" WHERE time >= ").append(start).append(" AND time < ").append(end);
+      if (tagValue != null) {
+        command.append(" AND ").append(identifier(tag)).append(" = ").append(literal(tagValue));
+      }
+      return command.append(" GROUP BY *").toString();
+    }
+  }
+
+  private final class Run {
+    private final String database;
+    private final Path directory;
+    private final Checkpoint checkpoint;
+    private final int partitions;
+    private final long startNanos = System.nanoTime();
+    private final AtomicInteger completedPartitions = new AtomicInteger();
+    private final AtomicInteger skippedPartitions = new AtomicInteger();
+    private final LongAdder points = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private Run(final String database, final Path directory, final Checkpoint checkpoint, final int partitions) {
+      this.database = database;
+      this.directory = directory;
+      this.checkpoint = checkpoint;
+      this.partitions = partitions;
+    }
+
+    private ExportStats stats() {
+      return new ExportStats(partitions, completedPartitions.get(), skippedPartitions.get(), points.sum(),
+          bytes.sum(), System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Writes the chunks of one partition, the callbacks of a chunked query are invoked one at a time.
+   */
+  private final class PartitionExport {
+    private final Run run;
+    private final Partition partition;
+    private final Path file;
+    private final PartitionWriter writer;
+    private final Semaphore permits;
+    private final AtomicBoolean done = new AtomicBoolean();
+    private final StringBuilder line = new StringBuilder();
+    private long points;
+    private boolean header;
+
+    private PartitionExport(final Run run, final Partition partition, final Path file, final PartitionWriter writer,
+                            final Semaphore permits) {
+      this.run = run;
+      this.partition = partition;
+      this.file = file;
+      this.writer = writer;
+      this.permits = permits;
+    }
+
+    private void onNext(final Cancellable cancellable, final QueryResult result) {
+      if (done.get()) {
+        return;
+      }
+      // the end of the stream is reported by onComplete, errors returned by InfluxDB fail the partition
+      if (END_OF_STREAM.equals(result.getError())) {
+        return;
+      }
+      try {
+        String error = errorOf(result);
+        if (error != null) {
+          throw new InfluxDBException(error);
+        }
+        for (QueryResult.Result statementResult : nonNull(result.getResults())) {
+          for (QueryResult.Series series : nonNull(statementResult.getSeries())) {
+            write(series);
+          }
+        }
+      } catch (IOException | RuntimeException e) {
+        cancellable.cancel();
+        onFailure(e);
+      }
+    }
+
+    private void write(final QueryResult.Series series) throws IOException {
+      List<String> columns = series.getColumns();
+      int timeIndex = columns.indexOf(TIME);
+      if (timeIndex < 0) {
+        throw new InfluxDBException("Series " + series.getName() + " has no time column");
+      }
+      if (options.getFormat() == ExportFormat.CSV) {
+        writeCsv(series, timeIndex);
+        return;
+      }
+      for (List<Object> row : nonNull(series.getValues())) {
+        Point.Builder builder = Point.measurement(series.getName());
+        if (series.getTags() != null) {
+          builder.tag(series.getTags());
+        }
+        for (int i = 0; i < columns.size(); i++) {
+          Object value = row.get(i);
+          if (i != timeIndex && value != null) {
+            addField(builder, columns.get(i), value);
+          }
+        }
+        if (!builder.hasFields()) {
+          continue;
+        }
+        builder.time(timeOf(row.get(timeIndex)), TimeUnit.NANOSECONDS);
+        line.setLength(0);
+        line.append(builder.build().lineProtocol()).append('\n');
+        writer.append(line);
+        points++;
+      }
+    }
+
+    private void addField(final Point.Builder builder, final String field, final Object value) {
+      if (value instanceof Number) {
+        if (value instanceof Double && partition.integerFields.contains(field)) {
+          builder.addField(field, ((Double) value).longValue());
+        } else {
+          builder.addField(field, (Number) value);
+        }
+      } else if (value instanceof Boolean) {
+        builder.addField(field, (boolean) value);
+      } else {
+        builder.addField(field, value.toString());
+      }
+    }
+
+    private void writeCsv(final QueryResult.Series series, final int timeIndex) throws IOException {
+      List<String> columns = series.getColumns();
+      if (!header) {
+        line.setLength(0);
+        line.append("name,tags,time");
+        for (int i = 0; i < columns.size(); i++) {
+          if (i != timeIndex) {
+            line.append(',');
+            appendCsv(columns.get(i));
+          }
+        }
+        writer.append(line.append('\n'));
+        header = true;
+      }
+      StringBuilder tags = new StringBuilder();
+      if (series.getTags() != null) {
+        for (Map.Entry<String, String> tag : new TreeMap<>(series.getTags()).entrySet()) {
+          if (!tag.getValue().isEmpty()) {
+            if (tags.length() > 0) {
+              tags.append(',');
+            }
+            tags.append(tag.getKey()).append('=').append(tag.getValue());
+          }
+        }
+      }
+      for (List<Object> row : nonNull(series.getValues())) {
+        line.setLength(0);
+        appendCsv(series.getName());
+        line.append(',');
+        appendCsv(tags);
+        line.append(',').append(timeOf(row.get(timeIndex)));
+        for (int i = 0; i < columns.size(); i++) {
+          if (i == timeIndex) {
+            continue;
+          }
+          line.append(',');
+          Object value = row.get(i);
+          if (value instanceof Double) {
+            if (partition.integerFields.contains(columns.get(i))) {
+              line.append(((Double) value).longValue());
+            } else {
+              line.append(BigDecimal.valueOf((Double) value).toPlainString());
+            }
+          } else if (value != null) {
+            appendCsv(value.toString());
+          }
+        }
+        writer.append(line.append('\n'));
+        points++;
+      }
+    }
+
+    private void appendCsv(final CharSequence value) {
+      boolean quote = false;
+      for (int i = 0; i < value.length() && !quote; i++) {
+        char c = value.charAt(i);
+        quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+      }
+      if (!quote) {
+        line.append(value);
+        return;
+      }
+      line.append('"');
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c == '"') {
+          line.append('"');
+        }
+        line.append(c);
+      }
+      line.append('"');
+    }
+
+    private long timeOf(final Object time) {
+      if (time instanceof Number) {
+        return ((Number) time).longValue();
+      }
+      return TimeUtil.parseEpochNanos(String.valueOf(time));
+    }
+
+    private void onComplete() {
+      if (!done.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        long size;
+        try {
+          size = writer.finish();
+        } finally {
+          writer.close();
+        }
+        Files.move(file, run.directory.resolve(partition.fileName), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        run.checkpoint.complete(partition.fileName);
+        run.points.add(points);
+        run.bytes.add(size);
+        run.completedPartitions.incrementAndGet();
+        options.getProgressListener().accept(run.stats());
+      } catch (IOException | RuntimeException e) {
+        run.failure.compareAndSet(null, e);
+        deleteQuietly();
+      } finally {
+        permits.release();
+      }
+    }
+
+    private void onFailure(final Throwable throwable) {
+      if (!done.compareAndSet(false, true)) {
+        return;
+      }
+      run.failure.compareAndSet(null, throwable);
+      try {
+        writer.close();
+      } catch (IOException e) {
+        throwable.addSuppressed(e);
+      }
+      deleteQuietly();
+      permits.release();
+    }
+
+    private void deleteQuietly() {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        // the .part file is overwritten by the next export
+      }
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package org.influxdb.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the text of a partition UTF-8 encoded into a large buffer that is written to a {@link FileChannel}
+ * when full, optionally through a {@link GZIPOutputStream}.
+ */
+final class PartitionWriter implements Closeable {
+
+  private final FileChannel channel;
+  private final GZIPOutputStream gzip;
+  private final ByteBuffer buffer;
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+  PartitionWriter(final Path file, final int bufferSize, final boolean gzip) throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE);
+    if (gzip) {
+      this.gzip = new GZIPOutputStream(Channels.newOutputStream(channel), bufferSize);
+      this.buffer = ByteBuffer.allocate(bufferSize);
+    } else {
+      this.gzip = null;
+      this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+  }
+
+  /**
+   * @param text complete lines, a surrogate pair must not be split across calls
+   */
+  void append(final CharSequence text) throws IOException {
+    CharBuffer chars = CharBuffer.wrap(text);
+    CoderResult result = encoder.encode(chars, buffer, false);
+    while (result.isOverflow()) {
+      drain();
+      result = encoder.encode(chars, buffer, false);
+    }
+  }
+
+  /**
+   * Writes the buffered text and forces the file to the storage device.
+   *
+   * @return the size of the file
+   */
+  long finish() throws IOException {
+    drain();
+    if (gzip != null) {
+      gzip.finish();
+    }
+    channel.force(true);
+    return channel.size();
+  }
+
+  private void drain() throws IOException {
+    // Buffer methods, ByteBuffer overrides them covariantly since Java 9
+    ((Buffer) buffer).flip();
+    if (gzip == null) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } else {
+      gzip.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    }
+    ((Buffer) buffer).clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (gzip == null) {
+      channel.close();
+    } else {
+      gzip.close();
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+
+import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.Point;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * A request body that encodes the line protocol of {@link BatchPoints} directly into the HTTP sink.
+ * <p>
+ * Unlike {@code RequestBody.create(MEDIA_TYPE_STRING, batchPoints.lineProtocol())} the whole batch is never
+ * held as a single String and its UTF-8 copy; every point is encoded and written one after another. The body
+ * can be written repeatedly, so retries and logging interceptors keep working.
+ */
+final class BatchPointsRequestBody extends RequestBody {
+
+  private final BatchPoints batchPoints;
+
+  BatchPointsRequestBody(final BatchPoints batchPoints) {
+    this.batchPoints = batchPoints;
+  }
+
+  @Override
+  public MediaType contentType() {
+    return InfluxDBImpl.MEDIA_TYPE_STRING;
+  }
+
+  @Override
+  public void writeTo(final BufferedSink sink) throws IOException {
+    for (Point point : batchPoints.getPoints()) {
+      sink.writeUtf8(point.lineProtocol(batchPoints.getPrecision())).writeByte('\n');
+    }
+  }
+}
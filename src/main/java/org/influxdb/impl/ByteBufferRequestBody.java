@@ -0,0 +1,40 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * A request body of the bytes between the position and the limit of a buffer, e.g. a region of a memory-mapped
+ * line protocol file. The bytes are written from a duplicate of the buffer, so the body can be written
+ * repeatedly and its length is known in advance.
+ */
+final class ByteBufferRequestBody extends RequestBody {
+
+  private final ByteBuffer buffer;
+
+  ByteBufferRequestBody(final ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  @Override
+  public MediaType contentType() {
+    return InfluxDBImpl.MEDIA_TYPE_STRING;
+  }
+
+  @Override
+  public long contentLength() {
+    return buffer.remaining();
+  }
+
+  @Override
+  public void writeTo(final BufferedSink sink) throws IOException {
+    ByteBuffer bytes = buffer.duplicate();
+    while (bytes.hasRemaining()) {
+      sink.write(bytes);
+    }
+  }
+}
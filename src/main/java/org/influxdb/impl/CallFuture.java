@@ -0,0 +1,88 @@
+package org.influxdb.impl;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * A {@link CompletableFuture} completed by an enqueued {@link Call}. Cancelling the future cancels the call.
+ * <p>
+ * An unsuccessful response is decoded by the error decoder on the common pool instead of the dispatcher thread
+ * of OkHttp.
+ *
+ * @param <T> the type of the response body
+ */
+final class CallFuture<T> extends CompletableFuture<T> implements Callback<T> {
+
+  private final Call<T> call;
+  private final Function<Response<T>, Throwable> errorDecoder;
+
+  private CallFuture(final Call<T> call, final Function<Response<T>, Throwable> errorDecoder) {
+    this.call = call;
+    this.errorDecoder = errorDecoder;
+  }
+
+  /**
+   * @param call the call to enqueue
+   * @param errorDecoder decodes the error of an unsuccessful response
+   * @return the future of the response body
+   */
+  static <T> CallFuture<T> enqueue(final Call<T> call, final Function<Response<T>, Throwable> errorDecoder) {
+    CallFuture<T> future = new CallFuture<>(call, errorDecoder);
+    call.enqueue(future);
+    return future;
+  }
+
+  /**
+   * Cancels the call and completes the future with an {@link InterruptedIOException} if it is not completed
+   * within the timeout, like an OkHttp call timeout.
+   *
+   * @param timeout the timeout, no deadline if not positive
+   * @param unit the unit of the timeout
+   * @param scheduler schedules the deadline
+   * @return this future
+   */
+  CallFuture<T> withDeadline(final long timeout, final TimeUnit unit, final ScheduledExecutorService scheduler) {
+    if (timeout <= 0 || isDone()) {
+      return this;
+    }
+    ScheduledFuture<?> deadline = scheduler.schedule(() -> {
+      if (completeExceptionally(new InterruptedIOException("timeout"))) {
+        call.cancel();
+      }
+    }, timeout, unit);
+    whenComplete((result, throwable) -> deadline.cancel(false));
+    return this;
+  }
+
+  @Override
+  public boolean cancel(final boolean mayInterruptIfRunning) {
+    boolean cancelled = super.cancel(mayInterruptIfRunning);
+    if (cancelled) {
+      call.cancel();
+    }
+    return cancelled;
+  }
+
+  @Override
+  public void onResponse(final Call<T> call, final Response<T> response) {
+    if (response.isSuccessful()) {
+      complete(response.body());
+    } else {
+      ForkJoinPool.commonPool().execute(() -> completeExceptionally(errorDecoder.apply(response)));
+    }
+  }
+
+  @Override
+  public void onFailure(final Call<T> call, final Throwable throwable) {
+    completeExceptionally(throwable);
+  }
+}
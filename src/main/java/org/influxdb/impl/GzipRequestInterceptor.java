@@ -1,25 +1,45 @@
 package org.influxdb.impl;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+
+import org.influxdb.CompressionCodec;
+import org.influxdb.InfluxDB;
 
 import okhttp3.Interceptor;
 import okhttp3.MediaType;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.Buffer;
 import okio.BufferedSink;
-import okio.GzipSink;
 import okio.Okio;
+import okio.Sink;
+import okio.Timeout;
 
 /**
- * Implementation of a intercepter to compress http's body using GZIP.
+ * Implementation of a intercepter to compress http's body using GZIP, or another {@link CompressionCodec}.
+ * <p>
+ * A body up to {@value #MAX_PRECOMPRESSED_LENGTH} bytes is compressed once, before the request is sent, into a
+ * {@link Buffer} whose segments come from the segment pool of Okio. The compressed body has a known length and is
+ * sent again unchanged when the request is retried. A body of unknown length, such as a batch of points, is
+ * compressed into the buffer as well until it turns out to be longer than {@value #MAX_PRECOMPRESSED_LENGTH} bytes.
+ * Larger bodies and bodies that can only be written once, such as an {@link InputStreamRequestBody}, are compressed
+ * while they are sent, so they are never held in memory. Bodies shorter than the threshold are sent uncompressed.
  *
  * @author fujian1115 [at] gmail.com
  */
 final class GzipRequestInterceptor implements Interceptor {
 
+    static final long MAX_PRECOMPRESSED_LENGTH = 4L * 1024 * 1024;
+
     private AtomicBoolean enabled = new AtomicBoolean(false);
+    private volatile CompressionCodec codec = CompressionCodec.gzip(Deflater.DEFAULT_COMPRESSION);
+    private volatile int threshold = InfluxDB.DEFAULT_GZIP_THRESHOLD;
 
     GzipRequestInterceptor() {
     }
@@ -36,6 +56,26 @@ final class GzipRequestInterceptor implements Interceptor {
         enabled.set(false);
     }
 
+    /**
+     * @param level the compression level, {@link Deflater#DEFAULT_COMPRESSION} or from
+     *              {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+     */
+    public void setLevel(final int level) {
+        this.codec = CompressionCodec.gzip(level);
+    }
+
+    public void setCodec(final CompressionCodec codec) {
+        this.codec = Objects.requireNonNull(codec, "codec");
+    }
+
+    /**
+     * @param threshold the length of a body in bytes below which it is sent uncompressed
+     */
+    public void setThreshold(final int threshold) {
+        Preconditions.checkNotNegativeNumber(threshold, "threshold");
+        this.threshold = threshold;
+    }
+
     @Override
     public Response intercept(final Interceptor.Chain chain) throws IOException {
         if (!enabled.get()) {
@@ -47,13 +87,60 @@ final class GzipRequestInterceptor implements Interceptor {
         if (body == null || originalRequest.header("Content-Encoding") != null) {
             return chain.proceed(originalRequest);
         }
+        long contentLength = body.contentLength();
+        if (contentLength >= 0 && contentLength < threshold) {
+            return chain.proceed(originalRequest);
+        }
 
-        Request compressedRequest = originalRequest.newBuilder().header("Content-Encoding", "gzip")
-                .method(originalRequest.method(), gzip(body)).build();
+        CompressionCodec bodyCodec = codec;
+        RequestBody compressedBody = compress(body, bodyCodec, threshold);
+        if (compressedBody instanceof BufferedBody && !((BufferedBody) compressedBody).compressed) {
+            // the body turned out to be shorter than the threshold, its bytes are sent as they were written
+            return chain.proceed(originalRequest.newBuilder()
+                    .method(originalRequest.method(), compressedBody).build());
+        }
+        Request compressedRequest = originalRequest.newBuilder()
+                .header("Content-Encoding", bodyCodec.getContentEncoding())
+                .method(originalRequest.method(), compressedBody).build();
         return chain.proceed(compressedRequest);
     }
 
-    private RequestBody gzip(final RequestBody body) {
+    /**
+     * @return a body of the bytes of the given body compressed with the codec, compressed in advance if the body
+     *         is not longer than {@link #MAX_PRECOMPRESSED_LENGTH} and can be written more than once
+     */
+    static RequestBody compress(final RequestBody body, final CompressionCodec codec) throws IOException {
+        return compress(body, codec, 0);
+    }
+
+    /**
+     * @return a body of the bytes of the given body compressed with the codec, or a {@link BufferedBody} of the
+     *         uncompressed bytes if the body is shorter than the threshold
+     */
+    static RequestBody compress(final RequestBody body, final CompressionCodec codec, final long threshold)
+            throws IOException {
+        long contentLength = body.contentLength();
+        if (contentLength > MAX_PRECOMPRESSED_LENGTH || (contentLength < 0 && body instanceof InputStreamRequestBody)) {
+            return streaming(body, codec);
+        }
+
+        PrecompressingSink precompressing = new PrecompressingSink(codec, threshold);
+        try (BufferedSink uncompressed = Okio.buffer(precompressing)) {
+            body.writeTo(uncompressed);
+        } catch (IOException e) {
+            if (!precompressing.exceeded) {
+                throw e;
+            }
+            // the body is written again when the request is sent
+            return streaming(body, codec);
+        }
+        if (precompressing.isCompressing()) {
+            return new BufferedBody(body.contentType(), precompressing.compressed, true);
+        }
+        return new BufferedBody(body.contentType(), precompressing.uncompressed, false);
+    }
+
+    private static RequestBody streaming(final RequestBody body, final CompressionCodec codec) {
         return new RequestBody() {
             @Override
             public MediaType contentType() {
@@ -62,15 +149,132 @@ final class GzipRequestInterceptor implements Interceptor {
 
             @Override
             public long contentLength() {
-                return -1; // We don't know the compressed length in advance!
+                return -1;
             }
 
             @Override
             public void writeTo(final BufferedSink sink) throws IOException {
-                BufferedSink gzipSink = Okio.buffer(new GzipSink(sink));
-                body.writeTo(gzipSink);
-                gzipSink.close();
+                // the codec closes its stream at the end, the sink is closed by OkHttp
+                OutputStream out = new FilterOutputStream(sink.outputStream()) {
+                    @Override
+                    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+                        out.write(bytes, offset, length);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                };
+                try (BufferedSink uncompressed = Okio.buffer(Okio.sink(codec.compress(out)))) {
+                    body.writeTo(uncompressed);
+                }
             }
         };
     }
+
+    /**
+     * Keeps the bytes written to it until they reach the threshold and compresses them into a buffer from then on.
+     * Fails once more than {@link #MAX_PRECOMPRESSED_LENGTH} bytes are written.
+     */
+    private static final class PrecompressingSink implements Sink {
+
+        private final CompressionCodec codec;
+        private final long threshold;
+        private final Buffer uncompressed = new Buffer();
+        private final Buffer compressed = new Buffer();
+        private BufferedSink compressing;
+        private long length;
+        private boolean exceeded;
+
+        PrecompressingSink(final CompressionCodec codec, final long threshold) {
+            this.codec = codec;
+            this.threshold = threshold;
+        }
+
+        boolean isCompressing() {
+            return compressing != null;
+        }
+
+        @Override
+        public void write(final Buffer source, final long byteCount) throws IOException {
+            length += byteCount;
+            if (length > MAX_PRECOMPRESSED_LENGTH) {
+                exceeded = true;
+                throw new IOException("The body is longer than " + MAX_PRECOMPRESSED_LENGTH + " bytes");
+            }
+            if (compressing != null) {
+                compressing.write(source, byteCount);
+                return;
+            }
+            uncompressed.write(source, byteCount);
+            if (uncompressed.size() >= threshold) {
+                startCompressing();
+            }
+        }
+
+        private void startCompressing() throws IOException {
+            compressing = Okio.buffer(Okio.sink(codec.compress(compressed.outputStream())));
+            compressing.writeAll(uncompressed);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (exceeded) {
+                uncompressed.clear();
+                compressed.clear();
+                return;
+            }
+            if (compressing == null && uncompressed.size() >= threshold) {
+                // an empty body is compressed as well if every body is to be compressed
+                startCompressing();
+            }
+            if (compressing != null) {
+                compressing.close();
+            }
+        }
+    }
+
+    /**
+     * A body of bytes kept in a buffer. The bytes are shared with every copy that is written, so a retried request
+     * sends them again without compressing them again.
+     */
+    static final class BufferedBody extends RequestBody {
+
+        private final MediaType contentType;
+        private final Buffer bytes;
+        private final boolean compressed;
+
+        BufferedBody(final MediaType contentType, final Buffer bytes, final boolean compressed) {
+            this.contentType = contentType;
+            this.bytes = bytes;
+            this.compressed = compressed;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        @Override
+        public long contentLength() {
+            return bytes.size();
+        }
+
+        @Override
+        public void writeTo(final BufferedSink sink) throws IOException {
+            // the clone shares the segments of the bytes instead of copying them
+            Buffer copy = bytes.clone();
+            sink.write(copy, copy.size());
+        }
+    }
 }
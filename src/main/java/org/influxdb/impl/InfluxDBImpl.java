@@ -11,22 +11,28 @@ import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import okhttp3.logging.HttpLoggingInterceptor;
 import okhttp3.logging.HttpLoggingInterceptor.Level;
+import okio.Buffer;
 import okio.BufferedSource;
 
 import org.influxdb.BatchOptions;
+import org.influxdb.CompressionCodec;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDBException;
 import org.influxdb.InfluxDBIOException;
+import org.influxdb.QueryCacheOptions;
 import org.influxdb.dto.BatchPoints;
 import org.influxdb.dto.BoundParameterQuery;
 import org.influxdb.dto.Point;
 import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryCacheStats;
 import org.influxdb.dto.QueryResult;
+import org.influxdb.querybuilder.TimeRangeSplit;
 import org.influxdb.impl.BatchProcessor.HttpBatchEntry;
 import org.influxdb.impl.BatchProcessor.UdpBatchEntry;
 import org.influxdb.msgpack.MessagePackConverterFactory;
 import org.influxdb.msgpack.MessagePackTraverser;
+import org.influxdb.msgpack.MessagePackTraverser.RowVisitor;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -46,18 +52,26 @@ import java.net.SocketException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -94,6 +108,12 @@ public class InfluxDBImpl implements InfluxDB {
   private volatile DatagramSocket datagramSocket;
   private final HttpLoggingInterceptor loggingInterceptor;
   private final GzipRequestInterceptor gzipRequestInterceptor;
+  private final AtomicBoolean responseCompression = new AtomicBoolean(true);
+  private volatile QueryResultCache queryCache;
+  private final QueryCoalescer queryCoalescer = new QueryCoalescer();
+  private volatile boolean queryCoalescing;
+  private volatile int queryFormBodyThreshold = DEFAULT_QUERY_FORM_BODY_THRESHOLD;
+  private ScheduledExecutorService queryTimeoutScheduler;
   private LogLevel logLevel = LogLevel.NONE;
   private String database;
   private String retentionPolicy = "autogen";
@@ -151,7 +171,7 @@ public class InfluxDBImpl implements InfluxDB {
     this.gzipRequestInterceptor = new GzipRequestInterceptor();
     OkHttpClient.Builder clonedOkHttpBuilder = okHttpBuilder.build().newBuilder();
     clonedOkHttpBuilder.addInterceptor(loggingInterceptor).addInterceptor(gzipRequestInterceptor).
-      addInterceptor(new BasicAuthInterceptor(username, password));
+      addInterceptor(new BasicAuthInterceptor(username, password)).addInterceptor(this::acceptEncoding);
     Factory converterFactory = null;
     switch (responseFormat) {
     case MSGPACK:
@@ -165,9 +185,9 @@ public class InfluxDBImpl implements InfluxDB {
       break;
     case JSON:
     default:
-      converterFactory = MoshiConverterFactory.create();
+      Moshi moshi = new Moshi.Builder().add(QueryResult.class, new QueryResultJsonAdapter()).build();
+      converterFactory = MoshiConverterFactory.create(moshi);
 
-      Moshi moshi = new Moshi.Builder().build();
       JsonAdapter<QueryResult> adapter = moshi.adapter(QueryResult.class);
       chunkProccesor = new JSONChunkProccesor(adapter);
       break;
@@ -199,8 +219,10 @@ public class InfluxDBImpl implements InfluxDB {
     OkHttpClient.Builder clonedBuilder = client.build().newBuilder();
     this.retrofit = new Retrofit.Builder().baseUrl(url)
         .client(clonedBuilder.addInterceptor(loggingInterceptor).addInterceptor(gzipRequestInterceptor).
-            addInterceptor(new BasicAuthInterceptor(username, password)).build())
-        .addConverterFactory(MoshiConverterFactory.create()).build();
+            addInterceptor(new BasicAuthInterceptor(username, password)).addInterceptor(this::acceptEncoding)
+            .build())
+        .addConverterFactory(MoshiConverterFactory.create(
+            new Moshi.Builder().add(QueryResult.class, new QueryResultJsonAdapter()).build())).build();
     this.influxDBService = influxDBService;
 
     chunkProccesor = new JSONChunkProccesor(adapter);
@@ -284,6 +306,147 @@ public class InfluxDBImpl implements InfluxDB {
     return this.gzipRequestInterceptor.isEnabled();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InfluxDB setGzipLevel(final int level) {
+    this.gzipRequestInterceptor.setLevel(level);
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InfluxDB setGzipThreshold(final int threshold) {
+    this.gzipRequestInterceptor.setThreshold(threshold);
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InfluxDB setCompressionCodec(final CompressionCodec codec) {
+    this.gzipRequestInterceptor.setCodec(codec);
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InfluxDB enableResponseCompression() {
+    this.responseCompression.set(true);
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InfluxDB disableResponseCompression() {
+    this.responseCompression.set(false);
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isResponseCompressionEnabled() {
+    return this.responseCompression.get();
+  }
+
+  private okhttp3.Response acceptEncoding(final okhttp3.Interceptor.Chain chain) throws IOException {
+    // OkHttp requests gzip and decompresses the response as a stream unless Accept-Encoding is already set
+    Request request = chain.request();
+    if (responseCompression.get() || request.header("Accept-Encoding") != null) {
+      return chain.proceed(request);
+    }
+    return chain.proceed(request.newBuilder().header("Accept-Encoding", "identity").build());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InfluxDB enableQueryCache(final QueryCacheOptions queryCacheOptions) {
+    if (this.queryCache != null) {
+      throw new IllegalStateException("QueryCache is already enabled.");
+    }
+    this.queryCache = new QueryResultCache(queryCacheOptions);
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InfluxDB disableQueryCache() {
+    QueryResultCache cache = this.queryCache;
+    this.queryCache = null;
+    if (cache != null) {
+      cache.clear();
+    }
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isQueryCacheEnabled() {
+    return this.queryCache != null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public QueryCacheStats getQueryCacheStats() {
+    QueryResultCache cache = this.queryCache;
+    if (cache == null) {
+      return null;
+    }
+    return cache.stats();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InfluxDB enableQueryCoalescing() {
+    this.queryCoalescing = true;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InfluxDB disableQueryCoalescing() {
+    this.queryCoalescing = false;
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isQueryCoalescingEnabled() {
+    return this.queryCoalescing;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getCoalescedQueryCount() {
+    return this.queryCoalescer.getCoalescedCount();
+  }
+
   @Override
   public InfluxDB enableBatch() {
     enableBatch(BatchOptions.DEFAULTS);
@@ -413,6 +576,13 @@ public class InfluxDBImpl implements InfluxDB {
     write(database, retentionPolicy, consistency, records);
   }
 
+  /**
+   * @return a builder of a batch for the database and the retention policy of this client
+   */
+  BatchPoints.Builder defaultBatch() {
+    return BatchPoints.database(database).retentionPolicy(retentionPolicy);
+  }
+
   @Override
   public void write(final List<String> records) {
     write(database, retentionPolicy, consistency, records);
@@ -451,7 +621,7 @@ public class InfluxDBImpl implements InfluxDB {
   @Override
   public void write(final BatchPoints batchPoints) {
     this.batchedCount.add(batchPoints.getPoints().size());
-    RequestBody lineProtocol = RequestBody.create(MEDIA_TYPE_STRING, batchPoints.lineProtocol());
+    RequestBody lineProtocol = new BatchPointsRequestBody(batchPoints);
     execute(this.influxDBService.writePoints(
         batchPoints.getDatabase(),
         batchPoints.getRetentionPolicy(),
@@ -499,6 +669,68 @@ public class InfluxDBImpl implements InfluxDB {
     write(database, retentionPolicy, consistency, precision, String.join("\n", records));
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final String database, final String retentionPolicy, final ConsistencyLevel consistency,
+          final TimeUnit precision, final ByteBuffer records) {
+    execute(this.influxDBService.writePoints(
+        database,
+        retentionPolicy,
+        TimeUtil.toTimePrecision(precision),
+        consistency.value(),
+        new ByteBufferRequestBody(records)));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final String database, final String retentionPolicy, final ConsistencyLevel consistency,
+          final TimeUnit precision, final byte[] records) {
+    write(database, retentionPolicy, consistency, precision, ByteBuffer.wrap(records));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final String database, final String retentionPolicy, final ConsistencyLevel consistency,
+          final TimeUnit precision, final InputStream records) {
+    RequestBody body = new InputStreamRequestBody(records);
+    if (logLevel == LogLevel.FULL) {
+      // the logging interceptor writes the body once more to log it
+      Buffer buffer = new Buffer();
+      try {
+        buffer.readFrom(records);
+      } catch (IOException e) {
+        throw new InfluxDBIOException(e);
+      }
+      body = RequestBody.create(MEDIA_TYPE_STRING, buffer.readByteString());
+    }
+    execute(this.influxDBService.writePoints(
+        database,
+        retentionPolicy,
+        TimeUtil.toTimePrecision(precision),
+        consistency.value(),
+        body));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final String database, final String retentionPolicy, final ConsistencyLevel consistency,
+          final TimeUnit precision, final Path records) {
+    execute(this.influxDBService.writePoints(
+        database,
+        retentionPolicy,
+        TimeUtil.toTimePrecision(precision),
+        consistency.value(),
+        new PathRequestBody(records)));
+  }
+
 
   /**
    * {@inheritDoc}
@@ -541,7 +773,7 @@ public class InfluxDBImpl implements InfluxDB {
    */
   @Override
   public QueryResult query(final Query query) {
-    return executeQuery(callQuery(query));
+    return executeQuery(query, null, q -> executeQuery(callQuery(q)));
   }
 
   /**
@@ -549,20 +781,56 @@ public class InfluxDBImpl implements InfluxDB {
    */
   @Override
   public void query(final Query query, final Consumer<QueryResult> onSuccess, final Consumer<Throwable> onFailure) {
-    final Call<QueryResult> call = callQuery(query);
-    call.enqueue(new Callback<QueryResult>() {
-      @Override
-      public void onResponse(final Call<QueryResult> call, final Response<QueryResult> response) {
-        onSuccess.accept(response.body());
-      }
-
-      @Override
-      public void onFailure(final Call<QueryResult> call, final Throwable throwable) {
+    CallFuture.enqueue(callQuery(query), this::decodeError).whenComplete((result, throwable) -> {
+      if (throwable == null) {
+        onSuccess.accept(result);
+      } else {
         onFailure.accept(throwable);
       }
     });
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<QueryResult> queryAsync(final Query query) {
+    return queryAsync(query, null, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<QueryResult> queryAsync(final Query query, final long timeout,
+                                                   final TimeUnit timeoutUnit) {
+    return queryAsync(query, null, timeout, timeoutUnit);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CompletableFuture<QueryResult> queryAsync(final Query query, final TimeUnit timeUnit, final long timeout,
+                                                   final TimeUnit timeoutUnit) {
+    CallFuture<QueryResult> future = CallFuture.enqueue(callQuery(query, timeUnit), this::decodeError);
+    if (timeout > 0) {
+      future.withDeadline(timeout, timeoutUnit, queryTimeoutScheduler());
+    }
+    return future;
+  }
+
+  private synchronized ScheduledExecutorService queryTimeoutScheduler() {
+    if (this.queryTimeoutScheduler == null) {
+      this.queryTimeoutScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "influxdb-query-timeout");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return this.queryTimeoutScheduler;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -600,12 +868,56 @@ public class InfluxDBImpl implements InfluxDB {
   @Override
   public void query(final Query query, final int chunkSize, final BiConsumer<Cancellable, QueryResult> onNext,
                     final Runnable onComplete, final Consumer<Throwable> onFailure) {
+    query(query, chunkSize, chunkProccesor, onNext, onComplete, onFailure);
+  }
+
+  /**
+   * Execute a streaming query whose MessagePack chunks push their rows to a visitor while they are decoded,
+   * instead of materializing them. The {@code onNext} consumer receives the QueryResult of every chunk with
+   * series without values. An exception thrown by the visitor cancels the stream and is passed to
+   * {@code onFailure}.
+   *
+   * @param query the query to execute
+   * @param chunkSize the number of QueryResults to process in one chunk
+   * @param visitors creates the visitor of the stream, which it can cancel
+   * @param onNext the consumer to invoke for the QueryResult of each chunk
+   * @param onComplete the onComplete to invoke for successfully end of stream
+   * @param onFailure the consumer for error handling
+   * @return {@code false} without executing the query if the responses are JSON
+   */
+  boolean query(final Query query, final int chunkSize, final Function<Cancellable, RowVisitor> visitors,
+                final BiConsumer<Cancellable, QueryResult> onNext, final Runnable onComplete,
+                final Consumer<Throwable> onFailure) {
+    if (!messagePack) {
+      return false;
+    }
+    MessagePackChunkProccesor visiting = new MessagePackChunkProccesor(visitors);
+    query(query, chunkSize, (chunkedBody, cancellable, consumer, complete) -> {
+      try {
+        visiting.process(chunkedBody, cancellable, consumer, complete);
+      } catch (RuntimeException e) {
+        cancellable.cancel();
+        if (onFailure == null) {
+          throw e;
+        }
+        onFailure.accept(e);
+      }
+    }, onNext, onComplete, onFailure);
+    return true;
+  }
+
+  private void query(final Query query, final int chunkSize, final ChunkProccesor processor,
+                     final BiConsumer<Cancellable, QueryResult> onNext, final Runnable onComplete,
+                     final Consumer<Throwable> onFailure) {
 
     Call<ResponseBody> call;
-    if (query instanceof BoundParameterQuery) {
-      BoundParameterQuery boundParameterQuery = (BoundParameterQuery) query;
+    String parameters = parametersWithUrlEncoded(query);
+    QueryFormBody form = QueryFormBody.ifLongerThan(query.getCommand(), parameters, this.queryFormBodyThreshold);
+    if (form != null) {
+      call = this.influxDBService.postQuery(query.getDatabase(), chunkSize, form);
+    } else if (parameters != null) {
       call = this.influxDBService.query(query.getDatabase(), query.getCommandWithUrlEncoded(), chunkSize,
-          boundParameterQuery.getParameterJsonWithUrlEncoded());
+          parameters);
     } else {
       call = this.influxDBService.query(query.getDatabase(), query.getCommandWithUrlEncoded(), chunkSize);
     }
@@ -629,7 +941,7 @@ public class InfluxDBImpl implements InfluxDB {
         try {
           if (response.isSuccessful()) {
             ResponseBody chunkedBody = response.body();
-            chunkProccesor.process(chunkedBody, cancellable, onNext, onComplete);
+            processor.process(chunkedBody, cancellable, onNext, onComplete);
           } else {
             // REVIEW: must be handled consistently with IOException.
             ResponseBody errorBody = response.errorBody();
@@ -643,8 +955,7 @@ public class InfluxDBImpl implements InfluxDB {
             }
           }
         } catch (IOException e) {
-          QueryResult queryResult = new QueryResult();
-          queryResult.setError(e.toString());
+          QueryResult queryResult = new ChunkReadError(e);
           onNext.accept(cancellable, queryResult);
           //passing null onFailure consumer is here for backward compatibility
           //where the empty queryResult containing error is propagating into onNext consumer
@@ -670,17 +981,149 @@ public class InfluxDBImpl implements InfluxDB {
    */
   @Override
   public QueryResult query(final Query query, final TimeUnit timeUnit) {
+    return executeQuery(query, timeUnit, q -> executeQuery(callQuery(q, timeUnit)));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<QueryResult> query(final List<Query> queries) {
+    return query(queries, null);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<QueryResult> query(final List<Query> queries, final TimeUnit timeUnit) {
+    CompletableFuture<List<QueryResult>> results = new CompletableFuture<>();
+    query(queries, timeUnit, results::complete, results::completeExceptionally);
+    return join(results);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public QueryResult query(final TimeRangeSplit split, final TimeUnit timeUnit, final int maxConcurrency) {
+    List<QueryResult> parts = new ArrayList<>();
+    CompletableFuture<QueryResult> merged = new CompletableFuture<>();
+    query(split, timeUnit, maxConcurrency, parts::add,
+        () -> merged.complete(SplitQueryExecution.merge(parts)), merged::completeExceptionally);
+    return join(merged);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void query(final TimeRangeSplit split, final TimeUnit timeUnit, final int maxConcurrency,
+                    final Consumer<QueryResult> onNext, final Runnable onComplete,
+                    final Consumer<Throwable> onFailure) {
+    Preconditions.checkPositiveNumber(maxConcurrency, "maxConcurrency");
+    SplitQueryExecution.execute(split, query -> queryAsync(query, timeUnit, 0, TimeUnit.MILLISECONDS),
+        maxConcurrency, onNext, onComplete, onFailure);
+  }
+
+  private static <T> T join(final CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof IOException) {
+        throw new InfluxDBIOException((IOException) e.getCause());
+      }
+      throw new InfluxDBException(e.getCause());
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void query(final List<Query> queries, final TimeUnit timeUnit,
+                    final Consumer<List<QueryResult>> onSuccess, final Consumer<Throwable> onFailure) {
+    List<QueryBatch> batches = QueryBatch.pack(queries);
+    QueryResult[] results = new QueryResult[queries.size()];
+    AtomicInteger pending = new AtomicInteger(batches.size());
+    AtomicBoolean failed = new AtomicBoolean();
+    Runnable onBatchComplete = () -> {
+      if (pending.decrementAndGet() == 0 && !failed.get()) {
+        onSuccess.accept(Arrays.asList(results));
+      }
+    };
+    Consumer<Throwable> onBatchFailure = throwable -> {
+      if (failed.compareAndSet(false, true)) {
+        onFailure.accept(throwable);
+      }
+    };
+    if (batches.isEmpty()) {
+      onSuccess.accept(Collections.emptyList());
+    }
+    for (QueryBatch batch : batches) {
+      enqueue(batch, timeUnit, results, onBatchComplete, onBatchFailure);
+    }
+  }
+
+  private void enqueue(final QueryBatch batch, final TimeUnit timeUnit, final QueryResult[] results,
+                       final Runnable onComplete, final Consumer<Throwable> onFailure) {
+    CallFuture.enqueue(callQuery(batch.getQuery(), timeUnit), this::decodeError).whenComplete((result, throwable) -> {
+      if (throwable != null) {
+        onFailure.accept(throwable);
+        return;
+      }
+      if (batch.split(result, results)) {
+        onComplete.run();
+        return;
+      }
+      List<QueryBatch> singles = batch.unpack();
+      AtomicInteger pending = new AtomicInteger(singles.size());
+      for (QueryBatch single : singles) {
+        enqueue(single, timeUnit, results, () -> {
+          if (pending.decrementAndGet() == 0) {
+            onComplete.run();
+          }
+        }, onFailure);
+      }
+    });
+  }
+
+  /**
+   * Executes the query through the query cache and query coalescing, if enabled.
+   */
+  private QueryResult executeQuery(final Query query, final TimeUnit timeUnit,
+                                   final Function<Query, QueryResult> executor) {
+    Function<Query, QueryResult> call = executor;
+    if (this.queryCoalescing) {
+      call = q -> this.queryCoalescer.query(q, timeUnit, executor);
+    }
+    QueryResultCache cache = this.queryCache;
+    if (cache != null) {
+      return cache.query(query, timeUnit, call);
+    }
+    return call.apply(query);
+  }
+
+  private Call<QueryResult> callQuery(final Query query, final TimeUnit timeUnit) {
+    if (timeUnit == null) {
+      return callQuery(query);
+    }
     Call<QueryResult> call = null;
-    if (query instanceof BoundParameterQuery) {
-        BoundParameterQuery boundParameterQuery = (BoundParameterQuery) query;
+    String parameters = parametersWithUrlEncoded(query);
+    QueryFormBody form = QueryFormBody.ifLongerThan(query.getCommand(), parameters, this.queryFormBodyThreshold);
+    if (form != null) {
+        call = this.influxDBService.postQuery(query.getDatabase(), TimeUtil.toTimePrecision(timeUnit), form);
+    } else if (parameters != null) {
         call = this.influxDBService.query(query.getDatabase(),
-                TimeUtil.toTimePrecision(timeUnit), query.getCommandWithUrlEncoded(),
-                boundParameterQuery.getParameterJsonWithUrlEncoded());
+                TimeUtil.toTimePrecision(timeUnit), query.getCommandWithUrlEncoded(), parameters);
     } else {
         call = this.influxDBService.query(query.getDatabase(),
                 TimeUtil.toTimePrecision(timeUnit), query.getCommandWithUrlEncoded());
     }
-    return executeQuery(call);
+    return call;
   }
 
   /**
@@ -738,10 +1181,12 @@ public class InfluxDBImpl implements InfluxDB {
    */
   private Call<QueryResult> callQuery(final Query query) {
     Call<QueryResult> call;
-    if (query instanceof BoundParameterQuery) {
-        BoundParameterQuery boundParameterQuery = (BoundParameterQuery) query;
-        call = this.influxDBService.postQuery(query.getDatabase(), query.getCommandWithUrlEncoded(),
-                boundParameterQuery.getParameterJsonWithUrlEncoded());
+    String parameters = parametersWithUrlEncoded(query);
+    QueryFormBody form = QueryFormBody.ifLongerThan(query.getCommand(), parameters, this.queryFormBodyThreshold);
+    if (form != null) {
+        call = this.influxDBService.postQuery(query.getDatabase(), null, form);
+    } else if (parameters != null) {
+        call = this.influxDBService.postQuery(query.getDatabase(), query.getCommandWithUrlEncoded(), parameters);
     } else {
         if (query.requiresPost()) {
           call = this.influxDBService.postQuery(query.getDatabase(), query.getCommandWithUrlEncoded());
@@ -752,6 +1197,13 @@ public class InfluxDBImpl implements InfluxDB {
     return call;
   }
 
+  private static String parametersWithUrlEncoded(final Query query) {
+    if (query instanceof BoundParameterQuery) {
+      return ((BoundParameterQuery) query).getParameterJsonWithUrlEncoded();
+    }
+    return null;
+  }
+
   static class ErrorMessage {
     public String error;
   }
@@ -789,18 +1241,30 @@ public class InfluxDBImpl implements InfluxDB {
       if (response.isSuccessful()) {
         return response.body();
       }
-      try (ResponseBody errorBody = response.errorBody()) {
-        if (messagePack) {
-          throw InfluxDBException.buildExceptionForErrorState(errorBody.byteStream());
-        } else {
-          throw InfluxDBException.buildExceptionForErrorState(errorBody.string());
-        }
-      }
+      throw buildExceptionForErrorState(response);
     } catch (IOException e) {
       throw new InfluxDBIOException(e);
     }
   }
 
+  private Throwable decodeError(final Response<?> response) {
+    try {
+      return buildExceptionForErrorState(response);
+    } catch (IOException e) {
+      return new InfluxDBIOException(e);
+    }
+  }
+
+  private InfluxDBException buildExceptionForErrorState(final Response<?> response) throws IOException {
+    try (ResponseBody errorBody = response.errorBody()) {
+      if (messagePack) {
+        return InfluxDBException.buildExceptionForErrorState(errorBody.byteStream());
+      } else {
+        return InfluxDBException.buildExceptionForErrorState(errorBody.string());
+      }
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -823,9 +1287,25 @@ public class InfluxDBImpl implements InfluxDB {
         if (datagramSocket != null && !datagramSocket.isClosed()) {
             datagramSocket.close();
         }
+        synchronized (this) {
+          if (queryTimeoutScheduler != null) {
+            queryTimeoutScheduler.shutdownNow();
+            queryTimeoutScheduler = null;
+          }
+        }
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public InfluxDB setQueryFormBodyThreshold(final int threshold) {
+    Preconditions.checkNotNegativeNumber(threshold, "threshold");
+    this.queryFormBodyThreshold = threshold;
+    return this;
+  }
+
   @Override
   public InfluxDB setConsistency(final ConsistencyLevel consistency) {
     this.consistency = consistency;
@@ -912,19 +1392,41 @@ public class InfluxDBImpl implements InfluxDB {
     executeQuery(this.influxDBService.postQuery(Query.encode(queryBuilder.toString())));
   }
 
+  /**
+   * The QueryResult passed to the {@code onNext} consumer of a streaming query when a chunk cannot be read; the
+   * IOException itself is passed to {@code onFailure} afterwards.
+   */
+  static final class ChunkReadError extends QueryResult {
+    ChunkReadError(final IOException e) {
+      setError(e.toString());
+    }
+  }
+
   private interface ChunkProccesor {
     void process(ResponseBody chunkedBody, Cancellable cancellable,
                  BiConsumer<Cancellable, QueryResult> consumer, Runnable onComplete) throws IOException;
   }
 
   private class MessagePackChunkProccesor implements ChunkProccesor {
+    private final Function<Cancellable, RowVisitor> visitors;
+
+    MessagePackChunkProccesor() {
+      this(cancellable -> null);
+    }
+
+    MessagePackChunkProccesor(final Function<Cancellable, RowVisitor> visitors) {
+      this.visitors = visitors;
+    }
+
     @Override
     public void process(final ResponseBody chunkedBody, final Cancellable cancellable,
                         final BiConsumer<Cancellable, QueryResult> consumer, final Runnable onComplete)
             throws IOException {
       MessagePackTraverser traverser = new MessagePackTraverser();
+      RowVisitor visitor = visitors.apply(cancellable);
       try (InputStream is = chunkedBody.byteStream()) {
-        for (Iterator<QueryResult> it = traverser.traverse(is).iterator(); it.hasNext() && !cancellable.isCanceled();) {
+        for (Iterator<QueryResult> it = traverser.traverse(is, visitor).iterator();
+             it.hasNext() && !cancellable.isCanceled();) {
           QueryResult result = it.next();
           consumer.accept(cancellable, result);
         }
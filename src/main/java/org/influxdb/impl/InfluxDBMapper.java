@@ -1,20 +1,42 @@
 package org.influxdb.impl;
 
-import java.lang.reflect.Field;
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ConcurrentMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.influxdb.InfluxDB;
-import org.influxdb.InfluxDBMapperException;
-import org.influxdb.annotation.Column;
+import org.influxdb.InfluxDB.Cancellable;
 import org.influxdb.annotation.Measurement;
+import org.influxdb.dto.BatchPoints;
 import org.influxdb.dto.Point;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
 
 public class InfluxDBMapper extends InfluxDBResultMapper {
 
+  private static final String UNASSIGNED_DATABASE = "[unassigned]";
+
+  private static final String END_OF_STREAM = "DONE";
+
+  /**
+   * The point mapper of a class, stored with the class itself so that it never keeps the class from being unloaded.
+   */
+  private static final ClassValue<AtomicReference<PointMapper<?>>> POINT_MAPPER_CACHE =
+      new ClassValue<AtomicReference<PointMapper<?>>>() {
+        @Override
+        protected AtomicReference<PointMapper<?>> computeValue(final Class<?> type) {
+          return new AtomicReference<>();
+        }
+      };
+
   private final InfluxDB influxDB;
 
   public InfluxDBMapper(final InfluxDB influxDB) {
@@ -27,13 +49,104 @@ public class InfluxDBMapper extends InfluxDBResultMapper {
     return toPOJO(queryResult, clazz);
   }
 
+  /**
+   * Execute a streaming query and map the rows of every chunk as it arrives. At most one chunk of objects is
+   * created at a time, none of them are collected.
+   * <p>
+   * The caller is not told when the stream ends: an error of the query, of a chunk or of the mapping stops the
+   * stream and is only thrown on the thread of the HTTP client. Use the overload with {@code onComplete} and
+   * {@code onFailure} to be notified.
+   *
+   * @param query
+   *            the query to execute.
+   * @param clazz
+   *            the measurement class to map the rows to.
+   * @param chunkSize
+   *            the number of QueryResults to process in one chunk.
+   * @param onNext
+   *            the consumer to invoke for each mapped object.
+   * @param <T>
+   *            the measurement type.
+   * @see #query(Query, Class, int, BiConsumer, Runnable, Consumer)
+   */
+  public <T> void query(final Query query, final Class<T> clazz, final int chunkSize, final Consumer<T> onNext) {
+    query(query, clazz, chunkSize, (cancellable, object) -> onNext.accept(object), () -> { }, null);
+  }
+
+  /**
+   * Execute a streaming query and map the rows of every chunk as it arrives. At most one chunk of objects is
+   * created at a time, none of them are collected. The rows of MessagePack responses are mapped while they are
+   * decoded, without materializing them, and their timestamps are mapped with nanosecond precision.
+   *
+   * @param query
+   *            the query to execute.
+   * @param clazz
+   *            the measurement class to map the rows to.
+   * @param chunkSize
+   *            the number of QueryResults to process in one chunk.
+   * @param onNext
+   *            the consumer to invoke for each mapped object, it can cancel the rest of the stream.
+   * @param onComplete
+   *            the onComplete to invoke for successfully end of stream.
+   * @param onFailure
+   *            the consumer for error handling, an error of the query, of a chunk or of the mapping cancels the
+   *            stream.
+   * @param <T>
+   *            the measurement type.
+   */
+  public <T> void query(final Query query, final Class<T> clazz, final int chunkSize,
+                        final BiConsumer<Cancellable, T> onNext, final Runnable onComplete,
+                        final Consumer<Throwable> onFailure) {
+    throwExceptionIfMissingAnnotation(clazz);
+    String measurement = getMeasurementName(clazz);
+
+    if (influxDB instanceof InfluxDBImpl) {
+      // MessagePack rows are mapped while they are decoded, the QueryResults only carry the errors
+      boolean visited = ((InfluxDBImpl) influxDB).query(query, chunkSize,
+          cancellable -> rowVisitor(clazz, measurement, object -> {
+            if (!cancellable.isCanceled()) {
+              onNext.accept(cancellable, object);
+            }
+          }),
+          (cancellable, queryResult) -> mapChunk(cancellable, queryResult, () -> { }, onFailure),
+          onComplete, onFailure);
+      if (visited) {
+        return;
+      }
+    }
+
+    influxDB.query(query, chunkSize, (cancellable, queryResult) -> mapChunk(cancellable, queryResult,
+        () -> forEachPOJO(queryResult, clazz, measurement, TimeUnit.MILLISECONDS,
+            object -> onNext.accept(cancellable, object)), onFailure),
+        onComplete, onFailure);
+  }
+
+  private void mapChunk(final Cancellable cancellable, final QueryResult queryResult, final Runnable mapping,
+                        final Consumer<Throwable> onFailure) {
+    // the end of the stream and I/O errors are reported by onComplete and onFailure, errors of InfluxDB are not
+    if (END_OF_STREAM.equals(queryResult.getError())
+        || (onFailure != null && queryResult instanceof InfluxDBImpl.ChunkReadError)) {
+      return;
+    }
+    try {
+      throwExceptionIfResultWithError(queryResult);
+      mapping.run();
+    } catch (RuntimeException e) {
+      cancellable.cancel();
+      if (onFailure == null) {
+        throw e;
+      }
+      onFailure.accept(e);
+    }
+  }
+
   public <T> List<T> query(final Class<T> clazz) {
     throwExceptionIfMissingAnnotation(clazz);
 
     String measurement = getMeasurementName(clazz);
     String database = getDatabaseName(clazz);
 
-    if ("[unassigned]".equals(database)) {
+    if (UNASSIGNED_DATABASE.equals(database)) {
       throw new IllegalArgumentException(
           Measurement.class.getSimpleName()
               + " of class "
@@ -46,92 +159,96 @@ public class InfluxDBMapper extends InfluxDBResultMapper {
   }
 
   public <T> void save(final T model) {
-    throwExceptionIfMissingAnnotation(model.getClass());
-    cacheMeasurementClass(model.getClass());
+    PointMapper<T> pointMapper = getPointMapper(model);
+    Point point = pointMapper.toPoint(model);
 
-    ConcurrentMap<String, Field> colNameAndFieldMap = getColNameAndFieldMap(model.getClass());
+    if (UNASSIGNED_DATABASE.equals(pointMapper.getDatabase())) {
+      influxDB.write(point);
+    } else {
+      influxDB.write(pointMapper.getDatabase(), pointMapper.getRetentionPolicy(), point);
+    }
+  }
 
-    try {
-      Class<?> modelType = model.getClass();
-      String measurement = getMeasurementName(modelType);
-      String database = getDatabaseName(modelType);
-      String retentionPolicy = getRetentionPolicy(modelType);
-      TimeUnit timeUnit = getTimeUnit(modelType);
-      long time = timeUnit.convert(System.currentTimeMillis(), TimeUnit.MILLISECONDS);
-      Point.Builder pointBuilder = Point.measurement(measurement).time(time, timeUnit);
-
-      for (String key : colNameAndFieldMap.keySet()) {
-        Field field = colNameAndFieldMap.get(key);
-        Column column = field.getAnnotation(Column.class);
-        String columnName = column.name();
-        Class<?> fieldType = field.getType();
-
-        if (!field.isAccessible()) {
-          field.setAccessible(true);
-        }
+  /**
+   * Save the objects with one write per database and retention policy. Objects of a measurement without a database
+   * are written to the database and the retention policy of the client. Every batch is written with the consistency
+   * {@link org.influxdb.InfluxDB.ConsistencyLevel#ONE ONE}, the default of {@link BatchPoints}, as an unbatched
+   * {@link #save(Object)} is.
+   *
+   * @param models
+   *            the objects to save, they may be of different measurement classes.
+   * @param <T>
+   *            the measurement type.
+   */
+  public <T> void saveAll(final Collection<T> models) {
+    saveAll((Iterable<T>) models);
+  }
 
-        Object value = field.get(model);
-
-        if (column.tag()) {
-          /** Tags are strings either way. */
-          pointBuilder.tag(columnName, value.toString());
-        } else if ("time".equals(columnName)) {
-          if (value != null) {
-            setTime(pointBuilder, fieldType, timeUnit, value);
-          }
-        } else {
-          setField(pointBuilder, fieldType, columnName, value);
-        }
-      }
+  /**
+   * Save the objects with one write per database and retention policy. Objects of a measurement without a database
+   * are written to the database and the retention policy of the client. Every batch is written with the consistency
+   * {@link org.influxdb.InfluxDB.ConsistencyLevel#ONE ONE}, the default of {@link BatchPoints}, as an unbatched
+   * {@link #save(Object)} is.
+   *
+   * @param models
+   *            the objects to save, they may be of different measurement classes.
+   * @param <T>
+   *            the measurement type.
+   */
+  public <T> void saveAll(final Stream<T> models) {
+    saveAll((Iterable<T>) models::iterator);
+  }
 
-      Point point = pointBuilder.build();
+  private <T> void saveAll(final Iterable<T> models) {
+    Map<List<String>, BatchPoints.Builder> batches = new LinkedHashMap<>();
+    List<String> unassigned = new ArrayList<>();
 
-      if ("[unassigned]".equals(database)) {
-        influxDB.write(point);
+    for (T model : models) {
+      PointMapper<T> pointMapper = getPointMapper(model);
+      Point point = pointMapper.toPoint(model);
+
+      if (!UNASSIGNED_DATABASE.equals(pointMapper.getDatabase())) {
+        batches.computeIfAbsent(Arrays.asList(pointMapper.getDatabase(), pointMapper.getRetentionPolicy()),
+            key -> BatchPoints.database(key.get(0)).retentionPolicy(key.get(1))).point(point);
+      } else if (influxDB instanceof InfluxDBImpl) {
+        batches.computeIfAbsent(Collections.emptyList(), key -> ((InfluxDBImpl) influxDB).defaultBatch())
+            .point(point);
       } else {
-        influxDB.write(database, retentionPolicy, point);
+        unassigned.add(point.lineProtocol());
       }
+    }
 
-    } catch (IllegalAccessException e) {
-      throw new InfluxDBMapperException(e);
+    for (BatchPoints.Builder batch : batches.values()) {
+      influxDB.write(batch.build());
+    }
+    if (!unassigned.isEmpty()) {
+      influxDB.write(unassigned);
     }
   }
 
-  private void setTime(
-      final Point.Builder pointBuilder,
-      final Class<?> fieldType,
-      final TimeUnit timeUnit,
-      final Object value) {
-    if (Instant.class.isAssignableFrom(fieldType)) {
-      Instant instant = (Instant) value;
-      long time = timeUnit.convert(instant.toEpochMilli(), TimeUnit.MILLISECONDS);
-      pointBuilder.time(time, timeUnit);
-    } else {
-      throw new InfluxDBMapperException(
-          "Unsupported type " + fieldType + " for time: should be of Instant type");
+  @SuppressWarnings("unchecked")
+  private <T> PointMapper<T> getPointMapper(final T model) {
+    Class<?> modelType = model.getClass();
+    AtomicReference<PointMapper<?>> cached = POINT_MAPPER_CACHE.get(modelType);
+    PointMapper<?> pointMapper = cached.get();
+    if (pointMapper == null) {
+      throwExceptionIfMissingAnnotation(modelType);
+      pointMapper = createPointMapper(modelType);
+      if (!cached.compareAndSet(null, pointMapper)) {
+        pointMapper = cached.get();
+      }
     }
+    return (PointMapper<T>) pointMapper;
   }
 
-  private void setField(
-      final Point.Builder pointBuilder,
-      final Class<?> fieldType,
-      final String columnName,
-      final Object value) {
-    if (boolean.class.isAssignableFrom(fieldType) || Boolean.class.isAssignableFrom(fieldType)) {
-      pointBuilder.addField(columnName, (boolean) value);
-    } else if (long.class.isAssignableFrom(fieldType) || Long.class.isAssignableFrom(fieldType)) {
-      pointBuilder.addField(columnName, (long) value);
-    } else if (double.class.isAssignableFrom(fieldType)
-        || Double.class.isAssignableFrom(fieldType)) {
-      pointBuilder.addField(columnName, (double) value);
-    } else if (int.class.isAssignableFrom(fieldType) || Integer.class.isAssignableFrom(fieldType)) {
-      pointBuilder.addField(columnName, (int) value);
-    } else if (String.class.isAssignableFrom(fieldType)) {
-      pointBuilder.addField(columnName, (String) value);
-    } else {
-      throw new InfluxDBMapperException(
-          "Unsupported type " + fieldType + " for column " + columnName);
+  private PointMapper<?> createPointMapper(final Class<?> clazz) {
+    MeasurementCodec<?> codec = MeasurementCodecs.find(clazz);
+    if (codec != null) {
+      return new PointMapper<>(codec, getDatabaseName(clazz), getRetentionPolicy(clazz));
     }
+    cacheMeasurementClass(clazz);
+    return new PointMapper<>(getMeasurementName(clazz), getDatabaseName(clazz), getRetentionPolicy(clazz),
+        getTimeUnit(clazz), getColNameAndFieldMap(clazz));
   }
 
 }
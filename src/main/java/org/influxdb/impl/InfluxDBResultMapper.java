@@ -21,22 +21,21 @@
 package org.influxdb.impl;
 
 import java.lang.reflect.Field;
-import java.time.Instant;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.temporal.ChronoField;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.influxdb.InfluxDBMapperException;
 import org.influxdb.annotation.Column;
 import org.influxdb.annotation.Measurement;
 import org.influxdb.dto.QueryResult;
+import org.influxdb.msgpack.MessagePackTraverser;
 
 /**
  * Main class responsible for mapping a QueryResult to a POJO.
@@ -46,24 +45,21 @@ import org.influxdb.dto.QueryResult;
 public class InfluxDBResultMapper {
 
   /**
-   * Data structure used to cache classes used as measurements.
+   * The number of column layouts whose mappers are cached per class; the least recently used one is dropped.
    */
-  private static final
-    ConcurrentMap<String, ConcurrentMap<String, Field>> CLASS_FIELD_CACHE = new ConcurrentHashMap<>();
-
-  private static final int FRACTION_MIN_WIDTH = 0;
-  private static final int FRACTION_MAX_WIDTH = 9;
-  private static final boolean ADD_DECIMAL_POINT = true;
+  static final int MAX_LAYOUTS_PER_CLASS = 64;
 
   /**
-   * When a query is executed without {@link TimeUnit}, InfluxDB returns the <tt>time</tt>
-   * column as an ISO8601 date.
+   * Fields, field writers and compiled mappers of a class used as measurement. They are stored with the class
+   * itself, so they never keep the class or its class loader from being unloaded, and a class loaded again under
+   * the same name gets its own.
    */
-  private static final DateTimeFormatter ISO8601_FORMATTER = new DateTimeFormatterBuilder()
-    .appendPattern("yyyy-MM-dd'T'HH:mm:ss")
-    .appendFraction(ChronoField.NANO_OF_SECOND, FRACTION_MIN_WIDTH, FRACTION_MAX_WIDTH, ADD_DECIMAL_POINT)
-    .appendPattern("X")
-    .toFormatter();
+  private static final ClassValue<ClassMappers> CLASS_MAPPERS = new ClassValue<ClassMappers>() {
+    @Override
+    protected ClassMappers computeValue(final Class<?> type) {
+      return new ClassMappers();
+    }
+  };
 
   /**
    * <p>
@@ -161,26 +157,65 @@ public class InfluxDBResultMapper {
                             final TimeUnit precision)
       throws InfluxDBMapperException {
 
+    List<T> result = new ArrayList<>();
+    forEachPOJO(queryResult, clazz, measurementName, precision, result::add);
+    return result;
+  }
+
+  /**
+   * Maps the series of the {@code measurementName} in a {@link QueryResult} row by row and hands every object
+   * to the {@code action} as soon as it is created, without collecting them.
+   *
+   * @param queryResult the InfluxDB result object
+   * @param clazz the Class that will be used to hold your measurement data
+   * @param measurementName name of the Measurement
+   * @param precision the time precision of results
+   * @param action the consumer of the mapped objects
+   * @param <T> the target type
+   *
+   * @throws InfluxDBMapperException If {@link QueryResult} parameter contain errors or it was not
+   * possible to define the values of your POJO (e.g. due to an unsupported field type).
+   */
+  <T> void forEachPOJO(final QueryResult queryResult, final Class<T> clazz, final String measurementName,
+                       final TimeUnit precision, final Consumer<? super T> action) throws InfluxDBMapperException {
+
     Objects.requireNonNull(measurementName, "measurementName");
     Objects.requireNonNull(queryResult, "queryResult");
     Objects.requireNonNull(clazz, "clazz");
 
     throwExceptionIfResultWithError(queryResult);
-    cacheMeasurementClass(clazz);
+    cacheMeasurementClassWithoutCodec(clazz);
 
-    List<T> result = new LinkedList<T>();
+    for (QueryResult.Result internalResult : queryResult.getResults()) {
+      if (internalResult == null || internalResult.getSeries() == null) {
+        continue;
+      }
+      for (QueryResult.Series series : internalResult.getSeries()) {
+        if (measurementName.equals(series.getName()) && series.getColumns() != null) {
+          getSeriesMapper(clazz, series.getColumns()).map(series.getValues(), series.getTags(), precision, action);
+        }
+      }
+    }
+  }
 
-    queryResult.getResults().stream()
-      .filter(internalResult -> Objects.nonNull(internalResult) && Objects.nonNull(internalResult.getSeries()))
-      .forEach(internalResult -> {
-        internalResult.getSeries().stream()
-          .filter(series -> series.getName().equals(measurementName))
-          .forEachOrdered(series -> {
-            parseSeriesAs(series, clazz, result, precision);
-          });
-        });
+  /**
+   * Returns a visitor that maps the series of the {@code measurementName} in the rows pushed by a
+   * {@link MessagePackTraverser} and hands every object to the {@code action} as soon as it is created. Unlike
+   * {@link #forEachPOJO}, the rows are never materialized and timestamps are mapped with nanosecond precision.
+   *
+   * @param clazz the Class that will be used to hold your measurement data
+   * @param measurementName name of the Measurement
+   * @param action the consumer of the mapped objects
+   * @param <T> the target type
+   * @return the visitor to traverse a MessagePack response with
+   */
+  <T> MessagePackTraverser.RowVisitor rowVisitor(final Class<T> clazz, final String measurementName,
+                                                 final Consumer<? super T> action) {
+    Objects.requireNonNull(measurementName, "measurementName");
+    Objects.requireNonNull(clazz, "clazz");
 
-    return result;
+    cacheMeasurementClassWithoutCodec(clazz);
+    return new SeriesMapper.RowSink<>(measurementName, columns -> getSeriesMapper(clazz, columns), action);
   }
 
   void throwExceptionIfMissingAnnotation(final Class<?> clazz) {
@@ -203,26 +238,34 @@ public class InfluxDBResultMapper {
   }
 
   ConcurrentMap<String, Field> getColNameAndFieldMap(final Class<?> clazz) {
-    return CLASS_FIELD_CACHE.get(clazz.getName());
+    return CLASS_MAPPERS.get(clazz).fields;
   }
 
   void cacheMeasurementClass(final Class<?>... classVarAgrs) {
     for (Class<?> clazz : classVarAgrs) {
-      if (CLASS_FIELD_CACHE.containsKey(clazz.getName())) {
+      ClassMappers classMappers = CLASS_MAPPERS.get(clazz);
+      if (classMappers.fields != null) {
         continue;
       }
-      ConcurrentMap<String, Field> initialMap = new ConcurrentHashMap<>();
-      ConcurrentMap<String, Field> influxColumnAndFieldMap = CLASS_FIELD_CACHE.putIfAbsent(clazz.getName(), initialMap);
-      if (influxColumnAndFieldMap == null) {
-        influxColumnAndFieldMap = initialMap;
-      }
-
+      ConcurrentMap<String, Field> influxColumnAndFieldMap = new ConcurrentHashMap<>();
       for (Field field : clazz.getDeclaredFields()) {
         Column colAnnotation = field.getAnnotation(Column.class);
         if (colAnnotation != null) {
           influxColumnAndFieldMap.put(colAnnotation.name(), field);
         }
       }
+      // threads racing here build equal maps, any of them may be kept
+      classMappers.fields = influxColumnAndFieldMap;
+    }
+  }
+
+  /**
+   * Caches the fields of a class only when it is mapped by reflection, a class with a {@link MeasurementCodec}
+   * is never inspected.
+   */
+  private void cacheMeasurementClassWithoutCodec(final Class<?> clazz) {
+    if (MeasurementCodecs.find(clazz) == null) {
+      cacheMeasurementClass(clazz);
     }
   }
 
@@ -248,152 +291,59 @@ public class InfluxDBResultMapper {
 
   <T> List<T> parseSeriesAs(final QueryResult.Series series, final Class<T> clazz, final List<T> result,
                             final TimeUnit precision) {
-    int columnSize = series.getColumns().size();
-    ConcurrentMap<String, Field> colNameAndFieldMap = CLASS_FIELD_CACHE.get(clazz.getName());
-    try {
-      T object = null;
-      for (List<Object> row : series.getValues()) {
-        for (int i = 0; i < columnSize; i++) {
-          Field correspondingField = colNameAndFieldMap.get(series.getColumns().get(i)/*InfluxDB columnName*/);
-          if (correspondingField != null) {
-            if (object == null) {
-              object = clazz.newInstance();
-            }
-            setFieldValue(object, correspondingField, row.get(i), precision);
-          }
-        }
-        // When the "GROUP BY" clause is used, "tags" are returned as Map<String,String> and
-        // accordingly with InfluxDB documentation
-        // https://docs.influxdata.com/influxdb/v1.2/concepts/glossary/#tag-value
-        // "tag" values are always String.
-        if (series.getTags() != null && !series.getTags().isEmpty()) {
-          for (Entry<String, String> entry : series.getTags().entrySet()) {
-            Field correspondingField = colNameAndFieldMap.get(entry.getKey()/*InfluxDB columnName*/);
-            if (correspondingField != null) {
-              // I don't think it is possible to reach here without a valid "object"
-              setFieldValue(object, correspondingField, entry.getValue(), precision);
-            }
-          }
-        }
-        if (object != null) {
-          result.add(object);
-          object = null;
-        }
-      }
-    } catch (InstantiationException | IllegalAccessException e) {
-      throw new InfluxDBMapperException(e);
+    if (series.getColumns() == null) {
+      return result;
     }
+    getSeriesMapper(clazz, series.getColumns()).map(series.getValues(), series.getTags(), precision, result::add);
     return result;
   }
 
   /**
-   * InfluxDB client returns any number as Double.
-   * See https://github.com/influxdata/influxdb-java/issues/153#issuecomment-259681987
-   * for more information.
-   *
-   * @param object
-   * @param field
-   * @param value
-   * @param precision
-   * @throws IllegalArgumentException
-   * @throws IllegalAccessException
+   * Returns the mapper compiled for the class and the column layout, resolving columns to fields only once.
+   * A {@link MeasurementCodec} generated for the class is preferred over reflection.
    */
-  <T> void setFieldValue(final T object, final Field field, final Object value, final TimeUnit precision)
-    throws IllegalArgumentException, IllegalAccessException {
-    if (value == null) {
-      return;
-    }
-    Class<?> fieldType = field.getType();
-    try {
-      if (!field.isAccessible()) {
-        field.setAccessible(true);
-      }
-      if (fieldValueModified(fieldType, field, object, value, precision)
-        || fieldValueForPrimitivesModified(fieldType, field, object, value)
-        || fieldValueForPrimitiveWrappersModified(fieldType, field, object, value)) {
-        return;
-      }
-      String msg = "Class '%s' field '%s' is from an unsupported type '%s'.";
-      throw new InfluxDBMapperException(
-        String.format(msg, object.getClass().getName(), field.getName(), field.getType()));
-    } catch (ClassCastException e) {
-      String msg = "Class '%s' field '%s' was defined with a different field type and caused a ClassCastException. "
-        + "The correct type is '%s' (current field value: '%s').";
-      throw new InfluxDBMapperException(
-        String.format(msg, object.getClass().getName(), field.getName(), value.getClass().getName(), value));
-    }
-  }
-
-  <T> boolean fieldValueModified(final Class<?> fieldType, final Field field, final T object, final Object value,
-                                 final TimeUnit precision)
-    throws IllegalArgumentException, IllegalAccessException {
-    if (String.class.isAssignableFrom(fieldType)) {
-      field.set(object, String.valueOf(value));
-      return true;
+  @SuppressWarnings("unchecked")
+  <T> SeriesMapper<T> getSeriesMapper(final Class<T> clazz, final List<String> columns) {
+    ClassMappers classMappers = CLASS_MAPPERS.get(clazz);
+    SeriesMapper<?> mapper;
+    synchronized (classMappers) {
+      mapper = classMappers.byLayout.get(columns);
     }
-    if (Instant.class.isAssignableFrom(fieldType)) {
-      Instant instant;
-      if (value instanceof String) {
-        instant = Instant.from(ISO8601_FORMATTER.parse(String.valueOf(value)));
-      } else if (value instanceof Long) {
-        instant = Instant.ofEpochMilli(toMillis((long) value, precision));
-      } else if (value instanceof Double) {
-        instant = Instant.ofEpochMilli(toMillis(((Double) value).longValue(), precision));
-      } else if (value instanceof Integer) {
-        instant = Instant.ofEpochMilli(toMillis(((Integer) value).longValue(), precision));
+    if (mapper == null) {
+      MeasurementCodec<T> codec = MeasurementCodecs.find(clazz);
+      if (codec != null) {
+        mapper = SeriesMapper.create(clazz, codec, columns);
       } else {
-        throw new InfluxDBMapperException("Unsupported type " + field.getClass() + " for field " + field.getName());
+        Map<String, SeriesMapper.FieldWriter> writers = classMappers.writers;
+        if (writers == null) {
+          writers = SeriesMapper.createWriters(classMappers.fields);
+          classMappers.writers = writers;
+        }
+        mapper = SeriesMapper.create(clazz, writers, columns);
+      }
+      synchronized (classMappers) {
+        classMappers.byLayout.put(new ArrayList<>(columns), mapper);
       }
-      field.set(object, instant);
-      return true;
     }
-    return false;
+    return (SeriesMapper<T>) mapper;
   }
 
-  <T> boolean fieldValueForPrimitivesModified(final Class<?> fieldType, final Field field, final T object,
-    final Object value) throws IllegalArgumentException, IllegalAccessException {
-    if (double.class.isAssignableFrom(fieldType)) {
-      field.setDouble(object, ((Double) value).doubleValue());
-      return true;
-    }
-    if (long.class.isAssignableFrom(fieldType)) {
-      field.setLong(object, ((Double) value).longValue());
-      return true;
-    }
-    if (int.class.isAssignableFrom(fieldType)) {
-      field.setInt(object, ((Double) value).intValue());
-      return true;
-    }
-    if (boolean.class.isAssignableFrom(fieldType)) {
-      field.setBoolean(object, Boolean.valueOf(String.valueOf(value)).booleanValue());
-      return true;
-    }
-    return false;
-  }
+  /**
+   * The fields of a class by column name, its field writers, shared by the mappers of all column layouts, and its
+   * mappers by column layout.
+   */
+  private static final class ClassMappers {
 
-  <T> boolean fieldValueForPrimitiveWrappersModified(final Class<?> fieldType, final Field field, final T object,
-    final Object value) throws IllegalArgumentException, IllegalAccessException {
-    if (Double.class.isAssignableFrom(fieldType)) {
-      field.set(object, value);
-      return true;
-    }
-    if (Long.class.isAssignableFrom(fieldType)) {
-      field.set(object, Long.valueOf(((Double) value).longValue()));
-      return true;
-    }
-    if (Integer.class.isAssignableFrom(fieldType)) {
-      field.set(object, Integer.valueOf(((Double) value).intValue()));
-      return true;
-    }
-    if (Boolean.class.isAssignableFrom(fieldType)) {
-      field.set(object, Boolean.valueOf(String.valueOf(value)));
-      return true;
-    }
-    return false;
-  }
+    private final Map<List<String>, SeriesMapper<?>> byLayout =
+      new LinkedHashMap<List<String>, SeriesMapper<?>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<List<String>, SeriesMapper<?>> eldest) {
+          return size() > MAX_LAYOUTS_PER_CLASS;
+        }
+      };
 
-  private Long toMillis(final long value, final TimeUnit precision) {
+    private volatile ConcurrentMap<String, Field> fields;
 
-    return TimeUnit.MILLISECONDS.convert(value, precision);
+    private volatile Map<String, SeriesMapper.FieldWriter> writers;
   }
 }
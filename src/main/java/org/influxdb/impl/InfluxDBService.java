@@ -64,6 +64,14 @@ interface InfluxDBService {
   public Call<QueryResult> postQuery(@Query(DB) String db,
           @Query(value = Q, encoded = true) String query, @Query(value = PARAMS, encoded = true) String params);
 
+  /**
+   * @param db db: optional The database to query
+   * @param epoch epoch: optional The precision of the returned time stamps
+   * @param form the {@code q} and {@code params} of the query as an {@code application/x-www-form-urlencoded} body
+   */
+  @POST("query")
+  public Call<QueryResult> postQuery(@Query(DB) String db, @Query(EPOCH) String epoch, @Body RequestBody form);
+
   @GET("query")
   public Call<QueryResult> query(@Query(value = Q, encoded = true) String query);
 
@@ -79,4 +87,9 @@ interface InfluxDBService {
   @POST("query?chunked=true")
   public Call<ResponseBody> query(@Query(DB) String db, @Query(value = Q, encoded = true) String query,
           @Query(CHUNK_SIZE) int chunkSize, @Query(value = PARAMS, encoded = true) String params);
+
+  @Streaming
+  @POST("query?chunked=true")
+  public Call<ResponseBody> postQuery(@Query(DB) String db, @Query(CHUNK_SIZE) int chunkSize,
+          @Body RequestBody form);
 }
@@ -0,0 +1,37 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+
+/**
+ * A request body that streams an InputStream of unknown length into the HTTP sink. The stream can only be
+ * read once, a second write fails instead of sending an empty body. The stream is not closed.
+ */
+final class InputStreamRequestBody extends RequestBody {
+
+  private final InputStream inputStream;
+  private final AtomicBoolean written = new AtomicBoolean();
+
+  InputStreamRequestBody(final InputStream inputStream) {
+    this.inputStream = inputStream;
+  }
+
+  @Override
+  public MediaType contentType() {
+    return InfluxDBImpl.MEDIA_TYPE_STRING;
+  }
+
+  @Override
+  public void writeTo(final BufferedSink sink) throws IOException {
+    if (!written.compareAndSet(false, true)) {
+      throw new IOException("The InputStream of the records has already been written");
+    }
+    sink.writeAll(Okio.source(inputStream));
+  }
+}
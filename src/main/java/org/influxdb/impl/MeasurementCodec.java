@@ -0,0 +1,120 @@
+package org.influxdb.impl;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.dto.Point;
+
+/**
+ * Encoder and decoder of one measurement class, generated at compile time by
+ * {@link org.influxdb.annotation.processor.MeasurementCodecProcessor}.
+ * <p>
+ * The generated class is named after the binary name of the measurement class with the {@link #CLASS_NAME_SUFFIX}
+ * and lives in the same package. Nested class names keep their {@code $}, e.g. {@code Outer$Cpu_MeasurementCodec}
+ * for {@code Outer.Cpu}, so they cannot collide with the codec of a top-level {@code Outer_Cpu}.
+ * {@link InfluxDBMapper} and {@link InfluxDBResultMapper} use it instead of reflection when it is present on the
+ * classpath.
+ *
+ * @param <T> the measurement class
+ */
+public interface MeasurementCodec<T> {
+
+  /**
+   * Suffix of the generated class name, e.g. {@code Cpu_MeasurementCodec} for {@code Cpu}.
+   */
+  String CLASS_NAME_SUFFIX = "_MeasurementCodec";
+
+  /**
+   * @param model
+   *            the object to encode.
+   * @return the point of the object, with the current time if the object has no time.
+   */
+  Point toPoint(T model);
+
+  /**
+   * @return a new, empty instance of the measurement class.
+   */
+  T newInstance();
+
+  /**
+   * @param columnName
+   *            the InfluxDB column or tag name.
+   * @return the index of the field mapped to the column, or {@code -1} when no field is mapped.
+   */
+  int columnIndex(String columnName);
+
+  /**
+   * Converts and writes a non-null query result value into the field with the {@code columnIndex}.
+   *
+   * @param model
+   *            the object to write into.
+   * @param columnIndex
+   *            the index returned by {@link #columnIndex(String)}.
+   * @param value
+   *            the value as returned by InfluxDB.
+   * @param precision
+   *            the time precision of numeric time values.
+   */
+  void setValue(T model, int columnIndex, Object value, TimeUnit precision);
+
+  /**
+   * Converts a numeric value like the reflective mapper does, integers exactly.
+   *
+   * @param value
+   *            the value as returned by InfluxDB.
+   * @return the value of a {@code double} field
+   */
+  static double toDouble(final Object value) {
+    return ValueConverters.toDouble(value);
+  }
+
+  /**
+   * Converts a numeric value like the reflective mapper does, integers exactly.
+   *
+   * @param value
+   *            the value as returned by InfluxDB.
+   * @return the value of a {@code long} field
+   * @throws ArithmeticException if an integer does not fit into a {@code long}
+   */
+  static long toLong(final Object value) {
+    return ValueConverters.toLong(value);
+  }
+
+  /**
+   * Converts a numeric value like the reflective mapper does, integers exactly.
+   *
+   * @param value
+   *            the value as returned by InfluxDB.
+   * @return the value of an {@code int} field
+   * @throws ArithmeticException if an integer does not fit into an {@code int}
+   */
+  static int toInt(final Object value) {
+    return ValueConverters.toInt(value);
+  }
+
+  /**
+   * Converts a value like the reflective mapper does.
+   *
+   * @param value
+   *            the value as returned by InfluxDB.
+   * @return the value of a {@code boolean} field
+   */
+  static boolean toBoolean(final Object value) {
+    return ValueConverters.toBoolean(value);
+  }
+
+  /**
+   * Converts a value of the {@code time} column like the reflective mapper does.
+   *
+   * @param value
+   *            the value as returned by InfluxDB, an ISO8601 String or an epoch number.
+   * @param precision
+   *            the time precision of an epoch number.
+   * @param columnName
+   *            the column name, used in the error message.
+   * @return the time
+   */
+  static Instant toInstant(final Object value, final TimeUnit precision, final String columnName) {
+    return ValueConverters.toInstant(value, precision, columnName);
+  }
+}
@@ -0,0 +1,56 @@
+package org.influxdb.impl;
+
+import java.util.Optional;
+
+import org.influxdb.InfluxDBMapperException;
+
+/**
+ * Finds the {@link MeasurementCodec} generated for a measurement class, once per class.
+ */
+final class MeasurementCodecs {
+
+  /**
+   * The codecs are stored with their measurement class, so they never keep it from being unloaded.
+   */
+  private static final ClassValue<Optional<MeasurementCodec<?>>> CODECS =
+    new ClassValue<Optional<MeasurementCodec<?>>>() {
+      @Override
+      protected Optional<MeasurementCodec<?>> computeValue(final Class<?> type) {
+        return load(type);
+      }
+    };
+
+  private MeasurementCodecs() {
+  }
+
+  /**
+   * @param clazz the measurement class
+   * @param <T> the measurement type
+   * @return the generated codec, or {@code null} when the class was not processed
+   */
+  @SuppressWarnings("unchecked")
+  static <T> MeasurementCodec<T> find(final Class<T> clazz) {
+    return (MeasurementCodec<T>) CODECS.get(clazz).orElse(null);
+  }
+
+  static String codecClassName(final Class<?> clazz) {
+    return clazz.getName() + MeasurementCodec.CLASS_NAME_SUFFIX;
+  }
+
+  private static Optional<MeasurementCodec<?>> load(final Class<?> clazz) {
+    Class<?> codecClass;
+    try {
+      codecClass = Class.forName(codecClassName(clazz), true, clazz.getClassLoader());
+    } catch (ClassNotFoundException | LinkageError e) {
+      return Optional.empty();
+    }
+    if (!MeasurementCodec.class.isAssignableFrom(codecClass)) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of((MeasurementCodec<?>) codecClass.getConstructor().newInstance());
+    } catch (ReflectiveOperationException e) {
+      throw new InfluxDBMapperException(e);
+    }
+  }
+}
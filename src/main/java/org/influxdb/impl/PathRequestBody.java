@@ -0,0 +1,41 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * A request body that streams a file into the HTTP sink. The file is opened again for every write, so the body
+ * can be written repeatedly.
+ */
+final class PathRequestBody extends RequestBody {
+
+  private final Path path;
+
+  PathRequestBody(final Path path) {
+    this.path = path;
+  }
+
+  @Override
+  public MediaType contentType() {
+    return InfluxDBImpl.MEDIA_TYPE_STRING;
+  }
+
+  @Override
+  public long contentLength() throws IOException {
+    return Files.size(path);
+  }
+
+  @Override
+  public void writeTo(final BufferedSink sink) throws IOException {
+    try (Source source = Okio.source(path)) {
+      sink.writeAll(source);
+    }
+  }
+}
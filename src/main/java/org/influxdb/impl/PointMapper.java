@@ -0,0 +1,240 @@
+package org.influxdb.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.InfluxDBMapperException;
+import org.influxdb.annotation.Column;
+import org.influxdb.dto.Point;
+
+/**
+ * Maps instances of a measurement class to {@link Point}s.
+ * <p>
+ * The annotated fields, their kind of value and the measurement settings are resolved once per class; mapping an
+ * object only invokes the prepared getter {@link MethodHandle}s, primitive fields are read without boxing. A
+ * {@link MeasurementCodec} generated for the class replaces the getters entirely.
+ *
+ * @param <T> the measurement class
+ */
+final class PointMapper<T> {
+
+  private static final String TIME_COLUMN = "time";
+
+  private final String measurement;
+  private final String database;
+  private final String retentionPolicy;
+  private final TimeUnit timeUnit;
+  private final ColumnReader[] tags;
+  private final ColumnReader[] fields;
+  private final ColumnReader time;
+  private final MeasurementCodec<T> codec;
+
+  PointMapper(final String measurement, final String database, final String retentionPolicy,
+              final TimeUnit timeUnit, final Map<String, Field> fieldsByColumnName) {
+    this.measurement = measurement;
+    this.database = database;
+    this.retentionPolicy = retentionPolicy;
+    this.timeUnit = timeUnit;
+
+    List<ColumnReader> tagReaders = new ArrayList<>();
+    List<ColumnReader> fieldReaders = new ArrayList<>();
+    ColumnReader timeReader = null;
+    for (Entry<String, Field> entry : fieldsByColumnName.entrySet()) {
+      Field field = entry.getValue();
+      ColumnReader reader = new ColumnReader(entry.getKey(), field);
+      if (field.getAnnotation(Column.class).tag()) {
+        tagReaders.add(reader);
+      } else if (TIME_COLUMN.equals(entry.getKey())) {
+        timeReader = reader;
+      } else {
+        fieldReaders.add(reader);
+      }
+    }
+    this.tags = tagReaders.toArray(new ColumnReader[0]);
+    this.fields = fieldReaders.toArray(new ColumnReader[0]);
+    this.time = timeReader;
+    this.codec = null;
+  }
+
+  PointMapper(final MeasurementCodec<T> codec, final String database, final String retentionPolicy) {
+    this.measurement = null;
+    this.database = database;
+    this.retentionPolicy = retentionPolicy;
+    this.timeUnit = null;
+    this.tags = null;
+    this.fields = null;
+    this.time = null;
+    this.codec = codec;
+  }
+
+  String getDatabase() {
+    return database;
+  }
+
+  String getRetentionPolicy() {
+    return retentionPolicy;
+  }
+
+  /**
+   * Creates the point of one object. Objects without a time value get the current time.
+   *
+   * @param model the object to map
+   * @return the point
+   */
+  Point toPoint(final T model) {
+    if (codec != null) {
+      return codec.toPoint(model);
+    }
+    long now = timeUnit.convert(System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    Point.Builder pointBuilder = Point.measurement(measurement).time(now, timeUnit);
+    try {
+      for (ColumnReader tag : tags) {
+        Object value = (Object) tag.getter.invokeExact((Object) model);
+        // tags are strings either way
+        pointBuilder.tag(tag.columnName, value.toString());
+      }
+      if (time != null) {
+        Object value = (Object) time.getter.invokeExact((Object) model);
+        if (value != null) {
+          setTime(pointBuilder, value);
+        }
+      }
+      for (ColumnReader field : fields) {
+        field.addTo(pointBuilder, model);
+      }
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new InfluxDBMapperException(new IllegalAccessException(t.toString()));
+    }
+    return pointBuilder.build();
+  }
+
+  private void setTime(final Point.Builder pointBuilder, final Object value) {
+    if (time.kind == ColumnReader.INSTANT) {
+      Instant instant = (Instant) value;
+      long timeValue = timeUnit.convert(instant.toEpochMilli(), TimeUnit.MILLISECONDS);
+      pointBuilder.time(timeValue, timeUnit);
+    } else {
+      throw new InfluxDBMapperException(
+          "Unsupported type " + time.fieldType + " for time: should be of Instant type");
+    }
+  }
+
+  /**
+   * Reads the value of one annotated field. The kind of value is selected once from the field type.
+   */
+  private static final class ColumnReader {
+
+    private static final int STRING = 0;
+    private static final int INSTANT = 1;
+    private static final int DOUBLE_PRIMITIVE = 2;
+    private static final int LONG_PRIMITIVE = 3;
+    private static final int INT_PRIMITIVE = 4;
+    private static final int BOOLEAN_PRIMITIVE = 5;
+    private static final int DOUBLE_WRAPPER = 6;
+    private static final int LONG_WRAPPER = 7;
+    private static final int INT_WRAPPER = 8;
+    private static final int BOOLEAN_WRAPPER = 9;
+    private static final int UNSUPPORTED = -1;
+
+    private final String columnName;
+    private final Class<?> fieldType;
+    private final int kind;
+    private final MethodHandle getter;
+
+    ColumnReader(final String columnName, final Field field) {
+      this.columnName = columnName;
+      this.fieldType = field.getType();
+      this.kind = kindOf(fieldType);
+      Class<?> returnType = Object.class;
+      if (fieldType.isPrimitive()) {
+        returnType = fieldType;
+      }
+      try {
+        field.setAccessible(true);
+        this.getter = MethodHandles.lookup().unreflectGetter(field)
+          .asType(MethodType.methodType(returnType, Object.class));
+      } catch (IllegalAccessException e) {
+        throw new InfluxDBMapperException(e);
+      }
+    }
+
+    private static int kindOf(final Class<?> fieldType) {
+      if (String.class.isAssignableFrom(fieldType)) {
+        return STRING;
+      }
+      if (Instant.class.isAssignableFrom(fieldType)) {
+        return INSTANT;
+      }
+      if (double.class.isAssignableFrom(fieldType)) {
+        return DOUBLE_PRIMITIVE;
+      }
+      if (long.class.isAssignableFrom(fieldType)) {
+        return LONG_PRIMITIVE;
+      }
+      if (int.class.isAssignableFrom(fieldType)) {
+        return INT_PRIMITIVE;
+      }
+      if (boolean.class.isAssignableFrom(fieldType)) {
+        return BOOLEAN_PRIMITIVE;
+      }
+      if (Double.class.isAssignableFrom(fieldType)) {
+        return DOUBLE_WRAPPER;
+      }
+      if (Long.class.isAssignableFrom(fieldType)) {
+        return LONG_WRAPPER;
+      }
+      if (Integer.class.isAssignableFrom(fieldType)) {
+        return INT_WRAPPER;
+      }
+      if (Boolean.class.isAssignableFrom(fieldType)) {
+        return BOOLEAN_WRAPPER;
+      }
+      return UNSUPPORTED;
+    }
+
+    void addTo(final Point.Builder pointBuilder, final Object model) throws Throwable {
+      switch (kind) {
+      case DOUBLE_PRIMITIVE:
+        pointBuilder.addField(columnName, (double) getter.invokeExact(model));
+        break;
+      case LONG_PRIMITIVE:
+        pointBuilder.addField(columnName, (long) getter.invokeExact(model));
+        break;
+      case INT_PRIMITIVE:
+        pointBuilder.addField(columnName, (int) getter.invokeExact(model));
+        break;
+      case BOOLEAN_PRIMITIVE:
+        pointBuilder.addField(columnName, (boolean) getter.invokeExact(model));
+        break;
+      case STRING:
+        pointBuilder.addField(columnName, (String) (Object) getter.invokeExact(model));
+        break;
+      case DOUBLE_WRAPPER:
+        pointBuilder.addField(columnName, (double) (Double) (Object) getter.invokeExact(model));
+        break;
+      case LONG_WRAPPER:
+        pointBuilder.addField(columnName, (long) (Long) (Object) getter.invokeExact(model));
+        break;
+      case INT_WRAPPER:
+        pointBuilder.addField(columnName, (int) (Integer) (Object) getter.invokeExact(model));
+        break;
+      case BOOLEAN_WRAPPER:
+        pointBuilder.addField(columnName, (boolean) (Boolean) (Object) getter.invokeExact(model));
+        break;
+      default:
+        throw new InfluxDBMapperException(
+            "Unsupported type " + fieldType + " for column " + columnName);
+      }
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package org.influxdb.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.influxdb.dto.BoundParameterQuery;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+
+/**
+ * Queries sent in one request. Queries for the same database are packed into one multi-statement query, the
+ * result of which has one {@link QueryResult.Result} per statement and is split back into one
+ * {@link QueryResult} per query.
+ * <p>
+ * Queries with bound parameters are not packed, because the parameters of all statements of a request share
+ * one namespace. Only queries that read ({@code SELECT} without {@code INTO} and {@code SHOW}) are packed, so
+ * that a packed query can be sent again one by one. InfluxDB does not execute the statements that follow a
+ * failed statement, so a packed query is sent one by one if any statement fails, and each query fails only
+ * because of its own statements.
+ */
+final class QueryBatch {
+
+  private final Query query;
+  private final List<Query> queries;
+  private final int[] indexes;
+  private final int[] statementCounts;
+
+  private QueryBatch(final Query query, final List<Query> queries, final int[] indexes,
+                     final int[] statementCounts) {
+    this.query = query;
+    this.queries = queries;
+    this.indexes = indexes;
+    this.statementCounts = statementCounts;
+  }
+
+  /**
+   * @param queries the queries
+   * @return the batches, each query is in exactly one batch
+   */
+  static List<QueryBatch> pack(final List<Query> queries) {
+    List<QueryBatch> batches = new ArrayList<>();
+    Map<List<Object>, List<Integer>> groups = new LinkedHashMap<>();
+    for (int i = 0; i < queries.size(); i++) {
+      Query query = queries.get(i);
+      if (query instanceof BoundParameterQuery || query.getCommand() == null
+          || countStatements(query.getCommand()) == 0 || !QueryResultCache.isRead(query.getCommand())) {
+        batches.add(single(query, i));
+      } else {
+        groups.computeIfAbsent(Arrays.asList(query.getDatabase(), query.requiresPost()), key -> new ArrayList<>())
+            .add(i);
+      }
+    }
+    for (List<Integer> group : groups.values()) {
+      if (group.size() == 1) {
+        batches.add(single(queries.get(group.get(0)), group.get(0)));
+        continue;
+      }
+      List<Query> packed = new ArrayList<>(group.size());
+      int[] indexes = new int[group.size()];
+      int[] statementCounts = new int[group.size()];
+      StringBuilder command = new StringBuilder();
+      for (int i = 0; i < group.size(); i++) {
+        Query query = queries.get(group.get(i));
+        packed.add(query);
+        indexes[i] = group.get(i);
+        statementCounts[i] = countStatements(query.getCommand());
+        if (i > 0) {
+          command.append("; ");
+        }
+        command.append(query.getCommand());
+        trimStatementSeparators(command);
+      }
+      batches.add(new QueryBatch(new Query(command.toString(), packed.get(0).getDatabase(),
+          packed.get(0).requiresPost()), packed, indexes, statementCounts));
+    }
+    return batches;
+  }
+
+  private static QueryBatch single(final Query query, final int index) {
+    return new QueryBatch(query, Collections.singletonList(query), new int[] {index}, null);
+  }
+
+  /**
+   * @return the query to send
+   */
+  Query getQuery() {
+    return query;
+  }
+
+  /**
+   * Stores the result of each query of the batch at its position in {@code results}.
+   *
+   * @param result the result of {@link #getQuery()}
+   * @param results the results of all queries
+   * @return false if the result of a packed query cannot be split, because the request failed as a whole, a
+   *         statement failed, which fails the following statements too, or the number of results differs from
+   *         the number of statements. The queries should then be sent one by one, see {@link #unpack()}.
+   */
+  boolean split(final QueryResult result, final QueryResult[] results) {
+    if (statementCounts == null) {
+      results[indexes[0]] = result;
+      return true;
+    }
+    int total = 0;
+    for (int statementCount : statementCounts) {
+      total += statementCount;
+    }
+    if (result == null || result.getError() != null || result.getResults() == null
+        || result.getResults().size() != total) {
+      return false;
+    }
+    for (QueryResult.Result statementResult : result.getResults()) {
+      if (statementResult.hasError()) {
+        return false;
+      }
+    }
+    int from = 0;
+    for (int i = 0; i < indexes.length; i++) {
+      QueryResult queryResult = new QueryResult();
+      queryResult.setResults(new ArrayList<>(result.getResults().subList(from, from + statementCounts[i])));
+      results[indexes[i]] = queryResult;
+      from += statementCounts[i];
+    }
+    return true;
+  }
+
+  /**
+   * @return one batch per query of this batch
+   */
+  List<QueryBatch> unpack() {
+    List<QueryBatch> batches = new ArrayList<>(queries.size());
+    for (int i = 0; i < queries.size(); i++) {
+      batches.add(single(queries.get(i), indexes[i]));
+    }
+    return batches;
+  }
+
+  /**
+   * Counts the {@code ;}-separated statements of a command. Separators in strings, quoted identifiers and regular
+   * expressions are skipped.
+   *
+   * @param command the command
+   * @return the number of non-empty statements
+   */
+  static int countStatements(final String command) {
+    int statements = 0;
+    boolean empty = true;
+    int length = command.length();
+    for (int i = 0; i < length; i++) {
+      char c = command.charAt(i);
+      if (c == ';') {
+        if (!empty) {
+          statements++;
+        }
+        empty = true;
+        continue;
+      }
+      if (Character.isWhitespace(c)) {
+        continue;
+      }
+      empty = false;
+      if (c == '\'' || c == '"') {
+        i = skipQuoted(command, i, c);
+      } else if ((c == '=' || c == '!') && i + 1 < length && command.charAt(i + 1) == '~') {
+        int next = i + 2;
+        while (next < length && Character.isWhitespace(command.charAt(next))) {
+          next++;
+        }
+        if (next < length && command.charAt(next) == '/') {
+          i = skipQuoted(command, next, '/');
+        }
+      }
+    }
+    if (!empty) {
+      statements++;
+    }
+    return statements;
+  }
+
+  /**
+   * @return the index of the closing quote, or the last index if it is missing
+   */
+  private static int skipQuoted(final String command, final int start, final char quote) {
+    for (int i = start + 1; i < command.length(); i++) {
+      char c = command.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == quote) {
+        return i;
+      }
+    }
+    return command.length() - 1;
+  }
+
+  private static void trimStatementSeparators(final StringBuilder command) {
+    int length = command.length();
+    while (length > 0 && (command.charAt(length - 1) == ';' || Character.isWhitespace(command.charAt(length - 1)))) {
+      length--;
+    }
+    command.setLength(length);
+  }
+}
@@ -0,0 +1,115 @@
+package org.influxdb.impl;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.influxdb.InfluxDBException;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+
+/**
+ * Lets concurrent callers of an equal read query share one call to the server (single-flight).
+ * <p>
+ * Queries are equal by {@link Query#equals(Object)} and precision. A caller that finds an equal query in flight
+ * waits for it and receives the same {@link QueryResult} instance, or the same exception. Only read statements
+ * are coalesced, see {@link QueryResultCache}.
+ */
+final class QueryCoalescer {
+
+  private final ConcurrentMap<Key, CompletableFuture<QueryResult>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder coalescedCount = new LongAdder();
+
+  /**
+   * Executes the query or waits for an equal query in flight.
+   *
+   * @param query the query
+   * @param precision the epoch precision of the query, {@code null} for RFC3339 times
+   * @param executor executes a query
+   * @return the result
+   */
+  QueryResult query(final Query query, final TimeUnit precision, final Function<Query, QueryResult> executor) {
+    String command = query.getCommand();
+    if (command == null || !QueryResultCache.isRead(command)) {
+      return executor.apply(query);
+    }
+
+    Key key = new Key(query, precision);
+    CompletableFuture<QueryResult> call = new CompletableFuture<>();
+    CompletableFuture<QueryResult> sharedCall = inFlight.putIfAbsent(key, call);
+    if (sharedCall != null) {
+      coalescedCount.increment();
+      return join(sharedCall);
+    }
+
+    try {
+      QueryResult result = executor.apply(query);
+      call.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      call.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, call);
+    }
+  }
+
+  /**
+   * @return the number of queries that shared the call of an equal query in flight
+   */
+  long getCoalescedCount() {
+    return coalescedCount.sum();
+  }
+
+  private static QueryResult join(final CompletableFuture<QueryResult> call) {
+    try {
+      return call.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new InfluxDBException(cause);
+    }
+  }
+
+  /**
+   * The hash code is computed once, a query that is modified while in flight can still be removed.
+   */
+  private static final class Key {
+    private final Query query;
+    private final TimeUnit precision;
+    private final int hashCode;
+
+    Key(final Query query, final TimeUnit precision) {
+      this.query = query;
+      this.precision = precision;
+      this.hashCode = Objects.hash(query, precision);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return hashCode == other.hashCode && precision == other.precision && query.equals(other.query);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
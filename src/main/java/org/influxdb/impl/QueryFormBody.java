@@ -0,0 +1,145 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * An {@code application/x-www-form-urlencoded} request body with the command ({@code q}) and the bound
+ * parameters ({@code params}) of a query, used instead of the URL for long queries. The command is url encoded
+ * while it is written to the sink, without building the encoded command as a String.
+ */
+final class QueryFormBody extends RequestBody {
+
+  private static final MediaType FORM = MediaType.parse("application/x-www-form-urlencoded");
+  private static final String Q = InfluxDBService.Q + "=";
+  private static final String PARAMS = "&" + InfluxDBService.PARAMS + "=";
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  private final String command;
+  private final String parametersWithUrlEncoded;
+  private final long contentLength;
+
+  private QueryFormBody(final String command, final String parametersWithUrlEncoded, final long contentLength) {
+    this.command = command;
+    this.parametersWithUrlEncoded = parametersWithUrlEncoded;
+    this.contentLength = contentLength;
+  }
+
+  /**
+   * @param command the command
+   * @param parametersWithUrlEncoded the url encoded JSON of the bound parameters, or null
+   * @param threshold the length in bytes above which the form is sent as a body
+   * @return the body, or null if the url encoded form is not longer than the threshold
+   */
+  static QueryFormBody ifLongerThan(final String command, final String parametersWithUrlEncoded,
+                                    final int threshold) {
+    if (command == null) {
+      return null;
+    }
+    long length = Q.length() + encodedLength(command);
+    if (parametersWithUrlEncoded != null) {
+      length += PARAMS.length() + parametersWithUrlEncoded.length();
+    }
+    if (length <= threshold) {
+      return null;
+    }
+    return new QueryFormBody(command, parametersWithUrlEncoded, length);
+  }
+
+  @Override
+  public MediaType contentType() {
+    return FORM;
+  }
+
+  @Override
+  public long contentLength() {
+    return contentLength;
+  }
+
+  @Override
+  public void writeTo(final BufferedSink sink) throws IOException {
+    sink.writeUtf8(Q);
+    int length = command.length();
+    for (int i = 0; i < length; i++) {
+      char c = command.charAt(i);
+      if (isUnreserved(c)) {
+        sink.writeByte(c);
+      } else if (c == ' ') {
+        sink.writeByte('+');
+      } else {
+        int codePoint = c;
+        if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(command.charAt(i + 1))) {
+          codePoint = Character.toCodePoint(c, command.charAt(++i));
+        } else if (Character.isSurrogate(c)) {
+          codePoint = '?';
+        }
+        writeUtf8PercentEncoded(sink, codePoint);
+      }
+    }
+    if (parametersWithUrlEncoded != null) {
+      sink.writeUtf8(PARAMS);
+      sink.writeUtf8(parametersWithUrlEncoded);
+    }
+  }
+
+  /**
+   * @return the length of the command in {@code x-www-form-urlencoded} format, like
+   *         {@link org.influxdb.dto.Query#encode(String)}
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  static long encodedLength(final String command) {
+    long encodedLength = 0;
+    int length = command.length();
+    for (int i = 0; i < length; i++) {
+      char c = command.charAt(i);
+      if (isUnreserved(c) || c == ' ') {
+        encodedLength++;
+      } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(command.charAt(i + 1))) {
+        encodedLength += 12;
+        i++;
+      } else if (c < 0x80 || Character.isSurrogate(c)) {
+        // a lone surrogate is encoded as '?'
+        encodedLength += 3;
+      } else if (c < 0x800) {
+        encodedLength += 6;
+      } else {
+        encodedLength += 9;
+      }
+    }
+    return encodedLength;
+  }
+
+  private static boolean isUnreserved(final char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+        || c == '.' || c == '-' || c == '*' || c == '_';
+  }
+
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static void writeUtf8PercentEncoded(final BufferedSink sink, final int codePoint) throws IOException {
+    if (codePoint < 0x80) {
+      writePercentEncoded(sink, codePoint);
+    } else if (codePoint < 0x800) {
+      writePercentEncoded(sink, 0xC0 | (codePoint >> 6));
+      writePercentEncoded(sink, 0x80 | (codePoint & 0x3F));
+    } else if (codePoint < 0x10000) {
+      writePercentEncoded(sink, 0xE0 | (codePoint >> 12));
+      writePercentEncoded(sink, 0x80 | ((codePoint >> 6) & 0x3F));
+      writePercentEncoded(sink, 0x80 | (codePoint & 0x3F));
+    } else {
+      writePercentEncoded(sink, 0xF0 | (codePoint >> 18));
+      writePercentEncoded(sink, 0x80 | ((codePoint >> 12) & 0x3F));
+      writePercentEncoded(sink, 0x80 | ((codePoint >> 6) & 0x3F));
+      writePercentEncoded(sink, 0x80 | (codePoint & 0x3F));
+    }
+  }
+
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static void writePercentEncoded(final BufferedSink sink, final int b) throws IOException {
+    sink.writeByte('%');
+    sink.writeByte(HEX_DIGITS[(b >> 4) & 0xF]);
+    sink.writeByte(HEX_DIGITS[b & 0xF]);
+  }
+}
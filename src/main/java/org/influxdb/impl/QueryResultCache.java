@@ -0,0 +1,407 @@
+package org.influxdb.impl;
+
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.influxdb.QueryCacheOptions;
+import org.influxdb.dto.BoundParameterQuery;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryCacheStats;
+import org.influxdb.dto.QueryResult;
+import org.influxdb.querybuilder.SlidingWindow;
+
+/**
+ * Client-side cache of query results, see {@link QueryCacheOptions}.
+ * <p>
+ * Only read statements ({@code SELECT} without {@code INTO} and {@code SHOW}) are cached, and only results
+ * without errors. Cached results are shared by all callers and must not be modified. Least recently used results
+ * are evicted when the estimated size of all results exceeds the maximum.
+ * <p>
+ * With {@link QueryCacheOptions#slidingWindows(boolean)} an expired result of a {@link SlidingWindow} query is
+ * refreshed with {@link SlidingWindow#incrementalQuery(long, long)}: only the oldest interval and the intervals
+ * since the previous execution are queried and merged into the cached intervals. The complete window is queried
+ * again after the historical TTL.
+ */
+final class QueryResultCache {
+
+  private static final Pattern STATEMENT_KEYWORD = Pattern.compile("(?:^|;)\\s*([a-z]+)");
+  private static final Pattern INTO = Pattern.compile("\\binto\\b");
+  private static final Pattern SELECT = Pattern.compile("\\bselect\\b");
+  private static final Pattern NOW = Pattern.compile("\\bnow\\s*\\(\\s*\\)");
+  private static final Pattern TIME_UPPER_BOUND = Pattern.compile(
+      "\\btime\\s*<=?\\s*(?:'([^']*)'|(-?\\d+)(ns|u|µ|ms|s|m|h|d|w)?\\b)");
+
+  private static final int BOUND_STRING_GROUP = 1;
+  private static final int BOUND_NUMBER_GROUP = 2;
+  private static final int BOUND_UNIT_GROUP = 3;
+  private static final int DAYS_PER_WEEK = 7;
+
+  private static final int OBJECT_BYTES = 16;
+  private static final int REFERENCE_BYTES = 8;
+  private static final int LIST_BYTES = 40;
+  private static final int MAP_ENTRY_BYTES = 48;
+  private static final int STRING_BYTES = 40;
+
+  private final QueryCacheOptions options;
+  private final LongSupplier nanoTime;
+  private final LongSupplier epochMillis;
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long estimatedBytes;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+  private long incrementalCount;
+
+  QueryResultCache(final QueryCacheOptions options) {
+    this(options, System::nanoTime, System::currentTimeMillis);
+  }
+
+  QueryResultCache(final QueryCacheOptions options, final LongSupplier nanoTime, final LongSupplier epochMillis) {
+    this.options = options;
+    this.nanoTime = nanoTime;
+    this.epochMillis = epochMillis;
+  }
+
+  /**
+   * Returns the cached result of the query or executes it with the {@code loader} and caches its result.
+   *
+   * @param query the query
+   * @param precision the epoch precision of the query, {@code null} for RFC3339 times
+   * @param executor executes a query
+   * @return the result
+   */
+  QueryResult query(final Query query, final TimeUnit precision, final Function<Query, QueryResult> executor) {
+    String command = query.getCommand();
+    if (command == null || !isRead(command)) {
+      return executor.apply(query);
+    }
+    String parameters = null;
+    if (query instanceof BoundParameterQuery) {
+      parameters = ((BoundParameterQuery) query).getParameterJsonWithUrlEncoded();
+    }
+    Key key = new Key(query.getDatabase(), command, parameters, precision);
+
+    Entry previous;
+    synchronized (this) {
+      previous = entries.get(key);
+      if (previous != null && nanoTime.getAsLong() - previous.expiresAt < 0) {
+        hitCount++;
+        return previous.result;
+      }
+      missCount++;
+    }
+
+    if (previous != null && options.isSlidingWindows() && nanoTime.getAsLong() - previous.refreshAt < 0) {
+      SlidingWindow window = SlidingWindow.of(query).orElse(null);
+      if (window != null) {
+        long fetchedAt = epochNanos();
+        QueryResult result = refresh(window, previous, precision, executor, fetchedAt);
+        if (result != null) {
+          synchronized (this) {
+            incrementalCount++;
+          }
+          put(key, new Entry(result, estimateBytes(key, result), expiresAt(ttl(command)), previous.refreshAt,
+              fetchedAt));
+          return result;
+        }
+      }
+    }
+
+    long fetchedAt = epochNanos();
+    QueryResult result = executor.apply(query);
+    if (result != null && !hasError(result)) {
+      put(key, new Entry(result, estimateBytes(key, result), expiresAt(ttl(command)),
+          expiresAt(options.getHistoricalTtl()), fetchedAt));
+    } else if (previous != null) {
+      synchronized (this) {
+        remove(key);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Queries the oldest interval of the window, which the moving lower bound cuts, and the intervals from the one
+   * of the previous execution on. The interval before that is queried again too, to tolerate a small difference
+   * between the clocks of the client and the server.
+   *
+   * @return the merged result, {@code null} if the window has to be queried completely
+   */
+  private QueryResult refresh(final SlidingWindow window, final Entry previous, final TimeUnit precision,
+                              final Function<Query, QueryResult> executor, final long nowNanos) {
+    long interval = window.getIntervalNanos();
+    long headEnd = Math.floorDiv(nowNanos - window.getRangeNanos(), interval) * interval + interval;
+    long tailStart = Math.floorDiv(previous.fetchedAt, interval) * interval - interval;
+    if (tailStart <= headEnd) {
+      return null;
+    }
+    QueryResult increment = executor.apply(window.incrementalQuery(headEnd, tailStart));
+    if (increment == null || hasError(increment)) {
+      return null;
+    }
+    return SlidingWindowResults.merge(previous.result, increment, headEnd, tailStart, precision);
+  }
+
+  synchronized QueryCacheStats stats() {
+    return new QueryCacheStats(hitCount, missCount, incrementalCount, evictionCount, entries.size(), estimatedBytes,
+        options.getMaxBytes());
+  }
+
+  synchronized void clear() {
+    entries.clear();
+    estimatedBytes = 0;
+  }
+
+  private synchronized void put(final Key key, final Entry entry) {
+    remove(key);
+    if (entry.expiresAt - nanoTime.getAsLong() <= 0 || entry.bytes > options.getMaxBytes()) {
+      return;
+    }
+    entries.put(key, entry);
+    estimatedBytes += entry.bytes;
+
+    Iterator<Entry> eldest = entries.values().iterator();
+    while (estimatedBytes > options.getMaxBytes() && eldest.hasNext()) {
+      estimatedBytes -= eldest.next().bytes;
+      eldest.remove();
+      evictionCount++;
+    }
+  }
+
+  private long expiresAt(final long ttlMillis) {
+    return nanoTime.getAsLong() + TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+  }
+
+  private long epochNanos() {
+    return TimeUnit.MILLISECONDS.toNanos(epochMillis.getAsLong());
+  }
+
+  private void remove(final Key key) {
+    Entry removed = entries.remove(key);
+    if (removed != null) {
+      estimatedBytes -= removed.bytes;
+    }
+  }
+
+  /**
+   * @return the TTL of the command in milliseconds
+   */
+  long ttl(final String command) {
+    String lowerCase = command.toLowerCase(Locale.ROOT);
+    if (NOW.matcher(lowerCase).find()) {
+      return options.getNowRelativeTtl();
+    }
+    int statements = 0;
+    Matcher select = SELECT.matcher(lowerCase);
+    while (select.find()) {
+      statements++;
+    }
+    int bounds = 0;
+    long nowNanos = epochNanos();
+    Matcher upperBound = TIME_UPPER_BOUND.matcher(lowerCase);
+    while (upperBound.find()) {
+      Long bound = parseBound(upperBound);
+      if (bound == null || bound > nowNanos) {
+        return options.getTtl();
+      }
+      bounds++;
+    }
+    if (bounds > 0 && bounds >= statements) {
+      return options.getHistoricalTtl();
+    }
+    return options.getTtl();
+  }
+
+  /**
+   * @return true if the command only has {@code SELECT} statements without {@code INTO} and {@code SHOW}
+   *         statements
+   */
+  static boolean isRead(final String command) {
+    String lowerCaseCommand = command.toLowerCase(Locale.ROOT);
+    Matcher keyword = STATEMENT_KEYWORD.matcher(lowerCaseCommand);
+    boolean any = false;
+    while (keyword.find()) {
+      String statement = keyword.group(1);
+      if (!"select".equals(statement) && !"show".equals(statement)) {
+        return false;
+      }
+      any = true;
+    }
+    return any && !INTO.matcher(lowerCaseCommand).find();
+  }
+
+  /**
+   * @return the bound in epoch nanoseconds, {@code null} if it is not an absolute time
+   */
+  private static Long parseBound(final Matcher upperBound) {
+    if (upperBound.group(BOUND_STRING_GROUP) != null) {
+      try {
+        return TimeUtil.parseEpochNanos(upperBound.group(BOUND_STRING_GROUP));
+      } catch (DateTimeParseException e) {
+        return null;
+      }
+    }
+    long value;
+    try {
+      value = Long.parseLong(upperBound.group(BOUND_NUMBER_GROUP));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    String unit = upperBound.group(BOUND_UNIT_GROUP);
+    if (unit == null || "ns".equals(unit)) {
+      return value;
+    }
+    switch (unit) {
+    case "u":
+    case "µ":
+      return TimeUnit.MICROSECONDS.toNanos(value);
+    case "ms":
+      return TimeUnit.MILLISECONDS.toNanos(value);
+    case "s":
+      return TimeUnit.SECONDS.toNanos(value);
+    case "m":
+      return TimeUnit.MINUTES.toNanos(value);
+    case "h":
+      return TimeUnit.HOURS.toNanos(value);
+    case "d":
+      return TimeUnit.DAYS.toNanos(value);
+    default:
+      return TimeUnit.DAYS.toNanos(value * DAYS_PER_WEEK);
+    }
+  }
+
+  private static boolean hasError(final QueryResult result) {
+    if (result.getError() != null) {
+      return true;
+    }
+    if (result.getResults() != null) {
+      for (QueryResult.Result statementResult : result.getResults()) {
+        if (statementResult != null && statementResult.getError() != null) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static long estimateBytes(final Key key, final QueryResult result) {
+    long bytes = OBJECT_BYTES + estimateBytes(key.command) + estimateBytes(key.parameters);
+    if (result.getResults() == null) {
+      return bytes;
+    }
+    bytes += LIST_BYTES;
+    for (QueryResult.Result statementResult : result.getResults()) {
+      bytes += REFERENCE_BYTES + OBJECT_BYTES;
+      if (statementResult == null || statementResult.getSeries() == null) {
+        continue;
+      }
+      bytes += LIST_BYTES;
+      for (QueryResult.Series series : statementResult.getSeries()) {
+        bytes += REFERENCE_BYTES + OBJECT_BYTES + estimateBytes(series.getName());
+        if (series.getTags() != null) {
+          for (Map.Entry<String, String> tag : series.getTags().entrySet()) {
+            bytes += MAP_ENTRY_BYTES + estimateBytes(tag.getKey()) + estimateBytes(tag.getValue());
+          }
+        }
+        if (series.getColumns() != null) {
+          bytes += LIST_BYTES;
+          for (String column : series.getColumns()) {
+            bytes += REFERENCE_BYTES + estimateBytes(column);
+          }
+        }
+        if (series.getValues() != null) {
+          bytes += LIST_BYTES;
+          for (List<Object> row : series.getValues()) {
+            bytes += REFERENCE_BYTES + LIST_BYTES;
+            for (Object value : row) {
+              bytes += REFERENCE_BYTES + estimateValueBytes(value);
+            }
+          }
+        }
+      }
+    }
+    return bytes;
+  }
+
+  private static long estimateValueBytes(final Object value) {
+    if (value == null || value instanceof Boolean) {
+      return 0;
+    }
+    if (value instanceof String) {
+      return estimateBytes((String) value);
+    }
+    return OBJECT_BYTES + REFERENCE_BYTES;
+  }
+
+  private static long estimateBytes(final String value) {
+    if (value == null) {
+      return 0;
+    }
+    return STRING_BYTES + 2L * value.length();
+  }
+
+  private static final class Key {
+    private final String database;
+    private final String command;
+    private final String parameters;
+    private final TimeUnit precision;
+
+    Key(final String database, final String command, final String parameters, final TimeUnit precision) {
+      this.database = database;
+      this.command = command;
+      this.parameters = parameters;
+      this.precision = precision;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return Objects.equals(database, other.database) && command.equals(other.command)
+          && Objects.equals(parameters, other.parameters) && precision == other.precision;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(database, command, parameters, precision);
+    }
+  }
+
+  private static final class Entry {
+    private final QueryResult result;
+    private final long bytes;
+    private final long expiresAt;
+    private final long refreshAt;
+    private final long fetchedAt;
+
+    /**
+     * @param expiresAt the {@code nanoTime} until the result is returned from the cache
+     * @param refreshAt the {@code nanoTime} until a sliding window result may be refreshed incrementally
+     * @param fetchedAt the epoch nanoseconds the result was queried at
+     */
+    Entry(final QueryResult result, final long bytes, final long expiresAt, final long refreshAt,
+          final long fetchedAt) {
+      this.result = result;
+      this.bytes = bytes;
+      this.expiresAt = expiresAt;
+      this.refreshAt = refreshAt;
+      this.fetchedAt = fetchedAt;
+    }
+  }
+}
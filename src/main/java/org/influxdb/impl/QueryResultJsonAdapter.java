@@ -0,0 +1,293 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.influxdb.dto.QueryResult;
+import org.influxdb.dto.QueryResult.Result;
+import org.influxdb.dto.QueryResult.Series;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+
+/**
+ * Streaming Moshi adapter for the JSON response of the InfluxDB {@code /query} endpoint.
+ * <p>
+ * The adapter knows the response schema, so it reads directly from the {@link JsonReader} without reflection
+ * and matches keys with pre-encoded {@link JsonReader.Options}. Numbers are returned as {@code Double} like the
+ * reflective adapter did, except for the {@code time} column which is kept as {@code Long} so that epoch
+ * timestamps (e.g. nanoseconds) are not rounded.
+ */
+final class QueryResultJsonAdapter extends JsonAdapter<QueryResult> {
+
+  private static final String TIME_COLUMN = "time";
+
+  private static final JsonReader.Options QUERY_RESULT_KEYS = JsonReader.Options.of("results", "error");
+  private static final JsonReader.Options RESULT_KEYS = JsonReader.Options.of("series", "error");
+  private static final JsonReader.Options SERIES_KEYS = JsonReader.Options.of("name", "tags", "columns", "values");
+
+  private static final int RESULTS = 0;
+  private static final int ERROR = 1;
+  private static final int SERIES = 0;
+  private static final int NAME = 0;
+  private static final int TAGS = 1;
+  private static final int COLUMNS = 2;
+  private static final int VALUES = 3;
+
+  @Override
+  public QueryResult fromJson(final JsonReader reader) throws IOException {
+    if (reader.peek() == JsonReader.Token.NULL) {
+      return reader.nextNull();
+    }
+    QueryResult queryResult = new QueryResult();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.selectName(QUERY_RESULT_KEYS)) {
+      case RESULTS:
+        queryResult.setResults(readResults(reader));
+        break;
+      case ERROR:
+        queryResult.setError(readString(reader));
+        break;
+      default:
+        skipEntry(reader);
+        break;
+      }
+    }
+    reader.endObject();
+    return queryResult;
+  }
+
+  private List<Result> readResults(final JsonReader reader) throws IOException {
+    if (reader.peek() == JsonReader.Token.NULL) {
+      return reader.nextNull();
+    }
+    List<Result> results = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      Result result = new Result();
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.selectName(RESULT_KEYS)) {
+        case SERIES:
+          result.setSeries(readSeriesList(reader));
+          break;
+        case ERROR:
+          result.setError(readString(reader));
+          break;
+        default:
+          skipEntry(reader);
+          break;
+        }
+      }
+      reader.endObject();
+      results.add(result);
+    }
+    reader.endArray();
+    return results;
+  }
+
+  private List<Series> readSeriesList(final JsonReader reader) throws IOException {
+    if (reader.peek() == JsonReader.Token.NULL) {
+      return reader.nextNull();
+    }
+    List<Series> seriesList = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      seriesList.add(readSeries(reader));
+    }
+    reader.endArray();
+    return seriesList;
+  }
+
+  private Series readSeries(final JsonReader reader) throws IOException {
+    Series series = new Series();
+    int timeColumn = -1;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.selectName(SERIES_KEYS)) {
+      case NAME:
+        series.setName(readString(reader));
+        break;
+      case TAGS:
+        series.setTags(readTags(reader));
+        break;
+      case COLUMNS:
+        List<String> columns = readColumns(reader);
+        series.setColumns(columns);
+        if (columns != null) {
+          timeColumn = columns.indexOf(TIME_COLUMN);
+        }
+        break;
+      case VALUES:
+        series.setValues(readValues(reader, timeColumn));
+        break;
+      default:
+        skipEntry(reader);
+        break;
+      }
+    }
+    reader.endObject();
+    return series;
+  }
+
+  private Map<String, String> readTags(final JsonReader reader) throws IOException {
+    if (reader.peek() == JsonReader.Token.NULL) {
+      return reader.nextNull();
+    }
+    Map<String, String> tags = new HashMap<>();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      tags.put(reader.nextName(), readString(reader));
+    }
+    reader.endObject();
+    return tags;
+  }
+
+  private List<String> readColumns(final JsonReader reader) throws IOException {
+    if (reader.peek() == JsonReader.Token.NULL) {
+      return reader.nextNull();
+    }
+    List<String> columns = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      columns.add(readString(reader));
+    }
+    reader.endArray();
+    return columns;
+  }
+
+  private List<List<Object>> readValues(final JsonReader reader, final int timeColumn) throws IOException {
+    if (reader.peek() == JsonReader.Token.NULL) {
+      return reader.nextNull();
+    }
+    List<List<Object>> values = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      List<Object> row = new ArrayList<>();
+      reader.beginArray();
+      for (int column = 0; reader.hasNext(); column++) {
+        row.add(readValue(reader, column == timeColumn));
+      }
+      reader.endArray();
+      values.add(row);
+    }
+    reader.endArray();
+    return values;
+  }
+
+  private Object readValue(final JsonReader reader, final boolean time) throws IOException {
+    switch (reader.peek()) {
+    case NUMBER:
+      if (time) {
+        try {
+          return reader.nextLong();
+        } catch (JsonDataException e) {
+          // not an integral timestamp, keep the number as it is
+          return reader.nextDouble();
+        }
+      }
+      return reader.nextDouble();
+    case STRING:
+      return reader.nextString();
+    case BOOLEAN:
+      return reader.nextBoolean();
+    case NULL:
+      return reader.nextNull();
+    default:
+      return reader.readJsonValue();
+    }
+  }
+
+  private String readString(final JsonReader reader) throws IOException {
+    if (reader.peek() == JsonReader.Token.NULL) {
+      return reader.nextNull();
+    }
+    return reader.nextString();
+  }
+
+  private void skipEntry(final JsonReader reader) throws IOException {
+    reader.nextName();
+    reader.skipValue();
+  }
+
+  @Override
+  public void toJson(final JsonWriter writer, final QueryResult value) throws IOException {
+    if (value == null) {
+      writer.nullValue();
+      return;
+    }
+    writer.beginObject();
+    if (value.getResults() != null) {
+      writer.name("results").beginArray();
+      for (Result result : value.getResults()) {
+        writer.beginObject();
+        if (result.getSeries() != null) {
+          writer.name("series").beginArray();
+          for (Series series : result.getSeries()) {
+            writeSeries(writer, series);
+          }
+          writer.endArray();
+        }
+        writer.name("error").value(result.getError());
+        writer.endObject();
+      }
+      writer.endArray();
+    }
+    writer.name("error").value(value.getError());
+    writer.endObject();
+  }
+
+  private void writeSeries(final JsonWriter writer, final Series series) throws IOException {
+    writer.beginObject();
+    writer.name("name").value(series.getName());
+    if (series.getTags() != null) {
+      writer.name("tags").beginObject();
+      for (Map.Entry<String, String> tag : series.getTags().entrySet()) {
+        writer.name(tag.getKey()).value(tag.getValue());
+      }
+      writer.endObject();
+    }
+    if (series.getColumns() != null) {
+      writer.name("columns").beginArray();
+      for (String column : series.getColumns()) {
+        writer.value(column);
+      }
+      writer.endArray();
+    }
+    if (series.getValues() != null) {
+      writer.name("values").beginArray();
+      for (List<Object> row : series.getValues()) {
+        writer.beginArray();
+        for (Object cell : row) {
+          writeValue(writer, cell);
+        }
+        writer.endArray();
+      }
+      writer.endArray();
+    }
+    writer.endObject();
+  }
+
+  private void writeValue(final JsonWriter writer, final Object value) throws IOException {
+    if (value == null) {
+      writer.nullValue();
+    } else if (value instanceof Number) {
+      writer.value((Number) value);
+    } else if (value instanceof Boolean) {
+      writer.value((Boolean) value);
+    } else {
+      writer.value(String.valueOf(value));
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "JsonAdapter(QueryResult)";
+  }
+}
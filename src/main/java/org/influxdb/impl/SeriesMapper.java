@@ -0,0 +1,619 @@
+package org.influxdb.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.influxdb.InfluxDBMapperException;
+import org.influxdb.dto.QueryResult.Series;
+import org.influxdb.msgpack.MessagePackTraverser;
+
+/**
+ * Maps the rows of series with one column layout to instances of a measurement class.
+ * <p>
+ * Column to field resolution, accessibility checks and the choice of value conversion are done once when the
+ * mapper is created. Mapping a row only indexes the prepared writers by column position and invokes the
+ * constructor and setter {@link MethodHandle}s. A {@link RowSink} maps the rows of MessagePack responses as they
+ * are decoded, without materializing them.
+ *
+ * @param <T> the measurement class
+ */
+final class SeriesMapper<T> {
+
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+  private final Class<T> clazz;
+  private final MethodHandle constructor;
+  private final Map<String, FieldWriter> writersByColumnName;
+  private final FieldWriter[] columnWriters;
+  private final MeasurementCodec<T> codec;
+  private final List<String> columns;
+  private final int[] codecIndexes;
+  private final boolean anyColumnMapped;
+
+  private SeriesMapper(final Class<T> clazz, final MethodHandle constructor,
+                       final Map<String, FieldWriter> writersByColumnName, final List<String> columns) {
+    this.clazz = clazz;
+    this.constructor = constructor;
+    this.writersByColumnName = writersByColumnName;
+    this.columnWriters = new FieldWriter[columns.size()];
+    this.codec = null;
+    this.columns = null;
+    this.codecIndexes = null;
+    boolean mapped = false;
+    for (int i = 0; i < columnWriters.length; i++) {
+      columnWriters[i] = writersByColumnName.get(columns.get(i));
+      mapped |= columnWriters[i] != null;
+    }
+    this.anyColumnMapped = mapped;
+  }
+
+  private SeriesMapper(final Class<T> clazz, final MeasurementCodec<T> codec, final List<String> columns) {
+    this.clazz = clazz;
+    this.constructor = null;
+    this.writersByColumnName = null;
+    this.columnWriters = null;
+    this.codec = codec;
+    this.columns = columns;
+    this.codecIndexes = new int[columns.size()];
+    boolean mapped = false;
+    for (int i = 0; i < codecIndexes.length; i++) {
+      codecIndexes[i] = codec.columnIndex(columns.get(i));
+      mapped |= codecIndexes[i] >= 0;
+    }
+    this.anyColumnMapped = mapped;
+  }
+
+  /**
+   * Creates the field writers of a measurement class; they are shared by the mappers of every column layout.
+   *
+   * @param fields the annotated fields by InfluxDB column name
+   * @return the writers by InfluxDB column name
+   */
+  static Map<String, FieldWriter> createWriters(final Map<String, Field> fields) {
+    Map<String, FieldWriter> writers = new HashMap<>();
+    for (Entry<String, Field> entry : fields.entrySet()) {
+      writers.put(entry.getKey(), new FieldWriter(entry.getValue()));
+    }
+    return writers;
+  }
+
+  static <T> SeriesMapper<T> create(final Class<T> clazz, final Map<String, FieldWriter> writersByColumnName,
+                                    final List<String> columns) {
+    MethodHandle constructor;
+    try {
+      Constructor<T> declaredConstructor = clazz.getDeclaredConstructor();
+      declaredConstructor.setAccessible(true);
+      constructor = MethodHandles.lookup().unreflectConstructor(declaredConstructor).asType(CONSTRUCTOR_TYPE);
+    } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+      constructor = null;
+    }
+    return new SeriesMapper<>(clazz, constructor, writersByColumnName, columns);
+  }
+
+  static <T> SeriesMapper<T> create(final Class<T> clazz, final MeasurementCodec<T> codec,
+                                    final List<String> columns) {
+    return new SeriesMapper<>(clazz, codec, new ArrayList<>(columns));
+  }
+
+  /**
+   * Maps the rows of the series one after another and hands every object to the {@code action}.
+   *
+   * @param values the rows of a series with the column layout of this mapper
+   * @param tags the tags of the series, may be {@code null}
+   * @param precision the time precision of numeric time values
+   * @param action the consumer of the mapped objects
+   */
+  void map(final List<List<Object>> values, final Map<String, String> tags, final TimeUnit precision,
+           final Consumer<? super T> action) {
+    if (!anyColumnMapped || values == null) {
+      return;
+    }
+    if (codec != null) {
+      mapWithCodec(values, tags, precision, action);
+      return;
+    }
+    // When the "GROUP BY" clause is used, "tags" are returned as Map<String,String> and
+    // accordingly with InfluxDB documentation
+    // https://docs.influxdata.com/influxdb/v1.2/concepts/glossary/#tag-value
+    // "tag" values are always String.
+    FieldWriter[] tagWriters = null;
+    String[] tagValues = null;
+    if (tags != null && !tags.isEmpty()) {
+      tagWriters = new FieldWriter[tags.size()];
+      tagValues = new String[tags.size()];
+      int i = 0;
+      for (Entry<String, String> entry : tags.entrySet()) {
+        tagWriters[i] = writersByColumnName.get(entry.getKey());
+        tagValues[i] = entry.getValue();
+        i++;
+      }
+    }
+
+    for (List<Object> row : values) {
+      T object = newInstance();
+      for (int i = 0; i < columnWriters.length; i++) {
+        FieldWriter writer = columnWriters[i];
+        if (writer != null) {
+          writer.write(object, row.get(i), precision);
+        }
+      }
+      if (tagWriters != null) {
+        for (int i = 0; i < tagWriters.length; i++) {
+          if (tagWriters[i] != null) {
+            tagWriters[i].write(object, tagValues[i], precision);
+          }
+        }
+      }
+      action.accept(object);
+    }
+  }
+
+  private void mapWithCodec(final List<List<Object>> values, final Map<String, String> tags,
+                            final TimeUnit precision, final Consumer<? super T> action) {
+    for (List<Object> row : values) {
+      T object = codec.newInstance();
+      for (int i = 0; i < codecIndexes.length; i++) {
+        if (codecIndexes[i] >= 0) {
+          setValue(object, codecIndexes[i], columns.get(i), row.get(i), precision);
+        }
+      }
+      if (tags != null) {
+        for (Entry<String, String> entry : tags.entrySet()) {
+          int index = codec.columnIndex(entry.getKey());
+          if (index >= 0) {
+            setValue(object, index, entry.getKey(), entry.getValue(), precision);
+          }
+        }
+      }
+      action.accept(object);
+    }
+  }
+
+  private void setValue(final T object, final int index, final String columnName, final Object value,
+                        final TimeUnit precision) {
+    if (value == null) {
+      return;
+    }
+    try {
+      codec.setValue(object, index, value, precision);
+    } catch (ArithmeticException e) {
+      String msg = "Class '%s' column '%s' cannot hold the value '%s' without losing precision.";
+      throw new InfluxDBMapperException(String.format(msg, clazz.getName(), columnName, value));
+    } catch (ClassCastException e) {
+      String msg = "Class '%s' column '%s' was defined with a different field type and caused a ClassCastException. "
+        + "The correct type is '%s' (current field value: '%s').";
+      throw new InfluxDBMapperException(
+        String.format(msg, clazz.getName(), columnName, value.getClass().getName(), value));
+    }
+  }
+
+  private T newRow() {
+    if (codec != null) {
+      return codec.newInstance();
+    }
+    return newInstance();
+  }
+
+  private void writeLong(final T object, final int column, final long value) {
+    FieldWriter writer = columnWriter(column);
+    if (writer != null) {
+      writer.writeLong(object, value);
+    } else {
+      writeCodecValue(object, column, value);
+    }
+  }
+
+  private void writeDouble(final T object, final int column, final double value) {
+    FieldWriter writer = columnWriter(column);
+    if (writer != null) {
+      writer.writeDouble(object, value);
+    } else {
+      writeCodecValue(object, column, value);
+    }
+  }
+
+  private void writeBoolean(final T object, final int column, final boolean value) {
+    FieldWriter writer = columnWriter(column);
+    if (writer != null) {
+      writer.writeBoolean(object, value);
+    } else {
+      writeCodecValue(object, column, value);
+    }
+  }
+
+  private void writeTime(final T object, final int column, final long epochNanos) {
+    FieldWriter writer = columnWriter(column);
+    if (writer != null) {
+      writer.writeTime(object, epochNanos);
+    } else {
+      writeCodecValue(object, column, epochNanos);
+    }
+  }
+
+  private void writeObject(final T object, final int column, final Object value) {
+    FieldWriter writer = columnWriter(column);
+    if (writer != null) {
+      writer.write(object, value, TimeUnit.NANOSECONDS);
+    } else {
+      writeCodecValue(object, column, value);
+    }
+  }
+
+  private void writeTags(final T object, final Map<String, String> tags) {
+    if (tags == null) {
+      return;
+    }
+    for (Entry<String, String> entry : tags.entrySet()) {
+      if (codec != null) {
+        int index = codec.columnIndex(entry.getKey());
+        if (index >= 0) {
+          setValue(object, index, entry.getKey(), entry.getValue(), TimeUnit.NANOSECONDS);
+        }
+      } else {
+        FieldWriter writer = writersByColumnName.get(entry.getKey());
+        if (writer != null) {
+          writer.write(object, entry.getValue(), TimeUnit.NANOSECONDS);
+        }
+      }
+    }
+  }
+
+  private FieldWriter columnWriter(final int column) {
+    if (columnWriters != null && column < columnWriters.length) {
+      return columnWriters[column];
+    }
+    return null;
+  }
+
+  private void writeCodecValue(final T object, final int column, final Object value) {
+    if (codec != null && column < codecIndexes.length && codecIndexes[column] >= 0) {
+      setValue(object, codecIndexes[column], columns.get(column), value, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private T newInstance() {
+    if (constructor == null) {
+      throw new InfluxDBMapperException(
+        new InstantiationException("Class " + clazz.getName() + " has no accessible no-arg constructor"));
+    }
+    try {
+      return (T) (Object) constructor.invokeExact();
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new InfluxDBMapperException(new InstantiationException(t.toString()));
+    }
+  }
+
+  /**
+   * Maps the rows pushed by a {@link MessagePackTraverser} while the response is decoded. Longs, doubles and
+   * booleans are written to primitive fields without boxing and timestamps to {@link Instant} fields without a
+   * precision conversion; values of other field types and {@link MeasurementCodec}s are boxed once. Every object
+   * is handed to the action at the end of its row, series of other measurements are skipped.
+   * <p>
+   * MessagePack responses carry timestamps as epoch nanoseconds, so numbers written to {@link Instant} fields
+   * are read as nanoseconds too.
+   *
+   * @param <T> the measurement class
+   */
+  static final class RowSink<T> implements MessagePackTraverser.RowVisitor {
+
+    private final String measurementName;
+    private final Function<List<String>, SeriesMapper<T>> mappers;
+    private final Consumer<? super T> action;
+    private SeriesMapper<T> mapper;
+    private Map<String, String> tags;
+    private T object;
+
+    /**
+     * @param measurementName the name of the series to map
+     * @param mappers the mapper of a column layout
+     * @param action the consumer of the mapped objects
+     */
+    RowSink(final String measurementName, final Function<List<String>, SeriesMapper<T>> mappers,
+            final Consumer<? super T> action) {
+      this.measurementName = measurementName;
+      this.mappers = mappers;
+      this.action = action;
+    }
+
+    @Override
+    public void series(final Series series) {
+      mapper = null;
+      object = null;
+      tags = series.getTags();
+      if (measurementName.equals(series.getName()) && series.getColumns() != null) {
+        SeriesMapper<T> candidate = mappers.apply(series.getColumns());
+        if (candidate.anyColumnMapped) {
+          mapper = candidate;
+        }
+      }
+    }
+
+    @Override
+    public void nullValue(final int column) {
+    }
+
+    @Override
+    public void booleanValue(final int column, final boolean value) {
+      if (mapper != null) {
+        mapper.writeBoolean(row(), column, value);
+      }
+    }
+
+    @Override
+    public void longValue(final int column, final long value) {
+      if (mapper != null) {
+        mapper.writeLong(row(), column, value);
+      }
+    }
+
+    @Override
+    public void doubleValue(final int column, final double value) {
+      if (mapper != null) {
+        mapper.writeDouble(row(), column, value);
+      }
+    }
+
+    @Override
+    public void stringValue(final int column, final String value) {
+      if (mapper != null) {
+        mapper.writeObject(row(), column, value);
+      }
+    }
+
+    @Override
+    public void timeValue(final int column, final long epochNanos) {
+      if (mapper != null) {
+        mapper.writeTime(row(), column, epochNanos);
+      }
+    }
+
+    @Override
+    public void objectValue(final int column, final Object value) {
+      if (mapper != null) {
+        mapper.writeObject(row(), column, value);
+      }
+    }
+
+    @Override
+    public void endRow() {
+      if (mapper == null) {
+        return;
+      }
+      T mapped = row();
+      object = null;
+      mapper.writeTags(mapped, tags);
+      action.accept(mapped);
+    }
+
+    private T row() {
+      if (object == null) {
+        object = mapper.newRow();
+      }
+      return object;
+    }
+  }
+
+  /**
+   * Writes converted values into one field. The conversion is selected once from the field type.
+   */
+  static final class FieldWriter {
+
+    private static final int STRING = 0;
+    private static final int INSTANT = 1;
+    private static final int DOUBLE_PRIMITIVE = 2;
+    private static final int LONG_PRIMITIVE = 3;
+    private static final int INT_PRIMITIVE = 4;
+    private static final int BOOLEAN_PRIMITIVE = 5;
+    private static final int DOUBLE_WRAPPER = 6;
+    private static final int LONG_WRAPPER = 7;
+    private static final int INT_WRAPPER = 8;
+    private static final int BOOLEAN_WRAPPER = 9;
+    private static final int UNSUPPORTED = -1;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static final MethodHandle FIELD_SET;
+
+    static {
+      try {
+        FIELD_SET = MethodHandles.lookup().findVirtual(Field.class, "set",
+          MethodType.methodType(void.class, Object.class, Object.class));
+      } catch (NoSuchMethodException | IllegalAccessException e) {
+        throw new ExceptionInInitializerError(e);
+      }
+    }
+
+    private final Field field;
+    private final int kind;
+    private final MethodHandle setter;
+
+    FieldWriter(final Field field) {
+      this.field = field;
+      this.kind = kindOf(field.getType());
+      Class<?> type = field.getType();
+      Class<?> parameterType = Object.class;
+      if (type.isPrimitive()) {
+        parameterType = type;
+      }
+      MethodType setterType = MethodType.methodType(void.class, Object.class, parameterType);
+      MethodHandle handle;
+      try {
+        field.setAccessible(true);
+        handle = MethodHandles.lookup().unreflectSetter(field);
+      } catch (IllegalAccessException e) {
+        // e.g. final fields, which only the reflective Field.set is allowed to write
+        handle = FIELD_SET.bindTo(field);
+      } catch (RuntimeException e) {
+        throw new InfluxDBMapperException(e);
+      }
+      this.setter = handle.asType(setterType);
+    }
+
+    private static int kindOf(final Class<?> fieldType) {
+      if (String.class.isAssignableFrom(fieldType)) {
+        return STRING;
+      }
+      if (Instant.class.isAssignableFrom(fieldType)) {
+        return INSTANT;
+      }
+      if (double.class.isAssignableFrom(fieldType)) {
+        return DOUBLE_PRIMITIVE;
+      }
+      if (long.class.isAssignableFrom(fieldType)) {
+        return LONG_PRIMITIVE;
+      }
+      if (int.class.isAssignableFrom(fieldType)) {
+        return INT_PRIMITIVE;
+      }
+      if (boolean.class.isAssignableFrom(fieldType)) {
+        return BOOLEAN_PRIMITIVE;
+      }
+      if (Double.class.isAssignableFrom(fieldType)) {
+        return DOUBLE_WRAPPER;
+      }
+      if (Long.class.isAssignableFrom(fieldType)) {
+        return LONG_WRAPPER;
+      }
+      if (Integer.class.isAssignableFrom(fieldType)) {
+        return INT_WRAPPER;
+      }
+      if (Boolean.class.isAssignableFrom(fieldType)) {
+        return BOOLEAN_WRAPPER;
+      }
+      return UNSUPPORTED;
+    }
+
+    void writeLong(final Object object, final long value) {
+      if (kind != LONG_PRIMITIVE) {
+        write(object, value, TimeUnit.NANOSECONDS);
+        return;
+      }
+      try {
+        setter.invokeExact(object, value);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new InfluxDBMapperException(new IllegalAccessException(t.toString()));
+      }
+    }
+
+    void writeDouble(final Object object, final double value) {
+      if (kind != DOUBLE_PRIMITIVE) {
+        write(object, value, TimeUnit.NANOSECONDS);
+        return;
+      }
+      try {
+        setter.invokeExact(object, value);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new InfluxDBMapperException(new IllegalAccessException(t.toString()));
+      }
+    }
+
+    void writeBoolean(final Object object, final boolean value) {
+      if (kind != BOOLEAN_PRIMITIVE) {
+        write(object, value, TimeUnit.NANOSECONDS);
+        return;
+      }
+      try {
+        setter.invokeExact(object, value);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new InfluxDBMapperException(new IllegalAccessException(t.toString()));
+      }
+    }
+
+    void writeTime(final Object object, final long epochNanos) {
+      if (kind != INSTANT) {
+        write(object, epochNanos, TimeUnit.NANOSECONDS);
+        return;
+      }
+      Instant instant = Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+        Math.floorMod(epochNanos, NANOS_PER_SECOND));
+      try {
+        setter.invokeExact(object, (Object) instant);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new InfluxDBMapperException(new IllegalAccessException(t.toString()));
+      }
+    }
+
+    /**
+     * InfluxDB client returns any number as Double.
+     * See https://github.com/influxdata/influxdb-java/issues/153#issuecomment-259681987
+     * for more information.
+     */
+    void write(final Object object, final Object value, final TimeUnit precision) {
+      if (value == null) {
+        return;
+      }
+      try {
+        switch (kind) {
+        case STRING:
+          setter.invokeExact(object, (Object) String.valueOf(value));
+          break;
+        case INSTANT:
+          setter.invokeExact(object, (Object) ValueConverters.toInstant(value, precision, field.getName()));
+          break;
+        case DOUBLE_PRIMITIVE:
+          setter.invokeExact(object, ValueConverters.toDouble(value));
+          break;
+        case LONG_PRIMITIVE:
+          setter.invokeExact(object, ValueConverters.toLong(value));
+          break;
+        case INT_PRIMITIVE:
+          setter.invokeExact(object, ValueConverters.toInt(value));
+          break;
+        case BOOLEAN_PRIMITIVE:
+          setter.invokeExact(object, ValueConverters.toBoolean(value));
+          break;
+        case DOUBLE_WRAPPER:
+          setter.invokeExact(object, (Object) ValueConverters.toDoubleObject(value));
+          break;
+        case LONG_WRAPPER:
+          setter.invokeExact(object, (Object) ValueConverters.toLongObject(value));
+          break;
+        case INT_WRAPPER:
+          setter.invokeExact(object, (Object) ValueConverters.toIntegerObject(value));
+          break;
+        case BOOLEAN_WRAPPER:
+          setter.invokeExact(object, (Object) ValueConverters.toBooleanObject(value));
+          break;
+        default:
+          String msg = "Class '%s' field '%s' is from an unsupported type '%s'.";
+          throw new InfluxDBMapperException(
+            String.format(msg, object.getClass().getName(), field.getName(), field.getType()));
+        }
+      } catch (ArithmeticException e) {
+        String msg = "Class '%s' field '%s' cannot hold the value '%s' without losing precision.";
+        throw new InfluxDBMapperException(String.format(msg, object.getClass().getName(), field.getName(), value));
+      } catch (ClassCastException e) {
+        String msg = "Class '%s' field '%s' was defined with a different field type and caused a ClassCastException. "
+          + "The correct type is '%s' (current field value: '%s').";
+        throw new InfluxDBMapperException(
+          String.format(msg, object.getClass().getName(), field.getName(), value.getClass().getName(), value));
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new InfluxDBMapperException(new IllegalAccessException(t.toString()));
+      }
+    }
+  }
+}
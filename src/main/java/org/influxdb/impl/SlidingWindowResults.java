@@ -0,0 +1,150 @@
+package org.influxdb.impl;
+
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.dto.QueryResult;
+import org.influxdb.querybuilder.SlidingWindow;
+
+/**
+ * Merges the result of a {@link SlidingWindow#incrementalQuery(long, long)} into the cached result of the
+ * complete window.
+ */
+final class SlidingWindowResults {
+
+  private static final String TIME = "time";
+
+  private SlidingWindowResults() {
+  }
+
+  /**
+   * @param cached the cached result of the complete window
+   * @param increment the result of the incremental query, one result per statement
+   * @param headEndNanos the upper bound of the first statement
+   * @param tailStartNanos the lower bound of the second statement
+   * @param precision the epoch precision of the results, {@code null} for RFC3339 times
+   * @return the result of the current window, {@code null} if the results cannot be merged
+   */
+  static QueryResult merge(final QueryResult cached, final QueryResult increment, final long headEndNanos,
+                           final long tailStartNanos, final TimeUnit precision) {
+    if (cached.getResults() == null || cached.getResults().size() != 1 || increment.getResults() == null
+        || increment.getResults().size() != 2) {
+      return null;
+    }
+    QueryResult.Result cachedResult = cached.getResults().get(0);
+
+    // keep the order of the cached series, series without rows in the current window are dropped
+    Map<List<Object>, SeriesRows> merged = new LinkedHashMap<>();
+    if (cachedResult.getSeries() != null) {
+      for (QueryResult.Series series : cachedResult.getSeries()) {
+        merged.put(key(series), null);
+      }
+    }
+    boolean mergeable = append(merged, increment.getResults().get(0), Long.MIN_VALUE, headEndNanos, precision)
+        && append(merged, cachedResult, headEndNanos, tailStartNanos, precision)
+        && append(merged, increment.getResults().get(1), tailStartNanos, Long.MAX_VALUE, precision);
+    if (!mergeable) {
+      return null;
+    }
+
+    List<QueryResult.Series> series = new ArrayList<>(merged.size());
+    for (SeriesRows rows : merged.values()) {
+      if (rows != null && !rows.values.isEmpty()) {
+        series.add(rows.toSeries());
+      }
+    }
+    QueryResult.Result result = new QueryResult.Result();
+    if (!series.isEmpty()) {
+      result.setSeries(series);
+    }
+    QueryResult queryResult = new QueryResult();
+    queryResult.setResults(Collections.singletonList(result));
+    return queryResult;
+  }
+
+  private static boolean append(final Map<List<Object>, SeriesRows> merged, final QueryResult.Result result,
+                                final long fromNanos, final long toNanos, final TimeUnit precision) {
+    if (result.getError() != null) {
+      return false;
+    }
+    if (result.getSeries() == null) {
+      return true;
+    }
+    for (QueryResult.Series series : result.getSeries()) {
+      if (series.getColumns() == null) {
+        return false;
+      }
+      int timeIndex = series.getColumns().indexOf(TIME);
+      if (timeIndex < 0) {
+        return false;
+      }
+      List<Object> key = key(series);
+      SeriesRows rows = merged.get(key);
+      if (rows == null) {
+        rows = new SeriesRows(series);
+        merged.put(key, rows);
+      } else if (!rows.columns.equals(series.getColumns())) {
+        return false;
+      }
+      if (series.getValues() == null) {
+        continue;
+      }
+      for (List<Object> row : series.getValues()) {
+        Long time = toEpochNanos(row.get(timeIndex), precision);
+        if (time == null) {
+          return false;
+        }
+        if (time >= fromNanos && time < toNanos) {
+          rows.values.add(row);
+        }
+      }
+    }
+    return true;
+  }
+
+  private static Long toEpochNanos(final Object time, final TimeUnit precision) {
+    if (time instanceof String) {
+      try {
+        return TimeUtil.parseEpochNanos((String) time);
+      } catch (DateTimeParseException e) {
+        return null;
+      }
+    }
+    if (time instanceof Number && precision != null) {
+      return precision.toNanos(ValueConverters.toLong(time));
+    }
+    return null;
+  }
+
+  private static List<Object> key(final QueryResult.Series series) {
+    return Arrays.asList(series.getName(), series.getTags());
+  }
+
+  private static final class SeriesRows {
+    private final String name;
+    private final Map<String, String> tags;
+    private final List<String> columns;
+    private final List<List<Object>> values = new ArrayList<>();
+
+    SeriesRows(final QueryResult.Series series) {
+      this.name = series.getName();
+      this.tags = series.getTags();
+      this.columns = series.getColumns();
+    }
+
+    QueryResult.Series toSeries() {
+      QueryResult.Series series = new QueryResult.Series();
+      series.setName(name);
+      series.setTags(tags);
+      series.setColumns(columns);
+      series.setValues(values);
+      return series;
+    }
+  }
+}
@@ -0,0 +1,271 @@
+package org.influxdb.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.influxdb.InfluxDBException;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.influxdb.querybuilder.TimeRangeSplit;
+
+/**
+ * Executes the statements of a {@link TimeRangeSplit} with bounded concurrency and passes their results on in
+ * time order. At most {@code maxConcurrency} results are in flight or waiting for an earlier result. The
+ * OFFSET and LIMIT of the split statement are applied per series across the results.
+ */
+final class SplitQueryExecution {
+
+  private final List<Query> queries;
+  private final Function<Query, CompletableFuture<QueryResult>> executor;
+  private final int maxConcurrency;
+  private final Integer limit;
+  private final long offset;
+  private final Consumer<QueryResult> onNext;
+  private final Runnable onComplete;
+  private final Consumer<Throwable> onFailure;
+  private final QueryResult[] results;
+  private final List<CompletableFuture<QueryResult>> futures;
+  private final Map<List<Object>, long[]> rowCounts = new HashMap<>();
+  private int launched;
+  private int emitted;
+  private boolean done;
+
+  private SplitQueryExecution(final TimeRangeSplit split,
+                              final Function<Query, CompletableFuture<QueryResult>> executor,
+                              final int maxConcurrency, final Consumer<QueryResult> onNext,
+                              final Runnable onComplete, final Consumer<Throwable> onFailure) {
+    List<Query> ordered = new ArrayList<>(split.getQueries());
+    if (split.isDescending()) {
+      Collections.reverse(ordered);
+    }
+    this.queries = ordered;
+    this.executor = executor;
+    this.maxConcurrency = maxConcurrency;
+    this.limit = split.getLimit();
+    this.offset = split.getOffset();
+    this.onNext = onNext;
+    this.onComplete = onComplete;
+    this.onFailure = onFailure;
+    this.results = new QueryResult[ordered.size()];
+    this.futures = new ArrayList<>(ordered.size());
+  }
+
+  /**
+   * @param split the split statement
+   * @param executor executes one statement
+   * @param maxConcurrency the maximum number of statements in flight
+   * @param onNext receives the result of each statement in time order, without series left empty by the LIMIT
+   *        or OFFSET
+   * @param onComplete invoked after the last result
+   * @param onFailure invoked once if a statement fails or returns an error, the statements in flight are then
+   *        cancelled
+   */
+  static void execute(final TimeRangeSplit split, final Function<Query, CompletableFuture<QueryResult>> executor,
+                      final int maxConcurrency, final Consumer<QueryResult> onNext, final Runnable onComplete,
+                      final Consumer<Throwable> onFailure) {
+    SplitQueryExecution execution = new SplitQueryExecution(split, executor, maxConcurrency, onNext, onComplete,
+        onFailure);
+    synchronized (execution) {
+      if (execution.queries.isEmpty()) {
+        execution.done = true;
+        onComplete.run();
+        return;
+      }
+      execution.launch();
+    }
+  }
+
+  private void launch() {
+    while (!done && launched < queries.size() && launched - emitted < maxConcurrency) {
+      int index = launched++;
+      CompletableFuture<QueryResult> future = executor.apply(queries.get(index));
+      futures.add(future);
+      future.whenComplete((result, throwable) -> completed(index, result, throwable));
+    }
+  }
+
+  private synchronized void completed(final int index, final QueryResult result, final Throwable throwable) {
+    if (done) {
+      return;
+    }
+    if (throwable != null) {
+      fail(throwable);
+      return;
+    }
+    String error = errorOf(result);
+    if (error != null) {
+      fail(new InfluxDBException(error));
+      return;
+    }
+    results[index] = result;
+    while (emitted < results.length && results[emitted] != null) {
+      QueryResult next = applyLimit(results[emitted]);
+      results[emitted] = null;
+      emitted++;
+      try {
+        if (next != null) {
+          onNext.accept(next);
+        }
+      } catch (RuntimeException e) {
+        fail(e);
+        return;
+      }
+    }
+    if (emitted == results.length) {
+      done = true;
+      onComplete.run();
+      return;
+    }
+    launch();
+  }
+
+  private void fail(final Throwable throwable) {
+    done = true;
+    for (CompletableFuture<QueryResult> future : futures) {
+      future.cancel(true);
+    }
+    Throwable cause = throwable;
+    if (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    onFailure.accept(cause);
+  }
+
+  private static String errorOf(final QueryResult result) {
+    if (result.getError() != null) {
+      return result.getError();
+    }
+    if (result.getResults() != null) {
+      for (QueryResult.Result statementResult : result.getResults()) {
+        if (statementResult.getError() != null) {
+          return statementResult.getError();
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the result with the rows of each series before the OFFSET and after the LIMIT removed, null if no
+   *         rows are left
+   */
+  private QueryResult applyLimit(final QueryResult result) {
+    if (limit == null && offset == 0) {
+      return result;
+    }
+    List<QueryResult.Series> limitedSeries = new ArrayList<>();
+    for (QueryResult.Result statementResult : nonNull(result.getResults())) {
+      for (QueryResult.Series series : nonNull(statementResult.getSeries())) {
+        long[] count = rowCounts.computeIfAbsent(seriesKey(series), key -> new long[1]);
+        List<List<Object>> values = new ArrayList<>();
+        for (List<Object> row : nonNull(series.getValues())) {
+          long position = count[0]++;
+          if (position >= offset && (limit == null || position - offset < limit)) {
+            values.add(row);
+          }
+        }
+        if (!values.isEmpty()) {
+          limitedSeries.add(copyOf(series, series.getColumns(), values));
+        }
+      }
+    }
+    if (limitedSeries.isEmpty()) {
+      return null;
+    }
+    return resultOf(limitedSeries);
+  }
+
+  /**
+   * Merges the results of the statements of a split into one result. The rows of equal series (by name and
+   * tags) are concatenated in the order of the results. Columns missing in some results are filled with null.
+   *
+   * @param parts the results in time order
+   * @return the merged result
+   */
+  static QueryResult merge(final List<QueryResult> parts) {
+    Map<List<Object>, QueryResult.Series> merged = new LinkedHashMap<>();
+    for (QueryResult part : parts) {
+      for (QueryResult.Result statementResult : nonNull(part.getResults())) {
+        for (QueryResult.Series series : nonNull(statementResult.getSeries())) {
+          QueryResult.Series target = merged.computeIfAbsent(seriesKey(series),
+              key -> copyOf(series, new ArrayList<>(series.getColumns()), new ArrayList<>()));
+          appendRows(target, series);
+        }
+      }
+    }
+    for (QueryResult.Series series : merged.values()) {
+      int width = series.getColumns().size();
+      for (List<Object> row : series.getValues()) {
+        while (row.size() < width) {
+          row.add(null);
+        }
+      }
+    }
+    return resultOf(new ArrayList<>(merged.values()));
+  }
+
+  private static void appendRows(final QueryResult.Series target, final QueryResult.Series series) {
+    List<String> columns = target.getColumns();
+    int[] positions = new int[series.getColumns().size()];
+    boolean sameColumns = columns.size() == positions.length;
+    for (int i = 0; i < positions.length; i++) {
+      String column = series.getColumns().get(i);
+      int position = columns.indexOf(column);
+      if (position < 0) {
+        position = columns.size();
+        columns.add(column);
+      }
+      positions[i] = position;
+      sameColumns &= position == i;
+    }
+    for (List<Object> row : nonNull(series.getValues())) {
+      if (sameColumns) {
+        target.getValues().add(new ArrayList<>(row));
+        continue;
+      }
+      List<Object> mapped = new ArrayList<>(Collections.nCopies(columns.size(), null));
+      for (int i = 0; i < positions.length && i < row.size(); i++) {
+        mapped.set(positions[i], row.get(i));
+      }
+      target.getValues().add(mapped);
+    }
+  }
+
+  private static List<Object> seriesKey(final QueryResult.Series series) {
+    return Arrays.asList(series.getName(), series.getTags());
+  }
+
+  private static QueryResult.Series copyOf(final QueryResult.Series series, final List<String> columns,
+                                           final List<List<Object>> values) {
+    QueryResult.Series copy = new QueryResult.Series();
+    copy.setName(series.getName());
+    copy.setTags(series.getTags());
+    copy.setColumns(columns);
+    copy.setValues(values);
+    return copy;
+  }
+
+  private static QueryResult resultOf(final List<QueryResult.Series> series) {
+    QueryResult.Result statementResult = new QueryResult.Result();
+    statementResult.setSeries(series);
+    QueryResult result = new QueryResult();
+    result.setResults(new ArrayList<>(Collections.singletonList(statementResult)));
+    return result;
+  }
+
+  private static <T> List<T> nonNull(final List<T> list) {
+    if (list == null) {
+      return Collections.emptyList();
+    }
+    return list;
+  }
+}
@@ -1,8 +1,8 @@
 package org.influxdb.impl;
 
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.EnumSet;
-import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -13,23 +13,19 @@ import java.util.concurrent.TimeUnit;
 public enum TimeUtil {
   INSTANCE;
 
-    private static final ThreadLocal<SimpleDateFormat> FORMATTER_MILLIS = new ThreadLocal<SimpleDateFormat>() {
-        @Override
-        protected SimpleDateFormat initialValue() {
-            SimpleDateFormat dateDF = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-            dateDF.setTimeZone(TimeZone.getTimeZone("UTC"));
-            return dateDF;
-        }
-    };
-
-    private static final ThreadLocal<SimpleDateFormat> FORMATTER_SECONDS = new ThreadLocal<SimpleDateFormat>() {
-        @Override
-        protected SimpleDateFormat initialValue() {
-            SimpleDateFormat dateDF = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-            dateDF.setTimeZone(TimeZone.getTimeZone("UTC"));
-            return dateDF;
-        }
-    };
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+  private static final long NANOS_PER_MILLI = 1_000_000L;
+  private static final int SECONDS_PER_MINUTE = 60;
+  private static final int SECONDS_PER_HOUR = 3600;
+  private static final int SECONDS_PER_DAY = 86400;
+  private static final int MAX_YEAR = 9999;
+  private static final int MAX_FRACTION_DIGITS = 9;
+  private static final int MILLIS_DIGITS = 3;
+  private static final int[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000,
+                                              1000000000};
+
+  /** Offset of the character after the seconds in {@code yyyy-MM-ddTHH:mm:ss}. */
+  private static final int SECONDS_END = 19;
 
   private static final EnumSet<TimeUnit> ALLOWED_TIMEUNITS = EnumSet.of(
       TimeUnit.HOURS,
@@ -76,8 +72,13 @@ public enum TimeUtil {
      * @param time timestamp to use, in unix epoch time
      * @return influxdb compatible date-tome string
      */
-    public static String toInfluxDBTimeFormat(final long time) {
-        return FORMATTER_MILLIS.get().format(time);
+    @SuppressWarnings("checkstyle:magicnumber")
+  public static String toInfluxDBTimeFormat(final long time) {
+        StringBuilder builder = new StringBuilder(TIME_IN_SECOND_LENGTH + 1 + MILLIS_DIGITS);
+        appendDateTime(builder, Math.floorDiv(time, 1000L));
+        builder.append('.');
+        appendDigits(builder, (int) Math.floorMod(time, 1000L), MILLIS_DIGITS);
+        return builder.append('Z').toString();
     }
 
     /**
@@ -89,13 +90,243 @@ public enum TimeUtil {
      */
     public static long fromInfluxDBTimeFormat(final String time) {
         try {
-            if (time.length() == TIME_IN_SECOND_LENGTH) {
-                return FORMATTER_SECONDS.get().parse(time).getTime();
-            }
-            return FORMATTER_MILLIS.get().parse(time).getTime();
+            return Math.floorDiv(parseEpochNanos(time), NANOS_PER_MILLI);
         } catch (Exception e) {
             throw new RuntimeException("unexpected date format", e);
         }
     }
 
+  /**
+   * Format a unix epoch time in nanoseconds as RFC3339 with nanoseconds, the format of InfluxDB responses.
+   * Trailing zeros of the fraction are omitted, e.g. 2016-10-31T06:52:20.0205Z.
+   *
+   * @param epochNanos the time in nanoseconds since the epoch
+   * @return the RFC3339 representation in UTC
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  public static String formatEpochNanos(final long epochNanos) {
+    StringBuilder builder = new StringBuilder(TIME_IN_SECOND_LENGTH + 1 + MAX_FRACTION_DIGITS);
+    appendDateTime(builder, Math.floorDiv(epochNanos, NANOS_PER_SECOND));
+    int nanos = (int) Math.floorMod(epochNanos, NANOS_PER_SECOND);
+    if (nanos != 0) {
+      int digits = MAX_FRACTION_DIGITS;
+      while (nanos % 10 == 0) {
+        nanos /= 10;
+        digits--;
+      }
+      builder.append('.');
+      appendDigits(builder, nanos, digits);
+    }
+    return builder.append('Z').toString();
+  }
+
+  /**
+   * Parse an RFC3339 timestamp with an optional fraction of up to nine digits and a {@code Z} or numeric
+   * offset, e.g. 2016-10-31T06:52:20.020450Z or 2016-10-31T08:52:20+02:00, without allocating.
+   *
+   * @param time the timestamp
+   * @return the time in nanoseconds since the epoch
+   * @throws DateTimeParseException if the timestamp is malformed or out of the range of epoch nanoseconds
+   */
+  public static long parseEpochNanos(final CharSequence time) {
+    long seconds = parseEpochSecond(time);
+    try {
+      return Math.addExact(Math.multiplyExact(seconds, NANOS_PER_SECOND), parseNano(time));
+    } catch (ArithmeticException e) {
+      throw new DateTimeParseException("Time out of the range of epoch nanoseconds", time, 0);
+    }
+  }
+
+  /**
+   * Parse an RFC3339 timestamp like {@link #parseEpochNanos(CharSequence)} into an {@link Instant}.
+   *
+   * @param time the timestamp
+   * @return the instant
+   * @throws DateTimeParseException if the timestamp is malformed
+   */
+  static Instant parseInstant(final CharSequence time) {
+    return Instant.ofEpochSecond(parseEpochSecond(time), parseNano(time));
+  }
+
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static long parseEpochSecond(final CharSequence time) {
+    int length = time.length();
+    if (length <= SECONDS_END || time.charAt(4) != '-' || time.charAt(7) != '-'
+        || (time.charAt(10) != 'T' && time.charAt(10) != 't') || time.charAt(13) != ':' || time.charAt(16) != ':') {
+      throw new DateTimeParseException("Time is not in RFC3339 format", time, 0);
+    }
+    int year = parseDigits(time, 0, 4);
+    int month = parseDigits(time, 5, 2);
+    int day = parseDigits(time, 8, 2);
+    int hour = parseDigits(time, 11, 2);
+    int minute = parseDigits(time, 14, 2);
+    int second = parseDigits(time, 17, 2);
+    if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+        || hour > 23 || minute > 59 || second > 59) {
+      throw new DateTimeParseException("Time has an invalid date or time field", time, 0);
+    }
+
+    int index = fractionEnd(time);
+    int offsetSeconds = 0;
+    char zone = time.charAt(index);
+    if (zone == 'Z' || zone == 'z') {
+      index++;
+    } else if (zone == '+' || zone == '-') {
+      int offsetHour = parseDigits(time, index + 1, 2);
+      int offsetMinute = 0;
+      index += 3;
+      if (index < length) {
+        if (time.charAt(index) == ':') {
+          index++;
+        }
+        offsetMinute = parseDigits(time, index, 2);
+        index += 2;
+      }
+      if (offsetHour > 18 || offsetMinute > 59) {
+        throw new DateTimeParseException("Time has an invalid offset", time, index);
+      }
+      offsetSeconds = offsetHour * SECONDS_PER_HOUR + offsetMinute * SECONDS_PER_MINUTE;
+      if (zone == '-') {
+        offsetSeconds = -offsetSeconds;
+      }
+    } else {
+      throw new DateTimeParseException("Time has no offset", time, index);
+    }
+    if (index != length) {
+      throw new DateTimeParseException("Time has trailing characters", time, index);
+    }
+
+    return daysFromCivil(year, month, day) * SECONDS_PER_DAY
+        + hour * SECONDS_PER_HOUR + minute * SECONDS_PER_MINUTE + second - offsetSeconds;
+  }
+
+  private static int parseNano(final CharSequence time) {
+    int end = fractionEnd(time);
+    if (end == SECONDS_END) {
+      return 0;
+    }
+    int digits = end - SECONDS_END - 1;
+    return parseDigits(time, SECONDS_END + 1, digits) * POWERS_OF_TEN[MAX_FRACTION_DIGITS - digits];
+  }
+
+  /**
+   * @return the index after the fraction of seconds, {@link #SECONDS_END} when there is none
+   */
+  private static int fractionEnd(final CharSequence time) {
+    if (time.charAt(SECONDS_END) != '.') {
+      return SECONDS_END;
+    }
+    int index = SECONDS_END + 1;
+    while (index < time.length() && isDigit(time.charAt(index))) {
+      index++;
+    }
+    int digits = index - SECONDS_END - 1;
+    if (digits == 0 || digits > MAX_FRACTION_DIGITS || index == time.length()) {
+      throw new DateTimeParseException("Time has an invalid fraction of seconds", time, SECONDS_END);
+    }
+    return index;
+  }
+
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static int parseDigits(final CharSequence time, final int start, final int count) {
+    if (start + count > time.length()) {
+      throw new DateTimeParseException("Time is truncated", time, start);
+    }
+    int value = 0;
+    for (int i = start; i < start + count; i++) {
+      char c = time.charAt(i);
+      if (!isDigit(c)) {
+        throw new DateTimeParseException("Time has a non-digit character", time, i);
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  private static boolean isDigit(final char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static int lengthOfMonth(final int year, final int month) {
+    switch (month) {
+    case 2:
+      if (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) {
+        return 29;
+      }
+      return 28;
+    case 4:
+    case 6:
+    case 9:
+    case 11:
+      return 30;
+    default:
+      return 31;
+    }
+  }
+
+  /**
+   * Days since 1970-01-01 of a proleptic Gregorian date, see http://howardhinnant.github.io/date_algorithms.html.
+   */
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static long daysFromCivil(final int year, final int month, final int day) {
+    int y = year;
+    if (month <= 2) {
+      y--;
+    }
+    int era = Math.floorDiv(y, 400);
+    int yearOfEra = y - era * 400;
+    int shiftedMonth = month - 3;
+    if (month <= 2) {
+      shiftedMonth = month + 9;
+    }
+    int dayOfYear = (153 * shiftedMonth + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097L + dayOfEra - 719468;
+  }
+
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static void appendDateTime(final StringBuilder builder, final long epochSecond) {
+    long days = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+    int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+
+    // civil from days, see http://howardhinnant.github.io/date_algorithms.html
+    long z = days + 719468;
+    long era = Math.floorDiv(z, 146097);
+    int dayOfEra = (int) (z - era * 146097);
+    int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    int shiftedMonth = (5 * dayOfYear + 2) / 153;
+    int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+    int month = shiftedMonth + 3;
+    if (shiftedMonth >= 10) {
+      month = shiftedMonth - 9;
+    }
+    long year = yearOfEra + era * 400;
+    if (month <= 2) {
+      year++;
+    }
+    if (year < 0 || year > MAX_YEAR) {
+      throw new IllegalArgumentException("Year " + year + " is out of the RFC3339 range");
+    }
+
+    appendDigits(builder, (int) year, 4);
+    builder.append('-');
+    appendDigits(builder, month, 2);
+    builder.append('-');
+    appendDigits(builder, day, 2);
+    builder.append('T');
+    appendDigits(builder, secondOfDay / SECONDS_PER_HOUR, 2);
+    builder.append(':');
+    appendDigits(builder, secondOfDay / SECONDS_PER_MINUTE % SECONDS_PER_MINUTE, 2);
+    builder.append(':');
+    appendDigits(builder, secondOfDay % SECONDS_PER_MINUTE, 2);
+  }
+
+  @SuppressWarnings("checkstyle:magicnumber")
+  private static void appendDigits(final StringBuilder builder, final int value, final int digits) {
+    for (int i = digits - 1; i >= 0; i--) {
+      builder.append((char) ('0' + value / POWERS_OF_TEN[i] % 10));
+    }
+  }
 }
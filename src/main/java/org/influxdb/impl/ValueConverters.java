@@ -0,0 +1,113 @@
+package org.influxdb.impl;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.InfluxDBMapperException;
+
+/**
+ * Converts the values of a query result into the types of mapped fields.
+ * <p>
+ * The conversion is selected by the type the value was decoded as: JSON responses carry numbers as
+ * {@code Double} (except an epoch {@code time} column, which is a {@code Long}), MessagePack responses carry
+ * integers as {@code Integer}, {@code Long} or {@code BigInteger}. Integers are converted exactly, a value that
+ * does not fit into the target type raises an {@link ArithmeticException} instead of being silently truncated.
+ * Floating point values keep the previous narrowing behaviour.
+ */
+final class ValueConverters {
+
+  private ValueConverters() {
+  }
+
+  static double toDouble(final Object value) {
+    if (value instanceof Double) {
+      return (Double) value;
+    }
+    return ((Number) value).doubleValue();
+  }
+
+  static long toLong(final Object value) {
+    if (value instanceof Long) {
+      return (Long) value;
+    }
+    if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return ((Number) value).longValue();
+    }
+    if (value instanceof BigInteger) {
+      return ((BigInteger) value).longValueExact();
+    }
+    return ((Number) value).longValue();
+  }
+
+  static int toInt(final Object value) {
+    if (value instanceof Integer) {
+      return (Integer) value;
+    }
+    if (value instanceof Long || value instanceof BigInteger) {
+      return Math.toIntExact(toLong(value));
+    }
+    return ((Number) value).intValue();
+  }
+
+  static boolean toBoolean(final Object value) {
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    return Boolean.parseBoolean(String.valueOf(value));
+  }
+
+  static Double toDoubleObject(final Object value) {
+    if (value instanceof Double) {
+      return (Double) value;
+    }
+    return toDouble(value);
+  }
+
+  static Long toLongObject(final Object value) {
+    if (value instanceof Long) {
+      return (Long) value;
+    }
+    return toLong(value);
+  }
+
+  static Integer toIntegerObject(final Object value) {
+    if (value instanceof Integer) {
+      return (Integer) value;
+    }
+    return toInt(value);
+  }
+
+  static Boolean toBooleanObject(final Object value) {
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    return toBoolean(value);
+  }
+
+  /**
+   * Converts a value of the {@code time} column. Integer epochs are converted without losing sub-millisecond
+   * digits.
+   *
+   * @param value an RFC3339 String or an epoch number
+   * @param precision the time precision of an epoch number
+   * @param name the field or column name, used in the error message
+   * @return the time
+   */
+  static Instant toInstant(final Object value, final TimeUnit precision, final String name) {
+    if (value instanceof String) {
+      return TimeUtil.parseInstant((String) value);
+    } else if (value instanceof Long || value instanceof Integer || value instanceof BigInteger) {
+      return toInstant(toLong(value), precision);
+    } else if (value instanceof Double) {
+      return toInstant(((Double) value).longValue(), precision);
+    }
+    throw new InfluxDBMapperException("Unsupported type " + value.getClass() + " for field " + name);
+  }
+
+  private static Instant toInstant(final long epoch, final TimeUnit precision) {
+    long seconds = precision.toSeconds(epoch);
+    long remainder = epoch - precision.convert(seconds, TimeUnit.SECONDS);
+    return Instant.ofEpochSecond(seconds, precision.toNanos(remainder));
+  }
+}
@@ -0,0 +1,167 @@
+package org.influxdb.importer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.influxdb.InfluxDB.ConsistencyLevel;
+
+/**
+ * ImportOptions are used to configure an {@link Importer}.
+ */
+public final class ImportOptions implements Cloneable {
+
+  /**
+   * Default import options. This class is immutable, each configuration
+   * is built by taking the DEFAULTS and setting specific configuration
+   * properties.
+   */
+  public static final ImportOptions DEFAULTS = new ImportOptions();
+
+  public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+  public static final int DEFAULT_PARALLELISM = 4;
+  public static final int DEFAULT_MAX_RETRIES = 3;
+  public static final int DEFAULT_RETRY_INTERVAL = 1000;
+
+  private int chunkSize = DEFAULT_CHUNK_SIZE;
+  private int parallelism = DEFAULT_PARALLELISM;
+  private int maxRetries = DEFAULT_MAX_RETRIES;
+  private int retryInterval = DEFAULT_RETRY_INTERVAL;
+  private TimeUnit precision = TimeUnit.NANOSECONDS;
+  private ConsistencyLevel consistency = ConsistencyLevel.ONE;
+  private Consumer<ImportStats> progressListener = stats -> {
+  };
+
+  private ImportOptions() {
+  }
+
+  /**
+   * @param chunkSize the size of a write request at most (bytes), unless a single line is longer
+   * @return the ImportOptions instance to be able to use it in a fluent manner.
+   */
+  public ImportOptions chunkSize(final int chunkSize) {
+    ImportOptions clone = getClone();
+    clone.chunkSize = chunkSize;
+    return clone;
+  }
+
+  /**
+   * @param parallelism the number of write requests at a time
+   * @return the ImportOptions instance to be able to use it in a fluent manner.
+   */
+  public ImportOptions parallelism(final int parallelism) {
+    ImportOptions clone = getClone();
+    clone.parallelism = parallelism;
+    return clone;
+  }
+
+  /**
+   * @param maxRetries the number of times a chunk is written again after a failure that is worth a retry, see
+   *                   {@link org.influxdb.InfluxDBException#isRetryWorth()}
+   * @return the ImportOptions instance to be able to use it in a fluent manner.
+   */
+  public ImportOptions maxRetries(final int maxRetries) {
+    ImportOptions clone = getClone();
+    clone.maxRetries = maxRetries;
+    return clone;
+  }
+
+  /**
+   * @param retryInterval the time to wait before the first retry of a chunk, doubled for every further retry
+   *                      (milliseconds).
+   * @return the ImportOptions instance to be able to use it in a fluent manner.
+   */
+  public ImportOptions retryInterval(final int retryInterval) {
+    ImportOptions clone = getClone();
+    clone.retryInterval = retryInterval;
+    return clone;
+  }
+
+  /**
+   * @param precision the precision of the timestamps in the file
+   * @return the ImportOptions instance to be able to use it in a fluent manner.
+   */
+  public ImportOptions precision(final TimeUnit precision) {
+    ImportOptions clone = getClone();
+    clone.precision = precision;
+    return clone;
+  }
+
+  /**
+   * @param consistency the consistency level of the writes
+   * @return the ImportOptions instance to be able to use it in a fluent manner.
+   */
+  public ImportOptions consistency(final ConsistencyLevel consistency) {
+    ImportOptions clone = getClone();
+    clone.consistency = consistency;
+    return clone;
+  }
+
+  /**
+   * @param progressListener receives the statistics of the import whenever a chunk is written, on the thread
+   *                         that wrote it
+   * @return the ImportOptions instance to be able to use it in a fluent manner.
+   */
+  public ImportOptions progressListener(final Consumer<ImportStats> progressListener) {
+    ImportOptions clone = getClone();
+    clone.progressListener = progressListener;
+    return clone;
+  }
+
+  /**
+   * @return the size of a write request at most (bytes)
+   */
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * @return the number of write requests at a time
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * @return the number of times a chunk is written again after a failure
+   */
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  /**
+   * @return the time to wait before the first retry of a chunk (milliseconds).
+   */
+  public int getRetryInterval() {
+    return retryInterval;
+  }
+
+  /**
+   * @return the precision of the timestamps in the file
+   */
+  public TimeUnit getPrecision() {
+    return precision;
+  }
+
+  /**
+   * @return the consistency level of the writes
+   */
+  public ConsistencyLevel getConsistency() {
+    return consistency;
+  }
+
+  /**
+   * @return the listener for the progress of an import
+   */
+  public Consumer<ImportStats> getProgressListener() {
+    return progressListener;
+  }
+
+  private ImportOptions getClone() {
+    try {
+      return (ImportOptions) this.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+}
@@ -0,0 +1,76 @@
+package org.influxdb.importer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of the progress and throughput of an import, see {@link Importer#importFile}.
+ */
+public final class ImportStats {
+
+  private final long bytes;
+  private final long writtenBytes;
+  private final long chunks;
+  private final long retries;
+  private final long elapsedNanos;
+
+  ImportStats(final long bytes, final long writtenBytes, final long chunks, final long retries,
+              final long elapsedNanos) {
+    this.bytes = bytes;
+    this.writtenBytes = writtenBytes;
+    this.chunks = chunks;
+    this.retries = retries;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * @return the size of the file (bytes)
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * @return the size of the chunks written so far (bytes)
+   */
+  public long getWrittenBytes() {
+    return writtenBytes;
+  }
+
+  /**
+   * @return the number of chunks written so far
+   */
+  public long getChunks() {
+    return chunks;
+  }
+
+  /**
+   * @return the number of retried writes
+   */
+  public long getRetries() {
+    return retries;
+  }
+
+  /**
+   * @return the time since the start of the import
+   */
+  public Duration getElapsed() {
+    return Duration.ofNanos(elapsedNanos);
+  }
+
+  /**
+   * @return the number of written bytes per second
+   */
+  public double getBytesPerSecond() {
+    if (elapsedNanos <= 0) {
+      return 0;
+    }
+    return writtenBytes * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "ImportStats [bytes=" + bytes + ", writtenBytes=" + writtenBytes + ", chunks=" + chunks
+        + ", retries=" + retries + ", elapsed=" + getElapsed() + "]";
+  }
+}
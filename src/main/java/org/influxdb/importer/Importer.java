@@ -0,0 +1,151 @@
+package org.influxdb.importer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
+import org.influxdb.impl.Preconditions;
+
+/**
+ * Imports line protocol files, e.g. written by {@link org.influxdb.export.Exporter}. A file is memory-mapped
+ * and split at newlines into chunks of about {@link ImportOptions#getChunkSize()} bytes, which are written as
+ * they are with {@link InfluxDB#write(String, String, InfluxDB.ConsistencyLevel, TimeUnit, ByteBuffer)}, up to
+ * {@link ImportOptions#getParallelism()} at a time. The lines are never decoded into Strings.
+ * <p>
+ * The chunks are sent gzip compressed if {@link InfluxDB#enableGzip()} is enabled. Comment lines starting with
+ * {@code #} and empty lines are ignored by InfluxDB.
+ */
+public final class Importer {
+
+  private static final long REGION_SIZE = 1024L * 1024 * 1024;
+
+  private final InfluxDB influxDB;
+  private final ImportOptions options;
+
+  /**
+   * @param influxDB the connection to import into
+   * @param options the options of the import
+   */
+  public Importer(final InfluxDB influxDB, final ImportOptions options) {
+    Objects.requireNonNull(influxDB, "influxDB");
+    Objects.requireNonNull(options.getPrecision(), "precision");
+    Objects.requireNonNull(options.getConsistency(), "consistency");
+    Preconditions.checkPositiveNumber(options.getChunkSize(), "chunkSize");
+    Preconditions.checkPositiveNumber(options.getParallelism(), "parallelism");
+    Preconditions.checkNotNegativeNumber(options.getMaxRetries(), "maxRetries");
+    Preconditions.checkNotNegativeNumber(options.getRetryInterval(), "retryInterval");
+    this.influxDB = influxDB;
+    this.options = options;
+  }
+
+  /**
+   * Import a line protocol file and wait for the import to end. If a chunk fails, no further chunks are written
+   * and the chunks in flight are completed before the failure is thrown.
+   *
+   * @param file the UTF-8 encoded line protocol file
+   * @param database the database to write to
+   * @param retentionPolicy the retention policy to write to, null for the default retention policy
+   * @return the statistics of the import
+   * @throws IOException if the file cannot be read
+   * @throws InterruptedException if interrupted while waiting for a chunk
+   * @throws InfluxDBException if a chunk cannot be written
+   */
+  public ImportStats importFile(final Path file, final String database, final String retentionPolicy)
+      throws IOException, InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(options.getParallelism());
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      LineChunker chunker = new LineChunker(channel, options.getChunkSize(), REGION_SIZE);
+      Run run = new Run(database, retentionPolicy, chunker.size());
+      Semaphore permits = new Semaphore(options.getParallelism());
+      for (ByteBuffer chunk = chunker.next(); chunk != null; chunk = chunker.next()) {
+        permits.acquire();
+        if (run.failure.get() != null) {
+          permits.release();
+          break;
+        }
+        ByteBuffer records = chunk;
+        try {
+          executor.execute(() -> {
+            try {
+              write(run, records);
+            } catch (RuntimeException e) {
+              run.failure.compareAndSet(null, e);
+            } finally {
+              permits.release();
+            }
+          });
+        } catch (RejectedExecutionException e) {
+          permits.release();
+          throw e;
+        }
+      }
+      permits.acquire(options.getParallelism());
+
+      RuntimeException failure = run.failure.get();
+      if (failure != null) {
+        throw failure;
+      }
+      return run.stats();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void write(final Run run, final ByteBuffer records) {
+    for (int retry = 0;; retry++) {
+      try {
+        influxDB.write(run.database, run.retentionPolicy, options.getConsistency(), options.getPrecision(),
+            records);
+        break;
+      } catch (InfluxDBException e) {
+        if (!e.isRetryWorth() || retry >= options.getMaxRetries() || run.failure.get() != null) {
+          throw e;
+        }
+        run.retries.increment();
+        try {
+          Thread.sleep((long) options.getRetryInterval() << Math.min(retry, Integer.SIZE));
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+      }
+    }
+    run.writtenBytes.add(records.remaining());
+    run.chunks.increment();
+    options.getProgressListener().accept(run.stats());
+  }
+
+  private static final class Run {
+    private final String database;
+    private final String retentionPolicy;
+    private final long bytes;
+    private final long startNanos = System.nanoTime();
+    private final LongAdder writtenBytes = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    private Run(final String database, final String retentionPolicy, final long bytes) {
+      this.database = database;
+      this.retentionPolicy = retentionPolicy;
+      this.bytes = bytes;
+    }
+
+    private ImportStats stats() {
+      return new ImportStats(bytes, writtenBytes.sum(), chunks.sum(), retries.sum(),
+          System.nanoTime() - startNanos);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package org.influxdb.importer;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Splits a file into chunks of complete lines of about {@code chunkSize} bytes without decoding it. The file is
+ * memory-mapped in regions of {@code regionSize} bytes, every chunk is a slice of a region. A chunk ends after
+ * the last newline within {@code chunkSize} bytes, or after the first newline if a line is longer.
+ */
+final class LineChunker {
+
+  private final FileChannel channel;
+  private final long size;
+  private final int chunkSize;
+  private final long regionSize;
+  private MappedByteBuffer region;
+  private long regionOffset;
+  private int start;
+
+  LineChunker(final FileChannel channel, final int chunkSize, final long regionSize) throws IOException {
+    this.channel = channel;
+    this.size = channel.size();
+    this.chunkSize = chunkSize;
+    this.regionSize = regionSize;
+  }
+
+  /**
+   * @return the size of the file
+   */
+  long size() {
+    return size;
+  }
+
+  /**
+   * @return the next chunk, null at the end of the file
+   * @throws IOException if the file cannot be mapped or a line is longer than a region
+   */
+  ByteBuffer next() throws IOException {
+    if (region != null) {
+      ByteBuffer chunk = nextInRegion();
+      if (chunk != null) {
+        return chunk;
+      }
+      regionOffset += start;
+    }
+    if (regionOffset >= size) {
+      return null;
+    }
+    region = channel.map(FileChannel.MapMode.READ_ONLY, regionOffset, Math.min(size - regionOffset, regionSize));
+    start = 0;
+    ByteBuffer chunk = nextInRegion();
+    if (chunk == null) {
+      throw new IOException("The line at byte " + regionOffset + " is longer than " + regionSize + " bytes");
+    }
+    return chunk;
+  }
+
+  /**
+   * @return the next chunk of the region, null if the rest of the region is not a complete line
+   */
+  private ByteBuffer nextInRegion() {
+    int length = region.capacity();
+    if (start == length) {
+      return null;
+    }
+    boolean last = regionOffset + length == size;
+    int end = (int) Math.min(length, (long) start + chunkSize);
+    if (end < length || !last) {
+      int newline = lastIndexOfNewline(start, end);
+      if (newline < 0) {
+        newline = indexOfNewline(end, length);
+      }
+      if (newline >= 0) {
+        end = newline + 1;
+      } else if (last) {
+        end = length;
+      } else {
+        return null;
+      }
+    }
+    // Buffer methods, ByteBuffer overrides them covariantly since Java 9
+    Buffer chunk = region.duplicate();
+    chunk.limit(end).position(start);
+    start = end;
+    return ((ByteBuffer) chunk).slice();
+  }
+
+  private int lastIndexOfNewline(final int from, final int to) {
+    for (int i = to - 1; i >= from; i--) {
+      if (region.get(i) == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int indexOfNewline(final int from, final int to) {
+    for (int i = from; i < to; i++) {
+      if (region.get(i) == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
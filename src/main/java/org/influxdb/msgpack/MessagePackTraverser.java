@@ -2,13 +2,12 @@ package org.influxdb.msgpack;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 import org.influxdb.InfluxDBException;
 import org.influxdb.dto.QueryResult;
@@ -22,6 +21,11 @@ import org.msgpack.value.ValueType;
 
 /**
  * Traverse the MessagePack input stream and return Query Result object(s).
+ * <p>
+ * The decoder knows the shape of an InfluxDB response
+ * ({@code results -> series -> name/tags/columns/values}) and walks it iteratively with an explicit
+ * stack of integer states, so map keys are matched once against pre-encoded bytes and no model path
+ * has to be compared per value.
  *
  * @author hoan.le [at] bonitoo.io
  *
@@ -29,7 +33,107 @@ import org.msgpack.value.ValueType;
 public class MessagePackTraverser {
 
   private static final byte MSG_PACK_TIME_EXT_TYPE = 5;
-  private String lastStringNode;
+
+  private static final int STATE_QUERY_RESULT = 0;
+  private static final int STATE_RESULTS = 1;
+  private static final int STATE_RESULT = 2;
+  private static final int STATE_SERIES_LIST = 3;
+  private static final int STATE_SERIES = 4;
+  private static final int MAX_DEPTH = 5;
+
+  private static final int KEY_UNKNOWN = -1;
+  private static final int KEY_RESULTS = 0;
+  private static final int KEY_ERROR = 1;
+  private static final int KEY_SERIES = 2;
+  private static final int KEY_NAME = 3;
+  private static final int KEY_TAGS = 4;
+  private static final int KEY_COLUMNS = 5;
+  private static final int KEY_VALUES = 6;
+
+  private static final byte[][] KEYS = {
+      "results".getBytes(StandardCharsets.UTF_8),
+      "error".getBytes(StandardCharsets.UTF_8),
+      "series".getBytes(StandardCharsets.UTF_8),
+      "name".getBytes(StandardCharsets.UTF_8),
+      "tags".getBytes(StandardCharsets.UTF_8),
+      "columns".getBytes(StandardCharsets.UTF_8),
+      "values".getBytes(StandardCharsets.UTF_8)
+  };
+
+  private static final int KEY_BUFFER_SIZE = 16;
+  private static final int TIME_EXT_LENGTH = 12;
+  private static final int NANOS_OF_SECOND_OFFSET = 8;
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+  private static final int BYTE_MASK = 0xFF;
+
+  private final byte[] keyBuffer = new byte[KEY_BUFFER_SIZE];
+  private final int[] states = new int[MAX_DEPTH];
+  private final int[] remaining = new int[MAX_DEPTH];
+
+  /**
+   * Receives the cells of every row as they are decoded, with numbers and timestamps as primitives.
+   * <p>
+   * Used instead of materializing {@code List<List<Object>>} when the caller maps the rows itself, e.g. by the
+   * streaming queries of {@code InfluxDBMapper}, which write the cells into the fields of measurement classes.
+   */
+  public interface RowVisitor {
+
+    /**
+     * Called before the rows of a series are visited.
+     *
+     * @param series
+     *          the series with its name, tags and columns; values are not populated
+     */
+    void series(Series series);
+
+    /**
+     * @param column the column index
+     */
+    void nullValue(int column);
+
+    /**
+     * @param column the column index
+     * @param value the value
+     */
+    void booleanValue(int column, boolean value);
+
+    /**
+     * @param column the column index
+     * @param value the value of any signed integer or unsigned integer fitting into a long
+     */
+    void longValue(int column, long value);
+
+    /**
+     * @param column the column index
+     * @param value the value
+     */
+    void doubleValue(int column, double value);
+
+    /**
+     * @param column the column index
+     * @param value the value
+     */
+    void stringValue(int column, String value);
+
+    /**
+     * @param column the column index
+     * @param epochNanos the timestamp as nanoseconds since the epoch
+     */
+    void timeValue(int column, long epochNanos);
+
+    /**
+     * Called for values without a primitive representation, e.g. {@code BigInteger} for UINT64.
+     *
+     * @param column the column index
+     * @param value the value
+     */
+    void objectValue(int column, Object value);
+
+    /**
+     * Called after the last cell of a row.
+     */
+    void endRow();
+  }
 
   /**
    * Traverse over the whole message pack stream.
@@ -56,13 +160,44 @@ public class MessagePackTraverser {
 
         @Override
         public QueryResult next() {
-          return parse(unpacker);
+          return parse(unpacker, null);
         }
       };
     };
 
   }
 
+  /**
+   * Traverse over the whole message pack stream and push every row to the {@code visitor}.
+   *
+   * @param is
+   *          The MessagePack format input stream
+   * @param visitor
+   *          receives the decoded rows
+   * @return an Iterable over the QueryResult objects, their series are returned without values
+   */
+  public Iterable<QueryResult> traverse(final InputStream is, final RowVisitor visitor) {
+    MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(is);
+
+    return () -> {
+      return new Iterator<QueryResult>() {
+        @Override
+        public boolean hasNext() {
+          try {
+            return unpacker.hasNext();
+          } catch (IOException e) {
+            throw new InfluxDBException(e);
+          }
+        }
+
+        @Override
+        public QueryResult next() {
+          return parse(unpacker, visitor);
+        }
+      };
+    };
+  }
+
   /**
    * Parse the message pack stream.
    * This method can be used for converting query
@@ -75,184 +210,329 @@ public class MessagePackTraverser {
    */
   public QueryResult parse(final InputStream is) {
     MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(is);
-    return parse(unpacker);
+    return parse(unpacker, null);
   }
 
-  private QueryResult parse(final MessageUnpacker unpacker) {
-    QueryResult queryResult = new QueryResult();
-    QueryResultModelPath queryResultPath = new QueryResultModelPath();
-    queryResultPath.add("queryResult", queryResult);
+  /**
+   * Parse the message pack stream and push every row to the {@code visitor}.
+   *
+   * @param is
+   *          The MessagePack format input stream
+   * @param visitor
+   *          receives the decoded rows
+   * @return QueryResult whose series are returned without values
+   */
+  public QueryResult parse(final InputStream is, final RowVisitor visitor) {
+    MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(is);
+    return parse(unpacker, visitor);
+  }
+
+  private QueryResult parse(final MessageUnpacker unpacker, final RowVisitor visitor) {
     try {
-      traverse(unpacker, queryResultPath, 1);
+      return readQueryResult(unpacker, visitor);
     } catch (IOException e) {
       throw new InfluxDBException(e);
     }
-    return queryResult;
   }
 
-  void traverse(final MessageUnpacker unpacker, final QueryResultModelPath queryResultPath, final int readAmount)
+  private QueryResult readQueryResult(final MessageUnpacker unpacker, final RowVisitor visitor)
       throws IOException {
-    int amount = 0;
-
-    while (unpacker.hasNext() && amount < readAmount) {
-      MessageFormat format = unpacker.getNextFormat();
-      ValueType type = format.getValueType();
-      int length;
-      ExtensionTypeHeader extension;
-      Object o = null;
-      byte[] dst;
-      String addedName = null;
-      Object addedObject = null;
-      switch (type) {
-      case NIL:
-        unpacker.unpackNil();
-        break;
-      case BOOLEAN:
-        o = unpacker.unpackBoolean();
-        break;
-      case INTEGER:
-        switch (format) {
-        case UINT64:
-          o = unpacker.unpackBigInteger();
+    QueryResult queryResult = new QueryResult();
+    List<Result> results = null;
+    List<Series> seriesList = null;
+    Result result = null;
+    Series series = null;
+
+    int depth = 0;
+    states[depth] = STATE_QUERY_RESULT;
+    remaining[depth] = readMapHeader(unpacker);
+
+    while (depth >= 0) {
+      if (remaining[depth] == 0) {
+        depth--;
+        continue;
+      }
+      remaining[depth]--;
+
+      switch (states[depth]) {
+      case STATE_QUERY_RESULT:
+        switch (readKey(unpacker)) {
+        case KEY_RESULTS:
+          int resultCount = readArrayHeader(unpacker);
+          results = new ArrayList<>(resultCount);
+          if (resultCount > 0) {
+            queryResult.setResults(results);
+          }
+          depth = push(depth, STATE_RESULTS, resultCount);
           break;
-        case INT64:
-        case UINT32:
-          o = unpacker.unpackLong();
+        case KEY_ERROR:
+          queryResult.setError(readString(unpacker));
           break;
         default:
-          o = unpacker.unpackInt();
+          unpacker.skipValue();
           break;
         }
         break;
-      case FLOAT:
-        o = unpacker.unpackDouble();
+      case STATE_RESULTS:
+        result = new Result();
+        results.add(result);
+        depth = push(depth, STATE_RESULT, readMapHeader(unpacker));
         break;
-      case STRING:
-        o = unpacker.unpackString();
-        lastStringNode = (String) o;
-        if ("name".equals(o) && queryResultPath.compareEndingPath("series")) {
-          queryResultPath.add("name", null);
-        } else if (queryResultPath.compareEndingPath("name")) {
-          queryResultPath.removeLast();
-          Series series = queryResultPath.getLastObject();
-          series.setName((String) o);
-        } else if (queryResultPath.compareEndingPath("tags")) {
-          queryResultPath.add("tagKey", o);
-        } else if (queryResultPath.compareEndingPath("tagKey")) {
-          String tagKey = queryResultPath.getLastObject();
-          queryResultPath.removeLast();
-          Map<String, String> tags = queryResultPath.getLastObject();
-          tags.put(tagKey, (String) o);
-        } else if (queryResultPath.compareEndingPath("columns")) {
-          List<String> columns = queryResultPath.getLastObject();
-          columns.add((String) o);
+      case STATE_RESULT:
+        switch (readKey(unpacker)) {
+        case KEY_SERIES:
+          int seriesCount = readArrayHeader(unpacker);
+          seriesList = new ArrayList<>(seriesCount);
+          if (seriesCount > 0) {
+            result.setSeries(seriesList);
+          }
+          depth = push(depth, STATE_SERIES_LIST, seriesCount);
+          break;
+        case KEY_ERROR:
+          result.setError(readString(unpacker));
+          break;
+        default:
+          unpacker.skipValue();
+          break;
         }
         break;
-      case BINARY:
-        length = unpacker.unpackBinaryHeader();
-        dst = new byte[length];
-        unpacker.readPayload(dst);
+      case STATE_SERIES_LIST:
+        series = new Series();
+        seriesList.add(series);
+        depth = push(depth, STATE_SERIES, readMapHeader(unpacker));
         break;
-      case ARRAY:
-        length = unpacker.unpackArrayHeader();
-        if (length > 0) {
-          if ("results".equals(lastStringNode)) {
-            QueryResult queryResult = queryResultPath.getLastObject();
-            List<Result> results = new ArrayList<>();
-            queryResult.setResults(results);
-            addedName = "results";
-            addedObject = results;
-          } else if ("series".equals(lastStringNode) && queryResultPath.compareEndingPath("result")) {
-            Result result = queryResultPath.getLastObject();
-            List<Series> series = new ArrayList<>();
-            result.setSeries(series);
-            addedName = "seriesList";
-            addedObject = series;
-          } else if ("columns".equals(lastStringNode) && queryResultPath.compareEndingPath("series")) {
-            Series series = queryResultPath.getLastObject();
-            List<String> columns = new ArrayList<>();
-            series.setColumns(columns);
-            addedName = "columns";
-            addedObject = columns;
-          } else if ("values".equals(lastStringNode) && queryResultPath.compareEndingPath("series")) {
-            Series series = queryResultPath.getLastObject();
-            List<List<Object>> values = new ArrayList<>();
-            series.setValues(values);
-            addedName = "values";
-            addedObject = values;
-          } else if (queryResultPath.compareEndingPath("values")) {
-            List<List<Object>> values = queryResultPath.getLastObject();
-            List<Object> value = new ArrayList<>();
-            values.add(value);
-            addedName = "value";
-            addedObject = value;
-          }
-
-          if (addedName != null) {
-            queryResultPath.add(addedName, addedObject);
-          }
-          traverse(unpacker, queryResultPath, length);
-          if (addedName != null) {
-            queryResultPath.removeLast();
-          }
-        }
+      case STATE_SERIES:
+        readSeriesEntry(unpacker, series, visitor);
         break;
-      case MAP:
-        length = unpacker.unpackMapHeader();
-        if (queryResultPath.compareEndingPath("results")) {
-          List<Result> results = queryResultPath.getLastObject();
-          Result result = new Result();
-          results.add(result);
-          addedName = "result";
-          addedObject = result;
-        } else if (queryResultPath.compareEndingPath("seriesList")) {
-          List<Series> series = queryResultPath.getLastObject();
-          Series s = new Series();
-          series.add(s);
-          addedName = "series";
-          addedObject = s;
-        } else if ("tags".equals(lastStringNode) && queryResultPath.compareEndingPath("series")) {
-          Series series = queryResultPath.getLastObject();
-          Map<String, String> tags = new HashMap<>();
-          series.setTags(tags);
-          addedName = "tags";
-          addedObject = tags;
-        }
+      default:
+        throw new IllegalStateException("Unknown MessagePack traverser state " + states[depth]);
+      }
+    }
+    return queryResult;
+  }
 
-        if (addedName != null) {
-          queryResultPath.add(addedName, addedObject);
-        }
-        for (int i = 0; i < length; i++) {
-          traverse(unpacker, queryResultPath, 1); // key
-          traverse(unpacker, queryResultPath, 1); // value
-        }
-        if (addedName != null) {
-          queryResultPath.removeLast();
+  private int push(final int depth, final int state, final int length) {
+    int next = depth + 1;
+    states[next] = state;
+    remaining[next] = length;
+    return next;
+  }
+
+  private void readSeriesEntry(final MessageUnpacker unpacker, final Series series, final RowVisitor visitor)
+      throws IOException {
+    switch (readKey(unpacker)) {
+    case KEY_NAME:
+      series.setName(readString(unpacker));
+      break;
+    case KEY_TAGS:
+      int tagCount = readMapHeader(unpacker);
+      Map<String, String> tags = new HashMap<>();
+      for (int i = 0; i < tagCount; i++) {
+        tags.put(readString(unpacker), readString(unpacker));
+      }
+      series.setTags(tags);
+      break;
+    case KEY_COLUMNS:
+      int columnCount = readArrayHeader(unpacker);
+      if (columnCount > 0) {
+        List<String> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+          columns.add(readString(unpacker));
         }
-        break;
-      case EXTENSION:
-        final int nanosStartIndex = 8;
-        extension = unpacker.unpackExtensionTypeHeader();
-        if (extension.getType() == MSG_PACK_TIME_EXT_TYPE) {
-          //decode epoch nanos in accordance with https://github.com/tinylib/msgp/blob/master/msgp/write.go#L594
-
-          dst = new byte[extension.getLength()];
-          unpacker.readPayload(dst);
-          ByteBuffer bf = ByteBuffer.wrap(dst, 0, extension.getLength());
-          long epochSeconds = bf.getLong();
-          int nanosOffset = bf.getInt(nanosStartIndex);
-          o = TimeUnit.SECONDS.toNanos(epochSeconds) + nanosOffset;
+        series.setColumns(columns);
+      }
+      break;
+    case KEY_VALUES:
+      int rowCount = readArrayHeader(unpacker);
+      if (visitor != null) {
+        visitRows(unpacker, series, rowCount, visitor);
+      } else if (rowCount > 0) {
+        List<List<Object>> values = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+          int cellCount = readArrayHeader(unpacker);
+          List<Object> row = new ArrayList<>(cellCount);
+          for (int j = 0; j < cellCount; j++) {
+            row.add(readValue(unpacker));
+          }
+          values.add(row);
         }
-        break;
+        series.setValues(values);
+      }
+      break;
+    default:
+      unpacker.skipValue();
+      break;
+    }
+  }
+
+  /**
+   * Read a map key and resolve it to one of the known {@code KEY_*} constants without creating a String.
+   */
+  private int readKey(final MessageUnpacker unpacker) throws IOException {
+    if (unpacker.getNextFormat().getValueType() != ValueType.STRING) {
+      unpacker.skipValue();
+      return KEY_UNKNOWN;
+    }
+    int length = unpacker.unpackRawStringHeader();
+    if (length > keyBuffer.length) {
+      unpacker.readPayload(length);
+      return KEY_UNKNOWN;
+    }
+    unpacker.readPayload(keyBuffer, 0, length);
+    for (int key = 0; key < KEYS.length; key++) {
+      if (matches(KEYS[key], length)) {
+        return key;
+      }
+    }
+    return KEY_UNKNOWN;
+  }
 
+  private boolean matches(final byte[] key, final int length) {
+    if (key.length != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (key[i] != keyBuffer[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int readMapHeader(final MessageUnpacker unpacker) throws IOException {
+    if (unpacker.tryUnpackNil()) {
+      return 0;
+    }
+    return unpacker.unpackMapHeader();
+  }
+
+  private int readArrayHeader(final MessageUnpacker unpacker) throws IOException {
+    if (unpacker.tryUnpackNil()) {
+      return 0;
+    }
+    return unpacker.unpackArrayHeader();
+  }
+
+  private String readString(final MessageUnpacker unpacker) throws IOException {
+    if (unpacker.tryUnpackNil()) {
+      return null;
+    }
+    return unpacker.unpackString();
+  }
+
+  private Object readValue(final MessageUnpacker unpacker) throws IOException {
+    MessageFormat format = unpacker.getNextFormat();
+    switch (format.getValueType()) {
+    case NIL:
+      unpacker.unpackNil();
+      return null;
+    case BOOLEAN:
+      return unpacker.unpackBoolean();
+    case INTEGER:
+      switch (format) {
+      case UINT64:
+        return unpacker.unpackBigInteger();
+      case INT64:
+      case UINT32:
+        return unpacker.unpackLong();
       default:
+        return unpacker.unpackInt();
+      }
+    case FLOAT:
+      return unpacker.unpackDouble();
+    case STRING:
+      return unpacker.unpackString();
+    case EXTENSION:
+      ExtensionTypeHeader extension = unpacker.unpackExtensionTypeHeader();
+      if (isTime(extension)) {
+        return readTime(unpacker);
       }
+      unpacker.readPayload(extension.getLength());
+      return null;
+    default:
+      unpacker.skipValue();
+      return null;
+    }
+  }
 
-      if (queryResultPath.compareEndingPath("value")) {
-        List<Object> value = queryResultPath.getLastObject();
-        value.add(o);
+  private void visitRows(final MessageUnpacker unpacker, final Series series, final int rowCount,
+                         final RowVisitor visitor) throws IOException {
+    visitor.series(series);
+    for (int i = 0; i < rowCount; i++) {
+      int cellCount = readArrayHeader(unpacker);
+      for (int column = 0; column < cellCount; column++) {
+        visitValue(unpacker, column, visitor);
       }
-      amount++;
+      visitor.endRow();
+    }
+  }
+
+  private void visitValue(final MessageUnpacker unpacker, final int column, final RowVisitor visitor)
+      throws IOException {
+    MessageFormat format = unpacker.getNextFormat();
+    switch (format.getValueType()) {
+    case NIL:
+      unpacker.unpackNil();
+      visitor.nullValue(column);
+      break;
+    case BOOLEAN:
+      visitor.booleanValue(column, unpacker.unpackBoolean());
+      break;
+    case INTEGER:
+      if (format == MessageFormat.UINT64) {
+        visitor.objectValue(column, unpacker.unpackBigInteger());
+      } else {
+        visitor.longValue(column, unpacker.unpackLong());
+      }
+      break;
+    case FLOAT:
+      visitor.doubleValue(column, unpacker.unpackDouble());
+      break;
+    case STRING:
+      visitor.stringValue(column, unpacker.unpackString());
+      break;
+    case EXTENSION:
+      ExtensionTypeHeader extension = unpacker.unpackExtensionTypeHeader();
+      if (isTime(extension)) {
+        visitor.timeValue(column, readTime(unpacker));
+      } else {
+        unpacker.readPayload(extension.getLength());
+        visitor.nullValue(column);
+      }
+      break;
+    default:
+      unpacker.skipValue();
+      visitor.nullValue(column);
+      break;
+    }
+  }
+
+  private boolean isTime(final ExtensionTypeHeader extension) throws IOException {
+    if (extension.getType() != MSG_PACK_TIME_EXT_TYPE) {
+      return false;
+    }
+    if (extension.getLength() != TIME_EXT_LENGTH) {
+      throw new IOException("Time extension of " + extension.getLength() + " bytes instead of " + TIME_EXT_LENGTH);
+    }
+    return true;
+  }
+
+  /**
+   * Decode epoch nanos in accordance with https://github.com/tinylib/msgp/blob/master/msgp/write.go#L594:
+   * a big-endian int64 of seconds followed by a big-endian int32 of nanoseconds.
+   * The payload is copied into the reusable scratch buffer, so nothing is allocated per value.
+   */
+  private long readTime(final MessageUnpacker unpacker) throws IOException {
+    byte[] b = keyBuffer;
+    unpacker.readPayload(b, 0, TIME_EXT_LENGTH);
+    long epochSeconds = 0;
+    for (int i = 0; i < NANOS_OF_SECOND_OFFSET; i++) {
+      epochSeconds = (epochSeconds << Byte.SIZE) | (b[i] & BYTE_MASK);
+    }
+    int nanosOffset = 0;
+    for (int i = NANOS_OF_SECOND_OFFSET; i < TIME_EXT_LENGTH; i++) {
+      nanosOffset = (nanosOffset << Byte.SIZE) | (b[i] & BYTE_MASK);
     }
+    return epochSeconds * NANOS_PER_SECOND + nanosOffset;
   }
 }
@@ -60,6 +60,16 @@ public abstract class BuiltQuery extends Query implements QueryStringBuilder {
     return encode(getCommand());
   }
 
+  /**
+   * Builds the command of this query once. The returned query can be executed repeatedly, or used as the
+   * template of bound parameter queries, without building and encoding its command again.
+   *
+   * @return an immutable copy of this query
+   */
+  public FrozenQuery freeze() {
+    return new FrozenQuery(this);
+  }
+
   /**
    * The query builder shall provide all the building blocks needed, only a static block shall be
    * used.
@@ -0,0 +1,54 @@
+package org.influxdb.querybuilder;
+
+import java.util.Optional;
+
+/**
+ * An immutable snapshot of a {@link BuiltQuery}, see {@link BuiltQuery#freeze()}. The command and its url
+ * encoded form are built once, so a frozen query can be executed repeatedly without rebuilding the InfluxQL
+ * string from the clauses. Changes to the builder after freezing do not affect the frozen query.
+ */
+public final class FrozenQuery extends BuiltQuery {
+
+  private final String statement;
+  private final String command;
+  private final String commandWithUrlEncoded;
+  private final Optional<SlidingWindow> slidingWindow;
+
+  FrozenQuery(final BuiltQuery query) {
+    super(query.getDatabase(), query.requiresPost());
+    StringBuilder stringBuilder = query.buildQueryString(new StringBuilder());
+    this.statement = stringBuilder.toString();
+    this.command = addSemicolonIfMissing(stringBuilder).toString();
+    this.commandWithUrlEncoded = encode(command);
+    this.slidingWindow = SlidingWindow.of(query);
+  }
+
+  @Override
+  public String getCommand() {
+    return command;
+  }
+
+  @Override
+  public String getCommandWithUrlEncoded() {
+    return commandWithUrlEncoded;
+  }
+
+  @Override
+  public StringBuilder buildQueryString(final StringBuilder stringBuilder) {
+    return stringBuilder.append(statement);
+  }
+
+  @Override
+  public StringBuilder buildQueryString() {
+    return buildQueryString(new StringBuilder());
+  }
+
+  @Override
+  public FrozenQuery freeze() {
+    return this;
+  }
+
+  Optional<SlidingWindow> getSlidingWindow() {
+    return slidingWindow;
+  }
+}
@@ -15,6 +15,10 @@ public class Ordering implements Appendable {
     this.isDesc = isDesc;
   }
 
+  boolean isDesc() {
+    return isDesc;
+  }
+
   @Override
   public void appendTo(final StringBuilder stringBuilder) {
     Appender.appendName(TIME_KEY, stringBuilder);
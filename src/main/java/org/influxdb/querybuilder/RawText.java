@@ -8,6 +8,10 @@ public class RawText implements Appendable {
     this.text = text;
   }
 
+  String getText() {
+    return text;
+  }
+
   @Override
   public void appendTo(final StringBuilder stringBuilder) {
     stringBuilder.append(text);
@@ -11,6 +11,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import org.influxdb.querybuilder.clauses.Clause;
+import org.influxdb.querybuilder.clauses.ConjunctionClause;
 import org.influxdb.querybuilder.clauses.FromClause;
 import org.influxdb.querybuilder.clauses.RawTextClause;
 import org.influxdb.querybuilder.clauses.SubQueryFromClause;
@@ -184,6 +185,50 @@ public class SelectCoreImpl<T extends Where> implements Select, QueryStringBuild
     return this;
   }
 
+  FromClause getTable() {
+    return table;
+  }
+
+  boolean hasInto() {
+    return intoMeasurement.isPresent();
+  }
+
+  /**
+   * @return true if the statement has an ORDER BY, LIMIT, OFFSET, SLIMIT, SOFFSET or tz() clause
+   */
+  boolean hasModifiers() {
+    return ordering.isPresent() || limit.isPresent() || offSet.isPresent() || sLimit.isPresent()
+        || sOffSet.isPresent() || timeZone.isPresent();
+  }
+
+  List<Object> getColumns() {
+    return columns;
+  }
+
+  Optional<Ordering> getOrdering() {
+    return ordering;
+  }
+
+  Optional<Integer> getLimit() {
+    return limit;
+  }
+
+  Optional<Long> getOffSet() {
+    return offSet;
+  }
+
+  boolean hasSeriesLimit() {
+    return sLimit.isPresent() || sOffSet.isPresent();
+  }
+
+  List<Object> getGroupByColumns() {
+    return groupByColumns;
+  }
+
+  Optional<Function> getFill() {
+    return fill;
+  }
+
   @Override
   public void setSubQuery(final QueryStringBuilder query) {
     this.table = new SubQueryFromClause(query);
@@ -196,6 +241,21 @@ public class SelectCoreImpl<T extends Where> implements Select, QueryStringBuild
 
   @Override
   public StringBuilder buildQueryString(final StringBuilder builder) {
+    return buildQueryString(builder, where.getClauses());
+  }
+
+  /**
+   * Builds the statement with other WHERE clauses, used to rewrite the time range of the statement.
+   */
+  StringBuilder buildQueryString(final StringBuilder builder, final List<ConjunctionClause> whereClauses) {
+    return buildQueryString(builder, whereClauses, limit, offSet);
+  }
+
+  /**
+   * Builds the statement with other WHERE clauses and another LIMIT and OFFSET, used to split the statement.
+   */
+  StringBuilder buildQueryString(final StringBuilder builder, final List<ConjunctionClause> whereClauses,
+                                 final Optional<Integer> limit, final Optional<Long> offSet) {
     builder.append("SELECT ");
 
     if (isDistinct) {
@@ -222,9 +282,9 @@ public class SelectCoreImpl<T extends Where> implements Select, QueryStringBuild
       throw new IllegalStateException();
     }
 
-    if (!where.getClauses().isEmpty()) {
+    if (!whereClauses.isEmpty()) {
       builder.append(" WHERE ");
-      joinAndAppend(builder, where.getClauses());
+      joinAndAppend(builder, whereClauses);
     }
 
     if (groupByColumns != null) {
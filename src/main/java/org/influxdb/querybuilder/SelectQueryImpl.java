@@ -27,6 +27,10 @@ public class SelectQueryImpl extends BuiltQuery implements SelectWithSubquery {
     this.selectCore = selectionCore.from(fromClause, whereQuery);
   }
 
+  SelectCoreImpl<WhereQueryImpl> getSelectCore() {
+    return selectCore;
+  }
+
   @Override
   public StringBuilder buildQueryString() {
     return selectCore.buildQueryString(new StringBuilder());
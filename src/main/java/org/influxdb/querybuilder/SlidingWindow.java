@@ -0,0 +1,280 @@
+package org.influxdb.querybuilder;
+
+import static org.influxdb.querybuilder.Operations.GT;
+import static org.influxdb.querybuilder.Operations.GTE;
+import static org.influxdb.querybuilder.Operations.LT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.influxdb.dto.Query;
+import org.influxdb.querybuilder.clauses.AndConjunction;
+import org.influxdb.querybuilder.clauses.Clause;
+import org.influxdb.querybuilder.clauses.ConjunctionClause;
+import org.influxdb.querybuilder.clauses.NegativeRegexClause;
+import org.influxdb.querybuilder.clauses.RegexClause;
+import org.influxdb.querybuilder.clauses.SelectRegexClause;
+import org.influxdb.querybuilder.clauses.SimpleClause;
+import org.influxdb.querybuilder.clauses.SubQueryFromClause;
+import org.influxdb.querybuilder.clauses.SubRelativeTimeClause;
+import org.influxdb.querybuilder.time.TimeInterval;
+
+/**
+ * A built {@code SELECT} statement over a time range relative to {@code now()} grouped by fixed time
+ * intervals, for example
+ * {@code select().mean("value").from(db, "cpu").where(gt("time", subTime(1L, HOUR))).groupBy(time(1L, MINUTE))}.
+ * <p>
+ * Such a statement can be refreshed incrementally: when its result is cached, only the oldest interval, which
+ * the moving lower bound cuts, and the newest intervals need to be queried again, see
+ * {@link #incrementalQuery(long, long)}.
+ */
+public final class SlidingWindow {
+
+  private static final String TIME = "time";
+  private static final Set<String> PER_INTERVAL_FUNCTIONS = new HashSet<>(Arrays.asList("count", "distinct",
+      "mean", "median", "mode", "spread", "stddev", "sum", "first", "last", "max", "min", "percentile", "top",
+      "bottom"));
+  private static final String BOUND = "\u0000";
+  private static final int MAX_BOUND_LENGTH = Long.toString(Long.MIN_VALUE).length() + 2;
+
+  private final String headPrefix;
+  private final String headSuffix;
+  private final String tailPrefix;
+  private final String tailSuffix;
+  private final String database;
+  private final boolean requiresPost;
+  private final long rangeNanos;
+  private final long intervalNanos;
+
+  private SlidingWindow(final String head, final String tail, final String database, final boolean requiresPost,
+                        final long rangeNanos, final long intervalNanos) {
+    int headBound = head.indexOf(BOUND);
+    this.headPrefix = head.substring(0, headBound);
+    this.headSuffix = head.substring(headBound + BOUND.length());
+    int tailBound = tail.indexOf(BOUND);
+    this.tailPrefix = tail.substring(0, tailBound);
+    this.tailSuffix = tail.substring(tailBound + BOUND.length());
+    this.database = database;
+    this.requiresPost = requiresPost;
+    this.rangeNanos = rangeNanos;
+    this.intervalNanos = intervalNanos;
+  }
+
+  /**
+   * Recognizes a sliding window statement. The statement must have a single {@code time > now() - <range>} (or
+   * {@code >=}) bound and no other time condition, its WHERE clauses must be joined by {@code AND}, it must be
+   * grouped by {@code time(<interval>)} without offset and must not use {@code INTO}, a subquery,
+   * {@code fill(linear|previous)}, {@code ORDER BY}, {@code LIMIT}, {@code OFFSET}, {@code SLIMIT},
+   * {@code SOFFSET} or {@code tz()}. It must select only functions of a single interval, such as {@code mean} or
+   * {@code max}, of columns; functions over several intervals such as {@code derivative} or
+   * {@code cumulative_sum}, raw text and expressions are not refreshed incrementally.
+   *
+   * @param query the query
+   * @return the sliding window, empty if the query is not such a statement
+   */
+  public static Optional<SlidingWindow> of(final Query query) {
+    SelectCoreImpl<?> selectCore;
+    if (query instanceof FrozenQuery) {
+      return ((FrozenQuery) query).getSlidingWindow();
+    } else if (query instanceof SelectQueryImpl) {
+      selectCore = ((SelectQueryImpl) query).getSelectCore();
+    } else if (query instanceof WhereQueryImpl) {
+      selectCore = ((WhereQueryImpl<?>) query).getQuery().getSelectCore();
+    } else {
+      return Optional.empty();
+    }
+    if (selectCore.hasInto() || selectCore.hasModifiers() || selectCore.getTable() instanceof SubQueryFromClause
+        || !isIncrementalFill(selectCore.getFill()) || !isPerInterval(selectCore.getColumns())) {
+      return Optional.empty();
+    }
+
+    long intervalNanos = groupByIntervalNanos(selectCore.getGroupByColumns());
+    if (intervalNanos <= 0) {
+      return Optional.empty();
+    }
+
+    List<ConjunctionClause> clauses = selectCore.where.getClauses();
+    int lowerBoundIndex = -1;
+    long rangeNanos = -1;
+    for (int i = 0; i < clauses.size(); i++) {
+      ConjunctionClause conjunction = clauses.get(i);
+      if (i > 0 && !(conjunction instanceof AndConjunction)) {
+        return Optional.empty();
+      }
+      Clause clause = conjunction.getClause();
+      if (clause instanceof RegexClause || clause instanceof NegativeRegexClause) {
+        continue;
+      }
+      if (!(clause instanceof SimpleClause)) {
+        return Optional.empty();
+      }
+      SimpleClause simpleClause = (SimpleClause) clause;
+      if (!TIME.equalsIgnoreCase(simpleClause.getName().trim())) {
+        continue;
+      }
+      if (lowerBoundIndex >= 0 || !(simpleClause.getValue() instanceof SubRelativeTimeClause)
+          || !(GT.equals(simpleClause.getOp()) || GTE.equals(simpleClause.getOp()))) {
+        return Optional.empty();
+      }
+      lowerBoundIndex = i;
+      rangeNanos = toNanos(((SubRelativeTimeClause) simpleClause.getValue()).getTimeInterval());
+    }
+    if (lowerBoundIndex < 0 || rangeNanos <= 0) {
+      return Optional.empty();
+    }
+
+    // render both statements once, with a marker in place of the bound
+    List<ConjunctionClause> head = new ArrayList<>(clauses);
+    head.add(new AndConjunction(new SimpleClause(TIME, LT, new RawText(BOUND))));
+    List<ConjunctionClause> tail = new ArrayList<>(clauses);
+    tail.set(lowerBoundIndex, new AndConjunction(new SimpleClause(TIME, GTE, new RawText(BOUND))));
+    String headStatement = selectCore.buildQueryString(new StringBuilder(), head).toString();
+    String tailStatement = selectCore.buildQueryString(new StringBuilder(), tail).toString();
+    if (headStatement.indexOf(BOUND) != headStatement.lastIndexOf(BOUND)
+        || tailStatement.indexOf(BOUND) != tailStatement.lastIndexOf(BOUND)) {
+      return Optional.empty();
+    }
+    return Optional.of(new SlidingWindow(headStatement, tailStatement, query.getDatabase(), query.requiresPost(),
+        rangeNanos, intervalNanos));
+  }
+
+  /**
+   * @return the length of the time range in nanoseconds
+   */
+  public long getRangeNanos() {
+    return rangeNanos;
+  }
+
+  /**
+   * @return the length of the GROUP BY time intervals in nanoseconds
+   */
+  public long getIntervalNanos() {
+    return intervalNanos;
+  }
+
+  /**
+   * Builds a query of two statements: the first returns the intervals of the window before
+   * {@code headEndNanos}, the second the intervals from {@code tailStartNanos} on. The intervals in between are
+   * expected to be unchanged since the previous execution.
+   *
+   * @param headEndNanos the exclusive upper bound of the first statement in epoch nanoseconds
+   * @param tailStartNanos the inclusive lower bound of the second statement in epoch nanoseconds
+   * @return the query
+   */
+  public Query incrementalQuery(final long headEndNanos, final long tailStartNanos) {
+    StringBuilder command = new StringBuilder(headPrefix.length() + headSuffix.length() + tailPrefix.length()
+        + tailSuffix.length() + 2 * MAX_BOUND_LENGTH);
+    command.append(headPrefix).append(headEndNanos).append(headSuffix).append("; ")
+        .append(tailPrefix).append(tailStartNanos).append(tailSuffix).append(';');
+    return new Query(command.toString(), database, requiresPost);
+  }
+
+  static boolean isIncrementalFill(final Optional<Function> fill) {
+    if (!fill.isPresent()) {
+      return true;
+    }
+    Object value = fill.get().getParameters()[0];
+    if (value instanceof Column) {
+      String name = ((Column) value).getName();
+      return "none".equals(name) || "null".equals(name);
+    }
+    return value instanceof Number;
+  }
+
+  /**
+   * @return true if every selected column is a column or a function whose value in an interval only depends on
+   *         the rows of that interval
+   */
+  static boolean isPerInterval(final List<Object> columns) {
+    if (columns == null) {
+      return true;
+    }
+    for (Object column : columns) {
+      Object selected = column;
+      if (selected instanceof Alias) {
+        selected = ((Alias) selected).getColumn();
+      }
+      if (selected instanceof Distinct) {
+        selected = ((Distinct) selected).getExpression();
+      }
+      if (isColumn(selected)) {
+        continue;
+      }
+      if (!(selected instanceof Function)) {
+        return false;
+      }
+      Function function = (Function) selected;
+      Object[] parameters = function.getParameters();
+      if (!PER_INTERVAL_FUNCTIONS.contains(function.getName().toLowerCase(Locale.ROOT)) || parameters.length == 0
+          || !(isColumn(parameters[0]) || isAll(parameters[0]))) {
+        return false;
+      }
+      for (int i = 1; i < parameters.length; i++) {
+        if (!(parameters[i] instanceof Number)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean isColumn(final Object selected) {
+    return selected instanceof String || selected instanceof Column || selected instanceof SelectRegexClause;
+  }
+
+  private static boolean isAll(final Object parameter) {
+    return parameter instanceof RawText && "*".equals(((RawText) parameter).getText());
+  }
+
+  private static long groupByIntervalNanos(final List<Object> groupByColumns) {
+    if (groupByColumns == null) {
+      return -1;
+    }
+    long intervalNanos = -1;
+    for (Object column : groupByColumns) {
+      if (!(column instanceof Function) || !TIME.equals(((Function) column).getName())) {
+        continue;
+      }
+      Object[] parameters = ((Function) column).getParameters();
+      if (intervalNanos >= 0 || parameters.length != 1 || !(parameters[0] instanceof TimeInterval)) {
+        return -1;
+      }
+      intervalNanos = toNanos((TimeInterval) parameters[0]);
+    }
+    return intervalNanos;
+  }
+
+  @SuppressWarnings("checkstyle:magicnumber")
+  static long toNanos(final TimeInterval timeInterval) {
+    Long measure = timeInterval.getMeasure();
+    if (measure == null || timeInterval.getLiteral() == null) {
+      return -1;
+    }
+    switch (timeInterval.getLiteral()) {
+    case "ns":
+      return measure;
+    case "u":
+    case "µ":
+      return TimeUnit.MICROSECONDS.toNanos(measure);
+    case "ms":
+      return TimeUnit.MILLISECONDS.toNanos(measure);
+    case "s":
+      return TimeUnit.SECONDS.toNanos(measure);
+    case "m":
+      return TimeUnit.MINUTES.toNanos(measure);
+    case "h":
+      return TimeUnit.HOURS.toNanos(measure);
+    case "d":
+      return TimeUnit.DAYS.toNanos(measure);
+    case "w":
+      return TimeUnit.DAYS.toNanos(measure * 7);
+    default:
+      return -1;
+    }
+  }
+}
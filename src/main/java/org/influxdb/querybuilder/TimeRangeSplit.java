@@ -0,0 +1,230 @@
+package org.influxdb.querybuilder;
+
+import static org.influxdb.querybuilder.Operations.GTE;
+import static org.influxdb.querybuilder.Operations.LT;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.influxdb.dto.Query;
+import org.influxdb.querybuilder.clauses.AndConjunction;
+import org.influxdb.querybuilder.clauses.ConjunctionClause;
+import org.influxdb.querybuilder.clauses.NestedClause;
+import org.influxdb.querybuilder.clauses.SelectRegexClause;
+import org.influxdb.querybuilder.clauses.SimpleClause;
+import org.influxdb.querybuilder.clauses.SubQueryFromClause;
+import org.influxdb.querybuilder.time.TimeInterval;
+
+/**
+ * A built {@code SELECT} statement split into one statement per sub-range of a time range, to scan a long time
+ * range with several smaller queries, see {@code InfluxDB.query(TimeRangeSplit, ...)}.
+ * <p>
+ * Each statement selects its sub-range with {@code time >= <start> AND time < <end>} in addition to the
+ * conditions of the statement. The results of the statements, in time order, are equivalent to the result of
+ * the statement over the whole range if
+ * <ul>
+ * <li>it is grouped by {@code time(<interval>[, <offset>])}, the sub-ranges then start at interval boundaries,
+ * it selects only functions of a single interval such as {@code mean} or {@code max} of columns, not functions
+ * over several intervals such as {@code derivative} or {@code cumulative_sum}, raw text or expressions, and it
+ * uses no {@code fill(linear|previous)}, or</li>
+ * <li>it selects raw columns without functions.</li>
+ * </ul>
+ * Statements with {@code INTO}, a subquery, {@code SLIMIT} or {@code SOFFSET} cannot be split. {@code LIMIT} and
+ * {@code OFFSET} apply per series: every statement selects up to {@code LIMIT + OFFSET} rows per series, and
+ * the offset and limit are applied again when the results are merged. {@code ORDER BY time DESC} reverses the
+ * order of the sub-ranges.
+ */
+public final class TimeRangeSplit {
+
+  private static final String TIME = "time";
+
+  private final List<Query> queries;
+  private final boolean descending;
+  private final Integer limit;
+  private final long offset;
+
+  private TimeRangeSplit(final List<Query> queries, final boolean descending, final Integer limit,
+                         final long offset) {
+    this.queries = queries;
+    this.descending = descending;
+    this.limit = limit;
+    this.offset = offset;
+  }
+
+  /**
+   * @param query a {@code SELECT} statement built with {@link BuiltQuery.QueryBuilder}
+   * @param from the inclusive start of the time range
+   * @param to the exclusive end of the time range
+   * @param parts the number of sub-ranges, fewer if the range has fewer GROUP BY time intervals
+   * @return the split statement
+   * @throws IllegalArgumentException if the statement cannot be split, see {@link TimeRangeSplit}
+   */
+  public static TimeRangeSplit of(final Query query, final Instant from, final Instant to, final int parts) {
+    SelectCoreImpl<?> selectCore;
+    if (query instanceof SelectQueryImpl) {
+      selectCore = ((SelectQueryImpl) query).getSelectCore();
+    } else if (query instanceof WhereQueryImpl) {
+      selectCore = ((WhereQueryImpl<?>) query).getQuery().getSelectCore();
+    } else {
+      throw new IllegalArgumentException("Only SELECT statements of the query builder can be split");
+    }
+    if (parts <= 0) {
+      throw new IllegalArgumentException("parts must be positive");
+    }
+    long fromNanos = toNanos(from);
+    long toNanos = toNanos(to);
+    if (fromNanos >= toNanos) {
+      throw new IllegalArgumentException("from must be before to");
+    }
+    if (selectCore.hasInto() || selectCore.getTable() instanceof SubQueryFromClause
+        || selectCore.hasSeriesLimit()) {
+      throw new IllegalArgumentException("Statements with INTO, a subquery, SLIMIT or SOFFSET cannot be split");
+    }
+
+    long[] interval = groupByInterval(selectCore.getGroupByColumns());
+    if (interval == null) {
+      if (!isRaw(selectCore.getColumns())) {
+        throw new IllegalArgumentException("Statements with functions must be grouped by time(<interval>)");
+      }
+    } else if (!SlidingWindow.isIncrementalFill(selectCore.getFill())) {
+      throw new IllegalArgumentException("Statements with fill(linear) or fill(previous) cannot be split");
+    } else if (!SlidingWindow.isPerInterval(selectCore.getColumns())) {
+      throw new IllegalArgumentException("Statements with functions over several intervals, raw text or"
+          + " expressions cannot be split");
+    }
+
+    Integer limit = selectCore.getLimit().orElse(null);
+    long offset = selectCore.getOffSet().orElse(0L);
+    Optional<Integer> pushedLimit = Optional.empty();
+    if (limit != null && limit + offset <= Integer.MAX_VALUE) {
+      pushedLimit = Optional.of((int) (limit + offset));
+    }
+
+    List<ConjunctionClause> clauses = selectCore.where.getClauses();
+    List<ConjunctionClause> conditions = new ArrayList<>();
+    if (isConjunction(clauses)) {
+      conditions.addAll(clauses);
+    } else {
+      conditions.add(new AndConjunction(new NestedClause(clauses)));
+    }
+
+    List<Query> queries = new ArrayList<>(parts);
+    long span = toNanos - fromNanos;
+    long start = fromNanos;
+    for (int i = 1; i <= parts; i++) {
+      long end = toNanos;
+      if (i < parts) {
+        end = fromNanos + span / parts * i + span % parts * i / parts;
+        if (interval != null) {
+          end -= Math.floorMod(end - interval[1], interval[0]);
+        }
+      }
+      if (end <= start) {
+        continue;
+      }
+      List<ConjunctionClause> range = new ArrayList<>(conditions);
+      range.add(new AndConjunction(new SimpleClause(TIME, GTE, start)));
+      range.add(new AndConjunction(new SimpleClause(TIME, LT, end)));
+      StringBuilder command = selectCore.buildQueryString(new StringBuilder(), range, pushedLimit, Optional.empty());
+      BuiltQuery.addSemicolonIfMissing(command);
+      queries.add(new Query(command.toString(), query.getDatabase(), query.requiresPost()));
+      start = end;
+    }
+
+    boolean descending = selectCore.getOrdering().map(Ordering::isDesc).orElse(false);
+    return new TimeRangeSplit(Collections.unmodifiableList(queries), descending, limit, offset);
+  }
+
+  /**
+   * @return the statements of the sub-ranges in ascending time order
+   */
+  public List<Query> getQueries() {
+    return queries;
+  }
+
+  /**
+   * @return true if the statement is ordered by {@code time DESC}, the results of the sub-ranges must then be
+   *         merged in descending time order
+   */
+  public boolean isDescending() {
+    return descending;
+  }
+
+  /**
+   * @return the LIMIT of the statement, the maximum number of rows per series, or null
+   */
+  public Integer getLimit() {
+    return limit;
+  }
+
+  /**
+   * @return the OFFSET of the statement, the number of rows to skip per series
+   */
+  public long getOffset() {
+    return offset;
+  }
+
+  private static long toNanos(final Instant instant) {
+    return Math.addExact(TimeUnit.SECONDS.toNanos(instant.getEpochSecond()), instant.getNano());
+  }
+
+  private static boolean isConjunction(final List<ConjunctionClause> clauses) {
+    for (int i = 1; i < clauses.size(); i++) {
+      if (!(clauses.get(i) instanceof AndConjunction)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the interval and the offset of the GROUP BY time in nanoseconds, null if not grouped by time
+   */
+  private static long[] groupByInterval(final List<Object> groupByColumns) {
+    if (groupByColumns == null) {
+      return null;
+    }
+    for (Object column : groupByColumns) {
+      if (!(column instanceof Function) || !TIME.equals(((Function) column).getName())) {
+        continue;
+      }
+      Object[] parameters = ((Function) column).getParameters();
+      long interval = -1;
+      long offset = 0;
+      if (parameters.length > 0 && parameters[0] instanceof TimeInterval) {
+        interval = SlidingWindow.toNanos((TimeInterval) parameters[0]);
+      }
+      if (parameters.length > 1) {
+        offset = -1;
+        if (parameters[1] instanceof TimeInterval) {
+          offset = SlidingWindow.toNanos((TimeInterval) parameters[1]);
+        }
+      }
+      if (interval <= 0 || offset < 0 || parameters.length > 2) {
+        throw new IllegalArgumentException("Unsupported GROUP BY time: " + Appender.appendValue(column,
+            new StringBuilder()));
+      }
+      return new long[] {interval, offset};
+    }
+    return null;
+  }
+
+  private static boolean isRaw(final List<Object> columns) {
+    if (columns == null) {
+      return true;
+    }
+    for (Object column : columns) {
+      Object selected = column;
+      if (selected instanceof Alias) {
+        selected = ((Alias) selected).getColumn();
+      }
+      if (!(selected instanceof String || selected instanceof Column || selected instanceof SelectRegexClause)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -15,6 +15,10 @@ public class WhereQueryImpl<T extends SelectQueryImpl> extends BuiltQuery implem
     this.whereCore = whereCore;
   }
 
+  T getQuery() {
+    return query;
+  }
+
   @Override
   public WhereQueryImpl where() {
     return query.where();
@@ -107,6 +111,11 @@ public class WhereQueryImpl<T extends SelectQueryImpl> extends BuiltQuery implem
     return query.getDatabase();
   }
 
+  @Override
+  public boolean requiresPost() {
+    return query.requiresPost();
+  }
+
   @Override
   public StringBuilder buildQueryString(final StringBuilder stringBuilder) {
     return query.buildQueryString(stringBuilder);
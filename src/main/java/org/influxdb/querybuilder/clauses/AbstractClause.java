@@ -7,4 +7,8 @@ public abstract class AbstractClause implements Clause {
   AbstractClause(final String name) {
     this.name = name;
   }
+
+  public String getName() {
+    return name;
+  }
 }
@@ -8,6 +8,10 @@ public abstract class ConjunctionClause implements Conjunction, Clause {
     this.clause = clause;
   }
 
+  public Clause getClause() {
+    return clause;
+  }
+
   @Override
   public void appendTo(final StringBuilder stringBuilder) {
     clause.appendTo(stringBuilder);
@@ -13,6 +13,14 @@ public class RelativeTimeClause extends AbstractClause {
     this.timeInterval = timeInterval;
   }
 
+  public String getRule() {
+    return rule;
+  }
+
+  public TimeInterval getTimeInterval() {
+    return timeInterval;
+  }
+
   @Override
   public void appendTo(final StringBuilder stringBuilder) {
     stringBuilder.append(name).append(" ").append(rule).append(" ");
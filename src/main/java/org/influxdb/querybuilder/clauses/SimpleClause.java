@@ -13,6 +13,14 @@ public class SimpleClause extends AbstractClause {
     this.value = value;
   }
 
+  public String getOp() {
+    return op;
+  }
+
+  public Object getValue() {
+    return value;
+  }
+
   @Override
   public void appendTo(final StringBuilder stringBuilder) {
     Appender.appendName(name, stringBuilder).append(" ").append(op).append(" ");
@@ -12,6 +12,14 @@ public class TimeInterval implements Appendable {
     this.literal = literal;
   }
 
+  public Long getMeasure() {
+    return measure;
+  }
+
+  public String getLiteral() {
+    return literal;
+  }
+
   @Override
   public void appendTo(final StringBuilder stringBuilder) {
     stringBuilder.append(measure).append(literal);
@@ -10,6 +10,7 @@ import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
 import org.influxdb.dto.QueryResult.Series;
 import org.influxdb.impl.InfluxDBImpl;
+import org.influxdb.querybuilder.TimeRangeSplit;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -20,6 +21,9 @@ import org.junit.runner.RunWith;
 
 import okhttp3.OkHttpClient;
 
+import static org.influxdb.querybuilder.BuiltQuery.QueryBuilder.desc;
+import static org.influxdb.querybuilder.BuiltQuery.QueryBuilder.select;
+
 import java.io.IOException;
 import java.net.ConnectException;
 import java.time.Instant;
@@ -31,7 +35,9 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -165,6 +171,75 @@ public class InfluxDBTest {
 		result.result();
 	}
 
+	/**
+	 * Tests for the CompletableFuture based async query.
+	 */
+	@Test
+	public void testQueryAsync() throws Exception {
+		QueryResult result = this.influxDB.queryAsync(new Query("SHOW DATABASES", "mydb"), 10, TimeUnit.SECONDS)
+				.get(10, TimeUnit.SECONDS);
+		Assertions.assertNull(result.getError());
+
+		CompletableFuture<QueryResult> notFound = this.influxDB.queryAsync(new Query("SELECT * FROM cpu", "notexisting"));
+		QueryResult notFoundResult = notFound.get(10, TimeUnit.SECONDS);
+		Assertions.assertNotNull(notFoundResult.getResults().get(0).getError());
+
+		CompletableFuture<QueryResult> syntaxError = this.influxDB.queryAsync(new Query("SELECT * FROM", "mydb"));
+		ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+				() -> syntaxError.get(10, TimeUnit.SECONDS));
+		Assertions.assertTrue(exception.getCause() instanceof InfluxDBException);
+	}
+
+	/**
+	 * Tests for a list of queries sent as multi-statement requests.
+	 */
+	@Test
+	public void testQueryList() throws Throwable {
+		List<Query> queries = Arrays.asList(
+				new Query("SHOW DATABASES", "mydb"),
+				new Query("SHOW RETENTION POLICIES ON " + UDP_DATABASE + "; SHOW MEASUREMENTS", UDP_DATABASE),
+				new Query("SHOW MEASUREMENTS ON notexisting", UDP_DATABASE),
+				QueryBuilder.newQuery("SHOW DATABASES").forDatabase("mydb").create());
+
+		List<QueryResult> results = this.influxDB.query(queries);
+
+		Assertions.assertEquals(4, results.size());
+		Assertions.assertEquals(1, results.get(0).getResults().size());
+		Assertions.assertEquals(2, results.get(1).getResults().size());
+		Assertions.assertNotNull(results.get(2).getResults().get(0).getError());
+		Assertions.assertEquals(results.get(0).getResults().get(0).getSeries(),
+				results.get(3).getResults().get(0).getSeries());
+
+		final AsyncResult<List<QueryResult>> asyncResult = new AsyncResult<>();
+		this.influxDB.query(queries, TimeUnit.SECONDS, asyncResult.resultConsumer, asyncResult.errorConsumer);
+		Assertions.assertEquals(4, asyncResult.result().size());
+	}
+
+	/**
+	 * Tests for a query split into time ranges executed in parallel.
+	 */
+	@Test
+	public void testQueryTimeRangeSplit() {
+		String dbName = "split_" + System.currentTimeMillis();
+		this.influxDB.query(new Query("CREATE DATABASE " + dbName, dbName, true));
+		BatchPoints batchPoints = BatchPoints.database(dbName).build();
+		for (int i = 0; i < 10; i++) {
+			batchPoints.point(Point.measurement("cpu").time(i, TimeUnit.SECONDS).addField("value", i).build());
+		}
+		this.influxDB.write(batchPoints);
+
+		TimeRangeSplit split = TimeRangeSplit.of(
+				select().from(dbName, "cpu").orderBy(desc()).limit(5, 2),
+				Instant.ofEpochSecond(0), Instant.ofEpochSecond(10), 4);
+		QueryResult result = this.influxDB.query(split, TimeUnit.SECONDS, 2);
+
+		List<List<Object>> values = result.getResults().get(0).getSeries().get(0).getValues();
+		Assertions.assertEquals(5, values.size());
+		Assertions.assertEquals(7L, values.get(0).get(0));
+		Assertions.assertEquals(3L, values.get(4).get(0));
+		this.influxDB.query(new Query("DROP DATABASE " + dbName, dbName, true));
+	}
+
 	/**
 	 * Test that describe Databases works.
 	 */
@@ -452,7 +527,7 @@ public class InfluxDBTest {
 				.addField("foo", 1d)
 				.tag("device", "one")
 				.time(t1, TimeUnit.NANOSECONDS).build(); // 2017-01-27T16:00:00.000000100Z
-		Double timeP1 = Double.valueOf(t1);
+		Long timeP1 = Long.valueOf(t1);
 
 		long t2 = 1485277200000000200L;
 		Point p2 = Point
@@ -460,7 +535,7 @@ public class InfluxDBTest {
 				.addField("foo", 2d)
 				.tag("device", "two")
 				.time(t2, TimeUnit.NANOSECONDS).build(); // 2017-01-27T17:00:00.000000200Z
-		Double timeP2 = Double.valueOf(t2);
+		Long timeP2 = Long.valueOf(t2);
 
 		long t3 = 1485280800000000300L;
 		Point p3 = Point
@@ -468,7 +543,7 @@ public class InfluxDBTest {
 				.addField("foo", 3d)
 				.tag("device", "three")
 				.time(t3, TimeUnit.NANOSECONDS).build(); // 2017-01-27T18:00:00.000000300Z
-		Double timeP3 = Double.valueOf(t3);
+		Long timeP3 = Long.valueOf(t3);
 
 		BatchPoints batchPoints = BatchPoints
 				.database(dbName)
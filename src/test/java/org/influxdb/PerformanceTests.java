@@ -16,10 +16,24 @@ import org.mockito.invocation.InvocationOnMock;
 
 import static org.mockito.Mockito.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
 
 @RunWith(JUnitPlatform.class)
 public class PerformanceTests {
@@ -112,6 +126,99 @@ public class PerformanceTests {
 		this.influxDB.deleteDatabase(dbName);
 	}
 
+	@Test
+	public void testQueryResponseCompressionPerformance() {
+		String dbName = "query_compression_" + System.currentTimeMillis();
+		this.influxDB.createDatabase(dbName);
+		String rp = TestUtils.defaultRetentionPolicy(this.influxDB.version());
+		BatchPoints batchPoints = BatchPoints.database(dbName).retentionPolicy(rp).build();
+		for (int i = 0; i < POINT_COUNT; i++) {
+			batchPoints.point(Point.measurement("cpu").time(i, TimeUnit.MILLISECONDS).tag("host", "server" + (i % 10))
+					.addField("idle", 90.0 + i % 7).addField("user", i % 13).build());
+		}
+		this.influxDB.write(batchPoints);
+
+		AtomicLong transferred = new AtomicLong();
+		OkHttpClient.Builder client = new OkHttpClient.Builder().addNetworkInterceptor(chain -> {
+			okhttp3.Response response = chain.proceed(chain.request());
+			ResponseBody body = response.body();
+			ForwardingSource counting = new ForwardingSource(body.source()) {
+				@Override
+				public long read(final Buffer sink, final long byteCount) throws IOException {
+					long read = super.read(sink, byteCount);
+					transferred.addAndGet(Math.max(read, 0));
+					return read;
+				}
+			};
+			return response.newBuilder()
+					.body(ResponseBody.create(body.contentType(), body.contentLength(), Okio.buffer(counting))).build();
+		});
+		InfluxDB measured = InfluxDBFactory.connect("http://" + TestUtils.getInfluxIP() + ":" + TestUtils.getInfluxPORT(true), "root", "root", client);
+		Query query = new Query("SELECT * FROM cpu", dbName);
+		for (boolean compressed : new boolean[] {true, false, true, false}) {
+			if (compressed) {
+				measured.enableResponseCompression();
+			} else {
+				measured.disableResponseCompression();
+			}
+			transferred.set(0);
+			long start = System.nanoTime();
+			QueryResult result = measured.query(query);
+			long elapsed = System.nanoTime() - start;
+			Assertions.assertEquals(POINT_COUNT, result.getResults().get(0).getSeries().get(0).getValues().size());
+			System.out.println("performance(ms):query " + POINT_COUNT + " points, gzip " + compressed + ": "
+					+ TimeUnit.NANOSECONDS.toMillis(elapsed) + ", bytes transferred: " + transferred.get());
+		}
+		measured.close();
+		this.influxDB.deleteDatabase(dbName);
+	}
+
+	/**
+	 * Compares the codecs on the line protocol file of the system property {@code lineProtocolCorpus}, e.g. a
+	 * recorded write load, or on generated points.
+	 */
+	@Test
+	public void testCompressionCodecPerformance() throws IOException {
+		String corpusFile = System.getProperty("lineProtocolCorpus");
+		byte[] corpus;
+		if (corpusFile != null) {
+			corpus = Files.readAllBytes(Paths.get(corpusFile));
+		} else {
+			StringBuilder records = new StringBuilder();
+			for (int i = 0; i < POINT_COUNT; i++) {
+				records.append(Point.measurement("cpu").time(1500000000000L + i, TimeUnit.MILLISECONDS)
+						.tag("host", "server" + (i % 10)).addField("idle", 90.0 + i % 7).addField("user", i % 13).build()
+						.lineProtocol()).append('\n');
+			}
+			corpus = records.toString().getBytes("UTF-8");
+		}
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		CompressionCodec[] codecs = {CompressionCodec.gzip(Deflater.DEFAULT_COMPRESSION),
+				CompressionCodec.gzip(Deflater.BEST_SPEED), CompressionCodec.deflate(Deflater.BEST_SPEED),
+				CompressionCodec.gzip(Deflater.BEST_COMPRESSION)};
+		double megabytes = corpus.length / (1024.0 * 1024.0);
+		for (CompressionCodec codec : codecs) {
+			long compressed = 0;
+			long cpuNanos = 0;
+			int repetitions = 10;
+			for (int i = 0; i < 2 * repetitions; i++) {
+				Buffer buffer = new Buffer();
+				long start = threads.getCurrentThreadCpuTime();
+				try (OutputStream out = codec.compress(buffer.outputStream())) {
+					out.write(corpus);
+				}
+				// the first half warms up
+				if (i >= repetitions) {
+					cpuNanos += threads.getCurrentThreadCpuTime() - start;
+					compressed = buffer.size();
+				}
+			}
+			System.out.println("performance:" + codec + " cpu ms/MB: "
+					+ TimeUnit.NANOSECONDS.toMicros(cpuNanos / repetitions) / 1000.0 / megabytes
+					+ ", ratio: " + (double) corpus.length / compressed);
+		}
+	}
+
 	/**
    * states that String.join("\n", records)*/
 	@Test
@@ -0,0 +1,169 @@
+package org.influxdb.annotation.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.influxdb.dto.Point;
+import org.influxdb.dto.QueryResult;
+import org.influxdb.impl.InfluxDBResultMapper;
+import org.influxdb.impl.MeasurementCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class MeasurementCodecProcessorTest {
+
+  private static final String SOURCE = "package org.example;\n"
+      + "import java.time.Instant;\n"
+      + "import java.util.concurrent.TimeUnit;\n"
+      + "import org.influxdb.annotation.Column;\n"
+      + "import org.influxdb.annotation.Measurement;\n"
+      + "public class Outer {\n"
+      + "  @Measurement(name = \"cpu\", timeUnit = TimeUnit.SECONDS)\n"
+      + "  public static class Cpu {\n"
+      + "    @Column(name = \"time\") public Instant time;\n"
+      + "    @Column(name = \"host\", tag = true) String host;\n"
+      + "    @Column(name = \"idle\") double idle;\n"
+      + "    @Column(name = \"count\") Long count;\n"
+      + "    @Column(name = \"up\") boolean up;\n"
+      + "    @Column(name = \"comment\") String comment;\n"
+      + "  }\n"
+      + "  @Measurement(name = \"private_fields\")\n"
+      + "  public static class PrivateFields {\n"
+      + "    @Column(name = \"value\") private double value;\n"
+      + "  }\n"
+      + "}\n"
+      + "@Measurement(name = \"outer_cpu\")\n"
+      + "class Outer_Cpu {\n"
+      + "  @Column(name = \"load\") double load;\n"
+      + "}\n";
+
+  private Path directory;
+  private ClassLoader classLoader;
+
+  @BeforeEach
+  public void compile() throws IOException {
+    directory = Files.createTempDirectory("codec");
+    Path source = directory.resolve("Outer.java");
+    Files.write(source, SOURCE.getBytes(StandardCharsets.UTF_8));
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    StringWriter output = new StringWriter();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+      Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(source.toFile());
+      List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"),
+          "-d", directory.toString(), "-s", directory.toString(),
+          "-processor", MeasurementCodecProcessor.class.getName());
+      Boolean success = compiler.getTask(output, fileManager, null, options, null, units).call();
+      Assertions.assertTrue(success, output.toString());
+    }
+    Assertions.assertTrue(output.toString().contains("No MeasurementCodec generated, field 'value' is private"),
+        output.toString());
+    classLoader = new URLClassLoader(new URL[] {directory.toUri().toURL()}, getClass().getClassLoader());
+  }
+
+  @Test
+  public void testGeneratesCodecsForAccessibleClasses() throws Exception {
+    Assertions.assertTrue(new File(directory.toFile(), "org/example/Outer$Cpu_MeasurementCodec.java").exists());
+    Assertions.assertTrue(new File(directory.toFile(), "org/example/Outer_Cpu_MeasurementCodec.java").exists());
+    Assertions.assertFalse(
+        new File(directory.toFile(), "org/example/Outer$PrivateFields_MeasurementCodec.java").exists());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testEncode() throws Exception {
+    Class<?> cpuClass = classLoader.loadClass("org.example.Outer$Cpu");
+    Object cpu = cpuClass.getConstructor().newInstance();
+    cpuClass.getField("time").set(cpu, Instant.ofEpochSecond(1_500_000_000L));
+    setField(cpuClass, cpu, "host", "server01");
+    setField(cpuClass, cpu, "idle", 90.5);
+    setField(cpuClass, cpu, "count", 42L);
+    setField(cpuClass, cpu, "up", true);
+    setField(cpuClass, cpu, "comment", "ok");
+
+    MeasurementCodec<Object> codec = (MeasurementCodec<Object>) classLoader
+        .loadClass("org.example.Outer$Cpu_MeasurementCodec").getConstructor().newInstance();
+    Point point = codec.toPoint(cpu);
+
+    Assertions.assertEquals("cpu,host=server01 comment=\"ok\",count=42i,idle=90.5,up=true 1500000000",
+        point.lineProtocol(java.util.concurrent.TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testDecodeWithResultMapper() throws Exception {
+    Class<?> cpuClass = classLoader.loadClass("org.example.Outer$Cpu");
+
+    QueryResult.Series series = new QueryResult.Series();
+    series.setName("cpu");
+    series.setColumns(Arrays.asList("time", "idle", "count", "up", "comment", "unknown"));
+    series.setValues(Collections.singletonList(
+        Arrays.asList("2017-07-14T02:40:00Z", 90.5, 42.0, "true", "ok", "ignored")));
+    Map<String, String> tags = new HashMap<>();
+    tags.put("host", "server01");
+    series.setTags(tags);
+    QueryResult.Result result = new QueryResult.Result();
+    result.setSeries(Collections.singletonList(series));
+    QueryResult queryResult = new QueryResult();
+    queryResult.setResults(Collections.singletonList(result));
+
+    InfluxDBResultMapper mapper = new InfluxDBResultMapper();
+    List<?> cpus = mapper.toPOJO(queryResult, cpuClass);
+
+    // the series was mapped by the generated codec, the fields of the class were never inspected
+    Method getSeriesMapper = InfluxDBResultMapper.class.getDeclaredMethod("getSeriesMapper", Class.class,
+        List.class);
+    getSeriesMapper.setAccessible(true);
+    Object seriesMapper = getSeriesMapper.invoke(mapper, cpuClass, series.getColumns());
+    Assertions.assertEquals("org.example.Outer$Cpu_MeasurementCodec",
+        getField(seriesMapper.getClass(), seriesMapper, "codec").getClass().getName());
+    Method getColNameAndFieldMap = InfluxDBResultMapper.class.getDeclaredMethod("getColNameAndFieldMap",
+        Class.class);
+    getColNameAndFieldMap.setAccessible(true);
+    Assertions.assertNull(getColNameAndFieldMap.invoke(mapper, cpuClass));
+
+    Assertions.assertEquals(1, cpus.size());
+    Object cpu = cpus.get(0);
+    Assertions.assertEquals(Instant.ofEpochSecond(1_500_000_000L), cpuClass.getField("time").get(cpu));
+    Assertions.assertEquals("server01", getField(cpuClass, cpu, "host"));
+    Assertions.assertEquals(90.5, getField(cpuClass, cpu, "idle"));
+    Assertions.assertEquals(42L, getField(cpuClass, cpu, "count"));
+    Assertions.assertEquals(true, getField(cpuClass, cpu, "up"));
+    Assertions.assertEquals("ok", getField(cpuClass, cpu, "comment"));
+  }
+
+  private static void setField(final Class<?> clazz, final Object object, final String name, final Object value)
+      throws ReflectiveOperationException {
+    java.lang.reflect.Field field = clazz.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(object, value);
+  }
+
+  private static Object getField(final Class<?> clazz, final Object object, final String name)
+      throws ReflectiveOperationException {
+    java.lang.reflect.Field field = clazz.getDeclaredField(name);
+    field.setAccessible(true);
+    return field.get(object);
+  }
+}
@@ -77,6 +77,24 @@ public class BoundParameterQueryTest {
     assertThat(queryA0.hashCode()).isNotEqualTo(queryB0.hashCode());
   }
 
+  @Test
+  public void testNewQueryFromTemplate() throws IOException {
+    Query template = new Query("SELECT * FROM abc WHERE integer > $i", "foobar");
+
+    BoundParameterQuery query0 = QueryBuilder.newQuery(template).bind("i", 0).create();
+    BoundParameterQuery query1 = QueryBuilder.newQuery(template).bind("i", 1).create();
+    BoundParameterQuery other = QueryBuilder.newQuery(template).forDatabase("other").bind("i", 0).create();
+
+    assertThat(query0.getCommand()).isEqualTo(template.getCommand());
+    assertThat(query0.getDatabase()).isEqualTo("foobar");
+    assertThat(query0.requiresPost()).isTrue();
+    assertThat(query0.getCommandWithUrlEncoded()).isSameAs(template.getCommandWithUrlEncoded());
+    assertThat(query1.getCommandWithUrlEncoded()).isSameAs(template.getCommandWithUrlEncoded());
+    assertThat(decode(query1.getParameterJsonWithUrlEncoded())).isEqualTo("{\"i\":1}");
+    assertThat(query0).isNotEqualTo(query1);
+    assertThat(other.getDatabase()).isEqualTo("other");
+  }
+
   private static String decode(String str) throws UnsupportedEncodingException {
     return URLDecoder.decode(str, StandardCharsets.UTF_8.toString());
   }
@@ -0,0 +1,81 @@
+package org.influxdb.dto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.influxdb.dto.BoundParameterQuery.QueryBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+/**
+ * Test for the PreparedQuery DTO.
+ */
+@RunWith(JUnitPlatform.class)
+public class PreparedQueryTest {
+
+  @Test
+  public void testParsesPlaceholders() {
+    PreparedQuery prepared = PreparedQuery.prepare("SELECT * FROM cpu WHERE host = $host AND \"$col\" = '$str'"
+        + " AND region =~ /$re/ AND value > $value AND $\"quoted name\" = 1 AND host != $host;", "db");
+
+    assertThat(prepared.getPlaceholders()).containsExactly("host", "value", "quoted name");
+    assertThat(prepared.getDatabase()).isEqualTo("db");
+  }
+
+  @Test
+  public void testEncodesLikeBoundParameterQuery() throws UnsupportedEncodingException {
+    String command = "SELECT * FROM cpu WHERE v = $v";
+    for (Object value : Arrays.asList(0, -42L, (short) 7, 1.5d, 2.5f, new BigDecimal("1e400"), true, "test",
+        "it's \"quoted\" \\ with\nnew line\t\u0001 and  ", "äöü € 😀 +&=%", new Object() {
+          @Override
+          public String toString() {
+            return "object";
+          }
+        })) {
+      BoundParameterQuery expected = QueryBuilder.newQuery(command).forDatabase("db").bind("v", value).create();
+      BoundParameterQuery actual = PreparedQuery.prepare(command, "db").bind().bind("v", value).create();
+
+      assertThat(decode(actual.getParameterJsonWithUrlEncoded()))
+          .isEqualTo(decode(expected.getParameterJsonWithUrlEncoded()));
+      assertThat(actual).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void testBindsPerExecution() throws UnsupportedEncodingException {
+    Query template = new Query("SELECT * FROM cpu WHERE host = $host AND value > $min", "db");
+    PreparedQuery prepared = PreparedQuery.prepare(template);
+
+    BoundParameterQuery query0 = prepared.bind().bind("min", 1).bind("host", "a").create();
+    BoundParameterQuery query1 = prepared.bind().bind("host", "b").bind("min", 2).forDatabase("other").create();
+
+    assertThat(decode(query0.getParameterJsonWithUrlEncoded())).isEqualTo("{\"host\":\"a\",\"min\":1}");
+    assertThat(decode(query1.getParameterJsonWithUrlEncoded())).isEqualTo("{\"host\":\"b\",\"min\":2}");
+    assertThat(query0.getCommandWithUrlEncoded()).isSameAs(template.getCommandWithUrlEncoded());
+    assertThat(query0.getDatabase()).isEqualTo("db");
+    assertThat(query1.getDatabase()).isEqualTo("other");
+    assertThat(query0.requiresPost()).isTrue();
+  }
+
+  @Test
+  public void testRejectsUnknownAndUnboundPlaceholders() {
+    PreparedQuery prepared = PreparedQuery.prepare("SELECT * FROM cpu WHERE host = $host", "db");
+
+    assertThatThrownBy(() -> prepared.bind().bind("hots", "a")).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> prepared.bind().create()).isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("$host");
+    assertThatThrownBy(() -> prepared.bind().bind("host", Double.NaN).create())
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static String decode(final String str) throws UnsupportedEncodingException {
+    return URLDecoder.decode(str, StandardCharsets.UTF_8.toString());
+  }
+}
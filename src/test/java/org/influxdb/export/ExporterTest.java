@@ -0,0 +1,238 @@
+package org.influxdb.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+@RunWith(JUnitPlatform.class)
+public class ExporterTest {
+
+  private static final Instant FROM = Instant.ofEpochSecond(0);
+  private static final Instant TO = FROM.plus(Duration.ofHours(2));
+  private static final String COLUMNS = "\"columns\":[\"time\",\"count\",\"note\",\"up\",\"usage\"]";
+
+  private final List<String> selects = new CopyOnWriteArrayList<>();
+  private volatile String failingSelect;
+  private volatile String failingChunk = "{\"results\":[{\"statement_id\":0,\"error\":\"partition failed\"}]}";
+  private ExecutorService executor;
+  private HttpServer server;
+  private InfluxDB influxDB;
+  private Path directory;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("export");
+    executor = Executors.newCachedThreadPool();
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/query", this::handle);
+    server.setExecutor(executor);
+    server.start();
+    influxDB = InfluxDBFactory.connect("http://localhost:" + server.getAddress().getPort());
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    influxDB.close();
+    server.stop(0);
+    executor.shutdownNow();
+    for (String file : files()) {
+      Files.delete(directory.resolve(file));
+    }
+    Files.delete(directory);
+  }
+
+  @Test
+  public void testExportsCompressedLineProtocolPartitionsAndResumes() throws Exception {
+    List<ExportStats> progress = new CopyOnWriteArrayList<>();
+    ExportOptions options = ExportOptions.DEFAULTS.partitionDuration(Duration.ofHours(1)).partitionTag("host")
+        .chunkSize(1).bufferSize(16).progressListener(progress::add);
+
+    ExportStats stats = new Exporter(influxDB, options).export("db", Collections.singletonList("cpu"), FROM, TO,
+        directory);
+
+    Assertions.assertEquals(6, stats.getPartitions());
+    Assertions.assertEquals(6, stats.getCompletedPartitions());
+    Assertions.assertEquals(2, stats.getPoints());
+    Assertions.assertEquals(6, progress.size());
+    Assertions.assertEquals(6, selects.size());
+    Assertions.assertTrue(selects.contains("SELECT * FROM \"cpu\" WHERE time >= 0 AND time < 3600000000000"
+        + " AND \"host\" = 'a' GROUP BY *"));
+    Assertions.assertTrue(selects.contains("SELECT * FROM \"cpu\" WHERE time >= 3600000000000"
+        + " AND time < 7200000000000 AND \"host\" = '' GROUP BY *"));
+    Assertions.assertEquals(Arrays.asList("cpu.host=.0-3600000000000.lp.gz",
+        "cpu.host=.3600000000000-7200000000000.lp.gz", "cpu.host=a.0-3600000000000.lp.gz",
+        "cpu.host=a.3600000000000-7200000000000.lp.gz", "cpu.host=b.0-3600000000000.lp.gz",
+        "cpu.host=b.3600000000000-7200000000000.lp.gz", Exporter.CHECKPOINT_FILE), files());
+    Assertions.assertEquals("cpu,host=a count=3i,note=\"x \\\"y\\\"\",up=true,usage=0.5 1\n"
+        + "cpu,host=a count=4i,up=false,usage=1.5 1000000000\n", gunzip(directory.resolve(
+        "cpu.host=a.0-3600000000000.lp.gz")));
+    Assertions.assertEquals("", gunzip(directory.resolve("cpu.host=b.0-3600000000000.lp.gz")));
+
+    selects.clear();
+    stats = new Exporter(influxDB, options).export("db", Collections.singletonList("cpu"), FROM, TO, directory);
+    Assertions.assertEquals(6, stats.getSkippedPartitions());
+    Assertions.assertEquals(0, stats.getCompletedPartitions());
+    Assertions.assertTrue(selects.isEmpty());
+  }
+
+  @Test
+  public void testExportsCsv() throws Exception {
+    ExportOptions options = ExportOptions.DEFAULTS.format(ExportFormat.CSV).gzip(false)
+        .partitionDuration(Duration.ofHours(2));
+
+    ExportStats stats = new Exporter(influxDB, options).export("db", Collections.singletonList("cpu"), FROM, TO,
+        directory);
+
+    Assertions.assertEquals(1, stats.getPartitions());
+    Assertions.assertEquals(Collections.singletonList("SELECT * FROM \"cpu\" WHERE time >= 0"
+        + " AND time < 7200000000000 GROUP BY *"), selects);
+    Assertions.assertEquals("name,tags,time,count,note,up,usage\n"
+        + "cpu,host=a,1,3,\"x \"\"y\"\"\",true,0.5\n"
+        + "cpu,host=a,1000000000,4,,false,1.5\n",
+        new String(Files.readAllBytes(directory.resolve("cpu.0-7200000000000.csv")), StandardCharsets.UTF_8));
+    Assertions.assertEquals(stats.getBytes(), Files.size(directory.resolve("cpu.0-7200000000000.csv")));
+  }
+
+  @Test
+  public void testFailedPartitionIsExportedOnResume() throws Exception {
+    ExportOptions options = ExportOptions.DEFAULTS.partitionDuration(Duration.ofHours(1)).parallelism(1);
+    failingSelect = "time >= 0 AND";
+
+    Assertions.assertThrows(InfluxDBException.class, () -> new Exporter(influxDB, options).export("db",
+        Collections.singletonList("cpu"), FROM, TO, directory));
+    Assertions.assertEquals(Collections.singletonList(Exporter.CHECKPOINT_FILE), files());
+
+    failingSelect = null;
+    selects.clear();
+    ExportStats stats = new Exporter(influxDB, options).export("db", Collections.singletonList("cpu"), FROM, TO,
+        directory);
+    Assertions.assertEquals(2, stats.getCompletedPartitions());
+    Assertions.assertEquals(Arrays.asList("cpu.0-3600000000000.lp.gz", "cpu.3600000000000-7200000000000.lp.gz",
+        Exporter.CHECKPOINT_FILE), files());
+
+    selects.clear();
+    stats = new Exporter(influxDB, options).export("db", Collections.singletonList("cpu"), FROM, TO, directory);
+    Assertions.assertEquals(2, stats.getSkippedPartitions());
+    Assertions.assertTrue(selects.isEmpty());
+  }
+
+  @Test
+  public void testErrorOfTheQueryFailsThePartition() throws Exception {
+    ExportOptions options = ExportOptions.DEFAULTS.partitionDuration(Duration.ofHours(2));
+    failingSelect = "time >= 0 AND";
+    failingChunk = "{\"error\":\"max-select-point limit exceeded\"}";
+
+    InfluxDBException e = Assertions.assertThrows(InfluxDBException.class, () -> new Exporter(influxDB, options)
+        .export("db", Collections.singletonList("cpu"), FROM, TO, directory));
+    Assertions.assertTrue(e.getMessage().contains("max-select-point limit exceeded"));
+    Assertions.assertEquals(Collections.singletonList(Exporter.CHECKPOINT_FILE), files());
+  }
+
+  @Test
+  public void testResumeWithLaterEndExportsTheLongerPartition() throws Exception {
+    ExportOptions options = ExportOptions.DEFAULTS.gzip(false).partitionDuration(Duration.ofHours(2));
+    Exporter exporter = new Exporter(influxDB, options);
+
+    ExportStats stats = exporter.export("db", Collections.singletonList("cpu"), FROM, FROM.plusSeconds(1), directory);
+    Assertions.assertEquals(1, stats.getCompletedPartitions());
+
+    selects.clear();
+    stats = exporter.export("db", Collections.singletonList("cpu"), FROM, TO, directory);
+    Assertions.assertEquals(1, stats.getCompletedPartitions());
+    Assertions.assertEquals(0, stats.getSkippedPartitions());
+    Assertions.assertEquals(Collections.singletonList("SELECT * FROM \"cpu\" WHERE time >= 0"
+        + " AND time < 7200000000000 GROUP BY *"), selects);
+    Assertions.assertEquals(Arrays.asList("cpu.0-1000000000.lp", "cpu.0-7200000000000.lp", Exporter.CHECKPOINT_FILE),
+        files());
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    String command = parameter(exchange.getRequestURI().getRawQuery(), "q");
+    List<String> chunks = new ArrayList<>();
+    if (command.startsWith("SHOW FIELD KEYS")) {
+      chunks.add("{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\","
+          + "\"columns\":[\"fieldKey\",\"fieldType\"],\"values\":[[\"count\",\"integer\"],[\"note\",\"string\"],"
+          + "[\"up\",\"boolean\"],[\"usage\",\"float\"]]}]}]}");
+    } else if (command.startsWith("SHOW TAG VALUES")) {
+      chunks.add("{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\","
+          + "\"columns\":[\"key\",\"value\"],\"values\":[[\"host\",\"a\"],[\"host\",\"b\"]]}]}]}");
+    } else {
+      selects.add(command);
+      if (failingSelect != null && command.contains(failingSelect)) {
+        chunks.add(failingChunk);
+      } else if (command.contains("time >= 0 AND") && !command.contains("'b'") && !command.contains("''")) {
+        chunks.add("{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"tags\":{\"host\":\"a\"},"
+            + COLUMNS + ",\"values\":[[\"1970-01-01T00:00:00.000000001Z\",3,\"x \\\"y\\\"\",true,0.5]],"
+            + "\"partial\":true}],\"partial\":true}]}");
+        chunks.add("{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"tags\":{\"host\":\"a\"},"
+            + COLUMNS + ",\"values\":[[\"1970-01-01T00:00:01Z\",4,null,false,1.5]]}]}]}");
+      } else {
+        chunks.add("{\"results\":[{\"statement_id\":0}]}");
+      }
+    }
+    byte[] body = chunks.stream().collect(Collectors.joining("\n", "", "\n")).getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static String parameter(final String rawQuery, final String name) throws UnsupportedEncodingException {
+    for (String parameter : rawQuery.split("&")) {
+      if (parameter.startsWith(name + "=")) {
+        return URLDecoder.decode(parameter.substring(name.length() + 1), "UTF-8");
+      }
+    }
+    return null;
+  }
+
+  private List<String> files() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+    }
+  }
+
+  private static String gunzip(final Path file) throws IOException {
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[1024];
+      for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+        out.write(buffer, 0, read);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.Point;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import okio.Buffer;
+
+@RunWith(JUnitPlatform.class)
+public class BatchPointsRequestBodyTest {
+
+  @Test
+  public void testWritesSameBytesAsLineProtocol() throws IOException {
+    BatchPoints batchPoints = BatchPoints.database("db").precision(TimeUnit.SECONDS).tag("region", "eu").build();
+    for (int i = 0; i < 100; i++) {
+      batchPoints.point(Point.measurement("cpu")
+          .tag("host", "server" + i)
+          .addField("idle", i * 0.5)
+          .addField("count", i)
+          .addField("comment", "a \"quoted\" value")
+          .time(i, TimeUnit.SECONDS)
+          .build());
+    }
+
+    BatchPointsRequestBody body = new BatchPointsRequestBody(batchPoints);
+    Buffer first = new Buffer();
+    body.writeTo(first);
+    Buffer second = new Buffer();
+    body.writeTo(second);
+
+    Assertions.assertEquals(batchPoints.lineProtocol(), first.readUtf8());
+    Assertions.assertEquals(batchPoints.lineProtocol(), second.readUtf8());
+    Assertions.assertEquals(InfluxDBImpl.MEDIA_TYPE_STRING, body.contentType());
+  }
+}
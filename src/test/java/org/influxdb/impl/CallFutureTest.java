@@ -0,0 +1,158 @@
+package org.influxdb.impl;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.squareup.moshi.JsonAdapter;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+@RunWith(JUnitPlatform.class)
+public class CallFutureTest {
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  private final AtomicReference<Callback<QueryResult>> callback = new AtomicReference<>();
+
+  @AfterEach
+  public void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void testCompletesWithBody() throws Exception {
+    Call<QueryResult> call = call();
+    CallFuture<QueryResult> future = CallFuture.enqueue(call, response -> new IllegalStateException());
+
+    QueryResult result = new QueryResult();
+    callback.get().onResponse(call, Response.success(result));
+
+    Assertions.assertSame(result, future.get());
+  }
+
+  @Test
+  public void testDecodesErrorResponse() throws Exception {
+    Call<QueryResult> call = call();
+    Thread callbackThread = Thread.currentThread();
+    AtomicReference<Thread> decoderThread = new AtomicReference<>();
+    InfluxDBException error = new InfluxDBException("database not found");
+    CallFuture<QueryResult> future = CallFuture.enqueue(call, response -> {
+      decoderThread.set(Thread.currentThread());
+      return error;
+    });
+
+    callback.get().onResponse(call, Response.error(404, ResponseBody.create(MediaType.parse("application/json"),
+        "{\"error\":\"database not found\"}")));
+
+    ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+        () -> future.get(10, TimeUnit.SECONDS));
+    Assertions.assertSame(error, exception.getCause());
+    Assertions.assertNotSame(callbackThread, decoderThread.get());
+  }
+
+  @Test
+  public void testCompletesWithFailure() {
+    Call<QueryResult> call = call();
+    CallFuture<QueryResult> future = CallFuture.enqueue(call, response -> new IllegalStateException());
+
+    IOException failure = new IOException("connection refused");
+    callback.get().onFailure(call, failure);
+
+    ExecutionException exception = Assertions.assertThrows(ExecutionException.class, future::get);
+    Assertions.assertSame(failure, exception.getCause());
+  }
+
+  @Test
+  public void testCancelCancelsCall() {
+    Call<QueryResult> call = call();
+    CallFuture<QueryResult> future = CallFuture.enqueue(call, response -> new IllegalStateException());
+
+    Assertions.assertTrue(future.cancel(true));
+
+    verify(call).cancel();
+    Assertions.assertThrows(CancellationException.class, future::join);
+  }
+
+  @Test
+  public void testDeadlineCancelsCall() {
+    Call<QueryResult> call = call();
+    CallFuture<QueryResult> future = CallFuture.enqueue(call, response -> new IllegalStateException())
+        .withDeadline(10, TimeUnit.MILLISECONDS, scheduler);
+
+    ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+        () -> future.get(10, TimeUnit.SECONDS));
+    Assertions.assertTrue(exception.getCause() instanceof InterruptedIOException);
+    verify(call, timeout(10000)).cancel();
+  }
+
+  @Test
+  public void testDeadlineIsCancelledOnCompletion() throws Exception {
+    Call<QueryResult> call = call();
+    CallFuture<QueryResult> future = CallFuture.enqueue(call, response -> new IllegalStateException())
+        .withDeadline(50, TimeUnit.MILLISECONDS, scheduler);
+
+    callback.get().onResponse(call, Response.success(new QueryResult()));
+    Thread.sleep(100);
+
+    Assertions.assertNotNull(future.get());
+    verify(call, never()).cancel();
+  }
+
+  @Test
+  public void testCallbackQueryReportsErrorResponse() {
+    InfluxDBService influxDBService = mock(InfluxDBService.class);
+    Call<QueryResult> call = call();
+    when(influxDBService.query("db", Query.encode("SELECT * FROM cpu"))).thenReturn(call);
+    InfluxDB influxDB = new InfluxDBImpl("http://localhost:8086", "admin", "admin", new OkHttpClient.Builder(),
+        influxDBService, mock(JsonAdapter.class));
+
+    CompletableFuture<Throwable> failure = new CompletableFuture<>();
+    influxDB.query(new Query("SELECT * FROM cpu", "db"), result -> failure.complete(null), failure::complete);
+    callback.get().onResponse(call, Response.error(404, ResponseBody.create(MediaType.parse("application/json"),
+        "{\"error\":\"database not found: db\"}")));
+
+    Throwable throwable = failure.join();
+    Assertions.assertTrue(throwable instanceof InfluxDBException);
+    Assertions.assertEquals("database not found: db", throwable.getMessage());
+    influxDB.close();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Call<QueryResult> call() {
+    Call<QueryResult> call = mock(Call.class);
+    doAnswer(invocation -> {
+      callback.set(invocation.getArgument(0));
+      return null;
+    }).when(call).enqueue(any());
+    return call;
+  }
+}
@@ -61,6 +61,34 @@ public class ChunkingExceptionTest {
         testChunkingException(new EOFException(), "DONE",  Assertions::assertNotNull);
     }
 
+    @Test
+    public void testMapperReportsChunkingIOExceptionOnce() throws IOException, InterruptedException {
+
+        IOException ex = new IOException();
+        InfluxDBService influxDBService = mock(InfluxDBService.class);
+        JsonAdapter<QueryResult> adapter = mock(JsonAdapter.class);
+        Call<ResponseBody> call = mock(Call.class);
+        ResponseBody responseBody = mock(ResponseBody.class);
+
+        when(influxDBService.query(any(String.class), any(String.class), anyInt())).thenReturn(call);
+        when(responseBody.source()).thenReturn(new Buffer());
+        doThrow(ex).when(adapter).fromJson(any(JsonReader.class));
+
+        String url = "http://" + TestUtils.getInfluxIP() + ":" + TestUtils.getInfluxPORT(true);
+        InfluxDB influxDB = new InfluxDBImpl(url, "admin", "admin", new OkHttpClient.Builder(), influxDBService, adapter);
+
+        final BlockingQueue<Throwable> failures = new LinkedBlockingQueue<>();
+        new InfluxDBMapper(influxDB).query(new Query("SELECT * FROM cpu", "db"), InfluxDBMapperChunkedQueryTest.Cpu.class,
+            2, (cancellable, cpu) -> { }, () -> { }, failures::add);
+
+        ArgumentCaptor<Callback<ResponseBody>> argumentCaptor = ArgumentCaptor.forClass(Callback.class);
+        verify(call).enqueue(argumentCaptor.capture());
+        argumentCaptor.getValue().onResponse(call, Response.success(responseBody));
+
+        Assertions.assertSame(ex, failures.poll(20, TimeUnit.SECONDS));
+        Assertions.assertTrue(failures.isEmpty());
+    }
+
     public void testChunkingException(Exception ex, String message, Consumer<Throwable> onFailure) throws IOException, InterruptedException {
 
         InfluxDBService influxDBService = mock(InfluxDBService.class);
@@ -0,0 +1,163 @@
+package org.influxdb.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.influxdb.CompressionCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+
+@RunWith(JUnitPlatform.class)
+public class GzipRequestInterceptorTest {
+
+  @Test
+  public void testCompressesOnceWithTheLevel() throws IOException {
+    StringBuilder records = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      records.append("cpu,host=server").append(i % 100).append(" value=").append(i).append(' ').append(i).append('\n');
+    }
+    RequestBody body = RequestBody.create(InfluxDBImpl.MEDIA_TYPE_STRING, records.toString());
+
+    RequestBody fast = GzipRequestInterceptor.compress(body, CompressionCodec.gzip(Deflater.BEST_SPEED));
+    RequestBody best = GzipRequestInterceptor.compress(body,
+        CompressionCodec.gzip(Deflater.BEST_COMPRESSION));
+
+    ByteString first = written(fast);
+    Assertions.assertEquals(first, written(fast));
+    Assertions.assertEquals(first.size(), fast.contentLength());
+    Assertions.assertEquals(body.contentType(), fast.contentType());
+    Assertions.assertEquals(records.toString(), gunzip(first));
+    Assertions.assertEquals(records.toString(), gunzip(written(best)));
+    Assertions.assertTrue(best.contentLength() < fast.contentLength());
+    Assertions.assertEquals("", gunzip(written(GzipRequestInterceptor.compress(
+        RequestBody.create(InfluxDBImpl.MEDIA_TYPE_STRING, ""), CompressionCodec.gzip(Deflater.DEFAULT_COMPRESSION)))));
+  }
+
+  @Test
+  public void testStreamsLargeBodiesAndPrecompressesBodiesOfUnknownLength() throws IOException {
+    String records = "cpu,host=a value=1 1\ncpu,host=a value=2 2\n";
+    RequestBody unknown = new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return InfluxDBImpl.MEDIA_TYPE_STRING;
+      }
+
+      @Override
+      public void writeTo(final BufferedSink sink) throws IOException {
+        sink.writeUtf8(records);
+      }
+    };
+    RequestBody large = new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return InfluxDBImpl.MEDIA_TYPE_STRING;
+      }
+
+      @Override
+      public long contentLength() {
+        return GzipRequestInterceptor.MAX_PRECOMPRESSED_LENGTH + 1;
+      }
+
+      @Override
+      public void writeTo(final BufferedSink sink) throws IOException {
+        sink.writeUtf8(records);
+      }
+    };
+
+    RequestBody streamed = GzipRequestInterceptor.compress(large, CompressionCodec.gzip(Deflater.BEST_SPEED));
+    Assertions.assertEquals(-1, streamed.contentLength());
+    Assertions.assertEquals(records, gunzip(written(streamed)));
+    Assertions.assertEquals(records, gunzip(written(streamed)));
+
+    RequestBody precompressed = GzipRequestInterceptor.compress(unknown, CompressionCodec.gzip(Deflater.BEST_SPEED));
+    ByteString compressed = written(precompressed);
+    Assertions.assertEquals(compressed.size(), precompressed.contentLength());
+    Assertions.assertEquals(records, gunzip(compressed));
+    RequestBody uncompressed = GzipRequestInterceptor.compress(unknown, CompressionCodec.gzip(Deflater.BEST_SPEED),
+        records.length() + 1);
+    Assertions.assertEquals(records.length(), uncompressed.contentLength());
+    Assertions.assertEquals(records, written(uncompressed).utf8());
+
+    RequestBody oneShot = GzipRequestInterceptor.compress(new InputStreamRequestBody(
+        new ByteArrayInputStream(records.getBytes(StandardCharsets.UTF_8))), CompressionCodec.gzip(Deflater.BEST_SPEED));
+    Assertions.assertEquals(-1, oneShot.contentLength());
+    Assertions.assertEquals(records, gunzip(written(oneShot)));
+  }
+
+  @Test
+  public void testStreamsBodiesOfUnknownLengthOnceTheyExceedTheLimit() throws IOException {
+    String line = "cpu,host=a value=1 1\n";
+    long lines = GzipRequestInterceptor.MAX_PRECOMPRESSED_LENGTH / line.length() + 1;
+    int[] written = new int[1];
+    RequestBody unknown = new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return InfluxDBImpl.MEDIA_TYPE_STRING;
+      }
+
+      @Override
+      public void writeTo(final BufferedSink sink) throws IOException {
+        written[0]++;
+        for (long i = 0; i < lines; i++) {
+          sink.writeUtf8(line);
+        }
+      }
+    };
+
+    RequestBody streamed = GzipRequestInterceptor.compress(unknown, CompressionCodec.gzip(Deflater.BEST_SPEED));
+    Assertions.assertEquals(-1, streamed.contentLength());
+    Assertions.assertEquals(1, written[0]);
+    String records = gunzip(written(streamed));
+    Assertions.assertEquals(2, written[0]);
+    Assertions.assertEquals(lines * line.length(), records.length());
+  }
+
+  @Test
+  public void testCompressesWithTheDeflateCodec() throws IOException {
+    String records = "cpu,host=a value=1 1\ncpu,host=a value=2 2\ncpu,host=a value=3 3\n";
+    CompressionCodec codec = CompressionCodec.deflate(Deflater.BEST_SPEED);
+    RequestBody body = GzipRequestInterceptor.compress(RequestBody.create(InfluxDBImpl.MEDIA_TYPE_STRING, records),
+        codec);
+
+    Assertions.assertEquals("deflate", codec.getContentEncoding());
+    try (InputStream in = new InflaterInputStream(new Buffer().write(written(body)).inputStream())) {
+      Assertions.assertEquals(records, read(in));
+    }
+    Assertions.assertThrows(IllegalArgumentException.class, () -> CompressionCodec.deflate(10));
+  }
+
+  private static ByteString written(final RequestBody body) throws IOException {
+    Buffer buffer = new Buffer();
+    body.writeTo(buffer);
+    return buffer.readByteString();
+  }
+
+  private static String gunzip(final ByteString compressed) throws IOException {
+    try (InputStream in = new GZIPInputStream(new Buffer().write(compressed).inputStream())) {
+      return read(in);
+    }
+  }
+
+  private static String read(final InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+      out.write(buffer, 0, read);
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,197 @@
+package org.influxdb.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDB.ResponseFormat;
+import org.influxdb.InfluxDBFactory;
+import org.influxdb.InfluxDBMapperException;
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Measurement;
+import org.influxdb.dto.Query;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import okhttp3.OkHttpClient;
+
+@RunWith(JUnitPlatform.class)
+public class InfluxDBMapperChunkedQueryTest {
+
+  private final List<Cpu> mapped = new CopyOnWriteArrayList<>();
+  private final List<Throwable> failures = new CopyOnWriteArrayList<>();
+  private final CountDownLatch done = new CountDownLatch(1);
+  private volatile boolean completed;
+  private volatile boolean messagePack = true;
+  private volatile byte[] response;
+  private ExecutorService executor;
+  private HttpServer server;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    executor = Executors.newCachedThreadPool();
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/query", this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testMapsMessagePackRowsWhileTheyAreDecoded() throws Exception {
+    response = chunk(1_500_000_000L, 123_456_789, 0.5, 42L);
+
+    query();
+
+    Assertions.assertTrue(completed);
+    Assertions.assertEquals(0, failures.size());
+    Assertions.assertEquals(1, mapped.size());
+    // the rows are not materialized with millisecond timestamps but mapped from epoch nanoseconds
+    Assertions.assertEquals(Instant.ofEpochSecond(1_500_000_000L, 123_456_789L), mapped.get(0).time);
+    Assertions.assertEquals(0.5, mapped.get(0).idle);
+    Assertions.assertEquals(42L, mapped.get(0).load);
+    Assertions.assertEquals("a", mapped.get(0).host);
+  }
+
+  @Test
+  public void testCancelsTheStreamOnMappingErrors() throws Exception {
+    response = chunk(1_500_000_000L, 0, 0.5, Long.MAX_VALUE);
+
+    query();
+
+    Assertions.assertEquals(0, mapped.size());
+    Assertions.assertEquals(1, failures.size());
+    Assertions.assertTrue(failures.get(0) instanceof InfluxDBMapperException);
+  }
+
+  @Test
+  public void testCompletesJsonStreams() throws Exception {
+    messagePack = false;
+    response = ("{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"columns\":[\"idle\"],"
+        + "\"values\":[[0.5]]}]}]}\n").getBytes(StandardCharsets.UTF_8);
+
+    query();
+
+    Assertions.assertTrue(completed);
+    Assertions.assertEquals(0, failures.size());
+    Assertions.assertEquals(1, mapped.size());
+  }
+
+  @Test
+  public void testReportsErrorsOfJsonStreams() throws Exception {
+    messagePack = false;
+    response = "{\"error\":\"max-select-point limit exceeded\"}\n".getBytes(StandardCharsets.UTF_8);
+
+    query();
+
+    assertFailure("max-select-point limit exceeded");
+  }
+
+  @Test
+  public void testReportsErrorsOfMessagePackStreams() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (MessagePacker packer = MessagePack.newDefaultPacker(bytes)) {
+      packer.packMapHeader(1).packString("error").packString("max-select-point limit exceeded");
+    }
+    response = bytes.toByteArray();
+
+    query();
+
+    assertFailure("max-select-point limit exceeded");
+  }
+
+  private void assertFailure(final String error) {
+    Assertions.assertFalse(completed);
+    Assertions.assertEquals(1, failures.size());
+    Assertions.assertTrue(failures.get(0) instanceof InfluxDBMapperException);
+    Assertions.assertTrue(failures.get(0).getMessage().contains(error));
+  }
+
+  private void query() throws InterruptedException {
+    ResponseFormat format = ResponseFormat.JSON;
+    if (messagePack) {
+      format = ResponseFormat.MSGPACK;
+    }
+    InfluxDB influxDB = InfluxDBFactory.connect("http://localhost:" + server.getAddress().getPort(), "root", "root",
+        new OkHttpClient.Builder(), format);
+    try {
+      new InfluxDBMapper(influxDB).query(new Query("SELECT * FROM cpu", "db"), Cpu.class, 1,
+          (cancellable, cpu) -> mapped.add(cpu), () -> {
+            completed = true;
+            done.countDown();
+          }, failure -> {
+            failures.add(failure);
+            done.countDown();
+          });
+      Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+    } finally {
+      influxDB.close();
+    }
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    exchange.getResponseHeaders().add("Content-Type", messagePack ? "application/x-msgpack" : "application/json");
+    exchange.sendResponseHeaders(200, 0);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(response);
+    }
+  }
+
+  private static byte[] chunk(final long seconds, final int nanos, final double idle, final long load)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (MessagePacker packer = MessagePack.newDefaultPacker(bytes)) {
+      packer.packMapHeader(1).packString("results").packArrayHeader(1)
+          .packMapHeader(2).packString("statement_id").packInt(0).packString("series").packArrayHeader(1)
+          .packMapHeader(4).packString("name").packString("cpu")
+          .packString("tags").packMapHeader(1).packString("host").packString("a")
+          .packString("columns").packArrayHeader(3).packString("time").packString("idle").packString("load")
+          .packString("values").packArrayHeader(1).packArrayHeader(3)
+          .packExtensionTypeHeader((byte) 5, 12)
+          .addPayload(ByteBuffer.allocate(12).putLong(seconds).putInt(nanos).array());
+      packer.packDouble(idle).packLong(load);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Measurement(name = "cpu")
+  static class Cpu {
+
+    @Column(name = "time")
+    private Instant time;
+
+    @Column(name = "host", tag = true)
+    private String host;
+
+    @Column(name = "idle")
+    private double idle;
+
+    @Column(name = "load")
+    private int load;
+  }
+}
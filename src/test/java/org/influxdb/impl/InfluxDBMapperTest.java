@@ -4,7 +4,10 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import org.influxdb.InfluxDB;
@@ -99,6 +102,46 @@ public class InfluxDBMapperTest {
   }
 
 
+  @Test
+  public void testSaveAll() {
+    List<ServerMeasure> serverMeasures = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      ServerMeasure serverMeasure = createMeasure();
+      serverMeasure.setName("server" + i);
+      serverMeasure.setTime(Instant.ofEpochMilli(1_500_000_000_000L + i));
+      serverMeasures.add(serverMeasure);
+    }
+    influxDBMapper.saveAll(serverMeasures);
+
+    List<ServerMeasure> persistedMeasures = influxDBMapper.query(ServerMeasure.class);
+    Assert.assertEquals(3, persistedMeasures.size());
+    Assert.assertEquals(Arrays.asList("server0", "server1", "server2"),
+        Arrays.asList(persistedMeasures.get(0).getName(), persistedMeasures.get(1).getName(),
+            persistedMeasures.get(2).getName()));
+    Assert.assertEquals(serverMeasures.get(2).getTime(), persistedMeasures.get(2).getTime());
+  }
+
+  @Test
+  public void testQueryChunked() throws InterruptedException {
+    for (int i = 0; i < 3; i++) {
+      ServerMeasure serverMeasure = createMeasure();
+      serverMeasure.setTime(Instant.ofEpochMilli(System.currentTimeMillis() - i));
+      influxDBMapper.save(serverMeasure);
+    }
+
+    List<ServerMeasure> persistedMeasures = new ArrayList<>();
+    CountDownLatch countDownLatch = new CountDownLatch(1);
+    influxDBMapper.query(new Query("SELECT * FROM server_measure", UDP_DATABASE), ServerMeasure.class, 2,
+        (cancellable, serverMeasure) -> persistedMeasures.add(serverMeasure),
+        countDownLatch::countDown,
+        throwable -> Assert.fail(throwable.toString()));
+
+    Assert.assertTrue(countDownLatch.await(10, TimeUnit.SECONDS));
+    Assert.assertEquals(3, persistedMeasures.size());
+    Assert.assertEquals("maverick", persistedMeasures.get(0).getName());
+  }
+
+
   @AfterEach
   public void cleanUp() throws Exception {
     influxDB.query(new Query("DROP DATABASE udp", UDP_DATABASE));
@@ -20,6 +20,14 @@
  */
 package org.influxdb.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Date;
@@ -35,10 +43,13 @@ import org.influxdb.InfluxDBMapperException;
 import org.influxdb.annotation.Column;
 import org.influxdb.annotation.Measurement;
 import org.influxdb.dto.QueryResult;
+import org.influxdb.msgpack.MessagePackTraverser;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.platform.runner.JUnitPlatform;
 import org.junit.runner.RunWith;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
 
 /**
  * @author fmachado
@@ -72,6 +83,34 @@ public class InfluxDBResultMapperTest {
     Assertions.assertEquals(1, myList.size(), "there must be one entry in the result list");
   }
 
+  @Test
+  public void testForEachPOJO_OtherMeasurementsAreSkipped() {
+    // Given...
+    QueryResult.Series series = new QueryResult.Series();
+    series.setColumns(Arrays.asList("uuid"));
+    series.setName("CustomMeasurement");
+    series.setValues(Arrays.asList(Arrays.asList("a"), Arrays.asList("b")));
+
+    QueryResult.Series otherSeries = new QueryResult.Series();
+    otherSeries.setColumns(Arrays.asList("uuid"));
+    otherSeries.setName("OtherMeasurement");
+    otherSeries.setValues(Arrays.asList(Arrays.asList("c")));
+
+    QueryResult.Result internalResult = new QueryResult.Result();
+    internalResult.setSeries(Arrays.asList(series, otherSeries));
+
+    QueryResult queryResult = new QueryResult();
+    queryResult.setResults(Arrays.asList(internalResult));
+
+    //When...
+    List<String> uuids = new LinkedList<>();
+    mapper.forEachPOJO(queryResult, MyCustomMeasurement.class, "CustomMeasurement", TimeUnit.MILLISECONDS,
+      measurement -> uuids.add(measurement.uuid));
+
+    // Then...
+    Assertions.assertEquals(Arrays.asList("a", "b"), uuids);
+  }
+
 	@Test
 	public void testThrowExceptionIfMissingAnnotation() {
 		Assertions.assertThrows(IllegalArgumentException.class, () -> {
@@ -409,6 +448,213 @@ public class InfluxDBResultMapperTest {
 		Assertions.assertTrue(result.size() == 1);
 	}
 
+  @Test
+  public void testParseSeriesAs_DifferentColumnLayouts() {
+    // Given...
+    mapper.cacheMeasurementClass(MyCustomMeasurement.class);
+
+    QueryResult.Series first = new QueryResult.Series();
+    first.setColumns(Arrays.asList("uuid", "longPrimitive", "doubleObject"));
+    first.setValues(Arrays.asList(Arrays.asList("a", 1.0, 2.5), Arrays.asList("b", 3.0, null)));
+
+    QueryResult.Series second = new QueryResult.Series();
+    second.setColumns(Arrays.asList("doubleObject", "unknown", "uuid"));
+    second.setValues(Arrays.asList(Arrays.asList(7.5, "ignored", "c")));
+
+    // When...
+    List<MyCustomMeasurement> result = new LinkedList<>();
+    mapper.parseSeriesAs(first, MyCustomMeasurement.class, result);
+    mapper.parseSeriesAs(second, MyCustomMeasurement.class, result);
+
+    // Then...
+    Assertions.assertEquals(3, result.size());
+    Assertions.assertEquals("a", result.get(0).uuid);
+    Assertions.assertEquals(1L, result.get(0).longPrimitive);
+    Assertions.assertEquals(Double.valueOf(2.5), result.get(0).doubleObject);
+    Assertions.assertEquals("b", result.get(1).uuid);
+    Assertions.assertNull(result.get(1).doubleObject);
+    Assertions.assertEquals("c", result.get(2).uuid);
+    Assertions.assertEquals(Double.valueOf(7.5), result.get(2).doubleObject);
+    Assertions.assertSame(mapper.getSeriesMapper(MyCustomMeasurement.class, first.getColumns()),
+      mapper.getSeriesMapper(MyCustomMeasurement.class, Arrays.asList("uuid", "longPrimitive", "doubleObject")));
+  }
+
+  @Test
+  public void testGetSeriesMapper_KeepsTheMostRecentlyUsedLayouts() {
+    // Given...
+    mapper.cacheMeasurementClass(MyCustomMeasurement.class);
+    List<String> first = Arrays.asList("uuid", "layout-0");
+    List<String> recent = Arrays.asList("uuid", "layout-1");
+    SeriesMapper<MyCustomMeasurement> firstMapper = mapper.getSeriesMapper(MyCustomMeasurement.class, first);
+    SeriesMapper<MyCustomMeasurement> recentMapper = mapper.getSeriesMapper(MyCustomMeasurement.class, recent);
+
+    // When...
+    for (int i = 2; i <= InfluxDBResultMapper.MAX_LAYOUTS_PER_CLASS; i++) {
+      mapper.getSeriesMapper(MyCustomMeasurement.class, Arrays.asList("uuid", "layout-" + i));
+      mapper.getSeriesMapper(MyCustomMeasurement.class, recent);
+    }
+
+    // Then...
+    Assertions.assertSame(recentMapper, mapper.getSeriesMapper(MyCustomMeasurement.class, recent));
+    Assertions.assertNotSame(firstMapper, mapper.getSeriesMapper(MyCustomMeasurement.class, first));
+  }
+
+  @Test
+  public void testCacheMeasurementClass_KeepsTheFieldsOfEveryLoadedClass() throws Exception {
+    // Given...
+    String name = MyCustomMeasurement.class.getName();
+    Class<?> reloaded = new ClassLoader(getClass().getClassLoader()) {
+      @Override
+      protected Class<?> loadClass(final String className, final boolean resolve) throws ClassNotFoundException {
+        if (!name.equals(className)) {
+          return super.loadClass(className, resolve);
+        }
+        try {
+          byte[] bytes = Files.readAllBytes(Paths.get(getParent().getResource(
+            className.replace('.', '/') + ".class").toURI()));
+          return defineClass(className, bytes, 0, bytes.length);
+        } catch (IOException | URISyntaxException e) {
+          throw new ClassNotFoundException(className, e);
+        }
+      }
+    }.loadClass(name);
+
+    // When...
+    mapper.cacheMeasurementClass(MyCustomMeasurement.class, reloaded);
+
+    // Then...
+    Assertions.assertEquals(name, reloaded.getName());
+    Assertions.assertNotSame(MyCustomMeasurement.class, reloaded);
+    Assertions.assertSame(MyCustomMeasurement.class,
+      mapper.getColNameAndFieldMap(MyCustomMeasurement.class).get("time").getDeclaringClass());
+    Assertions.assertSame(reloaded, mapper.getColNameAndFieldMap(reloaded).get("time").getDeclaringClass());
+  }
+
+  @Test
+  public void testParseSeriesAs_IntegerWireTypes() {
+    // Given...
+    mapper.cacheMeasurementClass(MyCustomMeasurement.class);
+
+    long large = (1L << 53) + 1;
+    QueryResult.Series series = new QueryResult.Series();
+    series.setColumns(Arrays.asList("time", "longPrimitive", "longObject", "integerPrimitive", "doublePrimitive"));
+    series.setValues(Arrays.asList(
+      Arrays.asList(1_500_000_000_123_456_789L, large, BigInteger.valueOf(large), Long.valueOf(7), 3)));
+
+    // When...
+    List<MyCustomMeasurement> result = new LinkedList<>();
+    mapper.parseSeriesAs(series, MyCustomMeasurement.class, result, TimeUnit.NANOSECONDS);
+
+    // Then...
+    MyCustomMeasurement measurement = result.get(0);
+    Assertions.assertEquals(Instant.ofEpochSecond(1_500_000_000L, 123_456_789L), measurement.time);
+    Assertions.assertEquals(large, measurement.longPrimitive);
+    Assertions.assertEquals(Long.valueOf(large), measurement.longObject);
+    Assertions.assertEquals(7, measurement.integerPrimitive);
+    Assertions.assertEquals(3.0, measurement.doublePrimitive);
+  }
+
+  @Test
+  public void testParseSeriesAs_IntegerOverflow() {
+    // Given...
+    mapper.cacheMeasurementClass(MyCustomMeasurement.class);
+
+    QueryResult.Series series = new QueryResult.Series();
+    series.setColumns(Arrays.asList("longPrimitive", "integerObject"));
+    series.setValues(Arrays.asList(Arrays.asList(BigInteger.ONE.shiftLeft(64), 1)));
+
+    QueryResult.Series intSeries = new QueryResult.Series();
+    intSeries.setColumns(Arrays.asList("integerObject"));
+    intSeries.setValues(Arrays.asList(Arrays.asList(Long.MAX_VALUE)));
+
+    // When/Then...
+    List<MyCustomMeasurement> result = new LinkedList<>();
+    Assertions.assertThrows(InfluxDBMapperException.class,
+      () -> mapper.parseSeriesAs(series, MyCustomMeasurement.class, result));
+    Assertions.assertThrows(InfluxDBMapperException.class,
+      () -> mapper.parseSeriesAs(intSeries, MyCustomMeasurement.class, result));
+  }
+
+  @Test
+  public void testParseSeriesAs_FinalField() {
+    // Given...
+    mapper.cacheMeasurementClass(MyPojoWithFinalField.class);
+
+    QueryResult.Series series = new QueryResult.Series();
+    series.setColumns(Arrays.asList("value"));
+    series.setValues(Arrays.asList(Arrays.asList(42.0)));
+
+    // When...
+    List<MyPojoWithFinalField> result = new LinkedList<>();
+    mapper.parseSeriesAs(series, MyPojoWithFinalField.class, result);
+
+    // Then...
+    Assertions.assertEquals(42L, result.get(0).value);
+  }
+
+  @Test
+  public void testRowVisitor_MapsMessagePackRows() throws IOException {
+    // Given...
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (MessagePacker packer = MessagePack.newDefaultPacker(bytes)) {
+      packer.packMapHeader(1).packString("results").packArrayHeader(1)
+        .packMapHeader(2).packString("statement_id").packInt(0).packString("series").packArrayHeader(2)
+        .packMapHeader(3).packString("name").packString("other")
+        .packString("columns").packArrayHeader(1).packString("uuid")
+        .packString("values").packArrayHeader(1).packArrayHeader(1).packString("skipped")
+        .packMapHeader(4).packString("name").packString("CustomMeasurement")
+        .packString("tags").packMapHeader(1).packString("uuid").packString("tagged")
+        .packString("columns").packArrayHeader(6).packString("time").packString("doublePrimitive")
+        .packString("longObject").packString("booleanPrimitive").packString("integerPrimitive")
+        .packString("unknown")
+        .packString("values").packArrayHeader(2);
+      packer.packArrayHeader(6);
+      packTime(packer, 1_500_000_000L, 123_456_789);
+      packer.packDouble(1.5).packLong(7).packBoolean(true).packLong(3).packString("ignored");
+      packer.packArrayHeader(6);
+      packTime(packer, -1L, 999_999_999);
+      packer.packNil().packNil().packBoolean(false).packDouble(4.0).packNil();
+    }
+
+    // When...
+    List<MyCustomMeasurement> result = new LinkedList<>();
+    QueryResult queryResult = new MessagePackTraverser().parse(new ByteArrayInputStream(bytes.toByteArray()),
+      mapper.rowVisitor(MyCustomMeasurement.class, "CustomMeasurement", result::add));
+
+    // Then...
+    Assertions.assertNull(queryResult.getResults().get(0).getSeries().get(1).getValues());
+    Assertions.assertEquals(2, result.size());
+    MyCustomMeasurement first = result.get(0);
+    Assertions.assertEquals(Instant.ofEpochSecond(1_500_000_000L, 123_456_789L), first.time);
+    Assertions.assertEquals(1.5, first.doublePrimitive);
+    Assertions.assertEquals(Long.valueOf(7), first.longObject);
+    Assertions.assertTrue(first.booleanPrimitive);
+    Assertions.assertEquals(3, first.integerPrimitive);
+    Assertions.assertEquals("tagged", first.uuid);
+    MyCustomMeasurement second = result.get(1);
+    Assertions.assertEquals(Instant.ofEpochSecond(-1L, 999_999_999L), second.time);
+    Assertions.assertNull(second.longObject);
+    Assertions.assertFalse(second.booleanPrimitive);
+    Assertions.assertEquals(4, second.integerPrimitive);
+    Assertions.assertEquals("tagged", second.uuid);
+  }
+
+  private static void packTime(final MessagePacker packer, final long seconds, final int nanos) throws IOException {
+    packer.packExtensionTypeHeader((byte) 5, 12);
+    packer.addPayload(ByteBuffer.allocate(12).putLong(seconds).putInt(nanos).array());
+  }
+
+  @Measurement(name = "final")
+  static class MyPojoWithFinalField {
+
+    @Column(name = "value")
+    private final long value;
+
+    MyPojoWithFinalField() {
+      this.value = 0;
+    }
+  }
+
 	@Measurement(name = "CustomMeasurement")
 	static class MyCustomMeasurement {
 
@@ -0,0 +1,167 @@
+package org.influxdb.impl;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.dto.BoundParameterQuery.QueryBuilder;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.squareup.moshi.JsonAdapter;
+
+import okhttp3.OkHttpClient;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+@RunWith(JUnitPlatform.class)
+public class QueryBatchTest {
+
+  @Test
+  public void testCountStatements() {
+    Assertions.assertEquals(1, QueryBatch.countStatements("SELECT * FROM cpu"));
+    Assertions.assertEquals(1, QueryBatch.countStatements("SELECT * FROM cpu;"));
+    Assertions.assertEquals(2, QueryBatch.countStatements("SELECT * FROM cpu; SELECT * FROM mem;\n"));
+    Assertions.assertEquals(1, QueryBatch.countStatements("SELECT * FROM cpu WHERE host = 'a;b'"));
+    Assertions.assertEquals(1, QueryBatch.countStatements("SELECT * FROM cpu WHERE host = 'it\\'s;'"));
+    Assertions.assertEquals(1, QueryBatch.countStatements("SELECT \"a;b\" FROM cpu"));
+    Assertions.assertEquals(1, QueryBatch.countStatements("SELECT * FROM cpu WHERE host =~ /a;b/"));
+    Assertions.assertEquals(2, QueryBatch.countStatements("SELECT a / 2 FROM cpu; SELECT b / 2 FROM cpu"));
+    Assertions.assertEquals(0, QueryBatch.countStatements(" ; "));
+  }
+
+  @Test
+  public void testPacksQueriesPerDatabase() {
+    List<Query> queries = Arrays.asList(
+        new Query("SELECT * FROM cpu;", "db"),
+        new Query("SELECT * FROM cpu", "other"),
+        new Query("SELECT * FROM mem; SHOW TAG KEYS", "db"),
+        QueryBuilder.newQuery("SELECT * FROM cpu WHERE host = $host").forDatabase("db").bind("host", "a").create(),
+        new Query("SELECT * FROM disk", "db"),
+        new Query("DROP SERIES FROM cpu", "db"),
+        new Query("SELECT * INTO cpu_copy FROM cpu", "db"));
+
+    List<QueryBatch> batches = QueryBatch.pack(queries);
+
+    Assertions.assertEquals(5, batches.size());
+    Assertions.assertSame(queries.get(3), batches.get(0).getQuery());
+    Assertions.assertSame(queries.get(5), batches.get(1).getQuery());
+    Assertions.assertSame(queries.get(6), batches.get(2).getQuery());
+    Query packed = batches.get(3).getQuery();
+    Assertions.assertEquals("SELECT * FROM cpu; SELECT * FROM mem; SHOW TAG KEYS; SELECT * FROM disk",
+        packed.getCommand());
+    Assertions.assertEquals("db", packed.getDatabase());
+    Assertions.assertSame(queries.get(1), batches.get(4).getQuery());
+
+    QueryResult[] results = new QueryResult[queries.size()];
+    Assertions.assertTrue(batches.get(3).split(result(4), results));
+    Assertions.assertEquals(1, results[0].getResults().size());
+    Assertions.assertEquals(2, results[2].getResults().size());
+    Assertions.assertEquals(1, results[4].getResults().size());
+    Assertions.assertEquals("s3", results[4].getResults().get(0).getSeries().get(0).getName());
+    Assertions.assertNull(results[1]);
+  }
+
+  @Test
+  public void testCannotSplitFailedRequest() {
+    List<Query> queries = Arrays.asList(new Query("SELECT * FROM cpu", "db"), new Query("SELECT * FROM", "db"));
+    QueryBatch batch = QueryBatch.pack(queries).get(0);
+
+    QueryResult error = new QueryResult();
+    error.setError("error parsing query");
+    QueryResult[] results = new QueryResult[2];
+    Assertions.assertFalse(batch.split(error, results));
+    Assertions.assertFalse(batch.split(result(3), results));
+
+    List<QueryBatch> singles = batch.unpack();
+    Assertions.assertEquals(2, singles.size());
+    Assertions.assertTrue(singles.get(1).split(error, results));
+    Assertions.assertSame(error, results[1]);
+  }
+
+  @Test
+  public void testQueryListSendsPackedQueriesOneByOneWhenRequestFails() {
+    InfluxDBService influxDBService = mock(InfluxDBService.class);
+    QueryResult error = new QueryResult();
+    error.setError("error parsing query");
+    respond(influxDBService, "SELECT * FROM cpu; SELECT * FROM", error);
+    respond(influxDBService, "SELECT * FROM cpu", result(1));
+    QueryResult singleError = new QueryResult();
+    singleError.setError("error parsing query");
+    respond(influxDBService, "SELECT * FROM", singleError);
+    InfluxDB influxDB = new InfluxDBImpl("http://localhost:8086", "admin", "admin", new OkHttpClient.Builder(),
+        influxDBService, mock(JsonAdapter.class));
+
+    List<QueryResult> results = influxDB.query(
+        Arrays.asList(new Query("SELECT * FROM cpu", "db"), new Query("SELECT * FROM", "db")));
+
+    Assertions.assertEquals("s0", results.get(0).getResults().get(0).getSeries().get(0).getName());
+    Assertions.assertSame(singleError, results.get(1));
+    Assertions.assertTrue(influxDB.query(new ArrayList<>()).isEmpty());
+  }
+
+  @Test
+  public void testQueryListSendsPackedQueriesOneByOneWhenAStatementFails() {
+    InfluxDBService influxDBService = mock(InfluxDBService.class);
+    QueryResult packed = result(3);
+    packed.getResults().get(1).setError("database not found: db");
+    packed.getResults().get(2).setError("not executed");
+    respond(influxDBService, "SELECT * FROM cpu; SELECT * FROM \"other\".\"autogen\".mem; SELECT * FROM disk",
+        packed);
+    respond(influxDBService, "SELECT * FROM cpu", result(1));
+    QueryResult singleError = result(1);
+    singleError.getResults().get(0).setError("database not found: db");
+    respond(influxDBService, "SELECT * FROM \"other\".\"autogen\".mem", singleError);
+    respond(influxDBService, "SELECT * FROM disk", result(1));
+    QueryBatch batch = QueryBatch.pack(Arrays.asList(new Query("SELECT * FROM cpu", "db"),
+        new Query("SELECT * FROM \"other\".\"autogen\".mem", "db"), new Query("SELECT * FROM disk", "db"))).get(0);
+    Assertions.assertFalse(batch.split(packed, new QueryResult[3]));
+    InfluxDB influxDB = new InfluxDBImpl("http://localhost:8086", "admin", "admin", new OkHttpClient.Builder(),
+        influxDBService, mock(JsonAdapter.class));
+
+    List<QueryResult> results = influxDB.query(Arrays.asList(new Query("SELECT * FROM cpu", "db"),
+        new Query("SELECT * FROM \"other\".\"autogen\".mem", "db"), new Query("SELECT * FROM disk", "db")));
+
+    Assertions.assertFalse(results.get(0).hasError());
+    Assertions.assertSame(singleError, results.get(1));
+    Assertions.assertFalse(results.get(2).getResults().get(0).hasError());
+    Assertions.assertEquals("s0", results.get(2).getResults().get(0).getSeries().get(0).getName());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void respond(final InfluxDBService influxDBService, final String command,
+                              final QueryResult result) {
+    Call<QueryResult> call = mock(Call.class);
+    when(influxDBService.query("db", Query.encode(command))).thenReturn(call);
+    doAnswer(invocation -> {
+      Callback<QueryResult> callback = invocation.getArgument(0);
+      callback.onResponse(call, Response.success(result));
+      return null;
+    }).when(call).enqueue(any());
+  }
+
+  private static QueryResult result(final int statements) {
+    List<QueryResult.Result> results = new ArrayList<>();
+    for (int i = 0; i < statements; i++) {
+      QueryResult.Series series = new QueryResult.Series();
+      series.setName("s" + i);
+      QueryResult.Result result = new QueryResult.Result();
+      result.setSeries(new ArrayList<>(Arrays.asList(series)));
+      results.add(result);
+    }
+    QueryResult queryResult = new QueryResult();
+    queryResult.setResults(results);
+    return queryResult;
+  }
+}
@@ -0,0 +1,127 @@
+package org.influxdb.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.influxdb.InfluxDBException;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class QueryCoalescerTest {
+
+  private static final int CALLERS = 8;
+
+  private final QueryCoalescer coalescer = new QueryCoalescer();
+  private final ExecutorService executorService = Executors.newFixedThreadPool(CALLERS);
+  private final AtomicInteger executions = new AtomicInteger();
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @AfterEach
+  public void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  public void testSharesCallOfEqualQueries() throws Exception {
+    QueryResult queryResult = new QueryResult();
+    List<Future<QueryResult>> results = submit(() -> new Query("SELECT * FROM cpu", "db"), query -> queryResult);
+
+    awaitCoalesced(CALLERS - 1);
+    release.countDown();
+
+    for (Future<QueryResult> result : results) {
+      Assertions.assertSame(queryResult, result.get(10, TimeUnit.SECONDS));
+    }
+    Assertions.assertEquals(1, executions.get());
+    Assertions.assertEquals(CALLERS - 1, coalescer.getCoalescedCount());
+
+    coalescer.query(new Query("SELECT * FROM cpu", "db"), null, query -> {
+      executions.incrementAndGet();
+      return queryResult;
+    });
+    Assertions.assertEquals(2, executions.get());
+  }
+
+  @Test
+  public void testSharesException() throws Exception {
+    InfluxDBException exception = new InfluxDBException("timeout");
+    List<Future<QueryResult>> results = submit(() -> new Query("SELECT * FROM cpu", "db"), query -> {
+      throw exception;
+    });
+
+    awaitCoalesced(CALLERS - 1);
+    release.countDown();
+
+    for (Future<QueryResult> result : results) {
+      try {
+        result.get(10, TimeUnit.SECONDS);
+        Assertions.fail("expected an exception");
+      } catch (ExecutionException e) {
+        Assertions.assertSame(exception, e.getCause());
+      }
+    }
+    Assertions.assertEquals(1, executions.get());
+  }
+
+  @Test
+  public void testDoesNotCoalesceDifferentQueries() {
+    Function<Query, QueryResult> executor = query -> {
+      executions.incrementAndGet();
+      // an equal query issued while this one is in flight shares it, a different one does not
+      coalescer.query(new Query("SELECT * FROM cpu", "db"), TimeUnit.SECONDS, q -> {
+        executions.incrementAndGet();
+        return new QueryResult();
+      });
+      coalescer.query(new Query("DROP SERIES FROM cpu", "db"), null, q -> {
+        executions.incrementAndGet();
+        return new QueryResult();
+      });
+      return new QueryResult();
+    };
+
+    coalescer.query(new Query("SELECT * FROM cpu", "db"), null, executor);
+
+    Assertions.assertEquals(3, executions.get());
+    Assertions.assertEquals(0, coalescer.getCoalescedCount());
+  }
+
+  private List<Future<QueryResult>> submit(final Supplier<Query> query,
+                                           final Function<Query, QueryResult> executor) {
+    List<Future<QueryResult>> results = new ArrayList<>();
+    for (int i = 0; i < CALLERS; i++) {
+      results.add(executorService.submit(() -> coalescer.query(query.get(), null, q -> {
+        executions.incrementAndGet();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return executor.apply(q);
+      })));
+    }
+    return results;
+  }
+
+  private void awaitCoalesced(final long count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (coalescer.getCoalescedCount() < count && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    Assertions.assertEquals(count, coalescer.getCoalescedCount());
+  }
+}
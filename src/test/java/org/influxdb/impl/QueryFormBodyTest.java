@@ -0,0 +1,113 @@
+package org.influxdb.impl;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.dto.BoundParameterQuery;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+import com.squareup.moshi.JsonAdapter;
+
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+@RunWith(JUnitPlatform.class)
+public class QueryFormBodyTest {
+
+  @Test
+  public void testEncodesLikeUrlEncoder() throws IOException {
+    String command = "SELECT * FROM \"cpu\" WHERE host =~ /a|b/ AND region = 'äöü € 😀 \uD800 +&=%;'";
+    QueryFormBody body = QueryFormBody.ifLongerThan(command, "%7B%7D", 0);
+
+    Buffer buffer = new Buffer();
+    body.writeTo(buffer);
+
+    String expected = "q=" + Query.encode(command) + "&params=%7B%7D";
+    Assertions.assertEquals(expected, buffer.readUtf8());
+    Assertions.assertEquals(expected.length(), body.contentLength());
+    Assertions.assertEquals("application/x-www-form-urlencoded", body.contentType().toString());
+  }
+
+  @Test
+  public void testOnlyLongQueriesAreSentAsBody() {
+    String command = "SELECT * FROM cpu";
+    int length = "q=".length() + Query.encode(command).length();
+
+    Assertions.assertNull(QueryFormBody.ifLongerThan(command, null, length));
+    Assertions.assertNotNull(QueryFormBody.ifLongerThan(command, null, length - 1));
+    Assertions.assertNotNull(QueryFormBody.ifLongerThan(command, "%7B%7D", length));
+    Assertions.assertNull(QueryFormBody.ifLongerThan(null, null, 0));
+  }
+
+  @Test
+  public void testLongQueriesArePosted() throws IOException {
+    InfluxDBService influxDBService = mock(InfluxDBService.class);
+    Call<QueryResult> call = call();
+    when(influxDBService.query(any(), any(String.class))).thenReturn(call);
+    when(influxDBService.query(any(), any(), any(String.class))).thenReturn(call);
+    when(influxDBService.postQuery(any(), any(), any(RequestBody.class))).thenReturn(call);
+    when(influxDBService.postQuery(any(), any(), any(String.class))).thenReturn(call);
+    InfluxDB influxDB = new InfluxDBImpl("http://localhost:8086", "admin", "admin", new OkHttpClient.Builder(),
+        influxDBService, mock(JsonAdapter.class));
+
+    StringBuilder command = new StringBuilder("SELECT * FROM cpu WHERE host = 'host0'");
+    for (int i = 1; i < 200; i++) {
+      command.append(" OR host = 'host").append(i).append("'");
+    }
+    influxDB.query(new Query("SELECT * FROM cpu", "db"));
+    verify(influxDBService).query("db", Query.encode("SELECT * FROM cpu"));
+
+    influxDB.query(new Query(command.toString(), "db"));
+    influxDB.query(new Query(command.toString(), "db"), TimeUnit.SECONDS);
+    BoundParameterQuery boundParameterQuery = BoundParameterQuery.QueryBuilder.newQuery(command.toString())
+        .forDatabase("db").bind("host", "a").create();
+    influxDB.query(boundParameterQuery);
+
+    ArgumentCaptor<RequestBody> form = ArgumentCaptor.forClass(RequestBody.class);
+    verify(influxDBService, times(2)).postQuery(eq("db"), isNull(), form.capture());
+    verify(influxDBService).postQuery(eq("db"), eq("s"), any(RequestBody.class));
+    Buffer buffer = new Buffer();
+    form.getAllValues().get(0).writeTo(buffer);
+    Assertions.assertEquals("q=" + Query.encode(command.toString()), buffer.readUtf8());
+    form.getAllValues().get(1).writeTo(buffer);
+    Assertions.assertEquals("q=" + Query.encode(command.toString()) + "&params="
+        + boundParameterQuery.getParameterJsonWithUrlEncoded(), buffer.readUtf8());
+
+    influxDB.setQueryFormBodyThreshold(Integer.MAX_VALUE);
+    influxDB.query(new Query(command.toString(), "db"));
+    verify(influxDBService).query("db", Query.encode(command.toString()));
+    influxDB.close();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Call<QueryResult> call() throws IOException {
+    Call<QueryResult> call = mock(Call.class);
+    when(call.execute()).thenReturn(Response.success(new QueryResult()));
+    doAnswer(invocation -> {
+      Callback<QueryResult> callback = invocation.getArgument(0);
+      callback.onResponse(call, Response.success(new QueryResult()));
+      return null;
+    }).when(call).enqueue(any());
+    return call;
+  }
+}
@@ -0,0 +1,258 @@
+package org.influxdb.impl;
+
+import static org.influxdb.querybuilder.BuiltQuery.QueryBuilder.gt;
+import static org.influxdb.querybuilder.BuiltQuery.QueryBuilder.select;
+import static org.influxdb.querybuilder.BuiltQuery.QueryBuilder.subTime;
+import static org.influxdb.querybuilder.BuiltQuery.QueryBuilder.time;
+import static org.influxdb.querybuilder.time.DurationLiteral.MINUTE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.influxdb.QueryCacheOptions;
+import org.influxdb.dto.BoundParameterQuery.QueryBuilder;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryCacheStats;
+import org.influxdb.dto.QueryResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class QueryResultCacheTest {
+
+  private static final long NOW_MILLIS = 1_500_000_000_000L;
+
+  private final AtomicLong nanoTime = new AtomicLong();
+  private final AtomicLong epochMillis = new AtomicLong(NOW_MILLIS);
+  private final AtomicInteger executions = new AtomicInteger();
+  private QueryResultCache cache;
+
+  @BeforeEach
+  public void setUp() {
+    QueryCacheOptions options = QueryCacheOptions.DEFAULTS.ttl(5000).nowRelativeTtl(1000).historicalTtl(60000);
+    cache = new QueryResultCache(options, nanoTime::get, epochMillis::get);
+  }
+
+  @Test
+  public void testCachesReadQueries() {
+    Query query = new Query("SELECT * FROM cpu", "db");
+
+    QueryResult first = cache.query(query, null, loader());
+    QueryResult second = cache.query(new Query("SELECT * FROM cpu", "db"), null, loader());
+    cache.query(query, TimeUnit.SECONDS, loader());
+    cache.query(new Query("SELECT * FROM cpu", "other"), null, loader());
+
+    Assertions.assertSame(first, second);
+    Assertions.assertEquals(3, executions.get());
+    QueryCacheStats stats = cache.stats();
+    Assertions.assertEquals(1, stats.getHitCount());
+    Assertions.assertEquals(3, stats.getMissCount());
+    Assertions.assertEquals(0.25, stats.getHitRatio());
+    Assertions.assertEquals(3, stats.getEntryCount());
+    Assertions.assertTrue(stats.getEstimatedBytes() > 0);
+  }
+
+  @Test
+  public void testBoundParametersArePartOfTheKey() {
+    Query first = QueryBuilder.newQuery("SELECT * FROM cpu WHERE host = $host").forDatabase("db")
+        .bind("host", "a").create();
+    Query second = QueryBuilder.newQuery("SELECT * FROM cpu WHERE host = $host").forDatabase("db")
+        .bind("host", "b").create();
+
+    cache.query(first, null, loader());
+    cache.query(second, null, loader());
+    cache.query(first, null, loader());
+
+    Assertions.assertEquals(2, executions.get());
+  }
+
+  @Test
+  public void testDoesNotCacheWritesAndErrors() {
+    cache.query(new Query("DROP MEASUREMENT cpu", "db"), null, loader());
+    cache.query(new Query("DROP MEASUREMENT cpu", "db"), null, loader());
+    cache.query(new Query("SELECT * INTO cpu_copy FROM cpu", "db"), null, loader());
+    cache.query(new Query("SELECT * INTO cpu_copy FROM cpu", "db"), null, loader());
+    cache.query(new Query("SELECT * FROM cpu; DELETE FROM cpu", "db"), null, loader());
+    cache.query(new Query("SELECT * FROM cpu; DELETE FROM cpu", "db"), null, loader());
+    Assertions.assertEquals(6, executions.get());
+
+    QueryResult error = new QueryResult();
+    error.setError("database not found");
+    cache.query(new Query("SELECT * FROM cpu", "db"), null, query -> error);
+    cache.query(new Query("SELECT * FROM cpu", "db"), null, loader());
+    Assertions.assertEquals(7, executions.get());
+    Assertions.assertEquals(0, cache.stats().getHitCount());
+  }
+
+  @Test
+  public void testTtlByTimeRange() {
+    Assertions.assertEquals(1000, cache.ttl("SELECT mean(value) FROM cpu WHERE time > NOW() - 1h GROUP BY time(1m)"));
+    Assertions.assertEquals(60000, cache.ttl("SELECT * FROM cpu WHERE time < '2017-01-01T00:00:00Z'"));
+    Assertions.assertEquals(60000, cache.ttl("SELECT * FROM cpu WHERE time >= 0 AND TIME <= 1400000000s"));
+    Assertions.assertEquals(5000, cache.ttl("SELECT * FROM cpu WHERE time < '2020-01-01T00:00:00Z'"));
+    Assertions.assertEquals(5000, cache.ttl("SELECT * FROM cpu WHERE time < $end"));
+    Assertions.assertEquals(5000, cache.ttl("SELECT * FROM cpu"));
+    Assertions.assertEquals(5000,
+        cache.ttl("SELECT * FROM cpu WHERE time < '2017-01-01T00:00:00Z'; SELECT * FROM mem"));
+  }
+
+  @Test
+  public void testExpiresEntries() {
+    Query nowRelative = new Query("SELECT * FROM cpu WHERE time > now() - 1m", "db");
+    Query historical = new Query("SELECT * FROM cpu WHERE time < '2017-01-01T00:00:00Z'", "db");
+    cache.query(nowRelative, null, loader());
+    cache.query(historical, null, loader());
+
+    nanoTime.set(TimeUnit.MILLISECONDS.toNanos(999));
+    cache.query(nowRelative, null, loader());
+    Assertions.assertEquals(2, executions.get());
+
+    nanoTime.set(TimeUnit.MILLISECONDS.toNanos(1000));
+    cache.query(nowRelative, null, loader());
+    cache.query(historical, null, loader());
+    Assertions.assertEquals(3, executions.get());
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsedWhenFull() {
+    Query first = new Query("SELECT * FROM first", "db");
+    Query second = new Query("SELECT * FROM second", "db");
+    Query third = new Query("SELECT * FROM third", "db");
+    cache.query(first, null, loader());
+    long bytes = cache.stats().getEstimatedBytes();
+    cache = new QueryResultCache(QueryCacheOptions.DEFAULTS.maxBytes(bytes * 2 + bytes / 2), nanoTime::get,
+        epochMillis::get);
+
+    cache.query(first, null, loader());
+    cache.query(second, null, loader());
+    cache.query(first, null, loader());
+    cache.query(third, null, loader());
+
+    QueryCacheStats stats = cache.stats();
+    Assertions.assertEquals(2, stats.getEntryCount());
+    Assertions.assertEquals(1, stats.getEvictionCount());
+    Assertions.assertTrue(stats.getEstimatedBytes() <= stats.getMaxBytes());
+    int executed = executions.get();
+    cache.query(first, null, loader());
+    Assertions.assertEquals(executed, executions.get());
+    cache.query(second, null, loader());
+    Assertions.assertEquals(executed + 1, executions.get());
+  }
+
+  @Test
+  public void testRefreshesSlidingWindowIncrementally() {
+    cache = new QueryResultCache(QueryCacheOptions.DEFAULTS.nowRelativeTtl(1000).slidingWindows(true),
+        nanoTime::get, epochMillis::get);
+    Query query = select().mean("value").from("db", "cpu").where(gt("time", subTime(10L, MINUTE)))
+        .groupBy(time(1L, MINUTE));
+    long minute = TimeUnit.MINUTES.toMillis(1);
+    long start = NOW_MILLIS - 10 * minute;
+    epochMillis.set(start + 10 * minute + minute / 2);
+
+    List<String> commands = new ArrayList<>();
+    Function<Query, QueryResult> executor = q -> {
+      commands.add(q.getCommand());
+      if (commands.size() == 1) {
+        return result(window(start, 11, 0));
+      }
+      return result(window(start + 2 * minute, 1, 100), window(start + 9 * minute, 4, 200));
+    };
+
+    QueryResult full = cache.query(query, TimeUnit.MILLISECONDS, executor);
+    nanoTime.set(TimeUnit.MILLISECONDS.toNanos(500));
+    Assertions.assertSame(full, cache.query(query, TimeUnit.MILLISECONDS, executor));
+
+    nanoTime.set(TimeUnit.MILLISECONDS.toNanos(1000));
+    epochMillis.addAndGet(2 * minute);
+    QueryResult merged = cache.query(query, TimeUnit.MILLISECONDS, executor);
+
+    Assertions.assertEquals(2, commands.size());
+    Assertions.assertEquals("SELECT MEAN(value) FROM cpu WHERE time > now() - 10m AND time < "
+        + TimeUnit.MILLISECONDS.toNanos(start + 3 * minute) + " GROUP BY time(1m); "
+        + "SELECT MEAN(value) FROM cpu WHERE time >= " + TimeUnit.MILLISECONDS.toNanos(start + 9 * minute)
+        + " GROUP BY time(1m);", commands.get(1));
+    List<List<Object>> values = merged.getResults().get(0).getSeries().get(0).getValues();
+    Assertions.assertEquals(11, values.size());
+    for (int i = 0; i < values.size(); i++) {
+      Assertions.assertEquals(start + (i + 2) * minute, values.get(i).get(0));
+    }
+    Assertions.assertEquals(100.0, values.get(0).get(1));
+    Assertions.assertEquals(3.0, values.get(1).get(1));
+    Assertions.assertEquals(8.0, values.get(6).get(1));
+    Assertions.assertEquals(200.0, values.get(7).get(1));
+    Assertions.assertEquals(203.0, values.get(10).get(1));
+    Assertions.assertEquals(11, full.getResults().get(0).getSeries().get(0).getValues().size());
+    Assertions.assertEquals(1, cache.stats().getIncrementalCount());
+    Assertions.assertSame(merged, cache.query(query, TimeUnit.MILLISECONDS, executor));
+  }
+
+  @Test
+  public void testRefreshesSlidingWindowCompletelyAfterHistoricalTtl() {
+    cache = new QueryResultCache(QueryCacheOptions.DEFAULTS.slidingWindows(true).historicalTtl(60000),
+        nanoTime::get, epochMillis::get);
+    Query query = select().mean("value").from("db", "cpu").where(gt("time", subTime(10L, MINUTE)))
+        .groupBy(time(1L, MINUTE));
+    List<String> commands = new ArrayList<>();
+    Function<Query, QueryResult> executor = q -> {
+      commands.add(q.getCommand());
+      return result(window(NOW_MILLIS - TimeUnit.MINUTES.toMillis(10), 11, 0));
+    };
+
+    cache.query(query, TimeUnit.MILLISECONDS, executor);
+    nanoTime.set(TimeUnit.MILLISECONDS.toNanos(60000));
+    epochMillis.addAndGet(TimeUnit.MINUTES.toMillis(1));
+    cache.query(query, TimeUnit.MILLISECONDS, executor);
+
+    Assertions.assertEquals(2, commands.size());
+    Assertions.assertEquals(query.getCommand(), commands.get(1));
+    Assertions.assertEquals(0, cache.stats().getIncrementalCount());
+  }
+
+  private static QueryResult.Series window(final long startMillis, final int intervals, final double firstValue) {
+    List<List<Object>> values = new ArrayList<>();
+    for (int i = 0; i < intervals; i++) {
+      values.add(Arrays.asList(startMillis + TimeUnit.MINUTES.toMillis(i), firstValue + i));
+    }
+    QueryResult.Series series = new QueryResult.Series();
+    series.setName("cpu");
+    series.setColumns(Arrays.asList("time", "mean"));
+    series.setValues(values);
+    return series;
+  }
+
+  private static QueryResult result(final QueryResult.Series... statementSeries) {
+    List<QueryResult.Result> results = new ArrayList<>();
+    for (QueryResult.Series series : statementSeries) {
+      QueryResult.Result result = new QueryResult.Result();
+      result.setSeries(Collections.singletonList(series));
+      results.add(result);
+    }
+    QueryResult queryResult = new QueryResult();
+    queryResult.setResults(results);
+    return queryResult;
+  }
+
+  private Function<Query, QueryResult> loader() {
+    return query -> {
+      executions.incrementAndGet();
+      QueryResult.Series series = new QueryResult.Series();
+      series.setName("cpu");
+      series.setColumns(Arrays.asList("time", "value"));
+      series.setValues(Collections.singletonList(Arrays.asList("2017-01-01T00:00:00Z", 1.0)));
+      QueryResult.Result result = new QueryResult.Result();
+      result.setSeries(Collections.singletonList(series));
+      QueryResult queryResult = new QueryResult();
+      queryResult.setResults(Collections.singletonList(result));
+      return queryResult;
+    };
+  }
+}
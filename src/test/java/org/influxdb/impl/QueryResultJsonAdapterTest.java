@@ -0,0 +1,72 @@
+package org.influxdb.impl;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.influxdb.dto.QueryResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import okio.Buffer;
+
+@RunWith(JUnitPlatform.class)
+public class QueryResultJsonAdapterTest {
+
+  private final QueryResultJsonAdapter adapter = new QueryResultJsonAdapter();
+
+  @Test
+  public void testTimeColumnKeepsLongPrecision() throws IOException {
+    String json = "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"tags\":{\"host\":\"a\"},"
+        + "\"columns\":[\"time\",\"value\",\"text\",\"flag\"],"
+        + "\"values\":[[1532325083803052601,90,\"x\",true],[1532325083803052602,1.5,null,false]]}]}]}";
+
+    QueryResult result = adapter.fromJson(json);
+
+    QueryResult.Series series = result.getResults().get(0).getSeries().get(0);
+    Assertions.assertEquals("cpu", series.getName());
+    Assertions.assertEquals("a", series.getTags().get("host"));
+    List<Object> first = series.getValues().get(0);
+    Assertions.assertEquals(1532325083803052601L, first.get(0));
+    Assertions.assertEquals(90.0, first.get(1));
+    Assertions.assertEquals("x", first.get(2));
+    Assertions.assertEquals(true, first.get(3));
+    List<Object> second = series.getValues().get(1);
+    Assertions.assertEquals(1532325083803052602L, second.get(0));
+    Assertions.assertEquals(1.5, second.get(1));
+    Assertions.assertNull(second.get(2));
+  }
+
+  @Test
+  public void testRfc3339TimeAndErrors() throws IOException {
+    String json = "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"columns\":[\"time\",\"value\"],"
+        + "\"values\":[[\"2015-06-06T14:55:27.195Z\",90]],\"partial\":true}],\"messages\":[{\"level\":\"warning\"}]},"
+        + "{\"statement_id\":1,\"error\":\"database not found: mydb\"}],\"error\":\"partial failure\"}";
+
+    QueryResult result = adapter.fromJson(json);
+
+    Assertions.assertEquals("partial failure", result.getError());
+    Assertions.assertEquals("2015-06-06T14:55:27.195Z",
+        result.getResults().get(0).getSeries().get(0).getValues().get(0).get(0));
+    Assertions.assertNull(result.getResults().get(1).getSeries());
+    Assertions.assertEquals("database not found: mydb", result.getResults().get(1).getError());
+  }
+
+  @Test
+  public void testReadsConcatenatedChunks() throws IOException {
+    Buffer source = new Buffer().writeUtf8("{\"results\":[{\"statement_id\":0}]}\n{\"results\":[{\"statement_id\":0}]}\n");
+
+    Assertions.assertNotNull(adapter.fromJson(source));
+    Assertions.assertNotNull(adapter.fromJson(source));
+    Assertions.assertThrows(java.io.EOFException.class, () -> adapter.fromJson(source));
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    String json = "{\"results\":[{\"series\":[{\"name\":\"cpu\",\"tags\":{\"host\":\"a\"},"
+        + "\"columns\":[\"time\",\"value\"],\"values\":[[1,2.5]]}]}]}";
+
+    Assertions.assertEquals(json, adapter.toJson(adapter.fromJson(json)));
+  }
+}
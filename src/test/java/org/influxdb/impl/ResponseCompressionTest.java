@@ -0,0 +1,179 @@
+package org.influxdb.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDB.ResponseFormat;
+import org.influxdb.InfluxDBFactory;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import okhttp3.OkHttpClient;
+
+@RunWith(JUnitPlatform.class)
+public class ResponseCompressionTest {
+
+  private final List<String> encodings = new CopyOnWriteArrayList<>();
+  private final List<Boolean> streamed = new CopyOnWriteArrayList<>();
+  private final CountDownLatch firstChunk = new CountDownLatch(1);
+  private volatile boolean messagePack;
+  private ExecutorService executor;
+  private HttpServer server;
+  private String url;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    executor = Executors.newCachedThreadPool();
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/query", this::handle);
+    server.createContext("/ping", exchange -> {
+      exchange.getResponseHeaders().add("X-Influxdb-Version", "1.7.0");
+      exchange.sendResponseHeaders(204, -1);
+      exchange.close();
+    });
+    server.setExecutor(executor);
+    server.start();
+    url = "http://localhost:" + server.getAddress().getPort();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testDecodesCompressedResponses() {
+    InfluxDB influxDB = InfluxDBFactory.connect(url);
+    try {
+      Assertions.assertTrue(influxDB.isResponseCompressionEnabled());
+      QueryResult result = influxDB.query(new Query("SELECT * FROM cpu", "db"));
+      Assertions.assertEquals(Arrays.asList(1.0), result.getResults().get(0).getSeries().get(0).getValues().get(0));
+
+      influxDB.disableResponseCompression();
+      result = influxDB.query(new Query("SELECT * FROM cpu", "db"));
+      Assertions.assertEquals(Arrays.asList(1.0), result.getResults().get(0).getSeries().get(0).getValues().get(0));
+      Assertions.assertEquals(Arrays.asList("gzip", "identity"), encodings);
+    } finally {
+      influxDB.close();
+    }
+  }
+
+  @Test
+  public void testDecodesCompressedJsonChunksAsTheyArrive() throws InterruptedException {
+    InfluxDB influxDB = InfluxDBFactory.connect(url);
+    try {
+      Assertions.assertEquals(Arrays.asList(1.0, 2.0), queryChunked(influxDB));
+    } finally {
+      influxDB.close();
+    }
+    Assertions.assertEquals(Arrays.asList("gzip"), encodings);
+    Assertions.assertEquals(Arrays.asList(true), streamed);
+  }
+
+  @Test
+  public void testDecodesCompressedMessagePackChunksAsTheyArrive() throws InterruptedException {
+    messagePack = true;
+    InfluxDB influxDB = InfluxDBFactory.connect(url, "root", "root", new OkHttpClient.Builder(),
+        ResponseFormat.MSGPACK);
+    try {
+      Assertions.assertEquals(Arrays.asList(1.0, 2.0), queryChunked(influxDB));
+    } finally {
+      influxDB.close();
+    }
+    Assertions.assertEquals(Arrays.asList("gzip"), encodings);
+    Assertions.assertEquals(Arrays.asList(true), streamed);
+  }
+
+  private List<Object> queryChunked(final InfluxDB influxDB) throws InterruptedException {
+    List<Object> values = new CopyOnWriteArrayList<>();
+    CountDownLatch completed = new CountDownLatch(1);
+    influxDB.query(new Query("SELECT * FROM cpu", "db"), 1, result -> {
+      if (result.getError() == null) {
+        values.add(((Number) result.getResults().get(0).getSeries().get(0).getValues().get(0).get(0))
+            .doubleValue());
+        firstChunk.countDown();
+      }
+    }, completed::countDown);
+    Assertions.assertTrue(completed.await(10, TimeUnit.SECONDS));
+    return values;
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    String encoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+    encodings.add(encoding);
+    boolean chunked = exchange.getRequestURI().getRawQuery().contains("chunked=true");
+    boolean gzip = "gzip".equals(encoding);
+    List<byte[]> chunks = new ArrayList<>();
+    chunks.add(chunk(1.0, chunked));
+    if (chunked) {
+      chunks.add(chunk(2.0, false));
+    }
+
+    exchange.getResponseHeaders().add("Content-Type", messagePack ? "application/x-msgpack" : "application/json");
+    if (gzip) {
+      exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+    }
+    exchange.sendResponseHeaders(200, 0);
+    OutputStream body = exchange.getResponseBody();
+    if (gzip) {
+      body = new GZIPOutputStream(body, true);
+    }
+    try (OutputStream out = body) {
+      for (int i = 0; i < chunks.size(); i++) {
+        if (i > 0) {
+          // the next chunk is only sent once the client decoded the previous one
+          try {
+            streamed.add(firstChunk.await(5, TimeUnit.SECONDS));
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+        out.write(chunks.get(i));
+        out.flush();
+      }
+    }
+  }
+
+  private byte[] chunk(final double value, final boolean partial) throws IOException {
+    if (!messagePack) {
+      return ("{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"columns\":[\"value\"],"
+          + "\"values\":[[" + value + "]]" + (partial ? ",\"partial\":true" : "") + "}]}]}\n")
+          .getBytes(StandardCharsets.UTF_8);
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (MessagePacker packer = MessagePack.newDefaultPacker(bytes)) {
+      packer.packMapHeader(1).packString("results").packArrayHeader(1)
+          .packMapHeader(2).packString("statement_id").packInt(0).packString("series").packArrayHeader(1)
+          .packMapHeader(3).packString("name").packString("cpu")
+          .packString("columns").packArrayHeader(1).packString("value")
+          .packString("values").packArrayHeader(1).packArrayHeader(1).packDouble(value);
+    }
+    return bytes.toByteArray();
+  }
+}
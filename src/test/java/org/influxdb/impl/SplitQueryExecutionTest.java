@@ -0,0 +1,137 @@
+package org.influxdb.impl;
+
+import static org.influxdb.querybuilder.BuiltQuery.QueryBuilder.desc;
+import static org.influxdb.querybuilder.BuiltQuery.QueryBuilder.select;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.influxdb.InfluxDBException;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.influxdb.querybuilder.TimeRangeSplit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class SplitQueryExecutionTest {
+
+  private static final Instant FROM = Instant.ofEpochSecond(0);
+
+  private final Map<Query, CompletableFuture<QueryResult>> calls = new LinkedHashMap<>();
+  private final List<QueryResult> emitted = new ArrayList<>();
+  private final AtomicBoolean completed = new AtomicBoolean();
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  @Test
+  public void testEmitsInTimeOrderWithBoundedConcurrency() {
+    TimeRangeSplit split = TimeRangeSplit.of(select().from("db", "cpu"), FROM, FROM.plusNanos(4), 4);
+    execute(split, 2);
+
+    Assertions.assertEquals(split.getQueries().subList(0, 2), new ArrayList<>(calls.keySet()));
+    complete(split, 1, series("cpu", 1L));
+    Assertions.assertTrue(emitted.isEmpty());
+    Assertions.assertEquals(2, calls.size());
+
+    complete(split, 0, series("cpu", 0L));
+    Assertions.assertEquals(2, emitted.size());
+    Assertions.assertEquals(4, calls.size());
+
+    complete(split, 3, series("cpu", 3L));
+    complete(split, 2, series("cpu", 2L), series("mem", 2L));
+    Assertions.assertTrue(completed.get());
+
+    QueryResult merged = SplitQueryExecution.merge(emitted);
+    List<QueryResult.Series> series = merged.getResults().get(0).getSeries();
+    Assertions.assertEquals(2, series.size());
+    Assertions.assertEquals(Arrays.asList(Arrays.asList(0L, 0L), Arrays.asList(1L, 1L), Arrays.asList(2L, 2L),
+        Arrays.asList(3L, 3L)), series.get(0).getValues());
+    Assertions.assertEquals("mem", series.get(1).getName());
+  }
+
+  @Test
+  public void testAppliesOffsetAndLimitPerSeriesInDescendingOrder() {
+    TimeRangeSplit split = TimeRangeSplit.of(select().from("db", "cpu").orderBy(desc()).limit(2, 1), FROM,
+        FROM.plusNanos(2), 2);
+    execute(split, 1);
+
+    Assertions.assertEquals(split.getQueries().get(1), calls.keySet().iterator().next());
+    complete(split, 1, series("cpu", 5L, 4L), series("mem", 5L));
+    complete(split, 0, series("cpu", 1L, 0L), series("mem", 1L, 0L));
+
+    Assertions.assertTrue(completed.get());
+    QueryResult merged = SplitQueryExecution.merge(emitted);
+    List<QueryResult.Series> series = merged.getResults().get(0).getSeries();
+    Assertions.assertEquals(Arrays.asList(Arrays.asList(4L, 4L), Arrays.asList(1L, 1L)), series.get(0).getValues());
+    Assertions.assertEquals(Arrays.asList(Arrays.asList(1L, 1L), Arrays.asList(0L, 0L)), series.get(1).getValues());
+  }
+
+  @Test
+  public void testMergesDifferentColumns() {
+    QueryResult.Series first = series("cpu", 0L);
+    QueryResult.Series second = series("cpu", 1L);
+    second.setColumns(Arrays.asList("other", "time"));
+
+    QueryResult merged = SplitQueryExecution.merge(Arrays.asList(result(first), result(second)));
+
+    QueryResult.Series series = merged.getResults().get(0).getSeries().get(0);
+    Assertions.assertEquals(Arrays.asList("time", "value", "other"), series.getColumns());
+    Assertions.assertEquals(Arrays.asList(Arrays.asList(0L, 0L, null), Arrays.asList(1L, null, 1L)),
+        series.getValues());
+  }
+
+  @Test
+  public void testFailureCancelsStatementsInFlight() {
+    TimeRangeSplit split = TimeRangeSplit.of(select().from("db", "cpu"), FROM, FROM.plusNanos(3), 3);
+    execute(split, 3);
+
+    QueryResult error = new QueryResult();
+    error.setError("database not found: db");
+    calls.get(split.getQueries().get(1)).complete(error);
+
+    Assertions.assertTrue(failure.get() instanceof InfluxDBException);
+    Assertions.assertTrue(calls.get(split.getQueries().get(0)).isCancelled());
+    Assertions.assertTrue(calls.get(split.getQueries().get(2)).isCancelled());
+    Assertions.assertFalse(completed.get());
+    Assertions.assertTrue(emitted.isEmpty());
+  }
+
+  private void execute(final TimeRangeSplit split, final int maxConcurrency) {
+    SplitQueryExecution.execute(split, query -> calls.computeIfAbsent(query, q -> new CompletableFuture<>()),
+        maxConcurrency, emitted::add, () -> completed.set(true), failure::set);
+  }
+
+  private void complete(final TimeRangeSplit split, final int index, final QueryResult.Series... series) {
+    calls.get(split.getQueries().get(index)).complete(result(series));
+  }
+
+  private static QueryResult result(final QueryResult.Series... series) {
+    QueryResult.Result result = new QueryResult.Result();
+    result.setSeries(Arrays.asList(series));
+    QueryResult queryResult = new QueryResult();
+    queryResult.setResults(Collections.singletonList(result));
+    return queryResult;
+  }
+
+  private static QueryResult.Series series(final String name, final Long... times) {
+    QueryResult.Series series = new QueryResult.Series();
+    series.setName(name);
+    series.setColumns(Arrays.asList("time", "value"));
+    List<List<Object>> values = new ArrayList<>();
+    for (Long time : times) {
+      values.add(Arrays.asList(time, time));
+    }
+    series.setValues(values);
+    return series;
+  }
+}
@@ -0,0 +1,216 @@
+package org.influxdb.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.influxdb.CompressionCodec;
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDB.ConsistencyLevel;
+import org.influxdb.InfluxDB.LogLevel;
+import org.influxdb.InfluxDBFactory;
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Measurement;
+import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.Point;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import okio.Buffer;
+
+@RunWith(JUnitPlatform.class)
+public class StreamingWriteTest {
+
+  private static final String RECORDS = "cpu,host=a value=1 1\ncpu,host=b value=2 2\n";
+
+  private final List<String> bodies = new CopyOnWriteArrayList<>();
+  private final List<String> lengths = new CopyOnWriteArrayList<>();
+  private final List<String> queries = new CopyOnWriteArrayList<>();
+  private HttpServer server;
+  private InfluxDB influxDB;
+  private Path file;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    file = Files.createTempFile("records", ".lp");
+    Files.write(file, RECORDS.getBytes(StandardCharsets.UTF_8));
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/write", this::handle);
+    server.start();
+    influxDB = InfluxDBFactory.connect("http://localhost:" + server.getAddress().getPort());
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    influxDB.close();
+    server.stop(0);
+    Files.delete(file);
+  }
+
+  @Test
+  public void testBodiesStreamTheRecords() throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(("#" + RECORDS).getBytes(StandardCharsets.UTF_8));
+    buffer.position(1);
+    ByteBufferRequestBody byteBufferBody = new ByteBufferRequestBody(buffer);
+    PathRequestBody pathBody = new PathRequestBody(file);
+    InputStreamRequestBody inputStreamBody = new InputStreamRequestBody(
+        new ByteArrayInputStream(RECORDS.getBytes(StandardCharsets.UTF_8)));
+
+    Assertions.assertEquals(RECORDS.length(), byteBufferBody.contentLength());
+    Assertions.assertEquals(RECORDS.length(), pathBody.contentLength());
+    Assertions.assertEquals(-1, inputStreamBody.contentLength());
+    for (int i = 0; i < 2; i++) {
+      Assertions.assertEquals(RECORDS, written(byteBufferBody));
+      Assertions.assertEquals(RECORDS, written(pathBody));
+    }
+    Assertions.assertEquals(1, buffer.position());
+    Assertions.assertEquals(RECORDS, written(inputStreamBody));
+    Assertions.assertThrows(IOException.class, () -> written(inputStreamBody));
+  }
+
+  @Test
+  public void testWritesCompressedStreams() {
+    influxDB.enableGzip().setGzipThreshold(0);
+    byte[] records = RECORDS.getBytes(StandardCharsets.UTF_8);
+
+    influxDB.write("db", null, ConsistencyLevel.ONE, TimeUnit.SECONDS, new ByteArrayInputStream(records));
+    influxDB.write("db", null, ConsistencyLevel.ONE, TimeUnit.SECONDS, file);
+    influxDB.write("db", null, ConsistencyLevel.ONE, TimeUnit.SECONDS, records);
+    influxDB.setLogLevel(LogLevel.FULL);
+    influxDB.write("db", null, ConsistencyLevel.ONE, TimeUnit.SECONDS, new ByteArrayInputStream(records));
+    influxDB.setCompressionCodec(CompressionCodec.deflate(Deflater.BEST_SPEED));
+    influxDB.write("db", null, ConsistencyLevel.ONE, TimeUnit.SECONDS, file);
+
+    Assertions.assertEquals(Arrays.asList("gzip " + RECORDS, "gzip " + RECORDS, "gzip " + RECORDS,
+        "gzip " + RECORDS, "deflate " + RECORDS), bodies);
+  }
+
+  @Test
+  public void testSendsSmallBodiesUncompressed() {
+    influxDB.enableGzip().setGzipLevel(Deflater.BEST_SPEED).setGzipThreshold(RECORDS.length() + 1);
+    byte[] records = RECORDS.getBytes(StandardCharsets.UTF_8);
+
+    influxDB.write("db", null, ConsistencyLevel.ONE, TimeUnit.SECONDS, records);
+    influxDB.write("db", null, ConsistencyLevel.ONE, TimeUnit.SECONDS, new ByteArrayInputStream(records));
+    influxDB.setGzipThreshold(RECORDS.length());
+    influxDB.write("db", null, ConsistencyLevel.ONE, TimeUnit.SECONDS, records);
+
+    Assertions.assertEquals(Arrays.asList("null " + RECORDS, "gzip " + RECORDS, "gzip " + RECORDS), bodies);
+    Assertions.assertThrows(IllegalArgumentException.class, () -> influxDB.setGzipLevel(10));
+  }
+
+  @Test
+  public void testPrecompressesBatchesAboveTheThreshold() {
+    influxDB.enableGzip().setGzipLevel(Deflater.BEST_SPEED);
+    BatchPoints small = batch(1, "");
+    BatchPoints large = batch(100, "");
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 1024; i++) {
+      text.append("abcd");
+    }
+    BatchPoints huge = batch((int) (GzipRequestInterceptor.MAX_PRECOMPRESSED_LENGTH / text.length()) + 1,
+        text.toString());
+
+    influxDB.write(small);
+    influxDB.write(large);
+    influxDB.write(huge);
+
+    Assertions.assertEquals(Arrays.asList("null " + small.lineProtocol(), "gzip " + large.lineProtocol(),
+        "gzip " + huge.lineProtocol()), bodies);
+    // batches below the limit are compressed before they are sent and have a length, larger ones are chunked
+    Assertions.assertEquals(String.valueOf(small.lineProtocol().length()), lengths.get(0));
+    Assertions.assertNotNull(lengths.get(1));
+    Assertions.assertEquals("chunked", lengths.get(2));
+  }
+
+  @Test
+  public void testSavesMeasurementsWithoutDatabaseAsABatch() {
+    influxDB.setDatabase("default").setConsistency(ConsistencyLevel.ALL);
+    Cpu first = new Cpu();
+    first.host = "a";
+    first.value = 1;
+    first.time = Instant.ofEpochSecond(1);
+    Cpu second = new Cpu();
+    second.host = "b";
+    second.value = 2;
+    second.time = Instant.ofEpochSecond(2);
+
+    new InfluxDBMapper(influxDB).saveAll(Arrays.asList(first, second));
+
+    Assertions.assertEquals(Arrays.asList("null cpu,host=a value=1.0 1000000000\ncpu,host=b value=2.0 2000000000\n"), bodies);
+    Assertions.assertEquals(Arrays.asList("db=default&rp=autogen&precision=n&consistency=one"), queries);
+  }
+
+  private static BatchPoints batch(final int points, final String text) {
+    BatchPoints batchPoints = BatchPoints.database("db").build();
+    for (int i = 0; i < points; i++) {
+      batchPoints.point(Point.measurement("cpu").tag("host", "server" + i).addField("value", i)
+          .addField("text", text).time(i, TimeUnit.SECONDS).build());
+    }
+    return batchPoints;
+  }
+
+  private static String written(final okhttp3.RequestBody body) throws IOException {
+    Buffer buffer = new Buffer();
+    body.writeTo(buffer);
+    return buffer.readUtf8();
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+    String length = exchange.getRequestHeaders().getFirst("Content-Length");
+    if (length == null) {
+      length = exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+    }
+    lengths.add(length);
+    queries.add(exchange.getRequestURI().getQuery());
+    InputStream in = exchange.getRequestBody();
+    if ("gzip".equals(encoding)) {
+      in = new GZIPInputStream(in);
+    } else if ("deflate".equals(encoding)) {
+      in = new InflaterInputStream(in);
+    }
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+      body.write(buffer, 0, read);
+    }
+    bodies.add(encoding + " " + new String(body.toByteArray(), StandardCharsets.UTF_8));
+    exchange.sendResponseHeaders(204, -1);
+    exchange.close();
+  }
+
+  @Measurement(name = "cpu")
+  static class Cpu {
+
+    @Column(name = "time")
+    private Instant time;
+
+    @Column(name = "host", tag = true)
+    private String host;
+
+    @Column(name = "value")
+    private double value;
+  }
+}
@@ -1,6 +1,15 @@
 package org.influxdb.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Test;
 import org.junit.platform.runner.JUnitPlatform;
@@ -21,4 +30,63 @@ public class TimeUtilTest {
         assertThat(TimeUtil.fromInfluxDBTimeFormat("2016-10-31T16:52:20Z")).isEqualTo(1477932740000L);
         assertThat(TimeUtil.fromInfluxDBTimeFormat("2016-10-31T06:52:20Z")).isEqualTo(1477896740000L);
     }
+
+    @Test
+    public void testParseEpochNanos() {
+        assertThat(TimeUtil.parseEpochNanos("2016-10-31T06:52:20.020450123Z")).isEqualTo(1477896740020450123L);
+        assertThat(TimeUtil.parseEpochNanos("2016-10-31T08:52:20.02045+02:00")).isEqualTo(1477896740020450000L);
+        assertThat(TimeUtil.parseEpochNanos("2016-10-31T06:22:20-0030")).isEqualTo(1477896740000000000L);
+        assertThat(TimeUtil.parseEpochNanos("1969-12-31T23:59:59.999999999Z")).isEqualTo(-1L);
+        assertThat(TimeUtil.parseEpochNanos("2016-02-29T00:00:00Z")).isEqualTo(1456704000000000000L);
+    }
+
+    @Test
+    public void testParseEpochNanosRejectsMalformedTimes() {
+        String[] malformed = {"", "2016-10-31", "2016-10-31T06:52:20", "2016-10-31 06:52:20Z",
+            "2016-13-31T06:52:20Z", "2015-02-29T06:52:20Z", "2016-10-31T24:00:00Z", "2016-10-31T06:52:20.Z",
+            "2016-10-31T06:52:20.0123456789Z", "2016-10-31T06:52:20Zx", "2016-10-31T06:52:20+2", "2016-1a-31T06:52:20Z",
+            "2300-01-01T00:00:00Z"};
+        for (String time : malformed) {
+            assertThatThrownBy(() -> TimeUtil.parseEpochNanos(time)).as(time)
+                .isInstanceOf(DateTimeParseException.class);
+        }
+    }
+
+    @Test
+    public void testFormatEpochNanos() {
+        assertThat(TimeUtil.formatEpochNanos(1477896740020450000L)).isEqualTo("2016-10-31T06:52:20.02045Z");
+        assertThat(TimeUtil.formatEpochNanos(1477896740000000000L)).isEqualTo("2016-10-31T06:52:20Z");
+        assertThat(TimeUtil.formatEpochNanos(-1L)).isEqualTo("1969-12-31T23:59:59.999999999Z");
+    }
+
+    @Test
+    public void testAgainstDateTimeFormatterOnRandomTimes() {
+        Random random = new Random(42);
+        DateTimeFormatter offsetFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSSSxxx");
+        DateTimeFormatter millisFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+            .withZone(ZoneOffset.UTC);
+        for (int i = 0; i < 100_000; i++) {
+            long epochNanos = random.nextLong();
+            Instant instant = Instant.ofEpochSecond(0, epochNanos);
+            if (i % 3 == 0) {
+                epochNanos = TimeUnit.SECONDS.toNanos(instant.getEpochSecond());
+                instant = Instant.ofEpochSecond(instant.getEpochSecond());
+            }
+
+            String formatted = TimeUtil.formatEpochNanos(epochNanos);
+            assertThat(Instant.parse(formatted)).isEqualTo(instant);
+            assertThat(TimeUtil.parseEpochNanos(formatted)).isEqualTo(epochNanos);
+            assertThat(TimeUtil.parseEpochNanos(DateTimeFormatter.ISO_INSTANT.format(instant))).isEqualTo(epochNanos);
+            assertThat(TimeUtil.parseInstant(formatted)).isEqualTo(instant);
+
+            ZoneOffset offset = ZoneOffset.ofTotalSeconds((random.nextInt(36 * 4) - 18 * 4) * 15 * 60);
+            String withOffset = offsetFormatter.format(OffsetDateTime.ofInstant(instant, offset));
+            assertThat(TimeUtil.parseEpochNanos(withOffset)).as(withOffset).isEqualTo(epochNanos);
+
+            long epochMillis = Math.floorDiv(epochNanos, 1_000_000L);
+            String millis = TimeUtil.toInfluxDBTimeFormat(epochMillis);
+            assertThat(millis).isEqualTo(millisFormatter.format(Instant.ofEpochMilli(epochMillis)));
+            assertThat(TimeUtil.fromInfluxDBTimeFormat(millis)).isEqualTo(epochMillis);
+        }
+    }
 }
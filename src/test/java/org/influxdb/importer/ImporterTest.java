@@ -0,0 +1,148 @@
+package org.influxdb.importer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+@RunWith(JUnitPlatform.class)
+public class ImporterTest {
+
+  private final List<String> bodies = new CopyOnWriteArrayList<>();
+  private final List<String> requests = new CopyOnWriteArrayList<>();
+  private final AtomicInteger unavailable = new AtomicInteger();
+  private volatile String error;
+  private ExecutorService executor;
+  private HttpServer server;
+  private InfluxDB influxDB;
+  private Path file;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    file = Files.createTempFile("import", ".lp");
+    executor = Executors.newCachedThreadPool();
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/write", this::handle);
+    server.setExecutor(executor);
+    server.start();
+    influxDB = InfluxDBFactory.connect("http://localhost:" + server.getAddress().getPort());
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    influxDB.close();
+    server.stop(0);
+    executor.shutdownNow();
+    Files.delete(file);
+  }
+
+  @Test
+  public void testImportsChunksInParallel() throws Exception {
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      lines.add("cpu,host=server" + i + " value=" + i + " " + i);
+    }
+    Files.write(file, lines, StandardCharsets.UTF_8);
+    influxDB.enableGzip().setGzipThreshold(0);
+    List<ImportStats> progress = new CopyOnWriteArrayList<>();
+
+    ImportStats stats = new Importer(influxDB, ImportOptions.DEFAULTS.chunkSize(200).precision(TimeUnit.SECONDS)
+        .progressListener(progress::add)).importFile(file, "db", "autogen");
+
+    Assertions.assertEquals(Files.size(file), stats.getBytes());
+    Assertions.assertEquals(Files.size(file), stats.getWrittenBytes());
+    Assertions.assertEquals(bodies.size(), stats.getChunks());
+    Assertions.assertEquals(bodies.size(), progress.size());
+    Assertions.assertTrue(bodies.size() > 10);
+    List<String> received = new ArrayList<>();
+    for (String body : bodies) {
+      Assertions.assertTrue(body.length() <= 200);
+      Assertions.assertTrue(body.endsWith("\n"));
+      received.addAll(Arrays.asList(body.split("\n")));
+    }
+    Collections.sort(received);
+    Collections.sort(lines);
+    Assertions.assertEquals(lines, received);
+    for (String request : requests) {
+      Assertions.assertTrue(request.startsWith("gzip db=db&rp=autogen&precision=s"), request);
+    }
+  }
+
+  @Test
+  public void testRetriesUnavailableServer() throws Exception {
+    Files.write(file, "cpu value=1 1\ncpu value=2 2".getBytes(StandardCharsets.UTF_8));
+    unavailable.set(2);
+
+    ImportStats stats = new Importer(influxDB, ImportOptions.DEFAULTS.retryInterval(1)).importFile(file, "db", null);
+
+    Assertions.assertEquals(2, stats.getRetries());
+    Assertions.assertEquals(Collections.singletonList("cpu value=1 1\ncpu value=2 2"), bodies);
+  }
+
+  @Test
+  public void testFailsOnErrorsThatAreNotWorthARetry() throws Exception {
+    Files.write(file, "cpu value=1 1\ncpu value=\n".getBytes(StandardCharsets.UTF_8));
+    error = "unable to parse 'cpu value=': missing field value";
+
+    Assertions.assertThrows(InfluxDBException.UnableToParseException.class,
+        () -> new Importer(influxDB, ImportOptions.DEFAULTS.retryInterval(1)).importFile(file, "db", null));
+    Assertions.assertEquals(1, requests.size());
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+    requests.add(encoding + " " + exchange.getRequestURI().getRawQuery());
+    InputStream in = exchange.getRequestBody();
+    if ("gzip".equals(encoding)) {
+      in = new GZIPInputStream(in);
+    }
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+      body.write(buffer, 0, read);
+    }
+    if (error != null) {
+      respond(exchange, 400, "{\"error\":\"" + error + "\"}");
+    } else if (unavailable.getAndDecrement() > 0) {
+      respond(exchange, 503, "{\"error\":\"timeout\"}");
+    } else {
+      bodies.add(new String(body.toByteArray(), StandardCharsets.UTF_8));
+      exchange.sendResponseHeaders(204, -1);
+      exchange.close();
+    }
+  }
+
+  private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, bytes.length);
+    exchange.getResponseBody().write(bytes);
+    exchange.close();
+  }
+}
@@ -0,0 +1,64 @@
+package org.influxdb.importer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitPlatform.class)
+public class LineChunkerTest {
+
+  private Path file;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    file = Files.createTempFile("chunks", ".lp");
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    Files.delete(file);
+  }
+
+  @Test
+  public void testSplitsAtNewlines() throws IOException {
+    Assertions.assertEquals(Arrays.asList("a\nbb\n", "ccc\n", "dddddddd\n", "e"),
+        chunks("a\nbb\nccc\ndddddddd\ne", 6, 1024));
+    Assertions.assertEquals(Arrays.asList("a\nbb\nccc\n", "dddddddd\ne"),
+        chunks("a\nbb\nccc\ndddddddd\ne", 10, 1024));
+    Assertions.assertEquals(Arrays.asList("a\n", "bb\n"), chunks("a\nbb\n", 2, 1024));
+    Assertions.assertEquals(Arrays.asList(), chunks("", 2, 1024));
+  }
+
+  @Test
+  public void testMapsRegionsAtLineBoundaries() throws IOException {
+    Assertions.assertEquals(Arrays.asList("a\nbb\n", "ccc\n", "dd\n", "e\nff"),
+        chunks("a\nbb\nccc\ndd\ne\nff", 6, 7));
+    Assertions.assertThrows(IOException.class, () -> chunks("a\nbbbbbbbbbb\nc", 4, 7));
+  }
+
+  private List<String> chunks(final String content, final int chunkSize, final long regionSize)
+      throws IOException {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    List<String> chunks = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(file)) {
+      LineChunker chunker = new LineChunker(channel, chunkSize, regionSize);
+      for (ByteBuffer chunk = chunker.next(); chunk != null; chunk = chunker.next()) {
+        chunks.add(StandardCharsets.UTF_8.decode(chunk).toString());
+      }
+    }
+    return chunks;
+  }
+}
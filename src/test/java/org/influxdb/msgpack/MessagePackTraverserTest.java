@@ -1,14 +1,22 @@
 package org.influxdb.msgpack;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
+import org.influxdb.InfluxDBException;
 import org.influxdb.dto.QueryResult;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
 import org.junit.platform.runner.JUnitPlatform;
 import org.junit.runner.RunWith;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+import org.mockito.Mockito;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -75,4 +83,136 @@ public class MessagePackTraverserTest {
     assertNull(queryResult.getResults().get(0).getSeries());
     
   }
+
+  @Test
+  public void testParseTagsErrorsAndUnknownKeys() throws IOException {
+    MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+    packer.packMapHeader(1).packString("results").packArrayHeader(2);
+    // first result: one series with tags, an unknown key and a nil cell
+    packer.packMapHeader(3);
+    packer.packString("statement_id").packInt(0);
+    packer.packString("series").packArrayHeader(1);
+    packer.packMapHeader(5);
+    packer.packString("name").packString("cpu");
+    packer.packString("tags").packMapHeader(1).packString("host").packString("server01");
+    packer.packString("columns").packArrayHeader(3).packString("time").packString("idle").packString("busy");
+    packer.packString("values").packArrayHeader(1).packArrayHeader(3).packLong(-(1L << 40)).packDouble(0.5).packNil();
+    packer.packString("partial").packBoolean(true);
+    packer.packString("messages").packArrayHeader(1).packMapHeader(1).packString("level").packString("warning");
+    // second result: error only
+    packer.packMapHeader(2);
+    packer.packString("statement_id").packInt(1);
+    packer.packString("error").packString("database not found: mydb");
+    packer.close();
+
+    MessagePackTraverser traverser = new MessagePackTraverser();
+    QueryResult queryResult = traverser.parse(new ByteArrayInputStream(packer.toByteArray()));
+
+    assertNull(queryResult.getError());
+    assertEquals(2, queryResult.getResults().size());
+    QueryResult.Series series = queryResult.getResults().get(0).getSeries().get(0);
+    assertEquals("cpu", series.getName());
+    assertEquals("server01", series.getTags().get("host"));
+    assertEquals(3, series.getColumns().size());
+    List<Object> row = series.getValues().get(0);
+    assertEquals(-(1L << 40), row.get(0));
+    assertEquals(0.5, row.get(1));
+    assertNull(row.get(2));
+    assertNull(queryResult.getResults().get(1).getSeries());
+    assertEquals("database not found: mydb", queryResult.getResults().get(1).getError());
+  }
+
+  @Test
+  public void testRejectsTimeExtensionsOfTheWrongLength() throws IOException {
+    MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+    packer.packMapHeader(1).packString("results").packArrayHeader(1);
+    packer.packMapHeader(2);
+    packer.packString("statement_id").packInt(0);
+    packer.packString("series").packArrayHeader(1);
+    packer.packMapHeader(3);
+    packer.packString("name").packString("cpu");
+    packer.packString("columns").packArrayHeader(1).packString("time");
+    packer.packString("values").packArrayHeader(1).packArrayHeader(1);
+    packer.packExtensionTypeHeader((byte) 5, 8).addPayload(new byte[8]);
+    packer.close();
+    byte[] bytes = packer.toByteArray();
+
+    MessagePackTraverser traverser = new MessagePackTraverser();
+    MessagePackTraverser.RowVisitor visitor = Mockito.mock(MessagePackTraverser.RowVisitor.class);
+    InfluxDBException parsed = assertThrows(InfluxDBException.class,
+        () -> traverser.parse(new ByteArrayInputStream(bytes)));
+    InfluxDBException visited = assertThrows(InfluxDBException.class,
+        () -> traverser.parse(new ByteArrayInputStream(bytes), visitor));
+
+    assertTrue(parsed.getMessage().contains("Time extension of 8 bytes"));
+    assertTrue(visited.getMessage().contains("Time extension of 8 bytes"));
+    Mockito.verify(visitor, Mockito.never()).nullValue(Mockito.anyInt());
+  }
+
+  @Test
+  public void testTraverseWithRowVisitor() {
+    MessagePackTraverser traverser = new MessagePackTraverser();
+    List<Long> times = new ArrayList<>();
+    List<Object> tags = new ArrayList<>();
+    List<Long> free = new ArrayList<>();
+    int[] rows = new int[1];
+
+    MessagePackTraverser.RowVisitor visitor = new MessagePackTraverser.RowVisitor() {
+      @Override
+      public void series(final QueryResult.Series series) {
+        assertEquals("disk", series.getName());
+        assertNull(series.getValues());
+      }
+
+      @Override
+      public void nullValue(final int column) {
+      }
+
+      @Override
+      public void booleanValue(final int column, final boolean value) {
+      }
+
+      @Override
+      public void longValue(final int column, final long value) {
+        if (column == 2) {
+          free.add(value);
+        }
+      }
+
+      @Override
+      public void doubleValue(final int column, final double value) {
+      }
+
+      @Override
+      public void stringValue(final int column, final String value) {
+        tags.add(value);
+      }
+
+      @Override
+      public void timeValue(final int column, final long epochNanos) {
+        times.add(epochNanos);
+      }
+
+      @Override
+      public void objectValue(final int column, final Object value) {
+      }
+
+      @Override
+      public void endRow() {
+        rows[0]++;
+      }
+    };
+
+    int chunks = 0;
+    for (QueryResult result : traverser.traverse(MessagePackTraverserTest.class.getResourceAsStream("msgpack_1.bin"), visitor)) {
+      assertNull(result.getError());
+      chunks++;
+    }
+
+    assertEquals(2, chunks);
+    assertEquals(3, rows[0]);
+    assertEquals(Long.valueOf(1532325083803052600L), times.get(0));
+    assertEquals(Arrays.asList("a", "b", "c"), tags);
+    assertEquals(Arrays.asList(1L, 2L, 3L), free);
+  }
 }
@@ -6,6 +6,8 @@ import static org.influxdb.querybuilder.Operations.MUL;
 import static org.influxdb.querybuilder.Operations.SUB;
 import static org.influxdb.querybuilder.time.DurationLiteral.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -24,6 +26,35 @@ public class BuiltQueryTest {
     assertEquals("SELECT+MAX%28test1%29+AS+hello+FROM+foobar%3B", encoded);
   }
 
+  @Test
+  public void testEqualsAndHashCode() {
+    Query queryA0 = select().max("test1").from(DATABASE, "foobar");
+    Query queryA1 = select().max("test1").from(DATABASE, "foobar");
+    Query queryB0 = select().min("test1").from(DATABASE, "foobar");
+
+    assertEquals(queryA0, queryA1);
+    assertEquals(queryA0.hashCode(), queryA1.hashCode());
+    assertNotEquals(queryA0, queryB0);
+  }
+
+  @Test
+  public void testFreeze() {
+    SelectQueryImpl select = select().requiresPost().max("test1").from(DATABASE, "foobar");
+    WhereQueryImpl<SelectQueryImpl> where = select.where(eq("host", "server01"));
+    FrozenQuery frozen = where.freeze();
+
+    where.and(eq("region", "us-west"));
+
+    assertEquals("SELECT MAX(test1) FROM foobar WHERE host = 'server01';", frozen.getCommand());
+    assertEquals(Query.encode(frozen.getCommand()), frozen.getCommandWithUrlEncoded());
+    assertSame(frozen.getCommandWithUrlEncoded(), frozen.getCommandWithUrlEncoded());
+    assertEquals(DATABASE, frozen.getDatabase());
+    assertTrue(frozen.requiresPost());
+    assertTrue(where.requiresPost());
+    assertSame(frozen, frozen.freeze());
+    assertEquals("SELECT MAX(test1) FROM foobar WHERE host = 'server01'", frozen.buildQueryString().toString());
+  }
+
   @Test
   public void testQueryWithoutTable() {
     final String[] tables = null;
@@ -0,0 +1,114 @@
+package org.influxdb.querybuilder;
+
+import static org.influxdb.querybuilder.BuiltQuery.QueryBuilder.*;
+import static org.influxdb.querybuilder.time.DurationLiteral.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.influxdb.dto.Query;
+import org.junit.jupiter.api.Test;
+
+public class SlidingWindowTest {
+
+  private static final String DATABASE = "testdb";
+
+  @Test
+  public void testRecognizesSlidingWindow() {
+    Query query =
+        select()
+            .mean("value")
+            .from(DATABASE, "cpu")
+            .where(eq("host", "server01"))
+            .and(gt("time", subTime(1L, HOUR)))
+            .and(regex("region", "/us-.*/"))
+            .groupBy(time(1L, MINUTE), "host")
+            .fill(0);
+
+    Optional<SlidingWindow> window = SlidingWindow.of(query);
+
+    assertTrue(window.isPresent());
+    assertEquals(TimeUnit.HOURS.toNanos(1), window.get().getRangeNanos());
+    assertEquals(TimeUnit.MINUTES.toNanos(1), window.get().getIntervalNanos());
+    assertEquals(
+        "SELECT MEAN(value) FROM cpu WHERE host = 'server01' AND time > now() - 1h AND region =~ /us-.*/"
+            + " AND time < 100 GROUP BY time(1m),host fill(0); "
+            + "SELECT MEAN(value) FROM cpu WHERE host = 'server01' AND time >= 200 AND region =~ /us-.*/"
+            + " GROUP BY time(1m),host fill(0);",
+        window.get().incrementalQuery(100, 200).getCommand());
+    assertEquals(DATABASE, window.get().incrementalQuery(100, 200).getDatabase());
+  }
+
+  @Test
+  public void testRecognizesWhereQuery() {
+    Query query = select().max("value").from(DATABASE, "cpu").where(gte("time", subTime(2L, DAY)));
+    assertFalse(SlidingWindow.of(query).isPresent());
+
+    ((WhereQueryImpl<?>) query).groupBy(time(30L, SECOND));
+    assertTrue(SlidingWindow.of(query).isPresent());
+  }
+
+  @Test
+  public void testRejectsFunctionsOverSeveralIntervals() {
+    assertTrue(SlidingWindow.of(select().function("percentile", "value", 95).as("p95").max("value").from(DATABASE,
+        "cpu").where(gt("time", subTime(1L, HOUR))).groupBy(time(1L, MINUTE))).isPresent());
+    assertTrue(SlidingWindow.of(select().countAll().from(DATABASE, "cpu")
+        .where(gt("time", subTime(1L, HOUR))).groupBy(time(1L, MINUTE))).isPresent());
+    assertFalse(SlidingWindow.of(select().function("derivative", FunctionFactory.mean("value")).from(DATABASE,
+        "cpu").where(gt("time", subTime(1L, HOUR))).groupBy(time(1L, MINUTE))).isPresent());
+    assertFalse(SlidingWindow.of(select().function("cumulative_sum", FunctionFactory.mean("value")).from(DATABASE,
+        "cpu").where(gt("time", subTime(1L, HOUR))).groupBy(time(1L, MINUTE))).isPresent());
+    assertFalse(SlidingWindow.of(select().mean("value").raw("difference(max(value))").from(DATABASE, "cpu")
+        .where(gt("time", subTime(1L, HOUR))).groupBy(time(1L, MINUTE))).isPresent());
+  }
+
+  @Test
+  public void testRejectsOtherStatements() {
+    assertFalse(SlidingWindow.of(new Query("SELECT MEAN(value) FROM cpu WHERE time > now() - 1h GROUP BY time(1m)",
+        DATABASE)).isPresent());
+    assertFalse(SlidingWindow.of(select().mean("value").from(DATABASE, "cpu")
+        .where(gt("time", subTime(1L, HOUR))).and(lt("time", subTime(5L, MINUTE)))
+        .groupBy(time(1L, MINUTE))).isPresent());
+    assertFalse(SlidingWindow.of(select().mean("value").from(DATABASE, "cpu")
+        .where(eq("host", "a")).or(gt("time", subTime(1L, HOUR)))
+        .groupBy(time(1L, MINUTE))).isPresent());
+    assertFalse(SlidingWindow.of(select().mean("value").from(DATABASE, "cpu")
+        .where(gt("time", addTime(1L, HOUR)))
+        .groupBy(time(1L, MINUTE))).isPresent());
+    assertFalse(SlidingWindow.of(select().mean("value").from(DATABASE, "cpu")
+        .where(gt("time", subTime(1L, HOUR)))
+        .groupBy(time(1L, MINUTE, 15L, SECOND))).isPresent());
+    assertFalse(SlidingWindow.of(select().mean("value").from(DATABASE, "cpu")
+        .where(gt("time", subTime(1L, HOUR)))
+        .groupBy(time(1L, MINUTE)).fill("previous")).isPresent());
+    assertFalse(SlidingWindow.of(select().mean("value").from(DATABASE, "cpu")
+        .where(gt("time", subTime(1L, HOUR)))
+        .groupBy(time(1L, MINUTE)).limit(10)).isPresent());
+    assertFalse(SlidingWindow.of(select().mean("value").into("cpu_1m").from(DATABASE, "cpu")
+        .where(gt("time", subTime(1L, HOUR)))
+        .groupBy(time(1L, MINUTE))).isPresent());
+    assertFalse(SlidingWindow.of(select().mean("value").from(DATABASE, "cpu")
+        .where("time > now() - 1h")
+        .groupBy(time(1L, MINUTE))).isPresent());
+  }
+
+  @Test
+  public void testFrozenQueryKeepsSlidingWindow() {
+    WhereQueryImpl<SelectQueryImpl> where = select().mean("value").from(DATABASE, "cpu")
+        .where(gt("time", subTime(1L, HOUR)));
+    SelectQueryImpl query = where.groupBy(time(1L, MINUTE));
+    FrozenQuery frozen = query.freeze();
+    where.and(eq("host", "server01"));
+
+    Optional<SlidingWindow> window = SlidingWindow.of(frozen);
+
+    assertTrue(window.isPresent());
+    assertEquals(
+        "SELECT MEAN(value) FROM cpu WHERE time > now() - 1h AND time < 100 GROUP BY time(1m); "
+            + "SELECT MEAN(value) FROM cpu WHERE time >= 200 GROUP BY time(1m);",
+        window.get().incrementalQuery(100, 200).getCommand());
+    assertFalse(SlidingWindow.of(select().from(DATABASE, "cpu").freeze()).isPresent());
+  }
+}
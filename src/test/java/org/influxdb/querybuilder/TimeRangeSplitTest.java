@@ -0,0 +1,100 @@
+package org.influxdb.querybuilder;
+
+import static org.influxdb.querybuilder.BuiltQuery.QueryBuilder.*;
+import static org.influxdb.querybuilder.time.DurationLiteral.MINUTE;
+import static org.influxdb.querybuilder.time.DurationLiteral.SECOND;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.influxdb.dto.Query;
+import org.junit.jupiter.api.Test;
+
+public class TimeRangeSplitTest {
+
+  private static final String DATABASE = "testdb";
+  private static final Instant FROM = Instant.ofEpochSecond(0);
+
+  @Test
+  public void testSplitsRawQuery() {
+    Query query = select("value", "host").from(DATABASE, "cpu").where(eq("host", "server01"))
+        .orderBy(desc()).limit(10, 5);
+
+    TimeRangeSplit split = TimeRangeSplit.of(query, FROM, FROM.plusNanos(300), 3);
+
+    assertEquals(
+        "SELECT value,host FROM cpu WHERE host = 'server01' AND time >= 0 AND time < 100 ORDER BY time DESC LIMIT 15;"
+            + "SELECT value,host FROM cpu WHERE host = 'server01' AND time >= 100 AND time < 200 ORDER BY time DESC"
+            + " LIMIT 15;"
+            + "SELECT value,host FROM cpu WHERE host = 'server01' AND time >= 200 AND time < 300 ORDER BY time DESC"
+            + " LIMIT 15;",
+        commands(split));
+    assertEquals(DATABASE, split.getQueries().get(0).getDatabase());
+    assertTrue(split.isDescending());
+    assertEquals(10, split.getLimit().intValue());
+    assertEquals(5, split.getOffset());
+  }
+
+  @Test
+  public void testAlignsSubRangesToGroupByIntervals() {
+    Query query = select().mean("value").from(DATABASE, "cpu").where(eq("host", "a")).or(eq("host", "b"))
+        .groupBy(time(1L, MINUTE, 15L, SECOND), "host").fill(0);
+
+    TimeRangeSplit split = TimeRangeSplit.of(query, FROM.plusSeconds(10), FROM.plusSeconds(250), 2);
+
+    assertEquals(
+        "SELECT MEAN(value) FROM cpu WHERE (host = 'a' OR host = 'b') AND time >= 10000000000"
+            + " AND time < 75000000000 GROUP BY time(1m,15s),host fill(0);"
+            + "SELECT MEAN(value) FROM cpu WHERE (host = 'a' OR host = 'b') AND time >= 75000000000"
+            + " AND time < 250000000000 GROUP BY time(1m,15s),host fill(0);",
+        commands(split));
+    assertFalse(split.isDescending());
+    assertNull(split.getLimit());
+
+    TimeRangeSplit fewer = TimeRangeSplit.of(query, FROM, FROM.plusSeconds(90), 10);
+    assertEquals(3, fewer.getQueries().size());
+  }
+
+  @Test
+  public void testRejectsStatementsThatCannotBeSplit() {
+    Instant to = FROM.plusSeconds(60);
+    assertThrows(IllegalArgumentException.class,
+        () -> TimeRangeSplit.of(new Query("SELECT * FROM cpu", DATABASE), FROM, to, 2));
+    assertThrows(IllegalArgumentException.class,
+        () -> TimeRangeSplit.of(select().mean("value").from(DATABASE, "cpu"), FROM, to, 2));
+    assertThrows(IllegalArgumentException.class,
+        () -> TimeRangeSplit.of(select().mean("value").from(DATABASE, "cpu").groupBy(time(1L, MINUTE))
+            .fill("previous"), FROM, to, 2));
+    assertThrows(IllegalArgumentException.class,
+        () -> TimeRangeSplit.of(select().function("cumulative_sum", FunctionFactory.mean("value"))
+            .from(DATABASE, "cpu").groupBy(time(1L, MINUTE)), FROM, to, 2));
+    assertThrows(IllegalArgumentException.class,
+        () -> TimeRangeSplit.of(select().function("derivative", FunctionFactory.max("value"), new RawText("1m"))
+            .from(DATABASE, "cpu").groupBy(time(1L, MINUTE)), FROM, to, 2));
+    assertThrows(IllegalArgumentException.class,
+        () -> TimeRangeSplit.of(select().raw("moving_average(mean(value), 3)").from(DATABASE, "cpu")
+            .groupBy(time(1L, MINUTE)), FROM, to, 2));
+    assertEquals(1, TimeRangeSplit.of(select().function("percentile", "value", 99).from(DATABASE, "cpu")
+        .groupBy(time(1L, MINUTE)), FROM, to, 2).getQueries().size());
+    assertThrows(IllegalArgumentException.class,
+        () -> TimeRangeSplit.of(select().from(DATABASE, "cpu").sLimit(1), FROM, to, 2));
+    assertThrows(IllegalArgumentException.class,
+        () -> TimeRangeSplit.of(select().into("cpu_copy").from(DATABASE, "cpu"), FROM, to, 2));
+    assertThrows(IllegalArgumentException.class,
+        () -> TimeRangeSplit.of(select().from(DATABASE, "cpu"), to, FROM, 2));
+    assertThrows(IllegalArgumentException.class,
+        () -> TimeRangeSplit.of(select().from(DATABASE, "cpu"), FROM, to, 0));
+    assertEquals(1, TimeRangeSplit.of(select().column("value").as("v").from(DATABASE, "cpu"), FROM, to, 1)
+        .getQueries().size());
+  }
+
+  private static String commands(final TimeRangeSplit split) {
+    List<Query> queries = split.getQueries();
+    return queries.stream().map(Query::getCommand).collect(Collectors.joining());
+  }
+}